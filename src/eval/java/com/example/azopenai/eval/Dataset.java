@@ -0,0 +1,91 @@
+package com.example.azopenai.eval;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A labeled retrieval set in the BEIR layout: {@code corpus.jsonl}
+ * ({@code _id}, {@code title}, {@code text}), {@code queries.jsonl}
+ * ({@code _id}, {@code text}) and {@code qrels/test.tsv} (query id, document
+ * id, graded relevance, with a header line). Only queries with at least one
+ * positive judgment are kept.
+ */
+record Dataset(String name, List<Doc> documents, List<Query> queries) {
+
+    /** Classpath location of the bundled sample set. */
+    static final String SAMPLE = "eval/sample";
+
+    record Doc(String id, String text) {
+    }
+
+    /** A query and its judged documents: id to relevance grade (positive only). */
+    record Query(String id, String text, Map<String, Integer> relevant) {
+    }
+
+    int judgments() {
+        return queries.stream().mapToInt(query -> query.relevant().size()).sum();
+    }
+
+    /** Load a BEIR directory, or the bundled sample when {@code dir} is null. */
+    static Dataset load(String dir) {
+        JsonMapper json = JsonMapper.builder().build();
+        List<Doc> documents = new ArrayList<>();
+        for (String line : lines(dir, "corpus.jsonl")) {
+            JsonNode doc = json.readTree(line);
+            String title = doc.path("title").asString("");
+            String text = doc.path("text").asString("");
+            documents.add(new Doc(doc.path("_id").asString(), title.isBlank() ? text : title + ". " + text));
+        }
+
+        Map<String, Map<String, Integer>> qrels = new HashMap<>();
+        List<String> qrelLines = lines(dir, "qrels/test.tsv");
+        for (String line : qrelLines.subList(1, qrelLines.size())) {
+            String[] fields = line.split("\t");
+            int grade = Integer.parseInt(fields[2].trim());
+            if (grade > 0) {
+                qrels.computeIfAbsent(fields[0], id -> new LinkedHashMap<>()).put(fields[1], grade);
+            }
+        }
+
+        List<Query> queries = new ArrayList<>();
+        for (String line : lines(dir, "queries.jsonl")) {
+            JsonNode query = json.readTree(line);
+            Map<String, Integer> relevant = qrels.get(query.path("_id").asString());
+            if (relevant != null) {
+                queries.add(new Query(query.path("_id").asString(), query.path("text").asString(), relevant));
+            }
+        }
+        if (documents.isEmpty() || queries.isEmpty()) {
+            throw new IllegalArgumentException("No documents or no judged queries in " + (dir != null ? dir : SAMPLE));
+        }
+        return new Dataset(dir != null ? Path.of(dir).getFileName().toString() : "sample", documents, queries);
+    }
+
+    private static List<String> lines(String dir, String file) {
+        try (InputStream in = dir != null
+                ? Files.newInputStream(Path.of(dir, file))
+                : Dataset.class.getClassLoader().getResourceAsStream(SAMPLE + "/" + file)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Missing " + SAMPLE + "/" + file + " on the classpath");
+            }
+            var reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            return reader.lines().filter(line -> !line.isBlank()).toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + file + " of " + dir, e);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.azopenai.eval;
+
+import com.example.azopenai.config.SearchProperties;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Offline retrieval evaluation: indexes a labeled query/document set with the
+ * deterministic {@link HashingEmbedder}, runs every query through each
+ * {@link Retriever} mode and reports recall@k, MRR@k and nDCG@k next to query
+ * latency (p50/p99), index build time and memory. The report is written as
+ * JSON so runs can be compared across releases; with {@code baseline} the
+ * run fails when a quality metric drops by more than {@code max-drop}.
+ *
+ * <pre>
+ * ./mvnw -Peval test-compile exec:exec
+ * ./mvnw -Peval test-compile exec:exec -Deval.args="--dataset=/data/scifact --k=10,100 --baseline=eval/main.json"
+ * </pre>
+ *
+ * Options ({@code --name=value}): {@code dataset} (BEIR directory; default the
+ * bundled sample), {@code modes}, {@code k} (comma-separated), {@code dimensions},
+ * {@code rerank-depth}, {@code rrf-k}, {@code repeat}, {@code label},
+ * {@code out}, {@code baseline}, {@code max-drop}.
+ */
+public final class Evaluation {
+
+    private static final List<String> QUALITY = List.of("recall", "mrr", "ndcg");
+
+    private Evaluation() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        Dataset dataset = Dataset.load(options.remove("dataset"));
+        List<String> modes = list(option(options, "modes", "dense,colbert,hybrid-rrf,hybrid-rerank"));
+        int[] ks = list(option(options, "k", "1,5,10")).stream().mapToInt(Integer::parseInt).sorted().toArray();
+        var embedder = new HashingEmbedder(Integer.parseInt(option(options, "dimensions", "384")));
+        int rerankDepth = Integer.parseInt(option(options, "rerank-depth", "100"));
+        int rrfK = Integer.parseInt(option(options, "rrf-k", String.valueOf(new SearchProperties().getRrfK())));
+        int repeat = Integer.parseInt(option(options, "repeat", "5"));
+        String label = option(options, "label", "local");
+        Path out = Path.of(option(options, "out", "target/eval/report.json"));
+        String baseline = options.remove("baseline");
+        double maxDrop = Double.parseDouble(option(options, "max-drop", "0.01"));
+        if (!options.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + options.keySet());
+        }
+
+        System.out.printf("Dataset %s: %d documents, %d queries, %d judgments; embedder %s%n",
+                dataset.name(), dataset.documents().size(), dataset.queries().size(), dataset.judgments(),
+                embedder.name());
+
+        // Loads classes and warms the JIT for every mode, so the first one measured is not penalized
+        var warmup = new Dataset(dataset.name(),
+                dataset.documents().subList(0, Math.min(50, dataset.documents().size())),
+                dataset.queries().subList(0, Math.min(10, dataset.queries().size())));
+        for (String mode : modes) {
+            evaluate(Retriever.of(mode, embedder, rerankDepth, rrfK), warmup, ks, 1);
+        }
+
+        Map<String, ModeResult> results = new LinkedHashMap<>();
+        for (String mode : modes) {
+            results.put(mode, evaluate(Retriever.of(mode, embedder, rerankDepth, rrfK), dataset, ks, repeat));
+        }
+
+        var report = new Report(label, Instant.now().toString(), System.getProperty("java.version"),
+                new Report.Embedder(embedder.name(), embedder.dimensions()),
+                new Report.DatasetInfo(dataset.name(), dataset.documents().size(), dataset.queries().size(),
+                        dataset.judgments()),
+                Arrays.stream(ks).boxed().toList(), rerankDepth, rrfK, repeat, results);
+        print(report);
+
+        JsonMapper json = JsonMapper.builder().enable(SerializationFeature.INDENT_OUTPUT).build();
+        Files.createDirectories(out.toAbsolutePath().getParent());
+        Files.writeString(out, json.writeValueAsString(report));
+        System.out.printf("%nReport written to %s%n", out);
+
+        if (baseline != null && !compare(report, json.readTree(Files.readString(Path.of(baseline))), maxDrop)) {
+            System.exit(1);
+        }
+    }
+
+    private static ModeResult evaluate(Retriever retriever, Dataset dataset, int[] ks, int repeat) {
+        long heapBefore = usedHeap();
+        long buildStart = System.nanoTime();
+        retriever.index(dataset.documents());
+        double buildMs = (System.nanoTime() - buildStart) / 1e6;
+        long heapBytes = Math.max(0, usedHeap() - heapBefore);
+
+        int depth = ks[ks.length - 1];
+        List<Dataset.Query> queries = dataset.queries();
+        List<List<String>> rankings = new ArrayList<>();
+        for (Dataset.Query query : queries) {
+            rankings.add(retriever.search(query.text(), depth));
+        }
+
+        // The pass above is the warmup; only the repeats are timed
+        long[] latencies = new long[queries.size() * repeat];
+        int n = 0;
+        for (int r = 0; r < repeat; r++) {
+            for (Dataset.Query query : queries) {
+                long start = System.nanoTime();
+                retriever.search(query.text(), depth);
+                latencies[n++] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(latencies);
+
+        Map<String, Double> quality = new LinkedHashMap<>();
+        for (String metric : QUALITY) {
+            for (int k : ks) {
+                double sum = 0;
+                for (int q = 0; q < queries.size(); q++) {
+                    Map<String, Integer> relevant = queries.get(q).relevant();
+                    sum += switch (metric) {
+                        case "recall" -> Metrics.recall(rankings.get(q), relevant, k);
+                        case "mrr" -> Metrics.reciprocalRank(rankings.get(q), relevant, k);
+                        default -> Metrics.ndcg(rankings.get(q), relevant, k);
+                    };
+                }
+                quality.put(metric + "@" + k, sum / queries.size());
+            }
+        }
+
+        return new ModeResult(quality,
+                new ModeResult.Latency(percentile(latencies, 0.50), percentile(latencies, 0.99),
+                        Arrays.stream(latencies).average().orElse(0) / 1e6, latencies.length),
+                new ModeResult.Index(buildMs, retriever.vectorBytes(), heapBytes));
+    }
+
+    /** Heap in use after a full collection; approximate, used for the index footprint. */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+
+    private static void print(Report report) {
+        List<String> metrics = new ArrayList<>();
+        for (String metric : QUALITY) {
+            for (int k : report.k()) {
+                metrics.add(metric + "@" + k);
+            }
+        }
+        System.out.printf("%n%-14s", "mode");
+        metrics.forEach(metric -> System.out.printf(" %9s", metric));
+        System.out.printf(" %9s %9s %9s %10s %10s%n", "p50 ms", "p99 ms", "build ms", "vectors MB", "heap MB");
+        report.modes().forEach((mode, result) -> {
+            System.out.printf("%-14s", mode);
+            metrics.forEach(metric -> System.out.printf(" %9.3f", result.quality().get(metric)));
+            System.out.printf(" %9.3f %9.3f %9.1f %10.2f %10.2f%n", result.latency().p50Ms(),
+                    result.latency().p99Ms(), result.index().buildMs(),
+                    result.index().vectorBytes() / (1024.0 * 1024), result.index().heapBytes() / (1024.0 * 1024));
+        });
+    }
+
+    /**
+     * Print the change of every metric against a baseline report.
+     *
+     * @return false if a quality metric dropped by more than {@code maxDrop}
+     */
+    private static boolean compare(Report report, JsonNode baseline, double maxDrop) {
+        System.out.printf("%nAgainst baseline %s (%s):%n", baseline.path("label").asString(),
+                baseline.path("timestamp").asString());
+        if (!report.embedder().name().equals(baseline.path("embedder").path("name").asString())
+                || !report.dataset().name().equals(baseline.path("dataset").path("name").asString())) {
+            System.out.printf("  note: baseline used embedder %s on dataset %s%n",
+                    baseline.path("embedder").path("name").asString(), baseline.path("dataset").path("name").asString());
+        }
+        boolean ok = true;
+        for (var entry : report.modes().entrySet()) {
+            JsonNode base = baseline.path("modes").path(entry.getKey());
+            if (base.isMissingNode()) {
+                System.out.printf("  %-14s not in baseline%n", entry.getKey());
+                continue;
+            }
+            int changed = 0;
+            for (var metric : entry.getValue().quality().entrySet()) {
+                JsonNode before = base.path("quality").path(metric.getKey());
+                double delta = metric.getValue() - before.asDouble();
+                if (before.isMissingNode() || Math.abs(delta) < 5e-4) {
+                    continue;
+                }
+                boolean regressed = delta < -maxDrop;
+                ok &= !regressed;
+                changed++;
+                System.out.printf("  %-14s %-10s %.3f -> %.3f (%+.3f)%s%n", entry.getKey(), metric.getKey(),
+                        before.asDouble(), metric.getValue(), delta, regressed ? "  REGRESSION" : "");
+            }
+            if (changed == 0) {
+                System.out.printf("  %-14s quality unchanged%n", entry.getKey());
+            }
+            double p50 = base.path("latency").path("p50Ms").asDouble();
+            double p99 = base.path("latency").path("p99Ms").asDouble();
+            System.out.printf("  %-14s p50 %.3f -> %.3f ms, p99 %.3f -> %.3f ms%n", entry.getKey(),
+                    p50, entry.getValue().latency().p50Ms(), p99, entry.getValue().latency().p99Ms());
+        }
+        if (!ok) {
+            System.out.printf("%nQuality dropped by more than %.3f%n", maxDrop);
+        }
+        return ok;
+    }
+
+    // ── Options ──
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    private static String option(Map<String, String> options, String name, String defaultValue) {
+        String value = options.remove(name);
+        return value != null ? value : defaultValue;
+    }
+
+    private static List<String> list(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+
+    /** The machine-readable report. */
+    record Report(String label, String timestamp, String java, Embedder embedder, DatasetInfo dataset,
+            List<Integer> k, int rerankDepth, int rrfK, int repeat, Map<String, ModeResult> modes) {
+
+        record Embedder(String name, int dimensions) {
+        }
+
+        record DatasetInfo(String name, int documents, int queries, int judgments) {
+        }
+    }
+
+    /** Results of one mode: quality by {@code metric@k}, query latency and index footprint. */
+    record ModeResult(Map<String, Double> quality, Latency latency, Index index) {
+
+        record Latency(double p50Ms, double p99Ms, double meanMs, int samples) {
+        }
+
+        record Index(double buildMs, long vectorBytes, long heapBytes) {
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.azopenai.eval;
+
+import com.example.azopenai.tokenizer.TokenBuffer;
+import com.example.azopenai.tokenizer.WhitespaceTokenizer;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Deterministic local embedder for offline evaluation: signed feature hashing
+ * of each word and of its character trigrams (so inflections share features)
+ * into a fixed number of dimensions, L2-normalized. The same text always gives
+ * the same vectors on every machine and release, so metric changes come from
+ * retrieval code, not from a model.
+ *
+ * <p>
+ * Per-token vectors stand in for ColBERT token embeddings; the text vector is
+ * the normalized sum of its token vectors. Tokens are whitespace-separated,
+ * lower-cased and stripped of surrounding punctuation; tokens left empty are
+ * dropped.
+ * </p>
+ */
+final class HashingEmbedder {
+
+    private static final float WORD_WEIGHT = 1.0f;
+    private static final float TRIGRAM_WEIGHT = 0.35f;
+
+    private final int dimensions;
+    private final HashFunction hash = Hashing.murmur3_32_fixed(0x5eed);
+    private final WhitespaceTokenizer tokenizer = new WhitespaceTokenizer();
+
+    HashingEmbedder(int dimensions) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("dimensions must be positive, got " + dimensions);
+        }
+        this.dimensions = dimensions;
+    }
+
+    String name() {
+        return "hashing-words-trigrams-" + dimensions;
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    /** One normalized vector for the whole text. */
+    float[] embed(String text) {
+        float[] sum = new float[dimensions];
+        for (float[] token : embedTokens(text).vectors()) {
+            for (int i = 0; i < dimensions; i++) {
+                sum[i] += token[i];
+            }
+        }
+        return normalize(sum);
+    }
+
+    /** One normalized vector per token. */
+    Tokens embedTokens(String text) {
+        var buffer = new TokenBuffer();
+        tokenizer.encode(text, buffer);
+        List<String> tokens = new ArrayList<>(buffer.size());
+        List<float[]> vectors = new ArrayList<>(buffer.size());
+        for (int t = 0; t < buffer.size(); t++) {
+            String token = normalizeToken(buffer.text(t, text));
+            if (!token.isEmpty()) {
+                tokens.add(token);
+                vectors.add(embedToken(token));
+            }
+        }
+        return new Tokens(tokens, vectors);
+    }
+
+    private float[] embedToken(String token) {
+        float[] vector = new float[dimensions];
+        add(vector, "w:" + token, WORD_WEIGHT);
+        String padded = "<" + token + ">";
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            add(vector, "t:" + padded.substring(i, i + 3), TRIGRAM_WEIGHT);
+        }
+        return normalize(vector);
+    }
+
+    private void add(float[] vector, String feature, float weight) {
+        int h = hash.hashString(feature, StandardCharsets.UTF_8).asInt();
+        // Low bits pick the dimension, the top bit the sign
+        vector[Math.floorMod(h & 0x7fffffff, dimensions)] += h < 0 ? -weight : weight;
+    }
+
+    private static String normalizeToken(String raw) {
+        int start = 0;
+        int end = raw.length();
+        while (start < end && !Character.isLetterOrDigit(raw.charAt(start))) {
+            start++;
+        }
+        while (end > start && !Character.isLetterOrDigit(raw.charAt(end - 1))) {
+            end--;
+        }
+        return raw.substring(start, end).toLowerCase(Locale.ROOT);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    /** Tokens of a text and their vectors, in order. */
+    record Tokens(List<String> tokens, List<float[]> vectors) {
+    }
+}
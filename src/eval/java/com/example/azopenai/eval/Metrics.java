@@ -0,0 +1,53 @@
+package com.example.azopenai.eval;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/** Rank-based retrieval metrics of one query, given graded judgments (grade &gt; 0 is relevant). */
+final class Metrics {
+
+    private Metrics() {
+    }
+
+    /** Fraction of the relevant documents found in the first {@code k} results. */
+    static double recall(List<String> ranked, Map<String, Integer> relevant, int k) {
+        long found = ranked.stream().limit(k).filter(relevant::containsKey).count();
+        return (double) found / relevant.size();
+    }
+
+    /** Reciprocal rank of the first relevant result within {@code k}, 0 when there is none. */
+    static double reciprocalRank(List<String> ranked, Map<String, Integer> relevant, int k) {
+        for (int i = 0; i < Math.min(k, ranked.size()); i++) {
+            if (relevant.containsKey(ranked.get(i))) {
+                return 1.0 / (i + 1);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Normalized discounted cumulative gain at {@code k}, with gain
+     * {@code 2^grade - 1} and discount {@code log2(rank + 1)}.
+     */
+    static double ndcg(List<String> ranked, Map<String, Integer> relevant, int k) {
+        double dcg = 0;
+        for (int i = 0; i < Math.min(k, ranked.size()); i++) {
+            dcg += gain(relevant.getOrDefault(ranked.get(i), 0)) / log2(i + 2);
+        }
+        List<Integer> ideal = relevant.values().stream().sorted(Comparator.reverseOrder()).limit(k).toList();
+        double idcg = 0;
+        for (int i = 0; i < ideal.size(); i++) {
+            idcg += gain(ideal.get(i)) / log2(i + 2);
+        }
+        return idcg == 0 ? 0 : dcg / idcg;
+    }
+
+    private static double gain(int grade) {
+        return Math.pow(2, grade) - 1;
+    }
+
+    private static double log2(int x) {
+        return Math.log(x) / Math.log(2);
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.azopenai.eval;
+
+import com.example.azopenai.eval.Dataset.Doc;
+import com.example.azopenai.service.BatchSearchService;
+import com.example.azopenai.service.DocumentSearch.SearchHit;
+import com.example.azopenai.service.LateInteraction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * One retrieval mode under evaluation: builds an in-memory index of the corpus
+ * and returns the ids of the best documents for a query. Scoring is
+ * exhaustive, so the quality numbers are those of the scoring function itself,
+ * without approximate-search loss.
+ */
+interface Retriever {
+
+    String name();
+
+    void index(List<Doc> documents);
+
+    /** Document ids, best first. */
+    List<String> search(String query, int topK);
+
+    /** Bytes of vector data held by the index (floats only, no object overhead). */
+    long vectorBytes();
+
+    /** A retriever by mode name. */
+    static Retriever of(String mode, HashingEmbedder embedder, int rerankDepth, int rrfK) {
+        return switch (mode) {
+            case "dense" -> new Dense(embedder);
+            case "colbert" -> new Colbert(embedder);
+            case "hybrid-rrf" -> new Fused(embedder, rerankDepth, rrfK);
+            case "hybrid-rerank" -> new Rerank(embedder, rerankDepth);
+            default -> throw new IllegalArgumentException(
+                    "Unknown mode " + mode + "; expected dense, colbert, hybrid-rrf or hybrid-rerank");
+        };
+    }
+
+    /** Single-vector cosine similarity, as the {@code documents} collection. */
+    final class Dense implements Retriever {
+        private final HashingEmbedder embedder;
+        private List<Doc> documents;
+        private float[][] vectors;
+
+        Dense(HashingEmbedder embedder) {
+            this.embedder = embedder;
+        }
+
+        @Override
+        public String name() {
+            return "dense";
+        }
+
+        @Override
+        public void index(List<Doc> documents) {
+            this.documents = documents;
+            this.vectors = documents.stream().map(doc -> embedder.embed(doc.text())).toArray(float[][]::new);
+        }
+
+        @Override
+        public List<String> search(String query, int topK) {
+            return ids(documents, top(scores(embedder.embed(query)), topK));
+        }
+
+        double[] scores(float[] query) {
+            double[] scores = new double[vectors.length];
+            for (int d = 0; d < vectors.length; d++) {
+                scores[d] = LateInteraction.cosineSimilarity(query, vectors[d]);
+            }
+            return scores;
+        }
+
+        @Override
+        public long vectorBytes() {
+            return (long) vectors.length * embedder.dimensions() * Float.BYTES;
+        }
+    }
+
+    /** ColBERT late interaction: MaxSim over per-token vectors, as {@code /api/colbert/score}. */
+    final class Colbert implements Retriever {
+        private final HashingEmbedder embedder;
+        private List<Doc> documents;
+        private List<HashingEmbedder.Tokens> tokens;
+
+        Colbert(HashingEmbedder embedder) {
+            this.embedder = embedder;
+        }
+
+        @Override
+        public String name() {
+            return "colbert";
+        }
+
+        @Override
+        public void index(List<Doc> documents) {
+            this.documents = documents;
+            this.tokens = documents.stream().map(doc -> embedder.embedTokens(doc.text())).toList();
+        }
+
+        @Override
+        public List<String> search(String query, int topK) {
+            HashingEmbedder.Tokens q = embedder.embedTokens(query);
+            double[] scores = new double[tokens.size()];
+            for (int d = 0; d < tokens.size(); d++) {
+                scores[d] = score(q, d);
+            }
+            return ids(documents, top(scores, topK));
+        }
+
+        double score(HashingEmbedder.Tokens query, int doc) {
+            HashingEmbedder.Tokens d = tokens.get(doc);
+            return LateInteraction.maxSim(query.tokens(), query.vectors(), d.tokens(), d.vectors()).totalScore();
+        }
+
+        @Override
+        public long vectorBytes() {
+            return tokens.stream().mapToLong(t -> t.vectors().size()).sum() * embedder.dimensions() * Float.BYTES;
+        }
+    }
+
+    /**
+     * Dense and ColBERT rankings of depth {@code depth} merged by reciprocal
+     * rank fusion, as {@code /api/search/batch} with {@code fuse}.
+     */
+    final class Fused implements Retriever {
+        private final Dense dense;
+        private final Colbert colbert;
+        private final int depth;
+        private final int rrfK;
+
+        Fused(HashingEmbedder embedder, int depth, int rrfK) {
+            this.dense = new Dense(embedder);
+            this.colbert = new Colbert(embedder);
+            this.depth = depth;
+            this.rrfK = rrfK;
+        }
+
+        @Override
+        public String name() {
+            return "hybrid-rrf";
+        }
+
+        @Override
+        public void index(List<Doc> documents) {
+            dense.index(documents);
+            colbert.index(documents);
+        }
+
+        @Override
+        public List<String> search(String query, int topK) {
+            List<List<SearchHit>> rankings = List.of(
+                    hits(dense.search(query, Math.max(depth, topK))),
+                    hits(colbert.search(query, Math.max(depth, topK))));
+            return BatchSearchService.fuse(rankings, topK, rrfK).stream().map(SearchHit::documentId).toList();
+        }
+
+        private static List<SearchHit> hits(List<String> ids) {
+            return ids.stream().map(id -> new SearchHit(id, null, Map.of(), null, List.of())).toList();
+        }
+
+        @Override
+        public long vectorBytes() {
+            return dense.vectorBytes() + colbert.vectorBytes();
+        }
+    }
+
+    /** Dense candidates of depth {@code depth} re-ordered by ColBERT MaxSim. */
+    final class Rerank implements Retriever {
+        private final HashingEmbedder embedder;
+        private final Dense dense;
+        private final Colbert colbert;
+        private final int depth;
+        private List<Doc> documents;
+
+        Rerank(HashingEmbedder embedder, int depth) {
+            this.embedder = embedder;
+            this.dense = new Dense(embedder);
+            this.colbert = new Colbert(embedder);
+            this.depth = depth;
+        }
+
+        @Override
+        public String name() {
+            return "hybrid-rerank";
+        }
+
+        @Override
+        public void index(List<Doc> documents) {
+            this.documents = documents;
+            dense.index(documents);
+            colbert.index(documents);
+        }
+
+        @Override
+        public List<String> search(String query, int topK) {
+            int[] candidates = top(dense.scores(embedder.embed(query)), Math.max(depth, topK));
+            HashingEmbedder.Tokens q = embedder.embedTokens(query);
+            double[] scores = new double[documents.size()];
+            Arrays.fill(scores, Double.NEGATIVE_INFINITY);
+            for (int d : candidates) {
+                scores[d] = colbert.score(q, d);
+            }
+            return ids(documents, top(scores, Math.min(topK, candidates.length)));
+        }
+
+        @Override
+        public long vectorBytes() {
+            return dense.vectorBytes() + colbert.vectorBytes();
+        }
+    }
+
+    /** Indexes of the {@code k} highest scores, best first (ties by index). */
+    private static int[] top(double[] scores, int k) {
+        var heap = new PriorityQueue<Integer>(
+                (a, b) -> scores[a] != scores[b] ? Double.compare(scores[a], scores[b]) : Integer.compare(b, a));
+        for (int i = 0; i < scores.length; i++) {
+            heap.add(i);
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+        int[] top = new int[heap.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = heap.poll();
+        }
+        return top;
+    }
+
+    private static List<String> ids(List<Doc> documents, int[] indexes) {
+        List<String> ids = new ArrayList<>(indexes.length);
+        for (int i : indexes) {
+            ids.add(documents.get(i).id());
+        }
+        return ids;
+    }
+}
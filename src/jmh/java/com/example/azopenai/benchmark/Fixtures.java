@@ -0,0 +1,105 @@
+package com.example.azopenai.benchmark;
+
+import com.example.azopenai.tokenizer.ByteSliceTable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic inputs shared by the benchmarks.
+ */
+final class Fixtures {
+
+    private static final String[] WORDS = {
+            "the", "model", "returns", "a", "vector", "for", "each", "token", "in", "query",
+            "document", "similarity", "search", "qdrant", "collection", "image", "summary", "embedding",
+            "late", "interaction", "score", "maximum", "cosine", "retrieval", "context", "window"
+    };
+
+    private Fixtures() {
+    }
+
+    /** Random unit-length vectors, as returned by embedding models. */
+    static List<float[]> vectors(int count, int dimensions, long seed) {
+        var random = new SplittableRandom(seed);
+        List<float[]> vectors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            float[] v = new float[dimensions];
+            double norm = 0;
+            for (int d = 0; d < dimensions; d++) {
+                v[d] = (float) (random.nextDouble() * 2 - 1);
+                norm += v[d] * v[d];
+            }
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int d = 0; d < dimensions; d++) {
+                v[d] *= scale;
+            }
+            vectors.add(v);
+        }
+        return vectors;
+    }
+
+    /** Whitespace-separated English-like text of the given number of words. */
+    static String text(int words, long seed) {
+        var random = new SplittableRandom(seed);
+        var sb = new StringBuilder(words * 8);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sb.append(i % 17 == 0 ? "\n" : " ");
+            }
+            String word = WORDS[random.nextInt(WORDS.length)];
+            sb.append(i % 11 == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+        }
+        return sb.toString();
+    }
+
+    static List<String> tokens(int count) {
+        List<String> tokens = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tokens.add(WORDS[i % WORDS.length]);
+        }
+        return tokens;
+    }
+
+    /**
+     * WordPiece vocabulary covering {@link #text}: {@code [UNK]}, the words,
+     * and every single letter as a word start and {@code ##} continuation.
+     */
+    static List<String> wordPieceVocabulary() {
+        var vocabulary = new LinkedHashSet<String>();
+        vocabulary.add("[UNK]");
+        vocabulary.addAll(List.of(WORDS));
+        for (char c = 'a'; c <= 'z'; c++) {
+            vocabulary.add(String.valueOf(c));
+            vocabulary.add("##" + c);
+        }
+        return new ArrayList<>(vocabulary);
+    }
+
+    /**
+     * BPE ranks covering {@link #text}: every single byte, then each prefix of
+     * each word with and without a leading space, so merges build whole words.
+     */
+    static ByteSliceTable bpeRanks() {
+        var ranks = new ByteSliceTable(1024);
+        int rank = 0;
+        for (int b = 0; b < 256; b++) {
+            ranks.put(new byte[] { (byte) b }, rank++);
+        }
+        for (String word : WORDS) {
+            for (String form : List.of(word, " " + word)) {
+                byte[] bytes = form.getBytes(StandardCharsets.UTF_8);
+                for (int length = 2; length <= bytes.length; length++) {
+                    if (ranks.get(bytes, 0, length) < 0) {
+                        ranks.put(Arrays.copyOf(bytes, length), rank++);
+                    }
+                }
+            }
+        }
+        return ranks;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.azopenai.benchmark;
+
+import com.example.azopenai.service.ColbertService.ColbertScoreResult;
+import com.example.azopenai.service.LateInteraction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MaxSim scoring of one query against one document, at ColBERT-like (128) and
+ * OpenAI-like (1536) dimensions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MaxSimBenchmark {
+
+    @Param({ "32" })
+    int queryTokens;
+
+    @Param({ "128", "512" })
+    int docTokens;
+
+    @Param({ "128", "1536" })
+    int dimensions;
+
+    private List<String> queryTokenText;
+    private List<String> docTokenText;
+    private List<float[]> queryEmbeddings;
+    private List<float[]> docEmbeddings;
+
+    @Setup
+    public void setUp() {
+        queryTokenText = Fixtures.tokens(queryTokens);
+        docTokenText = Fixtures.tokens(docTokens);
+        queryEmbeddings = Fixtures.vectors(queryTokens, dimensions, 1);
+        docEmbeddings = Fixtures.vectors(docTokens, dimensions, 2);
+    }
+
+    @Benchmark
+    public ColbertScoreResult maxSim() {
+        return LateInteraction.maxSim(queryTokenText, queryEmbeddings, docTokenText, docEmbeddings);
+    }
+
+    @Benchmark
+    public double cosineSimilarity() {
+        return LateInteraction.cosineSimilarity(queryEmbeddings.get(0), docEmbeddings.get(0));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.azopenai.benchmark;
+
+import com.example.azopenai.service.LateInteraction;
+import io.qdrant.client.grpc.Points;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of per-token embeddings to the protobuf multi-vector sent to
+ * Qdrant on ColBERT store, including serialization to wire bytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MultiVectorBenchmark {
+
+    @Param({ "128", "512" })
+    int tokens;
+
+    @Param({ "1536" })
+    int dimensions;
+
+    private List<float[]> embeddings;
+
+    @Setup
+    public void setUp() {
+        embeddings = Fixtures.vectors(tokens, dimensions, 4);
+    }
+
+    @Benchmark
+    public Points.Vector toMultiVector() {
+        return LateInteraction.toMultiVector(embeddings);
+    }
+
+    @Benchmark
+    public byte[] toMultiVectorBytes() {
+        return LateInteraction.toMultiVector(embeddings).toByteArray();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.azopenai.benchmark;
+
+import com.example.azopenai.model.ColbertResponse;
+import com.example.azopenai.model.EmbeddingResponse;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of the response bodies that carry vectors, with the same
+ * Jackson version Spring MVC uses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    @Param({ "1536", "3072" })
+    int dimensions;
+
+    private final JsonMapper mapper = JsonMapper.builder().build();
+    private EmbeddingResponse embeddingResponse;
+    private ColbertResponse colbertResponse;
+    private Map<String, Object> encodeResponse;
+
+    @Setup
+    public void setUp() {
+        float[] embedding = Fixtures.vectors(1, dimensions, 5).get(0);
+        embeddingResponse = EmbeddingResponse.builder()
+                .embedding(embedding)
+                .dimensions(embedding.length)
+                .processingTimeMs(42)
+                .build();
+
+        List<String> tokens = Fixtures.tokens(32);
+        colbertResponse = ColbertResponse.builder()
+                .score(17.5)
+                .queryTokenCount(tokens.size())
+                .documentTokenCount(256)
+                .tokenScores(tokens.stream()
+                        .map(token -> ColbertResponse.TokenScoreDetail.builder()
+                                .queryToken(token)
+                                .bestMatchDocToken(token)
+                                .similarity(0.83)
+                                .build())
+                        .toList())
+                .processingTimeMs(42)
+                .build();
+
+        // Body of POST /api/colbert/encode
+        List<float[]> tokenEmbeddings = Fixtures.vectors(32, dimensions, 6);
+        encodeResponse = new HashMap<>();
+        encodeResponse.put("tokenCount", tokenEmbeddings.size());
+        encodeResponse.put("embeddingDimension", dimensions);
+        encodeResponse.put("embeddings", tokenEmbeddings);
+        encodeResponse.put("processingTimeMs", 42L);
+    }
+
+    @Benchmark
+    public byte[] embeddingResponse() {
+        return mapper.writeValueAsBytes(embeddingResponse);
+    }
+
+    @Benchmark
+    public byte[] colbertScoreResponse() {
+        return mapper.writeValueAsBytes(colbertResponse);
+    }
+
+    @Benchmark
+    public byte[] colbertEncodeResponse() {
+        return mapper.writeValueAsBytes(encodeResponse);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.azopenai.benchmark;
+
+import com.example.azopenai.tokenizer.BpeTokenizer;
+import com.example.azopenai.tokenizer.TokenBuffer;
+import com.example.azopenai.tokenizer.Tokenizer;
+import com.example.azopenai.tokenizer.WhitespaceTokenizer;
+import com.example.azopenai.tokenizer.WordPieceTokenizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokenization of short queries up to long documents, into a reused
+ * {@link TokenBuffer} and count-only. Vocabularies are synthetic (see
+ * {@link Fixtures}) so no model files are needed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenizeBenchmark {
+
+    @Param({ "32", "1000", "20000" })
+    int words;
+
+    @Param({ "whitespace", "wordpiece", "bpe" })
+    String tokenizer;
+
+    private String text;
+    private Tokenizer impl;
+
+    @Setup
+    public void setUp() {
+        text = Fixtures.text(words, 3);
+        impl = switch (tokenizer) {
+            case "wordpiece" -> new WordPieceTokenizer(Fixtures.wordPieceVocabulary(), true);
+            case "bpe" -> new BpeTokenizer(Fixtures.bpeRanks(), BpeTokenizer.CL100K_PATTERN);
+            default -> new WhitespaceTokenizer();
+        };
+    }
+
+    @State(Scope.Thread)
+    public static class Buffer {
+        final TokenBuffer tokens = new TokenBuffer();
+    }
+
+    @Benchmark
+    public int encode(Buffer buffer) {
+        impl.encode(text, buffer.tokens);
+        return buffer.tokens.size();
+    }
+
+    @Benchmark
+    public int count() {
+        return impl.count(text);
+    }
+}
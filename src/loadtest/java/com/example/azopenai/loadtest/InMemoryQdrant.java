@@ -0,0 +1,537 @@
+package com.example.azopenai.loadtest;
+
+import io.grpc.Grpc;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import io.qdrant.client.grpc.Collections;
+import io.qdrant.client.grpc.CollectionsGrpc;
+import io.qdrant.client.grpc.Common;
+import io.qdrant.client.grpc.JsonWithInt;
+import io.qdrant.client.grpc.Points;
+import io.qdrant.client.grpc.PointsGrpc;
+import io.qdrant.client.grpc.QdrantGrpc;
+import io.qdrant.client.grpc.QdrantOuterClass;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stand-in for Qdrant's gRPC API, covering the calls the application
+ * makes: collection list/exists/create/get/update/delete, aliases, payload
+ * indexes, and point upsert, (batch) search, get, scroll (in id order) and
+ * delete. Index, quantization and on-disk settings are recorded and reported
+ * back (with Qdrant's defaults) but do not change how points are stored.
+ * Search is an exact brute-force scan; filters support
+ * {@code must}/{@code should}/{@code must_not} keyword, integer and boolean
+ * matches and numeric ranges on top-level payload keys. Anything else answers
+ * {@code UNIMPLEMENTED}.
+ *
+ * <p>
+ * Being exact and in-process, it measures the application's own overhead
+ * rather than Qdrant's; use a real Qdrant ({@code --qdrant=host:port}) for
+ * index-dependent numbers.
+ * </p>
+ */
+final class InMemoryQdrant implements AutoCloseable {
+
+    private final Map<String, Collection> collections = new ConcurrentHashMap<>();
+    private final Map<String, String> aliases = new ConcurrentHashMap<>();
+    private final AtomicLong operations = new AtomicLong();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Server server;
+
+    InMemoryQdrant() throws IOException {
+        this.server = Grpc.newServerBuilderForPort(0, InsecureServerCredentials.create())
+                .executor(executor)
+                .maxInboundMessageSize(64 * 1024 * 1024)
+                .addService(new QdrantService())
+                .addService(new CollectionsService())
+                .addService(new PointsService())
+                .build()
+                .start();
+    }
+
+    int port() {
+        return server.getPort();
+    }
+
+    @Override
+    public void close() {
+        server.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private record StoredPoint(Common.PointId id, Points.Vectors vectors, float[] vector,
+            Map<String, JsonWithInt.Value> payload) {
+    }
+
+    private static final class Collection {
+        final Collections.Distance distance;
+        final Map<String, StoredPoint> points = new ConcurrentHashMap<>();
+        final Map<String, Collections.PayloadSchemaInfo> payloadSchema = new ConcurrentHashMap<>();
+        volatile Collections.CollectionConfig config;
+
+        Collection(Collections.CreateCollection request) {
+            Collections.VectorsConfig vectors = request.getVectorsConfig();
+            this.distance = vectors.hasParams() ? vectors.getParams().getDistance() : Collections.Distance.Cosine;
+            var config = Collections.CollectionConfig.newBuilder()
+                    .setParams(Collections.CollectionParams.newBuilder()
+                            .setVectorsConfig(vectors)
+                            .setOnDiskPayload(!request.hasOnDiskPayload() || request.getOnDiskPayload()))
+                    .setHnswConfig(Collections.HnswConfigDiff.newBuilder()
+                            .setM(16)
+                            .setEfConstruct(100)
+                            .setFullScanThreshold(10_000)
+                            .setOnDisk(false)
+                            .mergeFrom(request.getHnswConfig()));
+            if (request.hasQuantizationConfig()) {
+                config.setQuantizationConfig(request.getQuantizationConfig());
+            }
+            this.config = config.build();
+        }
+
+        synchronized void update(Collections.UpdateCollection request) {
+            var config = this.config.toBuilder();
+            if (request.hasHnswConfig()) {
+                config.getHnswConfigBuilder().mergeFrom(request.getHnswConfig());
+            }
+            if (request.hasQuantizationConfig()) {
+                Collections.QuantizationConfigDiff quantization = request.getQuantizationConfig();
+                if (quantization.hasScalar()) {
+                    config.setQuantizationConfig(Collections.QuantizationConfig.newBuilder()
+                            .setScalar(quantization.getScalar()));
+                } else if (quantization.hasBinary()) {
+                    config.setQuantizationConfig(Collections.QuantizationConfig.newBuilder()
+                            .setBinary(quantization.getBinary()));
+                } else if (quantization.hasDisabled()) {
+                    config.clearQuantizationConfig();
+                }
+            }
+            var params = config.getParamsBuilder();
+            if (request.getVectorsConfig().hasParams() && request.getVectorsConfig().getParams().hasOnDisk()
+                    && params.getVectorsConfig().hasParams()) {
+                params.getVectorsConfigBuilder().getParamsBuilder()
+                        .setOnDisk(request.getVectorsConfig().getParams().getOnDisk());
+            }
+            if (request.getParams().hasOnDiskPayload()) {
+                params.setOnDiskPayload(request.getParams().getOnDiskPayload());
+            }
+            this.config = config.build();
+        }
+    }
+
+    private String resolve(String name) {
+        return aliases.getOrDefault(name, name);
+    }
+
+    private Collection collection(String name, StreamObserver<?> observer) {
+        Collection collection = collections.get(resolve(name));
+        if (collection == null) {
+            observer.onError(Status.NOT_FOUND
+                    .withDescription("Collection `" + name + "` doesn't exist!").asRuntimeException());
+        }
+        return collection;
+    }
+
+    private static String key(Common.PointId id) {
+        return id.hasUuid() ? id.getUuid() : Long.toString(id.getNum());
+    }
+
+    private static <T> void reply(StreamObserver<T> observer, T response) {
+        observer.onNext(response);
+        observer.onCompleted();
+    }
+
+    // ── Services ──
+
+    private final class QdrantService extends QdrantGrpc.QdrantImplBase {
+        @Override
+        public void healthCheck(QdrantOuterClass.HealthCheckRequest request,
+                StreamObserver<QdrantOuterClass.HealthCheckReply> observer) {
+            reply(observer, QdrantOuterClass.HealthCheckReply.newBuilder()
+                    .setTitle("in-memory qdrant").setVersion("1.17.0").build());
+        }
+    }
+
+    private final class CollectionsService extends CollectionsGrpc.CollectionsImplBase {
+        @Override
+        public void list(Collections.ListCollectionsRequest request,
+                StreamObserver<Collections.ListCollectionsResponse> observer) {
+            var response = Collections.ListCollectionsResponse.newBuilder();
+            collections.keySet().forEach(name -> response.addCollections(
+                    Collections.CollectionDescription.newBuilder().setName(name)));
+            reply(observer, response.build());
+        }
+
+        @Override
+        public void collectionExists(Collections.CollectionExistsRequest request,
+                StreamObserver<Collections.CollectionExistsResponse> observer) {
+            reply(observer, Collections.CollectionExistsResponse.newBuilder()
+                    .setResult(Collections.CollectionExists.newBuilder()
+                            .setExists(collections.containsKey(resolve(request.getCollectionName()))))
+                    .build());
+        }
+
+        @Override
+        public void create(Collections.CreateCollection request,
+                StreamObserver<Collections.CollectionOperationResponse> observer) {
+            boolean created = collections.putIfAbsent(request.getCollectionName(),
+                    new Collection(request)) == null;
+            reply(observer, Collections.CollectionOperationResponse.newBuilder().setResult(created).build());
+        }
+
+        @Override
+        public void get(Collections.GetCollectionInfoRequest request,
+                StreamObserver<Collections.GetCollectionInfoResponse> observer) {
+            Collection collection = collection(request.getCollectionName(), observer);
+            if (collection == null) {
+                return;
+            }
+            reply(observer, Collections.GetCollectionInfoResponse.newBuilder()
+                    .setResult(Collections.CollectionInfo.newBuilder()
+                            .setStatus(Collections.CollectionStatus.Green)
+                            .setPointsCount(collection.points.size())
+                            .setConfig(collection.config)
+                            .putAllPayloadSchema(collection.payloadSchema))
+                    .build());
+        }
+
+        @Override
+        public void update(Collections.UpdateCollection request,
+                StreamObserver<Collections.CollectionOperationResponse> observer) {
+            Collection collection = collection(request.getCollectionName(), observer);
+            if (collection == null) {
+                return;
+            }
+            collection.update(request);
+            reply(observer, Collections.CollectionOperationResponse.newBuilder().setResult(true).build());
+        }
+
+        @Override
+        public void delete(Collections.DeleteCollection request,
+                StreamObserver<Collections.CollectionOperationResponse> observer) {
+            boolean deleted = collections.remove(request.getCollectionName()) != null;
+            aliases.values().removeIf(request.getCollectionName()::equals);
+            reply(observer, Collections.CollectionOperationResponse.newBuilder().setResult(deleted).build());
+        }
+
+        @Override
+        public void listAliases(Collections.ListAliasesRequest request,
+                StreamObserver<Collections.ListAliasesResponse> observer) {
+            var response = Collections.ListAliasesResponse.newBuilder();
+            aliases.forEach((alias, collection) -> response.addAliases(Collections.AliasDescription.newBuilder()
+                    .setAliasName(alias).setCollectionName(collection)));
+            reply(observer, response.build());
+        }
+
+        /** Applies the operations in order, under one lock like Qdrant's single alias update. */
+        @Override
+        public void updateAliases(Collections.ChangeAliases request,
+                StreamObserver<Collections.CollectionOperationResponse> observer) {
+            synchronized (aliases) {
+                for (Collections.AliasOperations operation : request.getActionsList()) {
+                    if (operation.hasCreateAlias()) {
+                        var create = operation.getCreateAlias();
+                        if (collections.containsKey(create.getAliasName())
+                                || !collections.containsKey(create.getCollectionName())) {
+                            observer.onError(Status.INVALID_ARGUMENT.withDescription(
+                                    "Cannot create alias " + create.getAliasName()).asRuntimeException());
+                            return;
+                        }
+                        aliases.put(create.getAliasName(), create.getCollectionName());
+                    } else if (operation.hasDeleteAlias()) {
+                        aliases.remove(operation.getDeleteAlias().getAliasName());
+                    } else if (operation.hasRenameAlias()) {
+                        var rename = operation.getRenameAlias();
+                        String collection = aliases.remove(rename.getOldAliasName());
+                        if (collection != null) {
+                            aliases.put(rename.getNewAliasName(), collection);
+                        }
+                    }
+                }
+            }
+            reply(observer, Collections.CollectionOperationResponse.newBuilder().setResult(true).build());
+        }
+    }
+
+    private final class PointsService extends PointsGrpc.PointsImplBase {
+        @Override
+        public void upsert(Points.UpsertPoints request, StreamObserver<Points.PointsOperationResponse> observer) {
+            Collection collection = collection(request.getCollectionName(), observer);
+            if (collection == null) {
+                return;
+            }
+            for (Points.PointStruct point : request.getPointsList()) {
+                collection.points.put(key(point.getId()),
+                        new StoredPoint(point.getId(), point.getVectors(), denseVector(point.getVectors()),
+                                point.getPayloadMap()));
+            }
+            reply(observer, operationResponse());
+        }
+
+        @Override
+        public void createFieldIndex(Points.CreateFieldIndexCollection request,
+                StreamObserver<Points.PointsOperationResponse> observer) {
+            Collection collection = collection(request.getCollectionName(), observer);
+            if (collection == null) {
+                return;
+            }
+            String type = request.getFieldType().name().substring("FieldType".length());
+            collection.payloadSchema.put(request.getFieldName(), Collections.PayloadSchemaInfo.newBuilder()
+                    .setDataType(Collections.PayloadSchemaType.valueOf(type))
+                    .setParams(request.getFieldIndexParams())
+                    .build());
+            reply(observer, operationResponse());
+        }
+
+        @Override
+        public void delete(Points.DeletePoints request, StreamObserver<Points.PointsOperationResponse> observer) {
+            Collection collection = collection(request.getCollectionName(), observer);
+            if (collection == null) {
+                return;
+            }
+            if (request.getPoints().hasFilter()) {
+                Common.Filter filter = request.getPoints().getFilter();
+                collection.points.values().removeIf(point -> matches(filter, point.payload()));
+            } else {
+                request.getPoints().getPoints().getIdsList().forEach(id -> collection.points.remove(key(id)));
+            }
+            reply(observer, operationResponse());
+        }
+
+        @Override
+        public void search(Points.SearchPoints request, StreamObserver<Points.SearchResponse> observer) {
+            Collection collection = collection(request.getCollectionName(), observer);
+            if (collection == null) {
+                return;
+            }
+            reply(observer, Points.SearchResponse.newBuilder().addAllResult(search(collection, request)).build());
+        }
+
+        @Override
+        public void searchBatch(Points.SearchBatchPoints request,
+                StreamObserver<Points.SearchBatchResponse> observer) {
+            Collection collection = collection(request.getCollectionName(), observer);
+            if (collection == null) {
+                return;
+            }
+            var response = Points.SearchBatchResponse.newBuilder();
+            for (Points.SearchPoints search : request.getSearchPointsList()) {
+                response.addResult(Points.BatchResult.newBuilder().addAllResult(search(collection, search)));
+            }
+            reply(observer, response.build());
+        }
+
+        private List<Points.ScoredPoint> search(Collection collection, Points.SearchPoints request) {
+            float[] query = toArray(request.getVectorList());
+            boolean withPayload = request.getWithPayload().getEnable()
+                    || request.getWithPayload().hasInclude();
+            List<String> include = request.getWithPayload().hasInclude()
+                    ? request.getWithPayload().getInclude().getFieldsList()
+                    : null;
+
+            return collection.points.values().stream()
+                    .filter(point -> point.vector() != null)
+                    .filter(point -> !request.hasFilter() || matches(request.getFilter(), point.payload()))
+                    .map(point -> Map.entry(point, score(collection.distance, query, point.vector())))
+                    .filter(scored -> !request.hasScoreThreshold()
+                            || scored.getValue() >= request.getScoreThreshold())
+                    .sorted(Map.Entry.<StoredPoint, Float>comparingByValue(Comparator.reverseOrder()))
+                    .skip(request.hasOffset() ? request.getOffset() : 0)
+                    .limit(request.getLimit())
+                    .map(scored -> {
+                        var point = Points.ScoredPoint.newBuilder()
+                                .setId(scored.getKey().id())
+                                .setScore(scored.getValue());
+                        if (withPayload) {
+                            scored.getKey().payload().forEach((key, value) -> {
+                                if (include == null || include.contains(key)) {
+                                    point.putPayload(key, value);
+                                }
+                            });
+                        }
+                        return point.build();
+                    })
+                    .toList();
+        }
+
+        @Override
+        public void get(Points.GetPoints request, StreamObserver<Points.GetResponse> observer) {
+            Collection collection = collection(request.getCollectionName(), observer);
+            if (collection == null) {
+                return;
+            }
+            var response = Points.GetResponse.newBuilder();
+            for (Common.PointId id : request.getIdsList()) {
+                StoredPoint point = collection.points.get(key(id));
+                if (point != null) {
+                    response.addResult(retrieved(point, request.getWithPayload(),
+                            request.getWithVectors().getEnable()));
+                }
+            }
+            reply(observer, response.build());
+        }
+
+        @Override
+        public void scroll(Points.ScrollPoints request, StreamObserver<Points.ScrollResponse> observer) {
+            Collection collection = collection(request.getCollectionName(), observer);
+            if (collection == null) {
+                return;
+            }
+            int limit = request.hasLimit() ? request.getLimit() : 10;
+            String offset = request.hasOffset() ? key(request.getOffset()) : null;
+            List<StoredPoint> page = collection.points.entrySet().stream()
+                    .filter(entry -> offset == null || entry.getKey().compareTo(offset) >= 0)
+                    .filter(entry -> !request.hasFilter() || matches(request.getFilter(), entry.getValue().payload()))
+                    .sorted(Map.Entry.comparingByKey())
+                    .limit(limit + 1L)
+                    .map(Map.Entry::getValue)
+                    .toList();
+
+            var response = Points.ScrollResponse.newBuilder();
+            for (StoredPoint point : page.subList(0, Math.min(limit, page.size()))) {
+                response.addResult(retrieved(point, request.getWithPayload(),
+                        request.getWithVectors().getEnable()));
+            }
+            if (page.size() > limit) {
+                response.setNextPageOffset(page.get(limit).id());
+            }
+            reply(observer, response.build());
+        }
+
+        private Points.RetrievedPoint retrieved(StoredPoint point, Points.WithPayloadSelector withPayload,
+                boolean withVectors) {
+            var retrieved = Points.RetrievedPoint.newBuilder().setId(point.id());
+            if (withPayload.getEnable()) {
+                retrieved.putAllPayload(point.payload());
+            } else if (withPayload.hasInclude()) {
+                withPayload.getInclude().getFieldsList().stream()
+                        .filter(point.payload()::containsKey)
+                        .forEach(key -> retrieved.putPayload(key, point.payload().get(key)));
+            }
+            if (withVectors && point.vectors().hasVector()) {
+                retrieved.setVectors(Points.VectorsOutput.newBuilder()
+                        .setVector(vectorOutput(point.vectors().getVector())));
+            }
+            return retrieved.build();
+        }
+
+        private Points.PointsOperationResponse operationResponse() {
+            return Points.PointsOperationResponse.newBuilder()
+                    .setResult(Points.UpdateResult.newBuilder()
+                            .setOperationId(operations.incrementAndGet())
+                            .setStatus(Points.UpdateStatus.Completed))
+                    .build();
+        }
+    }
+
+    // ── Vectors and filters ──
+
+    /** The point's dense vector, or null for multi-vector (ColBERT) points, which are stored but not searched. */
+    private static float[] denseVector(Points.Vectors vectors) {
+        if (!vectors.hasVector()) {
+            return null;
+        }
+        Points.Vector vector = vectors.getVector();
+        if (vector.hasDense()) {
+            return toArray(vector.getDense().getDataList());
+        }
+        return vector.hasMultiDense() ? null : toArray(vector.getDataList());
+    }
+
+    private static Points.VectorOutput vectorOutput(Points.Vector vector) {
+        if (vector.hasMultiDense()) {
+            return Points.VectorOutput.newBuilder().setMultiDense(vector.getMultiDense()).build();
+        }
+        Points.DenseVector dense = vector.hasDense() ? vector.getDense()
+                : Points.DenseVector.newBuilder().addAllData(vector.getDataList()).build();
+        return Points.VectorOutput.newBuilder().setDense(dense).build();
+    }
+
+    private static float[] toArray(List<Float> values) {
+        float[] array = new float[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    private static float score(Collections.Distance distance, float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        double squaredDistance = 0;
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+            squaredDistance += (a[i] - b[i]) * (a[i] - b[i]);
+        }
+        return switch (distance) {
+            case Dot -> (float) dot;
+            case Euclid -> (float) -Math.sqrt(squaredDistance);
+            default -> normA == 0 || normB == 0 ? 0 : (float) (dot / Math.sqrt(normA * normB));
+        };
+    }
+
+    private static boolean inRange(Common.Range range, double value) {
+        return (!range.hasGt() || value > range.getGt()) && (!range.hasGte() || value >= range.getGte())
+                && (!range.hasLt() || value < range.getLt()) && (!range.hasLte() || value <= range.getLte());
+    }
+
+    private static boolean matches(Common.Filter filter, Map<String, JsonWithInt.Value> payload) {
+        for (var condition : filter.getMustList()) {
+            if (!matches(condition, payload)) {
+                return false;
+            }
+        }
+        for (var condition : filter.getMustNotList()) {
+            if (matches(condition, payload)) {
+                return false;
+            }
+        }
+        return filter.getShouldList().isEmpty()
+                || filter.getShouldList().stream().anyMatch(condition -> matches(condition, payload));
+    }
+
+    private static boolean matches(Common.Condition condition, Map<String, JsonWithInt.Value> payload) {
+        if (condition.hasFilter()) {
+            return matches(condition.getFilter(), payload);
+        }
+        if (!condition.hasField() || !(condition.getField().hasMatch() || condition.getField().hasRange())) {
+            throw Status.UNIMPLEMENTED
+                    .withDescription("In-memory Qdrant only supports match and range conditions").asRuntimeException();
+        }
+        Common.Match match = condition.getField().getMatch();
+        JsonWithInt.Value value = payload.get(condition.getField().getKey());
+        if (value == null) {
+            return false;
+        }
+        if (condition.getField().hasRange()) {
+            return (value.hasIntegerValue() || value.hasDoubleValue())
+                    && inRange(condition.getField().getRange(),
+                            value.hasIntegerValue() ? value.getIntegerValue() : value.getDoubleValue());
+        }
+        if (match.hasKeyword()) {
+            return match.getKeyword().equals(value.getStringValue());
+        }
+        if (match.hasKeywords()) {
+            return match.getKeywords().getStringsList().contains(value.getStringValue());
+        }
+        if (match.hasInteger()) {
+            return value.hasIntegerValue() && match.getInteger() == value.getIntegerValue();
+        }
+        if (match.hasBoolean()) {
+            return value.hasBoolValue() && match.getBoolean() == value.getBoolValue();
+        }
+        return false;
+    }
+}
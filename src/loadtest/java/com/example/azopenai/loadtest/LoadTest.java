@@ -0,0 +1,401 @@
+package com.example.azopenai.loadtest;
+
+import com.example.azopenai.AzOpenAiApplication;
+import com.example.azopenai.service.QdrantCollections;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Offline end-to-end load test: starts the application against
+ * {@link StubOpenAiServer} (chat and embeddings) and {@link InMemoryQdrant},
+ * drives the {@link Traffic} mix with a closed loop of concurrent clients, and
+ * reports throughput, latency percentiles per endpoint, allocation rate, and
+ * the requests in flight on the server with the platform threads and heap
+ * they hold.
+ *
+ * <pre>
+ * ./mvnw -Ploadtest test-compile exec:exec
+ * ./mvnw -Ploadtest test-compile exec:exec -Dloadtest.args="--concurrency=16,64,256 --duration=60s"
+ * </pre>
+ *
+ * Options ({@code --name=value}): {@code duration}, {@code warmup},
+ * {@code concurrency} (comma-separated steps), {@code chat-latency},
+ * {@code embedding-latency}, {@code latency-sigma}, {@code throttle-rate},
+ * {@code error-rate}, {@code dimensions}, {@code token-embeddings}, {@code mix}
+ * ({@code name:weight,...}), {@code qdrant} ({@code host:port} of a real
+ * Qdrant instead of the in-memory one), {@code virtual-threads}. Any other
+ * {@code --key=value} is passed to the application as a property.
+ */
+public final class LoadTest {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(120);
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        Duration duration = duration(options.remove("duration"), "30s");
+        Duration warmup = duration(options.remove("warmup"), "10s");
+        int[] concurrency = Arrays.stream(options.getOrDefault("concurrency", "32").split(","))
+                .mapToInt(level -> Integer.parseInt(level.trim())).toArray();
+        options.remove("concurrency");
+
+        var profile = new StubOpenAiServer.Profile(
+                duration(options.remove("chat-latency"), "800ms"),
+                duration(options.remove("embedding-latency"), "40ms"),
+                Double.parseDouble(option(options, "latency-sigma", "0.4")),
+                Double.parseDouble(option(options, "throttle-rate", "0.01")),
+                Double.parseDouble(option(options, "error-rate", "0.002")),
+                Integer.parseInt(option(options, "dimensions", "384")),
+                Boolean.parseBoolean(option(options, "token-embeddings", "true")));
+        Map<String, Integer> mix = mix(options.remove("mix"));
+        String realQdrant = options.remove("qdrant");
+        boolean virtualThreads = Boolean.parseBoolean(option(options, "virtual-threads", "false"));
+
+        try (var openAi = new StubOpenAiServer(profile);
+                var qdrant = realQdrant == null ? new InMemoryQdrant() : null) {
+
+            Map<String, Object> properties = new LinkedHashMap<>();
+            properties.put("server.port", 0);
+            properties.put("spring.threads.virtual.enabled", virtualThreads);
+            for (String model : List.of("chat", "embedding")) {
+                properties.put("app.ai." + model + ".provider", "openai");
+                properties.put("app.ai." + model + ".base-url", openAi.baseUrl());
+                properties.put("app.ai." + model + ".api-key", "stub");
+                properties.put("app.ai." + model + ".model", "stub-" + model);
+            }
+            properties.put("app.ai.embedding.dimensions", profile.dimensions());
+            properties.put("spring.ai.vectorstore.qdrant.host",
+                    realQdrant == null ? "127.0.0.1" : realQdrant.split(":")[0]);
+            properties.put("spring.ai.vectorstore.qdrant.port",
+                    realQdrant == null ? qdrant.port() : Integer.parseInt(realQdrant.split(":")[1]));
+            properties.put("spring.ai.vectorstore.qdrant.collection-name", "loadtest");
+            properties.put("app.colbert.enabled", true);
+            properties.put("app.colbert.collection-name", "loadtest_colbert");
+            properties.put("logging.level.com.example.azopenai", "INFO");
+            properties.putAll(options);
+
+            // As command-line arguments so they override application.yml
+            String[] appArgs = properties.entrySet().stream()
+                    .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                    .toArray(String[]::new);
+            try (ConfigurableApplicationContext app = new SpringApplicationBuilder(AzOpenAiApplication.class)
+                    .run(appArgs)) {
+                awaitCollections(app.getBean(QdrantCollections.class));
+                var baseUri = URI.create("http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port"));
+                var traffic = new Traffic(baseUri, REQUEST_TIMEOUT, mix);
+                var server = new ServerSampler(app.getBean(MeterRegistry.class));
+
+                try (HttpClient http = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .executor(Executors.newVirtualThreadPerTaskExecutor())
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .build()) {
+                    System.out.printf("%nWarming up for %s...%n", warmup);
+                    run(http, traffic, concurrency[0], warmup, openAi, server);
+
+                    for (int level : concurrency) {
+                        System.out.printf("%nRunning %d concurrent clients for %s...%n", level, duration);
+                        run(http, traffic, level, duration, openAi, server).print();
+                    }
+                }
+            }
+        }
+    }
+
+    /** Closed-loop run: each client sends its next request as soon as the previous one completes. */
+    private static Report run(HttpClient http, Traffic traffic, int concurrency, Duration duration,
+            StubOpenAiServer openAi, ServerSampler server) {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        server.start(duration);
+        long allocatedBefore = threads.getTotalThreadAllocatedBytes();
+        long[] gcBefore = gcTotals();
+        long upstreamBefore = openAi.requestCount();
+
+        List<Recorder> recorders = new ArrayList<>();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        // Closing the executor waits for every client to finish
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                var recorder = new Recorder(traffic.scenarios().size());
+                recorders.add(recorder);
+                clients.execute(() -> {
+                    while (System.nanoTime() < deadline) {
+                        int scenario = traffic.next();
+                        long sent = System.nanoTime();
+                        String failure = null;
+                        try {
+                            var response = http.send(traffic.request(scenario), HttpResponse.BodyHandlers.ofString());
+                            if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                                failure = response.statusCode() + " " + response.body();
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        } catch (Exception e) {
+                            failure = e.toString();
+                        }
+                        recorder.record(scenario, System.nanoTime() - sent, failure);
+                    }
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long[] gcAfter = gcTotals();
+        return new Report(traffic, concurrency, elapsed, recorders,
+                threads.getTotalThreadAllocatedBytes() - allocatedBefore,
+                gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1],
+                openAi.requestCount() - upstreamBefore, server.stop());
+    }
+
+    /**
+     * Samples the server's in-flight requests ({@code http.server.requests.active})
+     * during a run. Halfway through it collects garbage and measures the heap
+     * in use, so the growth over an idle baseline, divided by the requests in
+     * flight at that moment, estimates the heap each in-flight request holds.
+     */
+    private static final class ServerSampler {
+
+        private static final Duration INTERVAL = Duration.ofMillis(20);
+
+        private final MeterRegistry registry;
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private Thread sampler;
+        private volatile boolean running;
+        private long samples;
+        private long sum;
+        private long max;
+        private long baselineHeap;
+        private long midHeap = -1;
+        private long midInFlight;
+
+        ServerSampler(MeterRegistry registry) {
+            this.registry = registry;
+        }
+
+        void start(Duration duration) {
+            System.gc();
+            baselineHeap = memory.getHeapMemoryUsage().getUsed();
+            threads.resetPeakThreadCount();
+            samples = sum = max = 0;
+            midHeap = -1;
+            running = true;
+            long mid = System.nanoTime() + duration.toNanos() / 2;
+            sampler = Thread.ofPlatform().daemon().name("loadtest-sampler").start(() -> {
+                while (running) {
+                    long inFlight = inFlight();
+                    samples++;
+                    sum += inFlight;
+                    max = Math.max(max, inFlight);
+                    if (midHeap < 0 && System.nanoTime() >= mid) {
+                        midInFlight = inFlight;
+                        System.gc();
+                        midHeap = memory.getHeapMemoryUsage().getUsed();
+                    }
+                    try {
+                        Thread.sleep(INTERVAL);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+        }
+
+        ServerStats stop() {
+            running = false;
+            try {
+                sampler.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ServerStats(samples == 0 ? 0 : (double) sum / samples, max, threads.getPeakThreadCount(),
+                    midHeap < 0 || midInFlight == 0 ? -1 : Math.max(0, midHeap - baselineHeap) / midInFlight);
+        }
+
+        private long inFlight() {
+            LongTaskTimer active = registry.find("http.server.requests.active").longTaskTimer();
+            return active == null ? 0 : active.activeTasks();
+        }
+    }
+
+    /** Server-side load of a run; {@code heapPerRequest} is -1 when not measured. */
+    private record ServerStats(double meanInFlight, long maxInFlight, int peakPlatformThreads, long heapPerRequest) {
+    }
+
+    private static long[] gcTotals() {
+        long count = 0;
+        long timeMs = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            timeMs += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[] { count, timeMs };
+    }
+
+    /** Per-client latency samples, merged after the run to avoid contention. */
+    private static final class Recorder {
+        final long[][] latencies;
+        final int[] counts;
+        final int[] errors;
+        final String[] firstFailure;
+
+        Recorder(int scenarios) {
+            latencies = new long[scenarios][256];
+            counts = new int[scenarios];
+            errors = new int[scenarios];
+            firstFailure = new String[scenarios];
+        }
+
+        void record(int scenario, long latencyNanos, String failure) {
+            if (counts[scenario] == latencies[scenario].length) {
+                latencies[scenario] = Arrays.copyOf(latencies[scenario], counts[scenario] * 2);
+            }
+            latencies[scenario][counts[scenario]++] = latencyNanos;
+            if (failure != null) {
+                errors[scenario]++;
+                if (firstFailure[scenario] == null) {
+                    firstFailure[scenario] = failure;
+                }
+            }
+        }
+    }
+
+    private record Report(Traffic traffic, int concurrency, long elapsedNanos, List<Recorder> recorders,
+            long allocatedBytes, long gcCount, long gcTimeMs, long upstreamCalls, ServerStats server) {
+
+        void print() {
+            double seconds = elapsedNanos / 1e9;
+            System.out.printf("%n%-16s %9s %7s %9s %9s %9s %9s %9s%n",
+                    "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+
+            List<long[]> all = new ArrayList<>();
+            int totalErrors = 0;
+            for (int s = 0; s < traffic.scenarios().size(); s++) {
+                int scenario = s;
+                long[] samples = merge(scenario);
+                int errors = recorders.stream().mapToInt(r -> r.errors[scenario]).sum();
+                all.add(samples);
+                totalErrors += errors;
+                line(traffic.scenarios().get(s).name(), samples, errors, seconds);
+            }
+            long[] total = all.stream().flatMapToLong(Arrays::stream).toArray();
+            line("TOTAL", total, totalErrors, seconds);
+
+            System.out.printf("%nconcurrency %d, %.1f s, %.1f upstream model calls per request%n",
+                    concurrency, seconds, total.length == 0 ? 0.0 : (double) upstreamCalls / total.length);
+            System.out.printf("allocation %.1f MB/s, %.1f KB per request (whole JVM, includes stubs and clients)%n",
+                    allocatedBytes / seconds / (1024 * 1024),
+                    total.length == 0 ? 0.0 : allocatedBytes / 1024.0 / total.length);
+            System.out.printf("gc %d collections, %d ms%n", gcCount, gcTimeMs);
+            System.out.printf("server in flight %.1f mean, %d max; %d platform threads peak; %s heap per in-flight request%n",
+                    server.meanInFlight(), server.maxInFlight(), server.peakPlatformThreads(),
+                    server.heapPerRequest() < 0 ? "n/a" : String.format("%.1f KB", server.heapPerRequest() / 1024.0));
+
+            for (int s = 0; s < traffic.scenarios().size(); s++) {
+                int scenario = s;
+                recorders.stream().map(r -> r.firstFailure[scenario]).filter(Objects::nonNull).findFirst()
+                        .ifPresent(failure -> System.out.printf("first %s failure: %s%n",
+                                traffic.scenarios().get(scenario).name(),
+                                failure.substring(0, Math.min(200, failure.length()))));
+            }
+        }
+
+        private long[] merge(int scenario) {
+            int size = recorders.stream().mapToInt(r -> r.counts[scenario]).sum();
+            long[] samples = new long[size];
+            int offset = 0;
+            for (var recorder : recorders) {
+                System.arraycopy(recorder.latencies[scenario], 0, samples, offset, recorder.counts[scenario]);
+                offset += recorder.counts[scenario];
+            }
+            Arrays.sort(samples);
+            return samples;
+        }
+
+        private static void line(String name, long[] sorted, int errors, double seconds) {
+            Arrays.sort(sorted);
+            System.out.printf("%-16s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    name, sorted.length, errors, sorted.length / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+        }
+    }
+
+    // ── Options ──
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    private static String option(Map<String, String> options, String name, String defaultValue) {
+        String value = options.remove(name);
+        return value != null ? value : defaultValue;
+    }
+
+    private static Duration duration(String value, String defaultValue) {
+        return DurationStyle.detectAndParse(value != null ? value : defaultValue);
+    }
+
+    /** Collections are created in the background after startup. */
+    private static void awaitCollections(QdrantCollections collections) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(60).toNanos();
+        while (!collections.isReady()) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Qdrant collections not ready after 60s");
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private static Map<String, Integer> mix(String value) {
+        if (value == null) {
+            return Traffic.DEFAULT_MIX;
+        }
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split(":");
+            mix.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        return mix;
+    }
+}
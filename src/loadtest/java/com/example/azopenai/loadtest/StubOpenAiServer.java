@@ -0,0 +1,235 @@
+package com.example.azopenai.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * OpenAI-compatible stand-in for {@code /v1/chat/completions} and
+ * {@code /v1/embeddings}, plus llama.cpp's native {@code /tokenize} and
+ * {@code /embedding} (per-token vectors, as with {@code --pooling none}) unless
+ * {@code tokenEmbeddings} is off, in which case they answer 404 like a hosted
+ * API.
+ *
+ * <p>
+ * Responses are deterministic for a given input: embeddings are unit vectors
+ * seeded from the input text, chat completions are word sequences seeded from
+ * the request body. Latency is log-normal around a per-operation median, and a
+ * configurable fraction of calls fail with 429 (with {@code Retry-After}) or
+ * 500, so the client's limiter, retry, routing and hedging paths are exercised.
+ * </p>
+ */
+final class StubOpenAiServer implements AutoCloseable {
+
+    /** Latency and error distribution of the stub. */
+    record Profile(Duration chatLatency, Duration embeddingLatency, double latencySigma,
+            double throttleRate, double errorRate, int dimensions, boolean tokenEmbeddings) {
+    }
+
+    private static final String[] WORDS = {
+            "image", "shows", "a", "person", "standing", "near", "the", "window", "with", "bright",
+            "light", "document", "describes", "quarterly", "results", "and", "growth", "in", "revenue",
+            "chart", "table", "text", "outdoor", "scene", "blue", "sky", "building", "summary", "key", "points"
+    };
+
+    private static final Pattern PIECES = Pattern.compile(" ?\\w+| ?[^\\w\\s]+|\\s+");
+
+    private final Profile profile;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final JsonMapper json = JsonMapper.builder().build();
+    private final AtomicLong requests = new AtomicLong();
+
+    StubOpenAiServer(Profile profile) throws IOException {
+        this.profile = profile;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /** Base URL to configure as {@code app.ai.<model>.base-url}. */
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    long requestCount() {
+        return requests.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            byte[] body = exchange.getRequestBody().readAllBytes();
+
+            boolean chat = path.endsWith("/chat/completions");
+            boolean llamaCpp = path.equals("/tokenize") || path.equals("/embedding");
+            if (!chat && !path.endsWith("/embeddings") && !(llamaCpp && profile.tokenEmbeddings())) {
+                send(exchange, 404, error("Unknown path " + path));
+                return;
+            }
+            if (path.equals("/tokenize")) {
+                send(exchange, 200, tokenize(json.readTree(body)));
+                return;
+            }
+
+            sleep(chat ? profile.chatLatency() : profile.embeddingLatency());
+
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < profile.throttleRate()) {
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                send(exchange, 429, error("Rate limit exceeded"));
+                return;
+            }
+            if (roll < profile.throttleRate() + profile.errorRate()) {
+                send(exchange, 500, error("Internal server error"));
+                return;
+            }
+
+            JsonNode request = json.readTree(body);
+            Object response = chat ? chatCompletion(request, body)
+                    : llamaCpp ? tokenEmbeddings(request) : embeddings(request);
+            send(exchange, 200, response);
+        }
+    }
+
+    private Map<String, Object> embeddings(JsonNode request) {
+        List<String> inputs = new ArrayList<>();
+        JsonNode input = request.path("input");
+        if (input.isArray()) {
+            input.forEach(item -> inputs.add(item.asString()));
+        } else {
+            inputs.add(input.asString());
+        }
+
+        List<Map<String, Object>> data = new ArrayList<>(inputs.size());
+        int tokens = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            data.add(Map.of("object", "embedding", "index", i, "embedding", vector(inputs.get(i))));
+            tokens += Math.max(1, inputs.get(i).length() / 4);
+        }
+
+        var response = new LinkedHashMap<String, Object>();
+        response.put("object", "list");
+        response.put("data", data);
+        response.put("model", request.path("model").asString("stub-embedding"));
+        response.put("usage", Map.of("prompt_tokens", tokens, "total_tokens", tokens));
+        return response;
+    }
+
+    /** Words and punctuation, each word piece carrying its leading space. */
+    private static Map<String, Object> tokenize(JsonNode request) {
+        List<Map<String, Object>> tokens = new ArrayList<>();
+        var matcher = PIECES.matcher(request.path("content").asString());
+        while (matcher.find()) {
+            String piece = matcher.group();
+            tokens.add(Map.of("id", Math.floorMod(piece.hashCode(), 32_000), "piece", piece));
+        }
+        return Map.of("tokens", tokens);
+    }
+
+    /** One vector per token id of each prompt, seeded by the token and its neighbours. */
+    private List<Map<String, Object>> tokenEmbeddings(JsonNode request) {
+        List<Map<String, Object>> results = new ArrayList<>();
+        JsonNode prompts = request.path("content");
+        for (int p = 0; p < prompts.size(); p++) {
+            JsonNode ids = prompts.get(p);
+            List<float[]> rows = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                int previous = i > 0 ? ids.get(i - 1).asInt() : -1;
+                int next = i + 1 < ids.size() ? ids.get(i + 1).asInt() : -1;
+                rows.add(vector(previous + ":" + ids.get(i).asInt() + ":" + next));
+            }
+            results.add(Map.of("index", p, "embedding", rows));
+        }
+        return results;
+    }
+
+    private Map<String, Object> chatCompletion(JsonNode request, byte[] body) {
+        var random = new SplittableRandom(Arrays.hashCode(body));
+        int words = 40 + random.nextInt(80);
+        var content = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            content.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        int promptTokens = Math.max(1, body.length / 4);
+
+        var response = new LinkedHashMap<String, Object>();
+        response.put("id", "chatcmpl-stub-" + requests.get());
+        response.put("object", "chat.completion");
+        response.put("created", System.currentTimeMillis() / 1000);
+        response.put("model", request.path("model").asString("stub-chat"));
+        response.put("choices", List.of(Map.of(
+                "index", 0,
+                "message", Map.of("role", "assistant", "content", content.toString()),
+                "finish_reason", "stop")));
+        response.put("usage", Map.of(
+                "prompt_tokens", promptTokens,
+                "completion_tokens", words,
+                "total_tokens", promptTokens + words));
+        return response;
+    }
+
+    /** Deterministic unit vector for a text. */
+    private float[] vector(String text) {
+        var random = new SplittableRandom(text.hashCode());
+        float[] v = new float[profile.dimensions()];
+        double norm = 0;
+        for (int i = 0; i < v.length; i++) {
+            v[i] = (float) (random.nextDouble() * 2 - 1);
+            norm += v[i] * v[i];
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < v.length; i++) {
+            v[i] *= scale;
+        }
+        return v;
+    }
+
+    /** Sleep for a log-normal latency with the given median. */
+    private void sleep(Duration median) {
+        if (median.isZero()) {
+            return;
+        }
+        double factor = Math.exp(profile.latencySigma() * ThreadLocalRandom.current().nextGaussian());
+        try {
+            Thread.sleep(Duration.ofNanos((long) (median.toNanos() * factor)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, Object> error(String message) {
+        return Map.of("error", Map.of("message", message, "type", "stub_error"));
+    }
+
+    private void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = json.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.azopenai.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * The request mix sent to the application: one {@link Scenario} per endpoint,
+ * picked at random by weight. Inputs come from fixed pools so some requests
+ * repeat (as hot queries do in production) while most are distinct.
+ */
+final class Traffic {
+
+    /** One kind of request and its share of the traffic. */
+    record Scenario(String name, int weight, Function<Traffic, HttpRequest> request) {
+    }
+
+    /** Default weights; override with {@code --mix=name:weight,...}. */
+    static final Map<String, Integer> DEFAULT_MIX = defaultMix();
+
+    private static final String[] WORDS = {
+            "revenue", "growth", "quarter", "customer", "support", "ticket", "invoice", "shipping", "delay",
+            "product", "launch", "roadmap", "security", "incident", "report", "policy", "employee", "benefits",
+            "contract", "renewal", "pricing", "discount", "region", "europe", "asia", "warehouse", "inventory",
+            "forecast", "budget", "marketing", "campaign", "analytics", "dashboard", "latency", "outage", "api"
+    };
+    private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+    private static final String BOUNDARY = "loadtest-boundary";
+
+    private final URI baseUri;
+    private final Duration timeout;
+    private final List<Scenario> scenarios;
+    private final int totalWeight;
+    private final List<String> queries;
+    private final List<String> documents;
+    private final List<byte[]> images;
+    private final List<String> imagesBase64;
+
+    Traffic(URI baseUri, Duration timeout, Map<String, Integer> mix) {
+        this.baseUri = baseUri;
+        this.timeout = timeout;
+
+        Map<String, Scenario> all = new LinkedHashMap<>();
+        for (var scenario : allScenarios(mix)) {
+            all.put(scenario.name(), scenario);
+        }
+        for (String name : mix.keySet()) {
+            if (!all.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown scenario '" + name + "'. Known: " + all.keySet());
+            }
+        }
+        this.scenarios = all.values().stream().filter(s -> s.weight() > 0).toList();
+        this.totalWeight = scenarios.stream().mapToInt(Scenario::weight).sum();
+
+        var random = new SplittableRandom(42);
+        this.queries = texts(random, 200, 4, 12);
+        this.documents = texts(random, 500, 60, 400);
+        this.images = new ArrayList<>();
+        this.imagesBase64 = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            byte[] image = new byte[8_000 + random.nextInt(40_000)];
+            random.nextBytes(image);
+            System.arraycopy(PNG_SIGNATURE, 0, image, 0, PNG_SIGNATURE.length);
+            images.add(image);
+            imagesBase64.add(Base64.getEncoder().encodeToString(image));
+        }
+    }
+
+    List<Scenario> scenarios() {
+        return scenarios;
+    }
+
+    /** Pick the next scenario by weight. */
+    int next() {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (int i = 0; i < scenarios.size(); i++) {
+            roll -= scenarios.get(i).weight();
+            if (roll < 0) {
+                return i;
+            }
+        }
+        return scenarios.size() - 1;
+    }
+
+    HttpRequest request(int scenario) {
+        return scenarios.get(scenario).request().apply(this);
+    }
+
+    private static Map<String, Integer> defaultMix() {
+        var mix = new LinkedHashMap<String, Integer>();
+        mix.put("search", 30);
+        mix.put("search-batch", 5);
+        mix.put("embed-text", 15);
+        mix.put("embed-store", 15);
+        mix.put("embed-chunked", 3);
+        mix.put("summarize-text", 10);
+        mix.put("summarize-image", 5);
+        mix.put("embed-image", 5);
+        mix.put("colbert-encode", 5);
+        mix.put("colbert-score", 8);
+        mix.put("colbert-store", 5);
+        mix.put("ingest", 2);
+        return mix;
+    }
+
+    private static List<Scenario> allScenarios(Map<String, Integer> mix) {
+        return List.of(
+                scenario(mix, "search", t -> t.post("/api/search",
+                        "{\"query\":%s,\"topK\":5}".formatted(quote(t.pick(t.queries))))),
+                scenario(mix, "search-batch", t -> t.post("/api/search/batch",
+                        "{\"queries\":[%s,%s,%s,%s,%s],\"topK\":5,\"fuse\":true}".formatted(
+                                quote(t.pick(t.queries)), quote(t.pick(t.queries)), quote(t.pick(t.queries)),
+                                quote(t.pick(t.queries)), quote(t.pick(t.queries))))),
+                scenario(mix, "embed-text", t -> t.post("/api/embed/text",
+                        "{\"text\":%s,\"store\":false}".formatted(quote(t.pick(t.queries))))),
+                scenario(mix, "embed-store", t -> t.post("/api/embed/text",
+                        "{\"text\":%s,\"store\":true,\"metadata\":{\"source\":\"loadtest\"}}"
+                                .formatted(quote(t.pick(t.documents))))),
+                scenario(mix, "embed-chunked", t -> t.post("/api/embed/text",
+                        "{\"text\":%s,\"store\":true,\"chunked\":true,\"metadata\":{\"source\":\"loadtest\"}}"
+                                .formatted(quote(String.join("\n\n", t.pick(t.documents), t.pick(t.documents),
+                                        t.pick(t.documents), t.pick(t.documents)))))),
+                scenario(mix, "summarize-text", t -> t.post("/api/summarize/text",
+                        "{\"text\":%s}".formatted(quote(t.pick(t.documents))))),
+                scenario(mix, "summarize-image", t -> t.post("/api/summarize/image",
+                        "{\"imageBase64\":\"%s\",\"imageMimeType\":\"image/png\"}".formatted(t.pick(t.imagesBase64)))),
+                scenario(mix, "embed-image", t -> t.post("/api/embed/image",
+                        "{\"imageBase64\":\"%s\",\"imageMimeType\":\"image/png\",\"metadata\":{\"source\":\"loadtest\"}}"
+                                .formatted(t.pick(t.imagesBase64)))),
+                scenario(mix, "colbert-encode", t -> t.post("/api/colbert/encode",
+                        "{\"text\":%s}".formatted(quote(t.pick(t.queries))))),
+                scenario(mix, "colbert-score", t -> t.post("/api/colbert/score",
+                        "{\"query\":%s,\"document\":%s}".formatted(
+                                quote(t.pick(t.queries)), quote(t.pick(t.queries) + " " + t.pick(t.queries))))),
+                scenario(mix, "colbert-store", t -> t.post("/api/colbert/store",
+                        "{\"text\":%s}".formatted(quote(t.pick(t.queries))))),
+                scenario(mix, "ingest", Traffic::ingest));
+    }
+
+    private static Scenario scenario(Map<String, Integer> mix, String name, Function<Traffic, HttpRequest> request) {
+        return new Scenario(name, mix.getOrDefault(name, 0), request);
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    /** Multipart upload of a few images to the bulk ingestion endpoint. */
+    private HttpRequest ingest() {
+        List<byte[]> parts = new ArrayList<>();
+        int count = 2 + ThreadLocalRandom.current().nextInt(3);
+        for (int i = 0; i < count; i++) {
+            String header = "--" + BOUNDARY + "\r\n"
+                    + "Content-Disposition: form-data; name=\"files\"; filename=\"image-" + i + ".png\"\r\n"
+                    + "Content-Type: image/png\r\n\r\n";
+            parts.add(header.getBytes(StandardCharsets.UTF_8));
+            parts.add(pick(images));
+            parts.add("\r\n".getBytes(StandardCharsets.UTF_8));
+        }
+        parts.add(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        return HttpRequest.newBuilder(baseUri.resolve("/api/ingest/images"))
+                .timeout(timeout)
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArrays(parts))
+                .build();
+    }
+
+    private <T> T pick(List<T> pool) {
+        return pool.get(ThreadLocalRandom.current().nextInt(pool.size()));
+    }
+
+    private static List<String> texts(SplittableRandom random, int count, int minWords, int maxWords) {
+        List<String> texts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int words = minWords + random.nextInt(maxWords - minWords + 1);
+            var sb = new StringBuilder();
+            for (int w = 0; w < words; w++) {
+                sb.append(w == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            texts.add(sb.toString());
+        }
+        return texts;
+    }
+
+    private static String quote(String text) {
+        return '"' + text.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + '"';
+    }
+}
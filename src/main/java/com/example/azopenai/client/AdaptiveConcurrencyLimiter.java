@@ -0,0 +1,163 @@
+package com.example.azopenai.client;
+
+import com.example.azopenai.config.AiProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD concurrency limiter for calls to one model provider.
+ *
+ * <p>
+ * The in-flight limit grows by roughly one per limit's worth of fast successful
+ * calls (additive increase) and is multiplied by {@code backoff-ratio} when the
+ * provider throttles, fails transiently, or a call takes longer than
+ * {@code latency-tolerance} times the smoothed latency (multiplicative
+ * decrease). Decreases are applied at most once per smoothed round trip so a
+ * burst of 429s from one overload episode shrinks the limit only once.
+ * </p>
+ *
+ * <p>
+ * Callers over the limit wait in a queue for at most {@code max-queue-wait}.
+ * Uses a {@link ReentrantLock} rather than {@code synchronized} so waiting
+ * virtual threads do not pin their carrier.
+ * </p>
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /** Outcome of a call, used to adjust the limit. */
+    public enum Outcome {
+        SUCCESS, THROTTLED, FAILED,
+        /** Failed for reasons unrelated to provider load (e.g. a 400); not used to adapt. */
+        IGNORED
+    }
+
+    private static final double LATENCY_SMOOTHING = 0.05;
+
+    private final AiProperties.Limiter cfg;
+    private final String name;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+    private final Timer queueWait;
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private double smoothedLatencyNanos;
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(String name, AiProperties.Limiter cfg, Tags tags, MeterRegistry registry) {
+        this.cfg = cfg;
+        this.name = name;
+        this.limit = cfg.getInitialLimit();
+        this.lastDecreaseNanos = System.nanoTime() - TimeUnit.HOURS.toNanos(1);
+
+        Gauge.builder("ai.client.limiter.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive in-flight limit").tags(tags).register(registry);
+        Gauge.builder("ai.client.limiter.inflight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Calls currently in flight").tags(tags).register(registry);
+        Gauge.builder("ai.client.limiter.queued", this, AdaptiveConcurrencyLimiter::getQueued)
+                .description("Calls waiting for a limiter slot").tags(tags).register(registry);
+        this.queueWait = Timer.builder("ai.client.limiter.queue.wait")
+                .description("Time spent waiting for a limiter slot").tags(tags).register(registry);
+    }
+
+    /**
+     * Wait for an in-flight slot.
+     *
+     * @throws ConcurrencyLimitExceededException if no slot frees up within the
+     *                                           configured maximum queue wait
+     */
+    public void acquire() {
+        long start = System.nanoTime();
+        long remaining = cfg.getMaxQueueWait().toNanos();
+        lock.lock();
+        try {
+            queued++;
+            try {
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        throw new ConcurrencyLimitExceededException(
+                                "Timed out waiting for " + name + " concurrency slot (limit " + (int) limit + ")");
+                    }
+                    remaining = slotFreed.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConcurrencyLimitExceededException("Interrupted waiting for " + name + " concurrency slot");
+            } finally {
+                queued--;
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+            queueWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Release a slot and adapt the limit to the call's latency and outcome. */
+    public void release(long latencyNanos, Outcome outcome) {
+        lock.lock();
+        try {
+            inFlight--;
+            slotFreed.signalAll();
+            if (outcome == Outcome.IGNORED) {
+                return;
+            }
+
+            boolean slow = smoothedLatencyNanos > 0
+                    && latencyNanos > cfg.getLatencyTolerance() * smoothedLatencyNanos;
+
+            if (outcome != Outcome.SUCCESS || slow) {
+                long now = System.nanoTime();
+                if (now - lastDecreaseNanos > smoothedLatencyNanos) {
+                    limit = Math.max(cfg.getMinLimit(), limit * cfg.getBackoffRatio());
+                    lastDecreaseNanos = now;
+                }
+            } else if (inFlight + 1 >= (int) limit) {
+                // Only grow when the limit was actually the constraint
+                limit = Math.min(cfg.getMaxLimit(), limit + 1.0 / limit);
+            }
+
+            if (outcome == Outcome.SUCCESS) {
+                smoothedLatencyNanos = smoothedLatencyNanos == 0
+                        ? latencyNanos
+                        : (1 - LATENCY_SMOOTHING) * smoothedLatencyNanos + LATENCY_SMOOTHING * latencyNanos;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.azopenai.client;
+
+import com.example.azopenai.config.AiProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Routes calls for one model across several backend deployments.
+ *
+ * <p>
+ * Strategies:
+ * <ul>
+ * <li>{@code least-outstanding} — fewest in-flight requests, random
+ * tie-break</li>
+ * <li>{@code ewma} — lowest {@code (outstanding + 1) × EWMA latency}
+ * ("peak EWMA"), so a slow or overloaded deployment sheds traffic before it
+ * starts failing</li>
+ * </ul>
+ * Throttled or transient failures eject a backend after
+ * {@code failure-threshold} consecutive failures and the call fails over to the
+ * next best backend. Ejected backends are probed back in with a single live
+ * request after {@code ejection-duration}. If every backend is ejected, the one
+ * whose ejection ends first is used rather than failing outright.
+ * </p>
+ */
+@Slf4j
+public class BackendRouter<T> {
+
+    private final String model;
+    private final List<RoutedBackend<T>> backends;
+    private final AiProperties.Routing cfg;
+    private final boolean ewma;
+    private final Counter failovers;
+
+    public BackendRouter(String model, List<RoutedBackend<T>> backends, AiProperties.Routing cfg,
+            MeterRegistry registry) {
+        this.model = model;
+        this.backends = List.copyOf(backends);
+        this.cfg = cfg;
+        this.ewma = switch (cfg.getStrategy().toLowerCase()) {
+            case "ewma" -> true;
+            case "least-outstanding" -> false;
+            default -> throw new IllegalArgumentException(
+                    "Unknown routing strategy: " + cfg.getStrategy() + ". Use 'ewma' or 'least-outstanding'.");
+        };
+
+        for (var backend : this.backends) {
+            Tags tags = Tags.of("model", model, "backend", backend.getName());
+            Gauge.builder("ai.client.backend.outstanding", backend, RoutedBackend::getOutstanding)
+                    .description("In-flight requests per backend").tags(tags).register(registry);
+            Gauge.builder("ai.client.backend.latency.ewma", backend, RoutedBackend::getEwmaLatencyMs)
+                    .description("EWMA latency per backend in milliseconds").tags(tags).register(registry);
+            Gauge.builder("ai.client.backend.healthy", backend, b -> b.isHealthy() ? 1 : 0)
+                    .description("1 if the backend is in rotation, 0 if ejected").tags(tags).register(registry);
+        }
+        this.failovers = Counter.builder("ai.client.backend.failovers")
+                .description("Calls retried on another backend after a failure")
+                .tag("model", model).register(registry);
+    }
+
+    public List<RoutedBackend<T>> getBackends() {
+        return backends;
+    }
+
+    public <R> R execute(Function<T, R> call) {
+        return execute(call, result -> true);
+    }
+
+    /**
+     * Run a call on the best backend, failing over to the others on throttled
+     * or transient errors. A backend whose result fails {@code valid} is taken
+     * out of rotation permanently.
+     */
+    public <R> R execute(Function<T, R> call, Predicate<R> valid) {
+        Set<RoutedBackend<T>> tried = new HashSet<>();
+        RuntimeException lastFailure = null;
+
+        RoutedBackend<T> backend;
+        while ((backend = choose(tried)) != null) {
+            tried.add(backend);
+            if (lastFailure != null) {
+                failovers.increment();
+            }
+
+            backend.onStart();
+            long start = System.nanoTime();
+            try {
+                R result = call.apply(backend.getClient());
+                if (!valid.test(result)) {
+                    log.error("{} backend '{}' returned an incompatible result; removing it from rotation",
+                            model, backend.getName());
+                    backend.onNeutral();
+                    backend.disable();
+                    lastFailure = new IllegalStateException(
+                            "Backend '" + backend.getName() + "' returned an incompatible result");
+                    continue;
+                }
+                backend.onSuccess(System.nanoTime() - start);
+                return result;
+            } catch (ConcurrencyLimitExceededException e) {
+                // Saturated, not unhealthy: try another backend without ejecting this one
+                backend.onNeutral();
+                lastFailure = e;
+            } catch (RuntimeException e) {
+                if (ProviderErrors.classify(e) == ProviderErrors.Kind.PERMANENT) {
+                    backend.onNeutral();
+                    throw e;
+                }
+                backend.onFailure(cfg.getFailureThreshold(), cfg.getEjectionDuration().toNanos());
+                log.warn("{} backend '{}' failed: {}", model, backend.getName(), e.getMessage());
+                lastFailure = e;
+            }
+        }
+
+        throw lastFailure != null
+                ? lastFailure
+                : new IllegalStateException("No " + model + " backend available");
+    }
+
+    private RoutedBackend<T> choose(Set<RoutedBackend<T>> excluded) {
+        List<RoutedBackend<T>> healthy = new ArrayList<>(backends.size());
+        for (var backend : backends) {
+            if (excluded.contains(backend)) {
+                continue;
+            }
+            if (backend.isProbeDue() && backend.tryStartProbe()) {
+                log.info("Probing ejected {} backend '{}'", model, backend.getName());
+                return backend;
+            }
+            if (backend.isHealthy()) {
+                healthy.add(backend);
+            }
+        }
+
+        if (healthy.isEmpty()) {
+            return excluded.isEmpty() ? panicChoice() : null;
+        }
+
+        int offset = ThreadLocalRandom.current().nextInt(healthy.size());
+        RoutedBackend<T> best = null;
+        double bestScore = Double.MAX_VALUE;
+        for (int i = 0; i < healthy.size(); i++) {
+            var candidate = healthy.get((i + offset) % healthy.size());
+            double score = ewma
+                    ? (candidate.getOutstanding() + 1) * candidate.getEwmaLatencyMs()
+                    : candidate.getOutstanding();
+            if (score < bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /** All backends ejected: probe the one whose ejection ends first. */
+    private RoutedBackend<T> panicChoice() {
+        var candidate = backends.stream()
+                .filter(backend -> !backend.isDisabled())
+                .min(Comparator.comparingLong(backend -> backend.ejectedUntilNanos() - System.nanoTime()));
+        if (candidate.isPresent() && candidate.get().tryStartProbe()) {
+            log.warn("All {} backends ejected; probing '{}'", model, candidate.get().getName());
+            return candidate.get();
+        }
+        return null;
+    }
+}
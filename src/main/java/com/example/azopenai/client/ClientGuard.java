@@ -0,0 +1,115 @@
+package com.example.azopenai.client;
+
+import com.example.azopenai.client.AdaptiveConcurrencyLimiter.Outcome;
+import com.example.azopenai.config.AiProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs provider calls under an {@link AdaptiveConcurrencyLimiter} and retries
+ * throttled and transient failures with exponential backoff and full jitter,
+ * waiting at least the provider's {@code Retry-After} when one is sent. The
+ * limiter slot is released before sleeping so backoff does not hold capacity.
+ */
+@Slf4j
+public class ClientGuard {
+
+    private final String name;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final AiProperties.Retry retry;
+    private final Counter retries;
+    private final Counter throttled;
+
+    public ClientGuard(String model, String backend, AiProperties.ModelConfig cfg, MeterRegistry registry) {
+        this.name = model + "/" + backend;
+        Tags tags = Tags.of("model", model, "provider", cfg.getProvider(), "backend", backend);
+        this.limiter = cfg.getLimiter().isEnabled()
+                ? new AdaptiveConcurrencyLimiter(name, cfg.getLimiter(), tags, registry)
+                : null;
+        this.retry = cfg.getRetry();
+
+        this.retries = Counter.builder("ai.client.retries")
+                .description("Provider calls retried after a throttled or transient failure")
+                .tags(tags).register(registry);
+        this.throttled = Counter.builder("ai.client.throttled")
+                .description("Provider calls rejected with HTTP 429")
+                .tags(tags).register(registry);
+    }
+
+    public <T> T execute(Supplier<T> call) {
+        for (int attempt = 0;; attempt++) {
+            RuntimeException failure;
+            ProviderErrors.Kind kind;
+
+            if (limiter != null) {
+                limiter.acquire();
+            }
+            long start = System.nanoTime();
+            Outcome outcome = Outcome.SUCCESS;
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                failure = e;
+                kind = ProviderErrors.classify(e);
+                outcome = switch (kind) {
+                    case THROTTLED -> Outcome.THROTTLED;
+                    case TRANSIENT -> Outcome.FAILED;
+                    case PERMANENT -> Outcome.IGNORED;
+                };
+            } finally {
+                if (limiter != null) {
+                    limiter.release(System.nanoTime() - start, outcome);
+                }
+            }
+
+            if (kind == ProviderErrors.Kind.THROTTLED) {
+                throttled.increment();
+            }
+            if (kind == ProviderErrors.Kind.PERMANENT || attempt >= retry.getMaxRetries()) {
+                throw failure;
+            }
+
+            Duration retryAfter = ProviderErrors.retryAfter(failure);
+            if (retryAfter != null && retryAfter.compareTo(retry.getMaxBackoff()) > 0) {
+                // The provider asked for a longer pause than we are willing to hold the caller
+                throw failure;
+            }
+            Duration delay = backoff(attempt, retryAfter);
+            log.debug("{} call failed ({}), retry {}/{} in {} ms",
+                    name, kind, attempt + 1, retry.getMaxRetries(), delay.toMillis());
+            retries.increment();
+            sleep(delay, failure);
+        }
+    }
+
+    /**
+     * Full-jitter exponential backoff, never shorter than the server's
+     * {@code Retry-After} (plus jitter so throttled callers do not return in
+     * lockstep), and capped at the configured maximum.
+     */
+    Duration backoff(int attempt, Duration retryAfter) {
+        long base = retry.getInitialBackoff().toMillis();
+        long cap = retry.getMaxBackoff().toMillis();
+        long exponential = Math.min(cap, base << Math.min(attempt, 20));
+        long delay = ThreadLocalRandom.current().nextLong(exponential + 1);
+        if (retryAfter != null) {
+            delay = Math.max(delay, retryAfter.toMillis() + ThreadLocalRandom.current().nextLong(base + 1));
+        }
+        return Duration.ofMillis(Math.min(delay, cap));
+    }
+
+    private static void sleep(Duration delay, RuntimeException failure) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw failure;
+        }
+    }
+}
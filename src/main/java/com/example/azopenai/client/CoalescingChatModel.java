@@ -0,0 +1,91 @@
+package com.example.azopenai.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.content.Media;
+import org.springframework.ai.content.MediaContent;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * {@link ChatModel} decorator that shares one provider call between concurrent
+ * identical prompts. Prompts are keyed by a digest of their messages and media
+ * plus the portable chat options. Streaming calls are passed through.
+ */
+public class CoalescingChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final SingleFlight<PromptKey, ChatResponse> prompts;
+
+    public CoalescingChatModel(ChatModel delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.prompts = new SingleFlight<>("chat", registry);
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        return prompts.execute(PromptKey.of(prompt), () -> delegate.call(prompt));
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return delegate.stream(prompt);
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    private record PromptKey(String messagesDigest, Class<?> optionsType, List<Object> options) {
+
+        static PromptKey of(Prompt prompt) {
+            ChatOptions options = prompt.getOptions();
+            return options == null
+                    ? new PromptKey(digest(prompt.getInstructions()), null, List.of())
+                    : new PromptKey(digest(prompt.getInstructions()), options.getClass(), Arrays.asList(
+                            options.getModel(), options.getTemperature(), options.getMaxTokens(),
+                            options.getTopP(), options.getTopK(), options.getFrequencyPenalty(),
+                            options.getPresencePenalty(), options.getStopSequences()));
+        }
+
+        private static String digest(List<Message> messages) {
+            MessageDigest sha;
+            try {
+                sha = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            for (Message message : messages) {
+                sha.update(message.getMessageType().name().getBytes(StandardCharsets.UTF_8));
+                sha.update((byte) 0);
+                if (message.getText() != null) {
+                    sha.update(message.getText().getBytes(StandardCharsets.UTF_8));
+                }
+                sha.update((byte) 0);
+                if (message instanceof MediaContent mediaContent) {
+                    for (Media media : mediaContent.getMedia()) {
+                        sha.update(media.getMimeType().toString().getBytes(StandardCharsets.UTF_8));
+                        if (media.getData() instanceof byte[] bytes) {
+                            sha.update(bytes);
+                        } else {
+                            sha.update(String.valueOf(media.getData()).getBytes(StandardCharsets.UTF_8));
+                        }
+                        sha.update((byte) 0);
+                    }
+                }
+            }
+            return HexFormat.of().formatHex(sha.digest());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.azopenai.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.List;
+
+/**
+ * {@link EmbeddingModel} decorator that shares one provider call between
+ * concurrent identical embedding requests (same inputs and options).
+ */
+public class CoalescingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final SingleFlight<RequestKey, EmbeddingResponse> requests;
+    private final SingleFlight<String, float[]> documents;
+
+    public CoalescingEmbeddingModel(EmbeddingModel delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.requests = new SingleFlight<>("embedding", registry);
+        this.documents = new SingleFlight<>("embedding", registry);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return requests.execute(RequestKey.of(request), () -> delegate.call(request));
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return documents.execute(document.getFormattedContent(), () -> delegate.embed(document));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    private record RequestKey(List<String> inputs, Class<?> optionsType, String model, Integer dimensions) {
+
+        static RequestKey of(EmbeddingRequest request) {
+            EmbeddingOptions options = request.getOptions();
+            return options == null
+                    ? new RequestKey(request.getInstructions(), null, null, null)
+                    : new RequestKey(request.getInstructions(), options.getClass(),
+                            options.getModel(), options.getDimensions());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.azopenai.client;
+
+/**
+ * Raised when a call waited longer than the configured maximum queue wait for
+ * a concurrency-limiter slot.
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    public ConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+}
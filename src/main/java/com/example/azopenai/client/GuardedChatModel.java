@@ -0,0 +1,38 @@
+package com.example.azopenai.client;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+/**
+ * {@link ChatModel} decorator that runs calls through a {@link ClientGuard}
+ * (adaptive concurrency limit plus 429-aware retry). Streaming calls are passed
+ * through.
+ */
+public class GuardedChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final ClientGuard guard;
+
+    public GuardedChatModel(ChatModel delegate, ClientGuard guard) {
+        this.delegate = delegate;
+        this.guard = guard;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        return guard.execute(() -> delegate.call(prompt));
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return delegate.stream(prompt);
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+}
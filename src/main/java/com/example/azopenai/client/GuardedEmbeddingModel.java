@@ -0,0 +1,36 @@
+package com.example.azopenai.client;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * {@link EmbeddingModel} decorator that runs calls through a
+ * {@link ClientGuard} (adaptive concurrency limit plus 429-aware retry).
+ */
+public class GuardedEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final ClientGuard guard;
+
+    public GuardedEmbeddingModel(EmbeddingModel delegate, ClientGuard guard) {
+        this.delegate = delegate;
+        this.guard = guard;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return guard.execute(() -> delegate.call(request));
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return guard.execute(() -> delegate.embed(document));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.azopenai.client;
+
+import com.example.azopenai.config.AiProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hedged execution of idempotent model calls.
+ *
+ * <p>
+ * The call is started on a virtual thread; if it has not finished after the
+ * tracked latency percentile, a duplicate is started and whichever completes
+ * first wins, the other is cancelled (interrupted). Hedges are paid for from a
+ * token bucket that earns {@code max-extra-load} tokens per call, so hedging
+ * can add at most that fraction of extra load. Until enough latencies have been
+ * observed, calls run directly on the caller's thread. Virtual threads are
+ * used so a parked hedge costs no platform thread and needs no shutdown.
+ * </p>
+ *
+ * <p>
+ * Only the original attempt is timed, so the percentile tracks unhedged
+ * latency. A failed or cancelled attempt records how long it ran, a lower
+ * bound; leaving it out would keep only the attempts that beat their hedge,
+ * pulling the delay, and with it the next hedge, ever earlier.
+ * </p>
+ */
+public class Hedger {
+
+    private static final long TOKEN = 1_000_000;
+
+    private final AiProperties.Hedging cfg;
+    private final LatencyTracker latencies;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong budget = new AtomicLong();
+    private final long maxBudget;
+    private final long earnPerCall;
+    private final Counter calls;
+    private final Counter hedges;
+    private final Counter hedgeWins;
+
+    public Hedger(String model, AiProperties.Hedging cfg, MeterRegistry registry) {
+        this.cfg = cfg;
+        this.latencies = new LatencyTracker(cfg.getPercentile(), cfg.getMinSamples());
+        this.maxBudget = (long) (cfg.getMaxBurst() * TOKEN);
+        this.earnPerCall = (long) (cfg.getMaxExtraLoad() * TOKEN);
+
+        this.calls = Counter.builder("ai.client.hedge.calls")
+                .description("Calls eligible for hedging").tag("model", model).register(registry);
+        this.hedges = Counter.builder("ai.client.hedge.sent")
+                .description("Hedge requests sent").tag("model", model).register(registry);
+        this.hedgeWins = Counter.builder("ai.client.hedge.wins")
+                .description("Hedge requests that finished before the original").tag("model", model)
+                .register(registry);
+        Gauge.builder("ai.client.hedge.delay", latencies, t -> t.percentileNanos() / 1_000_000.0)
+                .description("Current hedge delay in milliseconds (-1 until warmed up)")
+                .tag("model", model).register(registry);
+    }
+
+    public <T> T execute(Supplier<T> call) {
+        calls.increment();
+        earn();
+
+        long tracked = latencies.percentileNanos();
+        if (tracked < 0) {
+            return timed(call);
+        }
+        long delay = Math.max(tracked, cfg.getMinDelay().toNanos());
+
+        var completion = new ExecutorCompletionService<T>(executor);
+        Future<T> primary = completion.submit(() -> timed(call));
+        Future<T> hedge = null;
+        try {
+            Future<T> first = completion.poll(delay, TimeUnit.NANOSECONDS);
+            if (first == null && spend()) {
+                hedges.increment();
+                hedge = completion.submit(call::get);
+            }
+            if (first == null) {
+                first = completion.take();
+            }
+
+            if (hedge != null && failed(first)) {
+                // One attempt failed; the other may still succeed
+                first = completion.take();
+            } else if (first == hedge) {
+                hedgeWins.increment();
+            }
+            return first.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted waiting for model call");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    private <T> T timed(Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            latencies.record(System.nanoTime() - start);
+        }
+    }
+
+    private static boolean failed(Future<?> future) {
+        return future.state() == Future.State.FAILED;
+    }
+
+    private void earn() {
+        budget.getAndUpdate(tokens -> Math.min(maxBudget, tokens + earnPerCall));
+    }
+
+    private boolean spend() {
+        long tokens;
+        do {
+            tokens = budget.get();
+            if (tokens < TOKEN) {
+                return false;
+            }
+        } while (!budget.compareAndSet(tokens, tokens - TOKEN));
+        return true;
+    }
+}
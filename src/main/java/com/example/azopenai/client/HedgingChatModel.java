@@ -0,0 +1,56 @@
+package com.example.azopenai.client;
+
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.content.MediaContent;
+import reactor.core.publisher.Flux;
+
+/**
+ * {@link ChatModel} decorator that hedges slow calls for short, text-only
+ * prompts. Prompts with media or longer than {@code maxPromptChars} run
+ * unhedged, since duplicating a vision or long-generation call would double an
+ * expensive request for little tail-latency gain.
+ */
+public class HedgingChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final Hedger hedger;
+    private final int maxPromptChars;
+
+    public HedgingChatModel(ChatModel delegate, Hedger hedger, int maxPromptChars) {
+        this.delegate = delegate;
+        this.hedger = hedger;
+        this.maxPromptChars = maxPromptChars;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        return isShort(prompt)
+                ? hedger.execute(() -> delegate.call(prompt))
+                : delegate.call(prompt);
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return delegate.stream(prompt);
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    private boolean isShort(Prompt prompt) {
+        int chars = 0;
+        for (Message message : prompt.getInstructions()) {
+            if (message instanceof MediaContent content && !content.getMedia().isEmpty()) {
+                return false;
+            }
+            chars += message.getText() != null ? message.getText().length() : 0;
+        }
+        return chars <= maxPromptChars;
+    }
+}
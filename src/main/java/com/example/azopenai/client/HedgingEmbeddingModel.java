@@ -0,0 +1,38 @@
+package com.example.azopenai.client;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * {@link EmbeddingModel} decorator that hedges slow calls with a
+ * {@link Hedger}. Embedding calls are idempotent, so the duplicate is safe;
+ * behind a {@link RoutingEmbeddingModel} the hedge usually lands on another
+ * backend because the original is still counted as outstanding.
+ */
+public class HedgingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final Hedger hedger;
+
+    public HedgingEmbeddingModel(EmbeddingModel delegate, Hedger hedger) {
+        this.delegate = delegate;
+        this.hedger = hedger;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return hedger.execute(() -> delegate.call(request));
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return hedger.execute(() -> delegate.embed(document));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
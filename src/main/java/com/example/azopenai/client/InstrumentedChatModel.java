@@ -0,0 +1,41 @@
+package com.example.azopenai.client;
+
+import com.example.azopenai.config.PipelineMetrics;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+/**
+ * Outermost {@link ChatModel} decorator recording the {@code chat} pipeline
+ * stage and the provider-reported token usage. Streaming calls are passed
+ * through.
+ */
+public class InstrumentedChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final PipelineMetrics metrics;
+
+    public InstrumentedChatModel(ChatModel delegate, PipelineMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        ChatResponse response = metrics.time(PipelineMetrics.Stage.CHAT, () -> delegate.call(prompt));
+        metrics.usage(response);
+        return response;
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return delegate.stream(prompt);
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+}
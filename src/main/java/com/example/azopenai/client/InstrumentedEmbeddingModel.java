@@ -0,0 +1,50 @@
+package com.example.azopenai.client;
+
+import com.example.azopenai.config.PipelineMetrics;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * Outermost {@link EmbeddingModel} decorator recording every embedding call,
+ * including those made by the vector store, as the {@code batch-embed}
+ * pipeline stage, with the number of vectors returned. When the vector size
+ * is known from configuration, {@link #dimensions()} answers without a
+ * provider call.
+ */
+public class InstrumentedEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final PipelineMetrics metrics;
+    private final Integer dimensions;
+
+    /**
+     * @param dimensions known vector size, or null to ask the delegate (which
+     *                   may embed a probe text)
+     */
+    public InstrumentedEmbeddingModel(EmbeddingModel delegate, PipelineMetrics metrics, Integer dimensions) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        EmbeddingResponse response = metrics.time(PipelineMetrics.Stage.BATCH_EMBED, () -> delegate.call(request));
+        metrics.vectors(PipelineMetrics.Stage.BATCH_EMBED, response.getResults().size());
+        return response;
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        float[] vector = metrics.time(PipelineMetrics.Stage.BATCH_EMBED, () -> delegate.embed(document));
+        metrics.vectors(PipelineMetrics.Stage.BATCH_EMBED, 1);
+        return vector;
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions != null ? dimensions : delegate.dimensions();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.azopenai.client;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sliding-window latency percentile over the most recent samples.
+ *
+ * <p>
+ * Samples go into a fixed ring buffer without locking; the percentile is
+ * recomputed from a sorted copy every {@value #RECOMPUTE_EVERY} samples and
+ * cached, so reading it is a volatile load.
+ * </p>
+ */
+public class LatencyTracker {
+
+    private static final int WINDOW = 512;
+    private static final int RECOMPUTE_EVERY = 64;
+
+    private final double percentile;
+    private final int minSamples;
+    private final long[] samples = new long[WINDOW];
+    private final AtomicLong count = new AtomicLong();
+    private volatile long percentileNanos = -1;
+
+    public LatencyTracker(double percentile, int minSamples) {
+        this.percentile = percentile;
+        this.minSamples = Math.min(minSamples, WINDOW);
+    }
+
+    public void record(long latencyNanos) {
+        long n = count.getAndIncrement();
+        samples[(int) (n % WINDOW)] = latencyNanos;
+        if (n + 1 >= minSamples && ((n + 1) % RECOMPUTE_EVERY == 0 || percentileNanos < 0)) {
+            recompute((int) Math.min(n + 1, WINDOW));
+        }
+    }
+
+    /** The tracked percentile in nanoseconds, or -1 until enough samples exist. */
+    public long percentileNanos() {
+        return percentileNanos;
+    }
+
+    private void recompute(int size) {
+        long[] copy = Arrays.copyOf(samples, size);
+        Arrays.sort(copy);
+        percentileNanos = copy[Math.min(size - 1, (int) Math.ceil(percentile * size) - 1)];
+    }
+}
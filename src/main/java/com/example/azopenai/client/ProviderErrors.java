@@ -0,0 +1,112 @@
+package com.example.azopenai.client;
+
+import com.azure.core.exception.HttpResponseException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Classifies provider failures (Azure SDK and Spring {@code RestClient}) into
+ * throttling, transient and permanent errors, and parses retry hints.
+ */
+public final class ProviderErrors {
+
+    private ProviderErrors() {
+    }
+
+    /** Error classes that drive limiter and retry decisions. */
+    public enum Kind {
+        /** HTTP 429: back off and shrink the concurrency limit. */
+        THROTTLED,
+        /** 5xx, timeouts and I/O errors: retry. */
+        TRANSIENT,
+        /** Everything else: fail immediately. */
+        PERMANENT
+    }
+
+    public static Kind classify(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof ProviderThrottledException) {
+                return Kind.THROTTLED;
+            }
+            if (t instanceof HttpResponseException azure && azure.getResponse() != null) {
+                return kindOf(azure.getResponse().getStatusCode());
+            }
+            if (t instanceof HttpStatusCodeException http) {
+                return kindOf(http.getStatusCode().value());
+            }
+            if (t instanceof TransientAiException || t instanceof ResourceAccessException
+                    || t instanceof IOException || t instanceof TimeoutException) {
+                return Kind.TRANSIENT;
+            }
+        }
+        return Kind.PERMANENT;
+    }
+
+    /**
+     * Server-requested retry delay found anywhere in the cause chain, or null.
+     * Understands Azure's {@code retry-after-ms} and the standard
+     * {@code Retry-After} header (seconds or HTTP date).
+     */
+    public static Duration retryAfter(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof ProviderThrottledException throttled) {
+                return throttled.getRetryAfter();
+            }
+            if (t instanceof HttpResponseException azure && azure.getResponse() != null) {
+                var response = azure.getResponse();
+                return parseRetryAfter(response.getHeaderValue("retry-after-ms"),
+                        response.getHeaderValue("Retry-After"));
+            }
+            if (t instanceof HttpStatusCodeException http && http.getResponseHeaders() != null) {
+                return parseRetryAfter(http.getResponseHeaders().getFirst("retry-after-ms"),
+                        http.getResponseHeaders().getFirst("Retry-After"));
+            }
+        }
+        return null;
+    }
+
+    /** Retry delay from {@code retry-after-ms} when sent, else from {@code Retry-After}. */
+    public static Duration parseRetryAfter(String retryAfterMs, String retryAfter) {
+        Duration millis = retryAfterMs != null ? parseMillis(retryAfterMs) : null;
+        return millis != null ? millis : parseRetryAfter(retryAfter);
+    }
+
+    public static Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofMillis((long) (Double.parseDouble(value.trim()) * 1000));
+        } catch (NumberFormatException e) {
+            try {
+                var date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                Duration delay = Duration.between(ZonedDateTime.now(date.getZone()), date);
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (RuntimeException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private static Duration parseMillis(String value) {
+        try {
+            return Duration.ofMillis(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Kind kindOf(int status) {
+        if (status == 429) {
+            return Kind.THROTTLED;
+        }
+        return status >= 500 || status == 408 ? Kind.TRANSIENT : Kind.PERMANENT;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.azopenai.client;
+
+import java.time.Duration;
+
+/**
+ * Raised when a model provider rejects a call with HTTP 429, carrying the
+ * server-requested {@code Retry-After} delay when one was sent.
+ */
+public class ProviderThrottledException extends RuntimeException {
+
+    private final transient Duration retryAfter;
+
+    public ProviderThrottledException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /** Server-requested delay before retrying, or null if none was sent. */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
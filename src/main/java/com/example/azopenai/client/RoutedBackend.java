@@ -0,0 +1,109 @@
+package com.example.azopenai.client;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One deployment behind a {@link BackendRouter}, with the load and health
+ * state the router balances on: outstanding requests, EWMA latency, and
+ * passive ejection after consecutive failures.
+ *
+ * <p>
+ * An ejected backend becomes eligible again after the ejection period, but
+ * only for a single probe request at a time; a successful probe restores it,
+ * a failed one ejects it again.
+ * </p>
+ */
+public class RoutedBackend<T> {
+
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final String name;
+    private final T client;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean probing = new AtomicBoolean();
+
+    private volatile double ewmaLatencyMs;
+    private volatile long ejectedUntilNanos;
+    private volatile boolean ejected;
+    private volatile boolean disabled;
+
+    public RoutedBackend(String name, T client) {
+        this.name = name;
+        this.client = client;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public T getClient() {
+        return client;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public double getEwmaLatencyMs() {
+        return ewmaLatencyMs;
+    }
+
+    /** Whether this backend may receive a regular (non-probe) request now. */
+    public boolean isHealthy() {
+        return !disabled && !ejected;
+    }
+
+    /** Whether an ejected backend's ejection period has passed and no probe is running. */
+    boolean isProbeDue() {
+        return !disabled && ejected && System.nanoTime() - ejectedUntilNanos >= 0 && !probing.get();
+    }
+
+    boolean tryStartProbe() {
+        return probing.compareAndSet(false, true);
+    }
+
+    void onStart() {
+        outstanding.incrementAndGet();
+    }
+
+    void onSuccess(long latencyNanos) {
+        outstanding.decrementAndGet();
+        double latencyMs = latencyNanos / 1_000_000.0;
+        double current = ewmaLatencyMs;
+        // Racy read-modify-write is acceptable: a lost sample only slows convergence
+        ewmaLatencyMs = current == 0 ? latencyMs : (1 - LATENCY_SMOOTHING) * current + LATENCY_SMOOTHING * latencyMs;
+        consecutiveFailures.set(0);
+        ejected = false;
+        probing.set(false);
+    }
+
+    void onFailure(int failureThreshold, long ejectionNanos) {
+        outstanding.decrementAndGet();
+        if (probing.get() || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            ejectedUntilNanos = System.nanoTime() + ejectionNanos;
+            ejected = true;
+            probing.set(false);
+        }
+    }
+
+    /** Failure that says nothing about the backend's health (e.g. a 400). */
+    void onNeutral() {
+        outstanding.decrementAndGet();
+        probing.set(false);
+    }
+
+    boolean isDisabled() {
+        return disabled;
+    }
+
+    long ejectedUntilNanos() {
+        return ejectedUntilNanos;
+    }
+
+    /** Permanently remove this backend from rotation (e.g. wrong vector size). */
+    void disable() {
+        disabled = true;
+    }
+}
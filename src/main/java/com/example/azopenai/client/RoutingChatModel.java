@@ -0,0 +1,36 @@
+package com.example.azopenai.client;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+/**
+ * {@link ChatModel} that spreads calls across several deployments through a
+ * {@link BackendRouter}. Streaming calls go to the currently best backend
+ * without failover.
+ */
+public class RoutingChatModel implements ChatModel {
+
+    private final BackendRouter<ChatModel> router;
+
+    public RoutingChatModel(BackendRouter<ChatModel> router) {
+        this.router = router;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        return router.execute(backend -> backend.call(prompt));
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return router.execute(backend -> backend.stream(prompt));
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return router.getBackends().get(0).getClient().getDefaultOptions();
+    }
+}
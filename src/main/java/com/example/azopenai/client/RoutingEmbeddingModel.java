@@ -0,0 +1,47 @@
+package com.example.azopenai.client;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * {@link EmbeddingModel} that spreads calls across several deployments through
+ * a {@link BackendRouter}. When the vector dimension is known, a backend that
+ * returns vectors of a different size is removed from rotation and the call
+ * fails over, so mixed-dimension vectors never reach the vector store.
+ */
+public class RoutingEmbeddingModel implements EmbeddingModel {
+
+    private final BackendRouter<EmbeddingModel> router;
+    private final Integer dimensions;
+
+    /**
+     * @param dimensions expected vector size shared by all backends, or null if
+     *                   not configured
+     */
+    public RoutingEmbeddingModel(BackendRouter<EmbeddingModel> router, Integer dimensions) {
+        this.router = router;
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return router.execute(backend -> backend.call(request),
+                response -> response.getResults().stream().allMatch(e -> hasExpectedSize(e.getOutput())));
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return router.execute(backend -> backend.embed(document), this::hasExpectedSize);
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions != null ? dimensions : router.execute(EmbeddingModel::dimensions);
+    }
+
+    private boolean hasExpectedSize(float[] vector) {
+        return dimensions == null || vector.length == dimensions;
+    }
+}
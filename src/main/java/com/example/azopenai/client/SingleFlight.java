@@ -0,0 +1,130 @@
+package com.example.azopenai.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent identical calls into one in-flight execution.
+ *
+ * <p>
+ * The first caller for a key (the leader) runs the call on its own thread;
+ * callers arriving with the same key while it is still running wait on the
+ * leader's future and receive the same result or exception. Nothing is cached
+ * once the call completes.
+ * </p>
+ *
+ * <p>
+ * Each caller stops waiting when its own thread is interrupted (its endpoint
+ * timed out or its client went away). When that happens to the leader, its
+ * call is aborted but the waiting callers are not failed with it: one of them
+ * runs the call again as the new leader.
+ * </p>
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter calls;
+    private final Counter collapsed;
+
+    public SingleFlight(String model, MeterRegistry registry) {
+        this.calls = Counter.builder("ai.client.coalescing.calls")
+                .description("Model calls entering the coalescing layer")
+                .tag("model", model)
+                .register(registry);
+        this.collapsed = Counter.builder("ai.client.coalescing.collapsed")
+                .description("Model calls served by another identical in-flight call")
+                .tag("model", model)
+                .register(registry);
+    }
+
+    public V execute(K key, Supplier<V> call) {
+        calls.increment();
+
+        while (true) {
+            var leader = new CompletableFuture<V>();
+            var existing = inFlight.putIfAbsent(key, leader);
+            if (existing == null) {
+                return lead(key, leader, call);
+            }
+            try {
+                V result = await(existing);
+                collapsed.increment();
+                return result;
+            } catch (LeaderInterruptedException e) {
+                // The leader's caller gave up, not the call: take over
+            }
+        }
+    }
+
+    public long collapsedCount() {
+        return (long) collapsed.count();
+    }
+
+    private V lead(K key, CompletableFuture<V> leader, Supplier<V> call) {
+        try {
+            V result = call.get();
+            inFlight.remove(key, leader);
+            leader.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            // Removed first, so waiting callers that take over do not find this leader again
+            inFlight.remove(key, leader);
+            leader.completeExceptionally(interrupted(e) ? new LeaderInterruptedException(e) : e);
+            throw e;
+        }
+    }
+
+    /** Wait for the leader; an interrupt of this caller's own thread ends the wait. */
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for an identical call");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof LeaderInterruptedException leaderInterrupted) {
+                throw leaderInterrupted;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                collapsed.increment();
+                throw re;
+            }
+            if (e.getCause() instanceof Error error) {
+                collapsed.increment();
+                throw error;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    /** Whether the call failed because its caller was interrupted or cancelled, e.g. on timeout. */
+    private static boolean interrupted(Throwable error) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof InterruptedException || t instanceof InterruptedIOException
+                    || t instanceof CancellationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Handed to waiting callers when the leader's own caller was interrupted. */
+    private static final class LeaderInterruptedException extends RuntimeException {
+
+        LeaderInterruptedException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
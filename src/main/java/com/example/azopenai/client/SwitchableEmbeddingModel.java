@@ -0,0 +1,55 @@
+package com.example.azopenai.client;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.List;
+
+/**
+ * The serving {@link EmbeddingModel}, replaceable at runtime so a re-embedded
+ * collection and the model that queries it change over together. Callers
+ * holding this bean pick up the new model on their next call.
+ */
+public class SwitchableEmbeddingModel implements EmbeddingModel {
+
+    private volatile EmbeddingModel delegate;
+
+    public SwitchableEmbeddingModel(EmbeddingModel delegate) {
+        this.delegate = delegate;
+    }
+
+    public EmbeddingModel current() {
+        return delegate;
+    }
+
+    public void switchTo(EmbeddingModel model) {
+        this.delegate = model;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        return delegate.embed(text);
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts) {
+        return delegate.embed(texts);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
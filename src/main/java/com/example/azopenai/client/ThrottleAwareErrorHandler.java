@@ -0,0 +1,36 @@
+package com.example.azopenai.client;
+
+import org.springframework.ai.retry.RetryUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResponseErrorHandler;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * {@link ResponseErrorHandler} for OpenAI-compatible clients that surfaces
+ * HTTP 429 as {@link ProviderThrottledException} with the
+ * {@code retry-after-ms} or {@code Retry-After} hint, instead of Spring AI's generic exception that drops the headers. Other
+ * errors are handled by Spring AI's default handler.
+ */
+public class ThrottleAwareErrorHandler implements ResponseErrorHandler {
+
+    private final ResponseErrorHandler delegate = RetryUtils.DEFAULT_RESPONSE_ERROR_HANDLER;
+
+    @Override
+    public boolean hasError(ClientHttpResponse response) throws IOException {
+        return delegate.hasError(response);
+    }
+
+    @Override
+    public void handleError(URI url, HttpMethod method, ClientHttpResponse response) throws IOException {
+        if (response.getStatusCode().value() == 429) {
+            throw new ProviderThrottledException(
+                    "Provider throttled request to " + url,
+                    ProviderErrors.parseRetryAfter(response.getHeaders().getFirst("retry-after-ms"),
+                            response.getHeaders().getFirst("Retry-After")));
+        }
+        delegate.handleError(url, method, response);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.azopenai.client;
+
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClient;
+import tools.jackson.databind.JsonNode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contextual per-token embeddings from a llama.cpp server started with
+ * {@code --embeddings --pooling none}, through its native {@code /embedding}
+ * and {@code /tokenize} endpoints (the OpenAI-compatible
+ * {@code /v1/embeddings} only returns pooled vectors).
+ *
+ * <p>
+ * Token ids are sent rather than text, so the returned rows line up with known
+ * tokens. Texts longer than {@code maxTokens} are split into windows that go
+ * as several prompts of the same request. Calls run under the embedding
+ * model's {@link ClientGuard}. A server that answers 404, 405 or 501, or
+ * returns one pooled vector per prompt, raises
+ * {@link TokenEmbeddingsUnsupportedException}.
+ * </p>
+ */
+public class TokenEmbeddingClient {
+
+    /** Model tokens of a text: vocabulary ids and their surface pieces. */
+    public record ModelTokens(int[] ids, List<String> pieces) {
+    }
+
+    private final RestClient rest;
+    private final ClientGuard guard;
+    private final int maxTokens;
+
+    public TokenEmbeddingClient(String serverUrl, int maxTokens, RestClient.Builder builder, ClientGuard guard) {
+        if (maxTokens < 1) {
+            throw new IllegalArgumentException("maxTokens must be positive: " + maxTokens);
+        }
+        this.rest = builder.baseUrl(serverUrl)
+                .defaultStatusHandler(status -> status.value() == 429, (request, response) -> {
+                    throw new ProviderThrottledException("Provider throttled request to " + request.getURI(),
+                            ProviderErrors.parseRetryAfter(response.getHeaders().getFirst("Retry-After")));
+                })
+                .build();
+        this.guard = guard;
+        this.maxTokens = maxTokens;
+    }
+
+    /** Server root for an OpenAI-compatible base URL: a trailing {@code /v1} is dropped. */
+    public static String serverUrl(String openAiBaseUrl) {
+        String url = openAiBaseUrl.endsWith("/") ? openAiBaseUrl.substring(0, openAiBaseUrl.length() - 1)
+                : openAiBaseUrl;
+        return url.endsWith("/v1") ? url.substring(0, url.length() - 3) : url;
+    }
+
+    /** Tokenize with the served model's own vocabulary, without special tokens. */
+    public ModelTokens tokenize(String text) {
+        JsonNode response = post("/tokenize", Map.of("content", text, "add_special", false, "with_pieces", true));
+        JsonNode tokens = response.path("tokens");
+        int[] ids = new int[tokens.size()];
+        List<String> pieces = new ArrayList<>(tokens.size());
+        for (int i = 0; i < ids.length; i++) {
+            JsonNode token = tokens.get(i);
+            ids[i] = token.path("id").asInt();
+            pieces.add(piece(token.path("piece")));
+        }
+        return new ModelTokens(ids, pieces);
+    }
+
+    /** One contextual vector per token id, in order. */
+    public List<float[]> embed(int[] ids) {
+        List<int[]> windows = new ArrayList<>();
+        for (int from = 0; from < ids.length; from += maxTokens) {
+            windows.add(Arrays.copyOfRange(ids, from, Math.min(ids.length, from + maxTokens)));
+        }
+        if (windows.isEmpty()) {
+            return List.of();
+        }
+
+        JsonNode response = post("/embedding", Map.of("content", windows));
+        // Older servers answer a single prompt with an object instead of a list
+        List<JsonNode> results = new ArrayList<>();
+        if (response.isArray()) {
+            response.forEach(results::add);
+        } else {
+            results.add(response);
+        }
+        if (results.size() != windows.size()) {
+            throw new IllegalStateException(
+                    "Expected " + windows.size() + " embedding results, got " + results.size());
+        }
+        results.sort((a, b) -> Integer.compare(a.path("index").asInt(), b.path("index").asInt()));
+
+        List<float[]> vectors = new ArrayList<>(ids.length);
+        for (int w = 0; w < windows.size(); w++) {
+            vectors.addAll(rows(results.get(w).path("embedding"), windows.get(w).length));
+        }
+        return vectors;
+    }
+
+    /** The token rows of one prompt, less any BOS/EOS rows the server added. */
+    private static List<float[]> rows(JsonNode embedding, int tokens) {
+        if (!embedding.isArray() || embedding.isEmpty() || !embedding.get(0).isArray()
+                || (embedding.size() == 1 && tokens > 1)) {
+            throw new TokenEmbeddingsUnsupportedException(
+                    "Server returned pooled embeddings; start llama.cpp with --pooling none");
+        }
+        int skip = switch (embedding.size() - tokens) {
+            case 0 -> 0;
+            case 1, 2 -> 1;
+            default -> throw new IllegalStateException(
+                    "Expected " + tokens + " token embeddings, got " + embedding.size());
+        };
+        List<float[]> rows = new ArrayList<>(tokens);
+        for (int i = skip; i < skip + tokens; i++) {
+            JsonNode row = embedding.get(i);
+            float[] vector = new float[row.size()];
+            for (int d = 0; d < vector.length; d++) {
+                vector[d] = (float) row.get(d).asDouble();
+            }
+            rows.add(vector);
+        }
+        return rows;
+    }
+
+    /** Pieces that are not valid UTF-8 on their own come back as byte arrays. */
+    private static String piece(JsonNode piece) {
+        if (!piece.isArray()) {
+            return piece.asString();
+        }
+        byte[] bytes = new byte[piece.size()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) piece.get(i).asInt();
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private JsonNode post(String path, Object body) {
+        return guard.execute(() -> {
+            try {
+                return rest.post()
+                        .uri(path)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(body)
+                        .retrieve()
+                        .body(JsonNode.class);
+            } catch (HttpStatusCodeException e) {
+                if (unsupported(e.getStatusCode())) {
+                    throw new TokenEmbeddingsUnsupportedException(
+                            path + " answered " + e.getStatusCode().value() + ": " + e.getResponseBodyAsString());
+                }
+                throw e;
+            }
+        });
+    }
+
+    private static boolean unsupported(HttpStatusCode status) {
+        int code = status.value();
+        return code == 404 || code == 405 || code == 501;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.azopenai.client;
+
+/**
+ * The embedding runner cannot return per-token embeddings: the endpoint is
+ * missing, embeddings are disabled, or it pools one vector per text.
+ */
+public class TokenEmbeddingsUnsupportedException extends RuntimeException {
+
+    public TokenEmbeddingsUnsupportedException(String message) {
+        super(message);
+    }
+}
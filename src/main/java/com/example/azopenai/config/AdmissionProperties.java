@@ -0,0 +1,51 @@
+package com.example.azopenai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admission control for the model-backed endpoints: each request is assigned
+ * to the first class whose {@code paths} match and waits for one of the
+ * class's slots, or is rejected with 503 and {@code Retry-After}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+
+    /** Requests in progress across all classes; freed slots go to the highest-priority waiter. 0 for no limit. */
+    private int maxInFlight = 128;
+
+    /** Classes keyed by name, matched in order. */
+    private Map<String, RequestClass> classes = new LinkedHashMap<>();
+
+    @Data
+    public static class RequestClass {
+        /** Ant-style request paths, e.g. {@code /api/summarize/image/**}. */
+        private List<String> paths = new ArrayList<>();
+
+        /** Lower values are admitted first when the global limit is reached. */
+        private int priority = 0;
+
+        /** Requests of this class in progress at once. */
+        private int maxConcurrency = 16;
+
+        /** Requests of this class waiting at once; more are rejected immediately. */
+        private int maxQueue = 64;
+
+        /**
+         * Latency budget for queueing: a request whose expected wait exceeds it
+         * is rejected on arrival, one still waiting when it elapses is rejected then.
+         */
+        private Duration maxQueueWait = Duration.ofSeconds(1);
+    }
+}
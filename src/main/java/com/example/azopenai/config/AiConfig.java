@@ -2,6 +2,27 @@ package com.example.azopenai.config;
 
 import com.azure.ai.openai.OpenAIClientBuilder;
 import com.azure.core.credential.AzureKeyCredential;
+import com.azure.core.http.policy.FixedDelayOptions;
+import com.azure.core.http.policy.RetryOptions;
+import com.example.azopenai.client.BackendRouter;
+import com.example.azopenai.client.ClientGuard;
+import com.example.azopenai.client.CoalescingChatModel;
+import com.example.azopenai.client.CoalescingEmbeddingModel;
+import com.example.azopenai.client.GuardedChatModel;
+import com.example.azopenai.client.GuardedEmbeddingModel;
+import com.example.azopenai.client.Hedger;
+import com.example.azopenai.client.HedgingChatModel;
+import com.example.azopenai.client.HedgingEmbeddingModel;
+import com.example.azopenai.client.InstrumentedChatModel;
+import com.example.azopenai.client.InstrumentedEmbeddingModel;
+import com.example.azopenai.client.RoutedBackend;
+import com.example.azopenai.client.RoutingChatModel;
+import com.example.azopenai.client.RoutingEmbeddingModel;
+import com.example.azopenai.client.SwitchableEmbeddingModel;
+import com.example.azopenai.client.ThrottleAwareErrorHandler;
+import com.example.azopenai.client.TokenEmbeddingClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.azure.openai.AzureOpenAiChatModel;
 import org.springframework.ai.azure.openai.AzureOpenAiChatOptions;
 import org.springframework.ai.azure.openai.AzureOpenAiEmbeddingModel;
@@ -14,9 +35,17 @@ import org.springframework.ai.openai.OpenAiChatOptions;
 import org.springframework.ai.openai.OpenAiEmbeddingModel;
 import org.springframework.ai.openai.OpenAiEmbeddingOptions;
 import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.retry.RetryPolicy;
+import org.springframework.core.retry.RetryTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 
 /**
  * AI model configuration with per-model provider selection.
@@ -32,42 +61,201 @@ import org.springframework.context.annotation.Primary;
  *
  * <p>
  * Example: Azure chat + Docker Model Runner embedding, or vice versa.
+ *
+ * <p>
+ * A model may list several {@code backends} (e.g. Azure regions plus a local
+ * OpenAI-compatible runner). Provider clients are wrapped, innermost first, in:
+ * <ol>
+ * <li>a {@link ClientGuard} per backend — adaptive concurrency limit plus
+ * 429-aware retry (the SDKs' own retries are disabled so backoff happens in one
+ * place)</li>
+ * <li>a {@link BackendRouter} when there is more than one backend (or, for
+ * embeddings, when the vector size is known and must be enforced)</li>
+ * <li>a {@link Hedger} when {@code hedging.enabled} — duplicates calls still
+ * running past the tracked latency percentile, within a load budget</li>
+ * <li>a single-flight coalescing layer (unless {@code coalesce: false}) so
+ * concurrent identical calls share one request</li>
+ * <li>{@link PipelineMetrics} instrumentation of the {@code chat} and
+ * {@code batch-embed} stages as seen by callers</li>
+ * </ol>
+ *
+ * <p>
+ * All provider clients send their requests through the shared, pooled
+ * {@link ModelTransport}. The serving embedding model sits in a
+ * {@link SwitchableEmbeddingModel} so a completed re-embedding can replace it.
  */
+@Slf4j
 @Configuration
 public class AiConfig {
 
+    /** Provider SDK retries are disabled; {@link ClientGuard} owns retry. */
+    private static final RetryTemplate NO_RETRY = new RetryTemplate(RetryPolicy.withMaxRetries(0));
+
     @Bean
     @Primary
-    public ChatModel chatModel(AiProperties props) {
+    public ChatModel chatModel(AiProperties props, ModelTransport transport, MeterRegistry meterRegistry,
+            PipelineMetrics pipelineMetrics) {
         var chat = props.getChat();
 
-        return switch (chat.getProvider().toLowerCase()) {
-            case "azure" -> buildAzureChatModel(chat);
-            case "openai" -> buildOpenAiChatModel(chat);
-            default -> throw new IllegalArgumentException(
-                    "Unknown chat provider: " + chat.getProvider() + ". Use 'azure' or 'openai'.");
-        };
+        List<RoutedBackend<ChatModel>> backends = new ArrayList<>();
+        for (var backend : backendConfigs(chat)) {
+            String name = backendName(backend, backends.size());
+            ChatModel model = new GuardedChatModel(buildChatModel(backend, transport),
+                    new ClientGuard("chat", name, backend, meterRegistry));
+            backends.add(new RoutedBackend<>(name, model));
+        }
+
+        ChatModel model = backends.size() == 1
+                ? backends.get(0).getClient()
+                : new RoutingChatModel(new BackendRouter<>("chat", backends, chat.getRouting(), meterRegistry));
+        if (chat.getHedging().isEnabled()) {
+            model = new HedgingChatModel(model, new Hedger("chat", chat.getHedging(), meterRegistry),
+                    chat.getHedging().getMaxPromptChars());
+        }
+        if (chat.isCoalesce()) {
+            model = new CoalescingChatModel(model, meterRegistry);
+        }
+        return new InstrumentedChatModel(model, pipelineMetrics);
     }
 
     @Bean
     @Primary
-    public EmbeddingModel embeddingModel(AiProperties props) {
-        var embedding = props.getEmbedding();
+    public SwitchableEmbeddingModel embeddingModel(AiProperties props, ModelTransport transport,
+            MeterRegistry meterRegistry, PipelineMetrics pipelineMetrics) {
+        return new SwitchableEmbeddingModel(
+                buildEmbeddingStack("embedding", props.getEmbedding(), transport, meterRegistry, pipelineMetrics));
+    }
+
+    /**
+     * The model collections are re-embedded with ({@code app.reindex.embedding}),
+     * built like the serving one; absent when re-embedding uses the serving model.
+     */
+    @Bean
+    public EmbeddingModel reindexEmbeddingModel(ReindexProperties reindex, ModelTransport transport,
+            MeterRegistry meterRegistry, PipelineMetrics pipelineMetrics) {
+        if (reindex.getEmbedding() == null) {
+            return null;
+        }
+        return buildEmbeddingStack("reindex-embedding", reindex.getEmbedding(), transport, meterRegistry,
+                pipelineMetrics);
+    }
 
-        return switch (embedding.getProvider().toLowerCase()) {
-            case "azure" -> buildAzureEmbeddingModel(embedding);
-            case "openai" -> buildOpenAiEmbeddingModel(embedding);
+    private EmbeddingModel buildEmbeddingStack(String role, AiProperties.ModelConfig embedding,
+            ModelTransport transport, MeterRegistry meterRegistry, PipelineMetrics pipelineMetrics) {
+        var configs = backendConfigs(embedding);
+
+        Integer dimensions = embedding.getDimensions() != null
+                ? embedding.getDimensions()
+                : configs.stream().map(AiProperties.ModelConfig::getDimensions)
+                        .filter(Objects::nonNull).findFirst().orElse(null);
+
+        List<RoutedBackend<EmbeddingModel>> backends = new ArrayList<>();
+        for (var backend : configs) {
+            String name = backendName(backend, backends.size());
+            if (dimensions != null && backend.getDimensions() != null
+                    && !dimensions.equals(backend.getDimensions())) {
+                log.warn("Skipping {} backend '{}': {} dimensions, expected {}",
+                        role, name, backend.getDimensions(), dimensions);
+                continue;
+            }
+            EmbeddingModel model = new GuardedEmbeddingModel(buildEmbeddingModel(backend, transport),
+                    new ClientGuard(role, name, backend, meterRegistry));
+            backends.add(new RoutedBackend<>(name, model));
+        }
+        if (backends.isEmpty()) {
+            throw new IllegalArgumentException("No " + role + " backend matches " + dimensions + " dimensions");
+        }
+
+        EmbeddingModel model = backends.size() == 1 && dimensions == null
+                ? backends.get(0).getClient()
+                : new RoutingEmbeddingModel(
+                        new BackendRouter<>(role, backends, embedding.getRouting(), meterRegistry),
+                        dimensions);
+        if (embedding.getHedging().isEnabled()) {
+            model = new HedgingEmbeddingModel(model, new Hedger(role, embedding.getHedging(), meterRegistry));
+        }
+        if (embedding.isCoalesce()) {
+            model = new CoalescingEmbeddingModel(model, meterRegistry);
+        }
+        Integer knownDimensions = EmbeddingDimensions.resolve(embedding);
+        if (knownDimensions != null) {
+            log.info("{} vector size: {}", role, knownDimensions);
+        } else {
+            log.info("{} vector size unknown; set its dimensions to avoid a probe call", role);
+        }
+        return new InstrumentedEmbeddingModel(model, pipelineMetrics, knownDimensions);
+    }
+
+    /**
+     * Contextual token embeddings for ColBERT from the llama.cpp server behind the
+     * first OpenAI-compatible embedding backend (or
+     * {@code app.colbert.token-embeddings.url}); absent in per-token mode or when
+     * no such server is configured.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.colbert.enabled", havingValue = "true")
+    public TokenEmbeddingClient tokenEmbeddingClient(AiProperties props, ColbertProperties colbert,
+            ModelTransport transport, MeterRegistry meterRegistry) {
+        if (colbert.getEncoder() == ColbertProperties.Encoder.PER_TOKEN) {
+            return null;
+        }
+        var configs = backendConfigs(props.getEmbedding());
+        var backend = configs.stream()
+                .filter(cfg -> cfg.getProvider().equalsIgnoreCase("openai"))
+                .findFirst().orElse(configs.get(0));
+        String url = colbert.getTokenEmbeddings().getUrl();
+        if (url == null || url.isBlank()) {
+            if (!backend.getProvider().equalsIgnoreCase("openai")) {
+                log.info("ColBERT token embeddings: no OpenAI-compatible embedding backend, using per-token calls");
+                return null;
+            }
+            url = TokenEmbeddingClient.serverUrl(backend.getBaseUrl());
+        }
+        log.info("ColBERT token embeddings: {} encoder via {}", colbert.getEncoder().name().toLowerCase(), url);
+        return new TokenEmbeddingClient(url, colbert.getTokenEmbeddings().getMaxTokens(),
+                transport.restClientBuilder(),
+                new ClientGuard("token-embedding", backendName(backend, configs.indexOf(backend)), backend,
+                        meterRegistry));
+    }
+
+    /** The configured backend list, or the model's own fields as the only backend. */
+    private static List<AiProperties.ModelConfig> backendConfigs(AiProperties.ModelConfig cfg) {
+        return cfg.getBackends().isEmpty() ? List.of(cfg) : cfg.getBackends();
+    }
+
+    private static String backendName(AiProperties.ModelConfig cfg, int index) {
+        if (cfg.getName() != null) {
+            return cfg.getName();
+        }
+        return index == 0 ? cfg.getProvider() : cfg.getProvider() + "-" + index;
+    }
+
+    private ChatModel buildChatModel(AiProperties.ModelConfig cfg, ModelTransport transport) {
+        return switch (cfg.getProvider().toLowerCase()) {
+            case "azure" -> buildAzureChatModel(cfg, transport);
+            case "openai" -> buildOpenAiChatModel(cfg, transport);
             default -> throw new IllegalArgumentException(
-                    "Unknown embedding provider: " + embedding.getProvider() + ". Use 'azure' or 'openai'.");
+                    "Unknown chat provider: " + cfg.getProvider() + ". Use 'azure' or 'openai'.");
+        };
+    }
+
+    private EmbeddingModel buildEmbeddingModel(AiProperties.ModelConfig cfg, ModelTransport transport) {
+        return switch (cfg.getProvider().toLowerCase()) {
+            case "azure" -> buildAzureEmbeddingModel(cfg, transport);
+            case "openai" -> buildOpenAiEmbeddingModel(cfg, transport);
+            default -> throw new IllegalArgumentException(
+                    "Unknown embedding provider: " + cfg.getProvider() + ". Use 'azure' or 'openai'.");
         };
     }
 
     // ── Azure OpenAI ──────────────────────────────────────────
 
-    private ChatModel buildAzureChatModel(AiProperties.ModelConfig cfg) {
+    private ChatModel buildAzureChatModel(AiProperties.ModelConfig cfg, ModelTransport transport) {
         var clientBuilder = new OpenAIClientBuilder()
                 .endpoint(cfg.getEndpoint())
-                .credential(new AzureKeyCredential(cfg.getApiKey()));
+                .credential(new AzureKeyCredential(cfg.getApiKey()))
+                .httpClient(transport.azureHttpClient())
+                .retryOptions(noAzureRetries());
 
         return AzureOpenAiChatModel.builder()
                 .openAIClientBuilder(clientBuilder)
@@ -78,10 +266,12 @@ public class AiConfig {
                 .build();
     }
 
-    private EmbeddingModel buildAzureEmbeddingModel(AiProperties.ModelConfig cfg) {
+    private EmbeddingModel buildAzureEmbeddingModel(AiProperties.ModelConfig cfg, ModelTransport transport) {
         var openAiClient = new OpenAIClientBuilder()
                 .endpoint(cfg.getEndpoint())
                 .credential(new AzureKeyCredential(cfg.getApiKey()))
+                .httpClient(transport.azureHttpClient())
+                .retryOptions(noAzureRetries())
                 .buildClient();
 
         return new AzureOpenAiEmbeddingModel(
@@ -92,12 +282,19 @@ public class AiConfig {
                         .build());
     }
 
+    private static RetryOptions noAzureRetries() {
+        return new RetryOptions(new FixedDelayOptions(0, Duration.ZERO));
+    }
+
     // ── OpenAI-compatible (Docker Model Runner, etc.) ─────────
 
-    private ChatModel buildOpenAiChatModel(AiProperties.ModelConfig cfg) {
+    private ChatModel buildOpenAiChatModel(AiProperties.ModelConfig cfg, ModelTransport transport) {
         var api = OpenAiApi.builder()
                 .baseUrl(cfg.getBaseUrl())
                 .apiKey(cfg.getApiKey())
+                .restClientBuilder(transport.restClientBuilder())
+                .webClientBuilder(transport.webClientBuilder())
+                .responseErrorHandler(new ThrottleAwareErrorHandler())
                 .build();
 
         return OpenAiChatModel.builder()
@@ -106,13 +303,17 @@ public class AiConfig {
                         .model(cfg.getModel())
                         .temperature(0.7)
                         .build())
+                .retryTemplate(NO_RETRY)
                 .build();
     }
 
-    private EmbeddingModel buildOpenAiEmbeddingModel(AiProperties.ModelConfig cfg) {
+    private EmbeddingModel buildOpenAiEmbeddingModel(AiProperties.ModelConfig cfg, ModelTransport transport) {
         var api = OpenAiApi.builder()
                 .baseUrl(cfg.getBaseUrl())
                 .apiKey(cfg.getApiKey())
+                .restClientBuilder(transport.restClientBuilder())
+                .webClientBuilder(transport.webClientBuilder())
+                .responseErrorHandler(new ThrottleAwareErrorHandler())
                 .build();
 
         return new OpenAiEmbeddingModel(
@@ -120,6 +321,7 @@ public class AiConfig {
                 MetadataMode.EMBED,
                 OpenAiEmbeddingOptions.builder()
                         .model(cfg.getModel())
-                        .build());
+                        .build(),
+                NO_RETRY);
     }
 }
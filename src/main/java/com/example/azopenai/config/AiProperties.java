@@ -4,6 +4,10 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Unified AI configuration with per-model provider selection.
  * Each model (chat, embedding) can independently use 'azure' or 'openai'.
@@ -20,6 +24,9 @@ public class AiProperties {
 
     @Data
     public static class ModelConfig {
+        /** Backend name used in logs and metrics; defaults to the provider. */
+        private String name;
+
         /** Provider: "azure" or "openai" */
         private String provider = "azure";
 
@@ -31,5 +38,81 @@ public class AiProperties {
         // --- OpenAI-compatible fields ---
         private String baseUrl = "http://localhost:12434/engines/llama.cpp/v1";
         private String model;
+
+        /** Embedding vector size; backends declaring a different size are not routed to. */
+        private Integer dimensions;
+
+        // --- Multiple deployments ---
+        /**
+         * Optional list of deployments to load-balance across. Each entry takes the
+         * same fields as a single model (provider, endpoint, base-url, limiter, ...).
+         * When empty, the fields above describe the only backend.
+         */
+        private List<ModelConfig> backends = new ArrayList<>();
+
+        /** Load-balancing across {@code backends}. */
+        private Routing routing = new Routing();
+
+        // --- Client behaviour ---
+        /** Share one in-flight provider call between concurrent identical requests. */
+        private boolean coalesce = true;
+
+        /** Adaptive (AIMD) in-flight limit for calls to this model's provider. */
+        private Limiter limiter = new Limiter();
+
+        /** Retry of throttled (429) and transient failures. */
+        private Retry retry = new Retry();
+
+        /** Duplicate slow calls to cut tail latency. */
+        private Hedging hedging = new Hedging();
+    }
+
+    @Data
+    public static class Hedging {
+        private boolean enabled = false;
+        /** Hedge a call still running after this latency percentile (0-1). */
+        private double percentile = 0.95;
+        /** Never hedge earlier than this, whatever the percentile. */
+        private Duration minDelay = Duration.ofMillis(50);
+        /** Latency samples needed before hedging starts. */
+        private int minSamples = 50;
+        /** Maximum extra load from hedges, as a fraction of calls. */
+        private double maxExtraLoad = 0.05;
+        /** Hedges that may be spent at once after a quiet period. */
+        private int maxBurst = 10;
+        /** Chat only: prompts longer than this (or with media) are never hedged. */
+        private int maxPromptChars = 4000;
+    }
+
+    @Data
+    public static class Routing {
+        /** "ewma" (latency-weighted) or "least-outstanding". */
+        private String strategy = "ewma";
+        /** Consecutive throttled/transient failures before a backend is ejected. */
+        private int failureThreshold = 3;
+        /** How long an ejected backend stays out before it is probed again. */
+        private Duration ejectionDuration = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Limiter {
+        private boolean enabled = true;
+        private int initialLimit = 8;
+        private int minLimit = 1;
+        private int maxLimit = 64;
+        /** Factor applied to the limit on throttling, errors or latency spikes. */
+        private double backoffRatio = 0.7;
+        /** A call slower than this multiple of the smoothed latency counts as congestion. */
+        private double latencyTolerance = 2.0;
+        /** Longest a caller waits for a slot before failing. */
+        private Duration maxQueueWait = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Retry {
+        private int maxRetries = 3;
+        private Duration initialBackoff = Duration.ofMillis(500);
+        /** Upper bound for a single backoff; longer Retry-After hints fail fast. */
+        private Duration maxBackoff = Duration.ofSeconds(30);
     }
 }
@@ -0,0 +1,30 @@
+package com.example.azopenai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-endpoint timeouts for the asynchronous REST endpoints. When a timeout
+ * fires, the request fails with 504 and the underlying remote call is
+ * cancelled.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.async")
+public class AsyncProperties {
+
+    /** Timeout for endpoints without an entry in {@code timeouts}. */
+    private Duration defaultTimeout = Duration.ofSeconds(60);
+
+    /** Timeouts keyed by endpoint name, e.g. {@code search}, {@code summarize-image}. */
+    private Map<String, Duration> timeouts = new HashMap<>();
+
+    public Duration timeoutFor(String endpoint) {
+        return timeouts.getOrDefault(endpoint, defaultTimeout);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.azopenai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for chunked text ingestion and the parent-document search that
+ * collapses chunk hits.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.chunking")
+public class ChunkingProperties {
+
+    /** Maximum tokens per chunk, counted with the configured {@code app.tokenizer}. */
+    private int maxTokens = 256;
+
+    /** Tokens repeated at the start of the next chunk; at most half of {@code maxTokens}. */
+    private int overlapTokens = 32;
+
+    /** Number of chunks embedded and upserted together in one batch. */
+    private int batchSize = 32;
+
+    /** Maximum number of chunk batches embedded at once, across all requests. */
+    private int concurrency = 8;
+
+    /** Chunk hits fetched per requested result, so that several hits on one parent still fill {@code topK}. */
+    private int searchOversampling = 4;
+}
@@ -0,0 +1,49 @@
+package com.example.azopenai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * ColBERT late interaction settings.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.colbert")
+public class ColbertProperties {
+
+    private boolean enabled = false;
+
+    private String collectionName = "colbert_vectors";
+
+    /** How token vectors are produced. */
+    private Encoder encoder = Encoder.AUTO;
+
+    /** Texts encoded at once across all requests, e.g. concurrent llama.cpp calls; more wait their turn. */
+    private int encodeConcurrency = 8;
+
+    /** llama.cpp native endpoints used by the contextual encoder. */
+    private TokenEmbeddings tokenEmbeddings = new TokenEmbeddings();
+
+    public enum Encoder {
+        /** Contextual when the embedding runner supports it, otherwise per-token. */
+        AUTO,
+        /** All token vectors of a text in one request; fail if unsupported. */
+        CONTEXTUAL,
+        /** One embedding request per token, each token embedded in isolation. */
+        PER_TOKEN
+    }
+
+    @Data
+    public static class TokenEmbeddings {
+        /**
+         * Server root exposing {@code /embedding} and {@code /tokenize}; derived from
+         * the first OpenAI-compatible embedding {@code base-url} (minus {@code /v1})
+         * when unset.
+         */
+        private String url;
+
+        /** Longest token window sent as one prompt; match the server's batch size. */
+        private int maxTokens = 512;
+    }
+}
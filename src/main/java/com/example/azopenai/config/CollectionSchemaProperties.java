@@ -0,0 +1,125 @@
+package com.example.azopenai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Index, quantization and storage settings of the managed Qdrant collections
+ * (every shard's copy): {@code documents} and {@code colbert}. Settings left
+ * unset keep Qdrant's defaults and are not checked for drift.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.qdrant")
+public class CollectionSchemaProperties {
+
+    /**
+     * Apply the configured HNSW, quantization and on-disk settings to existing
+     * collections that differ from them. Off: differences are only reported.
+     * Qdrant rebuilds the affected indexes in the background.
+     */
+    private boolean reconcile = false;
+
+    private Schema documents = new Schema(Map.of(
+            "tenant", PayloadIndex.tenant(),
+            "parent_id", new PayloadIndex(),
+            "updated_at", PayloadIndex.of(PayloadIndex.Type.FLOAT)));
+
+    private Schema colbert = new Schema(Map.of(
+            "tenant", PayloadIndex.tenant(),
+            "updated_at", PayloadIndex.of(PayloadIndex.Type.FLOAT)));
+
+    @Data
+    public static class Schema {
+        private Hnsw hnsw = new Hnsw();
+
+        private Quantization quantization = new Quantization();
+
+        /** Keep original vectors in memory-mapped files instead of RAM. */
+        private Boolean onDisk;
+
+        /** Keep payloads on disk (Qdrant's default is set by its storage config). */
+        private Boolean onDiskPayload;
+
+        /** HNSW beam size at search time ({@code hnsw_ef}); higher is more accurate and slower. */
+        private Integer searchEf;
+
+        /** Payload keys to index, by key; filtered searches need them at scale. */
+        private Map<String, PayloadIndex> payloadIndexes = new LinkedHashMap<>();
+
+        public Schema() {
+        }
+
+        Schema(Map<String, PayloadIndex> payloadIndexes) {
+            this.payloadIndexes = new LinkedHashMap<>(payloadIndexes);
+        }
+    }
+
+    @Data
+    public static class Hnsw {
+        /** Edges per node; more improves recall and costs memory. */
+        private Integer m;
+
+        /** Candidates considered while building the graph. */
+        private Integer efConstruct;
+
+        /** Edges per node of the per-payload-value graphs built for tenant-like indexes. */
+        private Integer payloadM;
+
+        /** Keep the graph in memory-mapped files instead of RAM. */
+        private Boolean onDisk;
+    }
+
+    @Data
+    public static class Quantization {
+        private Type type = Type.NONE;
+
+        /** Scalar only: quantile of values used to bound the int8 range. */
+        private Float quantile;
+
+        /** Keep the quantized vectors in RAM even when the originals are on disk. */
+        private boolean alwaysRam = true;
+
+        /** Re-score the quantized candidates with the original vectors. */
+        private boolean rescore = true;
+
+        /** Candidates fetched per requested result before rescoring. */
+        private double oversampling = 2.0;
+
+        public enum Type {
+            NONE,
+            /** int8 per dimension: 4x smaller, small recall loss. */
+            SCALAR,
+            /** One bit per dimension: 32x smaller; for large (1000+) dimension models, with rescoring. */
+            BINARY
+        }
+    }
+
+    @Data
+    public static class PayloadIndex {
+        private Type type = Type.KEYWORD;
+
+        /** Keyword only: lay out storage by this value, for tenant-style filters. */
+        private boolean tenant = false;
+
+        static PayloadIndex of(Type type) {
+            var index = new PayloadIndex();
+            index.setType(type);
+            return index;
+        }
+
+        static PayloadIndex tenant() {
+            var index = new PayloadIndex();
+            index.setTenant(true);
+            return index;
+        }
+
+        public enum Type {
+            KEYWORD, INTEGER, FLOAT, BOOL, DATETIME, UUID, TEXT
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.azopenai.config;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Vector sizes of well-known embedding models, so the dimension can be known
+ * at startup without calling the provider. Only configured dimensions are
+ * enforced on backend responses; table values are used for collection setup.
+ */
+public final class EmbeddingDimensions {
+
+    private static final Map<String, Integer> KNOWN = Map.ofEntries(
+            Map.entry("text-embedding-ada-002", 1536),
+            Map.entry("text-embedding-3-small", 1536),
+            Map.entry("text-embedding-3-large", 3072),
+            Map.entry("nomic-embed-text", 768),
+            Map.entry("nomic-embed-text-v1.5", 768),
+            Map.entry("mxbai-embed-large", 1024),
+            Map.entry("all-minilm", 384),
+            Map.entry("all-minilm-l6-v2", 384),
+            Map.entry("bge-m3", 1024),
+            Map.entry("bge-large-en-v1.5", 1024),
+            Map.entry("snowflake-arctic-embed", 1024),
+            Map.entry("embeddinggemma", 768),
+            Map.entry("qwen3-embedding-0.6b", 1024),
+            Map.entry("qwen3-embedding-4b", 2560),
+            Map.entry("qwen3-embedding-8b", 4096));
+
+    private EmbeddingDimensions() {
+    }
+
+    /**
+     * The configured {@code dimensions} of the model or of any of its backends,
+     * else the known size of its first backend's model, else null.
+     */
+    public static Integer resolve(AiProperties.ModelConfig embedding) {
+        if (embedding.getDimensions() != null) {
+            return embedding.getDimensions();
+        }
+        List<AiProperties.ModelConfig> backends = embedding.getBackends().isEmpty()
+                ? List.of(embedding)
+                : embedding.getBackends();
+        for (var backend : backends) {
+            if (backend.getDimensions() != null) {
+                return backend.getDimensions();
+            }
+        }
+        return known(backends.get(0));
+    }
+
+    /** Known size for the backend's model (Azure deployment name or OpenAI model), or null. */
+    public static Integer known(AiProperties.ModelConfig backend) {
+        String model = "azure".equalsIgnoreCase(backend.getProvider())
+                ? backend.getDeploymentName()
+                : backend.getModel();
+        if (model == null) {
+            return null;
+        }
+        // "ai/mxbai-embed-large:335M-F16" -> "mxbai-embed-large"
+        String name = model.toLowerCase(Locale.ROOT);
+        name = name.substring(name.lastIndexOf('/') + 1);
+        int tag = name.indexOf(':');
+        if (tag >= 0) {
+            name = name.substring(0, tag);
+        }
+        return KNOWN.get(name);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.azopenai.config;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Short identifier of the embedding model a collection's vectors come from:
+ * provider, model (or Azure deployment) and vector size of the first backend.
+ * Collections are created as {@code <name>_<fingerprint>} behind an alias
+ * {@code <name>}, so a model change is visible in Qdrant and a re-embedded
+ * copy can sit next to the serving one.
+ */
+public final class EmbeddingFingerprint {
+
+    private EmbeddingFingerprint() {
+    }
+
+    /** Eight hex digits; equal for configurations producing interchangeable vectors. */
+    public static String of(AiProperties.ModelConfig embedding) {
+        List<AiProperties.ModelConfig> backends = embedding.getBackends().isEmpty()
+                ? List.of(embedding)
+                : embedding.getBackends();
+        var backend = backends.get(0);
+        String provider = backend.getProvider().toLowerCase(Locale.ROOT);
+        String model = provider.equals("azure") ? backend.getDeploymentName() : backend.getModel();
+        String key = provider + "|" + model + "|" + EmbeddingDimensions.resolve(embedding);
+        return "%08x".formatted(key.hashCode());
+    }
+
+    /** Physical collection for {@code name} holding vectors with this fingerprint. */
+    public static String collectionName(String name, String fingerprint) {
+        return name + "_" + fingerprint;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.azopenai.config;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the internal executors used by services for fan-out work, following
+ * the application's threading mode.
+ *
+ * <p>
+ * With {@code spring.threads.virtual.enabled=true} (which also moves Tomcat
+ * request handling onto virtual threads) every task gets its own virtual
+ * thread, and bounded executors cap concurrency with a {@link Semaphore}
+ * instead of a fixed pool, so tasks waiting for a permit cost no platform
+ * thread. Otherwise classic platform thread pools are used, and the
+ * executors for I/O-bound tasks grow to at most {@code app.executors.max-threads}
+ * threads each; beyond that {@code execute} throws
+ * {@link RejectedExecutionException}, which the API maps to 503.
+ * </p>
+ *
+ * <p>
+ * {@link #executor} is meant for request-level calls, where a fast 503 beats
+ * queueing. Fan-out inside an operation and background jobs use
+ * {@link #boundedExecutor}, which queues instead of rejecting, so a partly
+ * submitted fan-out never fails halfway.
+ * </p>
+ */
+@Slf4j
+@Component
+public class ExecutorFactory {
+
+    private static final Duration IDLE_TIMEOUT = Duration.ofSeconds(60);
+
+    private final boolean virtualThreads;
+    private final int maxThreads;
+    private final List<ExecutorService> created = new CopyOnWriteArrayList<>();
+
+    public ExecutorFactory(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${app.executors.max-threads:256}") int maxThreads) {
+        this.virtualThreads = virtualThreads;
+        this.maxThreads = maxThreads;
+        log.info("Internal executors use {} threads", virtualThreads ? "virtual" : "platform");
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Executor for tasks that mostly wait on I/O: a thread per task, capped at
+     * {@code app.executors.max-threads} platform threads.
+     *
+     * @throws RejectedExecutionException from {@code execute} when every
+     *                                    platform thread is busy
+     */
+    public Executor executor(String name) {
+        if (virtualThreads) {
+            return track(Executors.newThreadPerTaskExecutor(factory(name)));
+        }
+        return track(new ThreadPoolExecutor(0, maxThreads, IDLE_TIMEOUT.toSeconds(), TimeUnit.SECONDS,
+                new SynchronousQueue<>(), factory(name), (task, pool) -> {
+                    throw new RejectedExecutionException(
+                            "All " + pool.getMaximumPoolSize() + " " + name + " threads are busy");
+                }));
+    }
+
+    /**
+     * Executor running at most {@code maxConcurrency} tasks at a time; further
+     * tasks queue. Rejects only after shutdown.
+     */
+    public Executor boundedExecutor(String name, int maxConcurrency) {
+        if (!virtualThreads) {
+            return track(Executors.newFixedThreadPool(maxConcurrency, factory(name)));
+        }
+        ExecutorService delegate = track(Executors.newThreadPerTaskExecutor(factory(name)));
+        Semaphore permits = new Semaphore(maxConcurrency);
+        return task -> delegate.execute(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                // Shutting down
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    private ThreadFactory factory(String name) {
+        return virtualThreads
+                ? Thread.ofVirtual().name(name + "-", 0).factory()
+                : Thread.ofPlatform().name(name + "-", 0).daemon(true).factory();
+    }
+
+    private ExecutorService track(ExecutorService executor) {
+        created.add(executor);
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        created.forEach(ExecutorService::shutdownNow);
+    }
+}
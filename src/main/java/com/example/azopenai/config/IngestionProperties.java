@@ -0,0 +1,38 @@
+package com.example.azopenai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings for asynchronous bulk image ingestion jobs.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.ingestion")
+public class IngestionProperties {
+
+    /** Maximum number of concurrent vision (summarization) calls across all jobs. */
+    private int concurrency = 4;
+
+    /** Jobs running at once; later jobs stay queued until one finishes. */
+    private int maxConcurrentJobs = 2;
+
+    /** Number of summaries embedded and upserted together in one batch. */
+    private int batchSize = 16;
+
+    /** How long finished jobs remain available for polling. */
+    private Duration jobRetention = Duration.ofHours(1);
+
+    /** Most entries an uploaded zip archive may list. */
+    private int maxArchiveEntries = 10_000;
+
+    /** Largest uncompressed image in a zip archive. */
+    private DataSize maxEntrySize = DataSize.ofMegabytes(50);
+
+    /** Largest total uncompressed size of the images in one zip archive. */
+    private DataSize maxArchiveSize = DataSize.ofGigabytes(2);
+}
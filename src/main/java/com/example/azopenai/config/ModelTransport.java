@@ -0,0 +1,95 @@
+package com.example.azopenai.config;
+
+import com.azure.core.http.netty.NettyAsyncHttpClientBuilder;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.ReactorClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * The HTTP transport shared by every model backend.
+ *
+ * <p>
+ * One Reactor Netty client with a single keep-alive connection pool serves
+ * both the Azure OpenAI SDK and the OpenAI-compatible {@code RestClient}, so
+ * backends on the same host share warm connections and all of them honour the
+ * {@code app.transport.http} timeouts. HTTP/2 is negotiated on TLS connections
+ * when enabled. The pool publishes
+ * {@code reactor.netty.connection.provider.*} gauges (total, active, idle and
+ * pending connections, plus active streams for HTTP/2) through the global
+ * Micrometer registry.
+ * </p>
+ */
+@Slf4j
+@Component
+public class ModelTransport {
+
+    public static final String POOL_NAME = "model-http";
+
+    private static final Duration EVICTION_INTERVAL = Duration.ofSeconds(30);
+
+    private final ConnectionProvider pool;
+    private final HttpClient httpClient;
+    private final com.azure.core.http.HttpClient azureHttpClient;
+
+    public ModelTransport(TransportProperties props) {
+        var cfg = props.getHttp();
+        // Callers are already bounded by ClientGuard, so waiting for a connection is not capped by count
+        this.pool = ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(cfg.getMaxConnections())
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(cfg.getPendingAcquireTimeout())
+                .maxIdleTime(cfg.getMaxIdleTime())
+                .maxLifeTime(cfg.getMaxLifeTime())
+                .evictInBackground(EVICTION_INTERVAL)
+                .metrics(true)
+                .build();
+
+        HttpClient client = HttpClient.create(pool)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) cfg.getConnectTimeout().toMillis())
+                .responseTimeout(cfg.getReadTimeout())
+                .keepAlive(true);
+        if (cfg.isHttp2()) {
+            client = client.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        this.httpClient = client;
+
+        this.azureHttpClient = new NettyAsyncHttpClientBuilder(httpClient)
+                .connectTimeout(cfg.getConnectTimeout())
+                .responseTimeout(cfg.getReadTimeout())
+                .readTimeout(cfg.getReadTimeout())
+                .build();
+
+        log.info("Model HTTP transport: {} connections per host, HTTP/2 {}, read timeout {}",
+                cfg.getMaxConnections(), cfg.isHttp2() ? "enabled" : "disabled", cfg.getReadTimeout());
+    }
+
+    /** HTTP client for {@code OpenAIClientBuilder}. */
+    public com.azure.core.http.HttpClient azureHttpClient() {
+        return azureHttpClient;
+    }
+
+    /** {@code RestClient} builder on the shared pool, for {@code OpenAiApi}. */
+    public RestClient.Builder restClientBuilder() {
+        return RestClient.builder().requestFactory(new ReactorClientHttpRequestFactory(httpClient));
+    }
+
+    /** {@code WebClient} builder on the shared pool, for streaming {@code OpenAiApi} calls. */
+    public WebClient.Builder webClientBuilder() {
+        return WebClient.builder().clientConnector(new ReactorClientHttpConnector(httpClient));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.dispose();
+    }
+}
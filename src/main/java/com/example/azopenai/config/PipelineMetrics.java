@@ -0,0 +1,214 @@
+package com.example.azopenai.config;
+
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Timers and counters for the stages of the summarization/embedding pipeline.
+ *
+ * <p>
+ * Each stage runs as a Micrometer {@link Observation} named
+ * {@code pipeline.stage}, which yields a timer (with histogram buckets for
+ * Prometheus, see {@code management.metrics.distribution}) tagged by
+ * {@code stage}, {@code endpoint} and {@code provider}, plus a trace span when
+ * a tracing bridge is on the classpath. Counters {@code pipeline.tokens},
+ * {@code pipeline.vectors} and {@code pipeline.bytes} track volume per stage,
+ * and {@code ai.client.tokens} the provider-reported token usage.
+ * </p>
+ *
+ * <p>
+ * The {@code endpoint} tag is the matched request pattern (e.g.
+ * {@code /api/search}). Work handed to another thread keeps it, and its parent
+ * span, when wrapped with {@link #propagate(Supplier)}.
+ * </p>
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String STAGE = "pipeline.stage";
+
+    private static final String NO_ENDPOINT = "none";
+    private static final ThreadLocal<String> ENDPOINT = new ThreadLocal<>();
+    private static final ContextSnapshotFactory SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+    /** Pipeline stages, with the kind of backend each one calls. */
+    public enum Stage {
+        TOKENIZE("tokenize", Backend.LOCAL),
+        TOKEN_EMBED("token-embed", Backend.EMBEDDING),
+        BATCH_EMBED("batch-embed", Backend.EMBEDDING),
+        QDRANT_UPSERT("qdrant-upsert", Backend.QDRANT),
+        QDRANT_SEARCH("qdrant-search", Backend.QDRANT),
+        CHAT("chat", Backend.CHAT),
+        IMAGE_DECODE("image-decode", Backend.LOCAL),
+        MAXSIM("maxsim", Backend.LOCAL);
+
+        private final String tag;
+        private final Backend backend;
+
+        Stage(String tag, Backend backend) {
+            this.tag = tag;
+            this.backend = backend;
+        }
+    }
+
+    private enum Backend {
+        LOCAL, CHAT, EMBEDDING, QDRANT
+    }
+
+    private final ObservationRegistry observations;
+    private final MeterRegistry registry;
+    private final String chatProvider;
+    private final String embeddingProvider;
+
+    public PipelineMetrics(ObservationRegistry observations, MeterRegistry registry, AiProperties props) {
+        this.observations = observations;
+        this.registry = registry;
+        this.chatProvider = providers(props.getChat());
+        this.embeddingProvider = providers(props.getEmbedding());
+    }
+
+    /** Run one stage, recording its latency (and a span when tracing is on). */
+    public <T> T time(Stage stage, Supplier<T> work) {
+        return Observation.createNotStarted(STAGE, observations)
+                .contextualName("pipeline " + stage.tag)
+                .lowCardinalityKeyValue("stage", stage.tag)
+                .lowCardinalityKeyValue("endpoint", currentEndpoint())
+                .lowCardinalityKeyValue("provider", provider(stage))
+                .observe(work);
+    }
+
+    public void tokens(Stage stage, long count) {
+        count("pipeline.tokens", "Tokens processed", stage, count);
+    }
+
+    public void vectors(Stage stage, long count) {
+        count("pipeline.vectors", "Vectors produced or stored", stage, count);
+    }
+
+    public void bytes(Stage stage, long count) {
+        count("pipeline.bytes", "Bytes processed", stage, count);
+    }
+
+    /** Record the prompt and completion token usage reported by the provider. */
+    public void usage(ChatResponse response) {
+        if (response == null || response.getMetadata() == null) {
+            return;
+        }
+        Usage usage = response.getMetadata().getUsage();
+        if (usage == null) {
+            return;
+        }
+        providerTokens("prompt", usage.getPromptTokens());
+        providerTokens("completion", usage.getCompletionTokens());
+    }
+
+    private void providerTokens(String type, Integer count) {
+        if (count == null || count <= 0) {
+            return;
+        }
+        Counter.builder("ai.client.tokens")
+                .description("Token usage reported by the chat provider")
+                .tag("type", type)
+                .tag("endpoint", currentEndpoint())
+                .tag("provider", chatProvider)
+                .register(registry)
+                .increment(count);
+    }
+
+    private void count(String name, String description, Stage stage, long count) {
+        if (count <= 0) {
+            return;
+        }
+        Counter.builder(name)
+                .description(description)
+                .tag("stage", stage.tag)
+                .tag("endpoint", currentEndpoint())
+                .tag("provider", provider(stage))
+                .register(registry)
+                .increment(count);
+    }
+
+    private String provider(Stage stage) {
+        return switch (stage.backend) {
+            case LOCAL -> "local";
+            case CHAT -> chatProvider;
+            case EMBEDDING -> embeddingProvider;
+            case QDRANT -> "qdrant";
+        };
+    }
+
+    /** The provider(s) a model uses, e.g. {@code azure} or {@code azure+openai}. */
+    private static String providers(AiProperties.ModelConfig cfg) {
+        if (cfg.getBackends().isEmpty()) {
+            return cfg.getProvider();
+        }
+        return cfg.getBackends().stream()
+                .map(AiProperties.ModelConfig::getProvider)
+                .distinct().sorted()
+                .collect(Collectors.joining("+"));
+    }
+
+    // ── Endpoint tag ──
+
+    /**
+     * The endpoint the current work belongs to: set by {@link #propagate}, or
+     * the matched pattern of the request being handled on this thread.
+     */
+    public static String currentEndpoint() {
+        String endpoint = ENDPOINT.get();
+        if (endpoint != null) {
+            return endpoint;
+        }
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletRequest request = attributes.getRequest();
+            if (request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String pattern) {
+                return pattern;
+            }
+        }
+        return NO_ENDPOINT;
+    }
+
+    /**
+     * Wrap work for another thread so it is tagged with the caller's endpoint
+     * and its spans are children of the caller's current observation.
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> work) {
+        String endpoint = currentEndpoint();
+        ContextSnapshot snapshot = SNAPSHOTS.captureAll();
+        return () -> {
+            String previous = ENDPOINT.get();
+            ENDPOINT.set(endpoint);
+            try (var scope = snapshot.setThreadLocals()) {
+                return work.get();
+            } finally {
+                if (previous == null) {
+                    ENDPOINT.remove();
+                } else {
+                    ENDPOINT.set(previous);
+                }
+            }
+        };
+    }
+
+    public static Runnable propagate(Runnable work) {
+        Supplier<Void> wrapped = propagate(() -> {
+            work.run();
+            return null;
+        });
+        return wrapped::get;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.azopenai.config;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ConnectivityState;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.QdrantGrpcClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.vectorstore.qdrant.autoconfigure.QdrantConnectionDetails;
+import org.springframework.ai.vectorstore.qdrant.autoconfigure.QdrantVectorStoreProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The Qdrant client of the primary endpoint.
+ *
+ * <p>
+ * Replaces the client the Spring AI vector store would create on its own, so
+ * the vector store and the ColBERT service share one gRPC channel, configured
+ * by {@code app.transport.qdrant} and shut down with the context. Shards on
+ * other endpoints get one channel per endpoint, configured the same way.
+ * Gauges {@code qdrant.grpc.calls.active} and {@code qdrant.grpc.channel.ready},
+ * tagged with {@code endpoint} ({@code default} for this one), show channel
+ * utilization and state.
+ * </p>
+ */
+@Slf4j
+@Configuration
+public class QdrantConfig {
+
+    @Bean(destroyMethod = "close")
+    public QdrantClient qdrantClient(QdrantConnectionDetails connection, QdrantVectorStoreProperties store,
+            TransportProperties transport, MeterRegistry meterRegistry) {
+        return client("default", connection.getHost(), connection.getPort(), store.isUseTls(),
+                connection.getApiKey(), transport.getQdrant(), meterRegistry);
+    }
+
+    /**
+     * A client with its own channel, for the primary endpoint or an additional
+     * shard endpoint ({@link ShardingProperties#getEndpoints()}); the gauges are
+     * tagged with {@code endpoint}. The caller closes it.
+     */
+    public static QdrantClient client(String endpoint, String host, int port, boolean useTls, String apiKey,
+            TransportProperties.Qdrant cfg, MeterRegistry meterRegistry) {
+        var activeCalls = new AtomicInteger();
+
+        var builder = NettyChannelBuilder.forAddress(host, port)
+                .keepAliveTime(cfg.getKeepAliveTime().toMillis(), TimeUnit.MILLISECONDS)
+                .keepAliveTimeout(cfg.getKeepAliveTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .idleTimeout(cfg.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .maxInboundMessageSize((int) cfg.getMaxInboundMessageSize().toBytes())
+                .intercept(new ActiveCallsInterceptor(activeCalls));
+        if (useTls) {
+            builder.useTransportSecurity();
+        } else {
+            builder.usePlaintext();
+        }
+        ManagedChannel channel = builder.build();
+
+        Gauge.builder("qdrant.grpc.calls.active", activeCalls, AtomicInteger::get)
+                .description("Qdrant calls in flight on the channel").tag("endpoint", endpoint)
+                .register(meterRegistry);
+        Gauge.builder("qdrant.grpc.channel.ready", channel,
+                c -> c.getState(false) == ConnectivityState.READY ? 1 : 0)
+                .description("1 if the Qdrant channel is connected").tag("endpoint", endpoint)
+                .register(meterRegistry);
+
+        var grpcClient = QdrantGrpcClient.newBuilder(channel, true)
+                .withTimeout(cfg.getCallTimeout());
+        if (apiKey != null && !apiKey.isBlank()) {
+            grpcClient.withApiKey(apiKey);
+        }
+        log.info("Qdrant channel {} to {}:{} (TLS {})", endpoint, host, port, useTls ? "on" : "off");
+        return new QdrantClient(grpcClient.build());
+    }
+
+    /** Counts calls between start and close. */
+    private record ActiveCallsInterceptor(AtomicInteger active) implements ClientInterceptor {
+
+        @Override
+        public <Q, R> ClientCall<Q, R> interceptCall(MethodDescriptor<Q, R> method, CallOptions options,
+                Channel next) {
+            return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, options)) {
+                @Override
+                public void start(Listener<R> listener, Metadata headers) {
+                    active.incrementAndGet();
+                    super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(listener) {
+                        @Override
+                        public void onClose(Status status, Metadata trailers) {
+                            active.decrementAndGet();
+                            super.onClose(status, trailers);
+                        }
+                    }, headers);
+                }
+            };
+        }
+    }
+}
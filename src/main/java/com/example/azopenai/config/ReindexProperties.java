@@ -0,0 +1,45 @@
+package com.example.azopenai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Settings for background re-embedding of the stored collections
+ * ({@code /api/reindex}).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.reindex")
+public class ReindexProperties {
+
+    /**
+     * Model to re-embed with, configured like {@code app.ai.embedding}. When
+     * unset the serving model is used, which only moves collections created
+     * before aliases were used to the alias layout.
+     */
+    private AiProperties.ModelConfig embedding;
+
+    /** Points read from the source collection per scroll page (and checkpoint). */
+    private int scrollPageSize = 512;
+
+    /** Texts (or ColBERT tokens) per embedding call. */
+    private int batchSize = 256;
+
+    /** Ceiling on tokens sent to the embedding provider per second; 0 for no limit. */
+    private int maxTokensPerSecond = 5000;
+
+    /** Directory holding the checkpoint file that lets a stopped job resume. */
+    private String checkpointDirectory = "reindex";
+
+    /** Delete the previous collections once the aliases point at the new ones. */
+    private boolean dropPrevious = false;
+
+    /**
+     * Longest time writes are held off while the last changes are copied and
+     * the aliases switched; writes waiting longer fail with 503.
+     */
+    private Duration maxWritePause = Duration.ofSeconds(30);
+}
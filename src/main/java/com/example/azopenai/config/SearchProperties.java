@@ -0,0 +1,20 @@
+package com.example.azopenai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for multi-query batch search ({@code /api/search/batch}).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.search")
+public class SearchProperties {
+
+    /** Maximum number of queries in one batch request. */
+    private int maxBatchQueries = 32;
+
+    /** Rank offset {@code k} of reciprocal rank fusion: a hit at rank r scores {@code 1 / (k + r)}. */
+    private int rrfK = 60;
+}
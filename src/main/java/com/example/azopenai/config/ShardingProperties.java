@@ -0,0 +1,69 @@
+package com.example.azopenai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tenant-sharded collections. Each shard holds its own {@code documents_<shard>}
+ * (and {@code colbert_vectors_<shard>}) collection, on the primary Qdrant
+ * endpoint or on one of {@link #endpoints}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.sharding")
+public class ShardingProperties {
+
+    /** When off, everything goes to the single configured collections. */
+    private boolean enabled = false;
+
+    /** Shards by name, in order; the first is the default shard. */
+    private Map<String, Shard> shards = new LinkedHashMap<>();
+
+    /** Additional Qdrant instances by name; shards without an endpoint use the primary one. */
+    private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    /** Tenants pinned to a shard; other tenants are placed by weighted rendezvous hashing. */
+    private Map<String, String> tenants = new LinkedHashMap<>();
+
+    /**
+     * Shard of writes that name no tenant. Defaults to the first shard.
+     * Searches that name no tenant read every shard.
+     */
+    private String defaultShard;
+
+    /**
+     * The assignment before a rebalancing. Until it is removed, a tenant whose
+     * shard changed is searched on both its old and its new shard.
+     */
+    private Previous previous = new Previous();
+
+    @Data
+    public static class Shard {
+        /** Name of an entry of {@code endpoints}, or empty for the primary endpoint. */
+        private String endpoint;
+
+        /** Relative share of the hashed tenants; 0 takes no new tenants (draining). */
+        private double weight = 1.0;
+    }
+
+    @Data
+    public static class Endpoint {
+        private String host = "localhost";
+        private int port = 6334;
+        private boolean useTls = false;
+        private String apiKey;
+    }
+
+    @Data
+    public static class Previous {
+        /** Shard weights before the change; empty when only pins changed. */
+        private Map<String, Double> weights = new LinkedHashMap<>();
+
+        /** Pins before the change. */
+        private Map<String, String> tenants = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.azopenai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings for binary collection snapshot export and import.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.snapshot")
+public class SnapshotProperties {
+
+    /** Target size of one scroll page (and file chunk) on export; keep below the gRPC message limit. */
+    private DataSize exportPageSize = DataSize.ofMegabytes(16);
+
+    /** Upper bound on points per scroll page. */
+    private int maxExportPoints = 2048;
+
+    /** Points per upsert call on import. */
+    private int upsertBatchSize = 256;
+
+    /** Upsert calls in flight at once on import. */
+    private int importConcurrency = 4;
+
+    /** Import jobs running at once; later jobs stay queued until one finishes. */
+    private int maxConcurrentImports = 2;
+
+    /** Where uploaded snapshots are spooled before import; the system temp directory when unset. */
+    private String spoolDirectory;
+
+    /** How long finished import jobs remain available for polling. */
+    private Duration jobRetention = Duration.ofHours(1);
+}
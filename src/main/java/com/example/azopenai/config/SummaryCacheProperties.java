@@ -0,0 +1,51 @@
+package com.example.azopenai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Semantic cache of text summaries ({@code /api/summarize/text}): a request
+ * whose text is a near-duplicate of an earlier one gets the earlier summary
+ * instead of a new chat call.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.summary-cache")
+public class SummaryCacheProperties {
+
+    private boolean enabled = false;
+
+    /** Minimum cosine similarity of the text embeddings for a cache hit. */
+    private double similarityThreshold = 0.97;
+
+    /**
+     * Minimum ratio of the shorter to the longer normalized text for a hit, so
+     * a text with a paragraph added or removed is summarized again even when
+     * its embedding barely moved.
+     */
+    private double minLengthRatio = 0.9;
+
+    /** Longer texts are only matched exactly, not embedded. */
+    private int maxTextLength = 20_000;
+
+    /** Entries kept; the oldest are evicted first. */
+    private int maxEntries = 2_000;
+
+    /** How long a summary may be reused. */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Look up and record metrics but always call the model, to tune the
+     * threshold before serving cached summaries.
+     */
+    private boolean shadow = false;
+
+    /** URL query parameters dropped before comparing texts; a trailing {@code *} matches a prefix. */
+    private List<String> ignoredQueryParameters = new ArrayList<>(
+            List.of("utm_*", "fbclid", "gclid", "msclkid", "mc_cid", "mc_eid", "_ga"));
+}
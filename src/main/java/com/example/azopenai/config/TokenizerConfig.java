@@ -0,0 +1,45 @@
+package com.example.azopenai.config;
+
+import com.example.azopenai.tokenizer.BpeTokenizer;
+import com.example.azopenai.tokenizer.Tokenizer;
+import com.example.azopenai.tokenizer.WhitespaceTokenizer;
+import com.example.azopenai.tokenizer.WordPieceTokenizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Selects the {@link Tokenizer} implementation and loads its vocabulary from a
+ * local file at startup.
+ */
+@Slf4j
+@Configuration
+public class TokenizerConfig {
+
+    @Bean
+    public Tokenizer tokenizer(TokenizerProperties props) {
+        String type = props.getType().toLowerCase();
+        if (type.equals("whitespace")) {
+            return new WhitespaceTokenizer(props.isLowercase());
+        }
+        if (props.getVocabulary() == null || !props.getVocabulary().exists()) {
+            throw new IllegalArgumentException(
+                    "app.tokenizer.vocabulary must point to an existing file for tokenizer type " + type);
+        }
+        try (var in = props.getVocabulary().getInputStream()) {
+            Tokenizer tokenizer = switch (type) {
+                case "wordpiece" -> WordPieceTokenizer.load(in, props.isLowercase());
+                case "bpe" -> BpeTokenizer.load(in, props.getPattern());
+                default -> throw new IllegalArgumentException(
+                        "Unknown tokenizer type: " + props.getType() + ". Use 'whitespace', 'wordpiece' or 'bpe'.");
+            };
+            log.info("Loaded {} tokenizer from {}", tokenizer.name(), props.getVocabulary().getDescription());
+            return tokenizer;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read tokenizer vocabulary " + props.getVocabulary(), e);
+        }
+    }
+}
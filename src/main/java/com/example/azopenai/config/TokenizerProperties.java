@@ -0,0 +1,31 @@
+package com.example.azopenai.config;
+
+import com.example.azopenai.tokenizer.BpeTokenizer;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tokenizer used for ColBERT token vectors and token counting.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.tokenizer")
+public class TokenizerProperties {
+
+    /** {@code whitespace}, {@code wordpiece} (BERT vocab.txt) or {@code bpe} (tiktoken rank file). */
+    private String type = "whitespace";
+
+    /** Vocabulary file, e.g. {@code file:/models/vocab.txt}; required unless {@code whitespace}. */
+    private Resource vocabulary;
+
+    /**
+     * WordPiece: lower-case and strip accents (uncased models). Whitespace:
+     * lower-case token texts, which ColBERT vectors stored so far were built from.
+     */
+    private boolean lowercase = true;
+
+    /** BPE only: pre-tokenization regex of the encoding. */
+    private String pattern = BpeTokenizer.CL100K_PATTERN;
+}
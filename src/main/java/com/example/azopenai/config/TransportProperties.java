@@ -0,0 +1,51 @@
+package com.example.azopenai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Connection settings shared by every model backend (one pooled HTTP client)
+ * and by every Qdrant user (one gRPC channel).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.transport")
+public class TransportProperties {
+
+    private Http http = new Http();
+    private Qdrant qdrant = new Qdrant();
+
+    @Data
+    public static class Http {
+        /** Negotiate HTTP/2 via ALPN on TLS connections; plain HTTP stays on HTTP/1.1. */
+        private boolean http2 = true;
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        /** Maximum wait for a response; vision prompts can take a minute or more. */
+        private Duration readTimeout = Duration.ofSeconds(120);
+        /** Connections per remote host, across all models using that host. */
+        private int maxConnections = 100;
+        /** Maximum wait for a free pooled connection. */
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(30);
+        /** Idle keep-alive connections are closed after this (Azure drops them at about 4 minutes). */
+        private Duration maxIdleTime = Duration.ofSeconds(60);
+        /** Connections are recycled after this, so DNS changes are picked up. */
+        private Duration maxLifeTime = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Qdrant {
+        /** Interval of HTTP/2 pings that keep the channel alive through proxies. */
+        private Duration keepAliveTime = Duration.ofSeconds(30);
+        private Duration keepAliveTimeout = Duration.ofSeconds(10);
+        /** The channel disconnects after this long without calls and reconnects on demand. */
+        private Duration idleTimeout = Duration.ofMinutes(5);
+        /** Deadline for each Qdrant call. */
+        private Duration callTimeout = Duration.ofSeconds(30);
+        /** Largest response accepted, e.g. for big searches with payloads. */
+        private DataSize maxInboundMessageSize = DataSize.ofMegabytes(64);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.azopenai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Server-side micro-batching of concurrent single-document writes
+ * ({@code /api/embed/text} with {@code store}, {@code /api/colbert/store}).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.write-batching")
+public class WriteBatchingProperties {
+
+    private boolean enabled = true;
+
+    /** How long a batch stays open after its first write arrives. */
+    private Duration window = Duration.ofMillis(5);
+
+    /** A batch is written as soon as it holds this many documents. */
+    private int maxBatchSize = 64;
+
+    /** Maximum number of batches being embedded and upserted at once, per endpoint. */
+    private int concurrency = 16;
+
+    /** Maximum inputs per embedding call when ColBERT tokens of a batch are embedded together. */
+    private int maxEmbeddingInputs = 1024;
+}
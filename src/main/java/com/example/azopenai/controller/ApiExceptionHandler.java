@@ -0,0 +1,64 @@
+package com.example.azopenai.controller;
+
+import com.example.azopenai.client.ConcurrencyLimitExceededException;
+import com.example.azopenai.service.StoreNotReadyException;
+import com.example.azopenai.service.UploadTooLargeException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Maps failures of the asynchronous endpoints to HTTP statuses: an endpoint
+ * timeout becomes 504, a saturated model client or a vector store that is
+ * still initializing 503, as is a task rejected because every worker thread
+ * is busy; an upload over its limits 413.
+ */
+@Slf4j
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<Map<String, Object>> handleTimeout(TimeoutException e) {
+        log.warn("Request timed out waiting for a remote call");
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                .body(Map.of("error", "Timed out waiting for the model or vector store"));
+    }
+
+    @ExceptionHandler(ConcurrencyLimitExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleSaturated(ConcurrencyLimitExceededException e) {
+        log.warn("Rejected request: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, Object>> handleRejected(RejectedExecutionException e) {
+        log.warn("Rejected request: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(StoreNotReadyException.class)
+    public ResponseEntity<Map<String, Object>> handleNotReady(StoreNotReadyException e) {
+        log.warn("Rejected request: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(UploadTooLargeException.class)
+    public ResponseEntity<Map<String, Object>> handleTooLarge(UploadTooLargeException e) {
+        log.warn("Rejected upload: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE)
+                .body(Map.of("error", e.getMessage()));
+    }
+}
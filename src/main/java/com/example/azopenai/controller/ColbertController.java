@@ -2,7 +2,9 @@ package com.example.azopenai.controller;
 
 import com.example.azopenai.model.ColbertRequest;
 import com.example.azopenai.model.ColbertResponse;
+import com.example.azopenai.service.AsyncCalls;
 import com.example.azopenai.service.ColbertService;
+import com.example.azopenai.service.ShardRouter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -10,8 +12,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * REST controller for ColBERT late interaction operations.
@@ -25,25 +27,27 @@ import java.util.Map;
 public class ColbertController {
 
     private final ColbertService colbertService;
+    private final AsyncCalls asyncCalls;
 
     /**
      * Encode text into multi-vector (per-token) representation.
      * POST /api/colbert/encode
      */
     @PostMapping("/encode")
-    public ResponseEntity<Map<String, Object>> encodeTokens(@RequestBody ColbertRequest request) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> encodeTokens(@RequestBody ColbertRequest request) {
         log.info("ColBERT encode request received");
         long start = System.currentTimeMillis();
 
-        List<float[]> tokenEmbeddings = colbertService.encodeTokens(request.getText());
+        return asyncCalls.withTimeout("colbert-encode", colbertService.encodeTokensAsync(request.getText()))
+                .thenApply(tokenEmbeddings -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("tokenCount", tokenEmbeddings.size());
+                    response.put("embeddingDimension", tokenEmbeddings.isEmpty() ? 0 : tokenEmbeddings.get(0).length);
+                    response.put("embeddings", tokenEmbeddings);
+                    response.put("processingTimeMs", System.currentTimeMillis() - start);
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("tokenCount", tokenEmbeddings.size());
-        response.put("embeddingDimension", tokenEmbeddings.isEmpty() ? 0 : tokenEmbeddings.get(0).length);
-        response.put("embeddings", tokenEmbeddings);
-        response.put("processingTimeMs", System.currentTimeMillis() - start);
-
-        return ResponseEntity.ok(response);
+                    return ResponseEntity.ok(response);
+                });
     }
 
     /**
@@ -51,17 +55,19 @@ public class ColbertController {
      * POST /api/colbert/store
      */
     @PostMapping("/store")
-    public ResponseEntity<Map<String, Object>> storeDocument(@RequestBody ColbertRequest request) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> storeDocument(@RequestBody ColbertRequest request) {
         log.info("ColBERT store request received");
         long start = System.currentTimeMillis();
 
-        String docId = colbertService.storeDocument(request.getText(), null);
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("documentId", docId);
-        response.put("processingTimeMs", System.currentTimeMillis() - start);
+        Map<String, Object> metadata = ShardRouter.withTenant(null, request.getTenant());
+        return asyncCalls.withTimeout("colbert-store", colbertService.storeDocumentAsync(request.getText(), metadata))
+                .thenApply(docId -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("documentId", docId);
+                    response.put("processingTimeMs", System.currentTimeMillis() - start);
 
-        return ResponseEntity.ok(response);
+                    return ResponseEntity.ok(response);
+                });
     }
 
     /**
@@ -69,26 +75,28 @@ public class ColbertController {
      * POST /api/colbert/score
      */
     @PostMapping("/score")
-    public ResponseEntity<ColbertResponse> score(@RequestBody ColbertRequest request) {
+    public CompletableFuture<ResponseEntity<ColbertResponse>> score(@RequestBody ColbertRequest request) {
         log.info("ColBERT score request received");
         long start = System.currentTimeMillis();
 
-        var result = colbertService.score(request.getQuery(), request.getDocument());
-
-        var tokenScoreDetails = result.tokenScores().stream()
-                .map(ts -> ColbertResponse.TokenScoreDetail.builder()
-                        .queryToken(ts.queryToken())
-                        .bestMatchDocToken(ts.bestMatchDocToken())
-                        .similarity(ts.similarity())
-                        .build())
-                .toList();
-
-        return ResponseEntity.ok(ColbertResponse.builder()
-                .score(result.totalScore())
-                .queryTokenCount(result.queryTokenCount())
-                .documentTokenCount(result.documentTokenCount())
-                .tokenScores(tokenScoreDetails)
-                .processingTimeMs(System.currentTimeMillis() - start)
-                .build());
+        return asyncCalls.withTimeout("colbert-score",
+                colbertService.scoreAsync(request.getQuery(), request.getDocument()))
+                .thenApply(result -> {
+                    var tokenScoreDetails = result.tokenScores().stream()
+                            .map(ts -> ColbertResponse.TokenScoreDetail.builder()
+                                    .queryToken(ts.queryToken())
+                                    .bestMatchDocToken(ts.bestMatchDocToken())
+                                    .similarity(ts.similarity())
+                                    .build())
+                            .toList();
+
+                    return ResponseEntity.ok(ColbertResponse.builder()
+                            .score(result.totalScore())
+                            .queryTokenCount(result.queryTokenCount())
+                            .documentTokenCount(result.documentTokenCount())
+                            .tokenScores(tokenScoreDetails)
+                            .processingTimeMs(System.currentTimeMillis() - start)
+                            .build());
+                });
     }
 }
@@ -1,7 +1,12 @@
 package com.example.azopenai.controller;
 
+import com.example.azopenai.config.PipelineMetrics;
 import com.example.azopenai.model.*;
+import com.example.azopenai.service.AsyncCalls;
+import com.example.azopenai.service.BatchSearchService;
+import com.example.azopenai.service.DocumentSearch;
 import com.example.azopenai.service.EmbeddingService;
+import com.example.azopenai.service.ShardRouter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -9,10 +14,15 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * REST controller for embedding operations and Qdrant vector search.
+ * Endpoints complete asynchronously so the servlet thread is released while
+ * waiting on the embedding model or Qdrant.
  */
 @Slf4j
 @RestController
@@ -21,34 +31,44 @@ import java.util.Map;
 public class EmbeddingController {
 
     private final EmbeddingService embeddingService;
+    private final BatchSearchService batchSearchService;
+    private final AsyncCalls asyncCalls;
+    private final PipelineMetrics pipelineMetrics;
 
     /**
      * Embed text (and optionally store in Qdrant).
      * POST /api/embed/text
      */
     @PostMapping("/embed/text")
-    public ResponseEntity<EmbeddingResponse> embedText(@RequestBody EmbeddingRequest request) {
+    public CompletableFuture<ResponseEntity<EmbeddingResponse>> embedText(@RequestBody EmbeddingRequest request) {
         log.info("Text embedding request received");
         long start = System.currentTimeMillis();
 
         if (request.isStore()) {
-            Map<String, Object> metadata = request.getMetadata() != null
+            Map<String, Object> metadata = ShardRouter.withTenant(request.getMetadata() != null
                     ? request.getMetadata()
-                    : new HashMap<>();
-            String docId = embeddingService.embedAndStore(request.getText(), metadata);
-
-            return ResponseEntity.ok(EmbeddingResponse.builder()
-                    .documentId(docId)
-                    .processingTimeMs(System.currentTimeMillis() - start)
-                    .build());
+                    : new HashMap<>(), request.getTenant());
+            if (request.isChunked()) {
+                return asyncCalls.withTimeout("embed-text",
+                        embeddingService.embedAndStoreChunkedAsync(request.getText(), metadata))
+                        .thenApply(result -> ResponseEntity.ok(EmbeddingResponse.builder()
+                                .documentId(result.parentId())
+                                .chunkCount(result.chunkCount())
+                                .processingTimeMs(System.currentTimeMillis() - start)
+                                .build()));
+            }
+            return asyncCalls.withTimeout("embed-text", embeddingService.embedAndStoreAsync(request.getText(), metadata))
+                    .thenApply(docId -> ResponseEntity.ok(EmbeddingResponse.builder()
+                            .documentId(docId)
+                            .processingTimeMs(System.currentTimeMillis() - start)
+                            .build()));
         } else {
-            float[] embedding = embeddingService.embedText(request.getText());
-
-            return ResponseEntity.ok(EmbeddingResponse.builder()
-                    .embedding(embedding)
-                    .dimensions(embedding.length)
-                    .processingTimeMs(System.currentTimeMillis() - start)
-                    .build());
+            return asyncCalls.withTimeout("embed-text", embeddingService.embedTextAsync(request.getText()))
+                    .thenApply(embedding -> ResponseEntity.ok(EmbeddingResponse.builder()
+                            .embedding(embedding)
+                            .dimensions(embedding.length)
+                            .processingTimeMs(System.currentTimeMillis() - start)
+                            .build()));
         }
     }
 
@@ -57,40 +77,36 @@ public class EmbeddingController {
      * POST /api/embed/image
      */
     @PostMapping("/embed/image")
-    public ResponseEntity<EmbeddingResponse> embedImage(@RequestBody EmbeddingRequest request) {
+    public CompletableFuture<ResponseEntity<EmbeddingResponse>> embedImage(@RequestBody EmbeddingRequest request) {
         log.info("Image embedding request received");
         long start = System.currentTimeMillis();
 
-        Map<String, Object> metadata = request.getMetadata() != null
+        Map<String, Object> metadata = ShardRouter.withTenant(request.getMetadata() != null
                 ? request.getMetadata()
-                : new HashMap<>();
+                : new HashMap<>(), request.getTenant());
 
+        CompletableFuture<EmbeddingService.ImageEmbeddingResult> result;
         if (request.getImageUrl() != null && !request.getImageUrl().isBlank()) {
-            var result = embeddingService.embedImageFromUrlAndStore(request.getImageUrl(), metadata);
-
-            return ResponseEntity.ok(EmbeddingResponse.builder()
-                    .documentId(result.documentId())
-                    .sourceSummary(result.imageSummary())
-                    .processingTimeMs(System.currentTimeMillis() - start)
-                    .build());
+            result = embeddingService.embedImageFromUrlAndStoreAsync(request.getImageUrl(), metadata);
 
         } else if (request.getImageBase64() != null && !request.getImageBase64().isBlank()) {
-            byte[] imageBytes = Base64.getDecoder().decode(request.getImageBase64());
+            byte[] imageBytes = decodeImage(request.getImageBase64());
             String mimeType = request.getImageMimeType() != null ? request.getImageMimeType() : "image/jpeg";
 
-            var result = embeddingService.embedImageAndStore(imageBytes, mimeType, metadata);
-
-            return ResponseEntity.ok(EmbeddingResponse.builder()
-                    .documentId(result.documentId())
-                    .sourceSummary(result.imageSummary())
-                    .processingTimeMs(System.currentTimeMillis() - start)
-                    .build());
+            result = embeddingService.embedImageAndStoreAsync(imageBytes, mimeType, metadata);
 
         } else {
-            return ResponseEntity.badRequest().body(EmbeddingResponse.builder()
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(EmbeddingResponse.builder()
                     .sourceSummary("Error: Provide either imageUrl or imageBase64")
-                    .build());
+                    .build()));
         }
+
+        return asyncCalls.withTimeout("embed-image", result)
+                .thenApply(r -> ResponseEntity.ok(EmbeddingResponse.builder()
+                        .documentId(r.documentId())
+                        .sourceSummary(r.imageSummary())
+                        .processingTimeMs(System.currentTimeMillis() - start)
+                        .build()));
     }
 
     /**
@@ -98,24 +114,89 @@ public class EmbeddingController {
      * POST /api/search
      */
     @PostMapping("/search")
-    public ResponseEntity<SearchResponse> search(@RequestBody SearchRequest request) {
+    public CompletableFuture<ResponseEntity<SearchResponse>> search(@RequestBody SearchRequest request) {
         log.info("Similarity search request: query='{}', topK={}", request.getQuery(), request.getTopK());
         long start = System.currentTimeMillis();
 
-        var documents = embeddingService.similaritySearch(request.getQuery(), request.getTopK());
+        CompletableFuture<DocumentSearch.Page> page;
+        try {
+            page = embeddingService.similaritySearchAsync(request.getQuery(), request.getTopK(),
+                    request.getFields(), request.getCursor(), ShardRouter.tenant(request.getTenant()));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(SearchResponse.builder()
+                    .error(e.getMessage())
+                    .build()));
+        }
+        return asyncCalls.withTimeout("search", page)
+                .thenApply(p -> {
+                    var results = toResults(p.hits());
+                    return ResponseEntity.ok(SearchResponse.builder()
+                            .results(results)
+                            .totalResults(results.size())
+                            .nextCursor(p.nextCursor())
+                            .processingTimeMs(System.currentTimeMillis() - start)
+                            .build());
+                });
+    }
 
-        var results = documents.stream()
-                .map(doc -> SearchResponse.SearchResult.builder()
-                        .documentId(doc.getId())
-                        .content(doc.getText())
-                        .metadata(doc.getMetadata())
+    /**
+     * Search several query variants with one batched embedding call and one
+     * Qdrant batch search, optionally fusing the rankings.
+     * POST /api/search/batch
+     */
+    @PostMapping("/search/batch")
+    public CompletableFuture<ResponseEntity<BatchSearchResponse>> searchBatch(
+            @RequestBody BatchSearchRequest request) {
+        List<String> queries = request.getQueries();
+        log.info("Batch search request: {} queries, topK={}, fuse={}",
+                queries != null ? queries.size() : 0, request.getTopK(), request.isFuse());
+        long start = System.currentTimeMillis();
+
+        CompletableFuture<BatchSearchService.BatchResult> result;
+        try {
+            result = batchSearchService.searchAsync(queries, request.getTopK(), request.getFields(),
+                    request.isFuse(), ShardRouter.tenant(request.getTenant()));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(BatchSearchResponse.builder()
+                    .error(e.getMessage())
+                    .build()));
+        }
+        return asyncCalls.withTimeout("search-batch", result)
+                .thenApply(batch -> ResponseEntity.ok(BatchSearchResponse.builder()
+                        .queries(IntStream.range(0, queries.size())
+                                .mapToObj(i -> BatchSearchResponse.QueryResults.builder()
+                                        .query(queries.get(i))
+                                        .results(toResults(batch.rankings().get(i)))
+                                        .build())
+                                .toList())
+                        .fused(batch.fused() != null ? toResults(batch.fused()) : null)
+                        .processingTimeMs(System.currentTimeMillis() - start)
+                        .build()));
+    }
+
+    private static List<SearchResponse.SearchResult> toResults(List<DocumentSearch.SearchHit> hits) {
+        return hits.stream()
+                .map(hit -> SearchResponse.SearchResult.builder()
+                        .documentId(hit.documentId())
+                        .content(hit.content())
+                        .metadata(hit.metadata())
+                        .score(hit.score())
+                        .chunks(hit.chunks().isEmpty() ? null : hit.chunks().stream()
+                                .map(chunk -> SearchResponse.MatchedChunk.builder()
+                                        .index(chunk.index())
+                                        .start(chunk.start())
+                                        .end(chunk.end())
+                                        .score(chunk.score())
+                                        .build())
+                                .toList())
                         .build())
                 .toList();
+    }
 
-        return ResponseEntity.ok(SearchResponse.builder()
-                .results(results)
-                .totalResults(results.size())
-                .processingTimeMs(System.currentTimeMillis() - start)
-                .build());
+    private byte[] decodeImage(String imageBase64) {
+        byte[] imageBytes = pipelineMetrics.time(PipelineMetrics.Stage.IMAGE_DECODE,
+                () -> Base64.getDecoder().decode(imageBase64));
+        pipelineMetrics.bytes(PipelineMetrics.Stage.IMAGE_DECODE, imageBytes.length);
+        return imageBytes;
     }
 }
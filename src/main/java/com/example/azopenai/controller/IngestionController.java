@@ -0,0 +1,118 @@
+package com.example.azopenai.controller;
+
+import com.example.azopenai.model.IngestionJobResponse;
+import com.example.azopenai.service.ImageArchive;
+import com.example.azopenai.service.ImageIngestionService;
+import com.example.azopenai.service.ImageIngestionService.ImageItem;
+import com.example.azopenai.service.ImageIngestionService.ImageSource;
+import com.example.azopenai.service.IngestionJob;
+import com.example.azopenai.service.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST controller for asynchronous bulk image ingestion jobs.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/ingest")
+@RequiredArgsConstructor
+public class IngestionController {
+
+    private final ImageIngestionService imageIngestionService;
+
+    /**
+     * Start a bulk image ingestion job from uploaded image files and/or zip
+     * archives of images. Returns immediately with the job ID.
+     * POST /api/ingest/images
+     */
+    @PostMapping("/images")
+    public ResponseEntity<IngestionJobResponse> ingestImages(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "source", required = false) String source,
+            @RequestParam(value = "tenant", required = false) String tenant) throws IOException {
+        log.info("Bulk image ingestion request received: {} files", files.size());
+
+        List<ImageSource> images = new ArrayList<>();
+        // Zip archives are spooled to disk and read entry by entry by the job, which closes them
+        List<ImageArchive> archives = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                String name = file.getOriginalFilename() != null ? file.getOriginalFilename() : "upload";
+                if ("application/zip".equals(file.getContentType()) || name.toLowerCase().endsWith(".zip")) {
+                    ImageArchive archive = imageIngestionService.openArchive(file.getInputStream());
+                    archives.add(archive);
+                    images.addAll(archive.images());
+                } else {
+                    String mimeType = file.getContentType() != null && file.getContentType().startsWith("image/")
+                            ? file.getContentType()
+                            : ImageIngestionService.guessImageMimeType(name);
+                    if (mimeType != null) {
+                        images.add(new ImageItem(name, file.getBytes(), mimeType));
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            archives.forEach(ImageArchive::close);
+            return ResponseEntity.badRequest().body(IngestionJobResponse.builder()
+                    .status("ERROR: " + e.getMessage())
+                    .build());
+        } catch (IOException | RuntimeException e) {
+            archives.forEach(ImageArchive::close);
+            throw e;
+        }
+
+        if (images.isEmpty()) {
+            archives.forEach(ImageArchive::close);
+            return ResponseEntity.badRequest().body(IngestionJobResponse.builder()
+                    .status("ERROR: no images found in upload")
+                    .build());
+        }
+
+        Map<String, Object> metadata = ShardRouter.withTenant(
+                source != null ? Map.of("source", source) : Map.of(), tenant);
+        var job = imageIngestionService.submit(images, archives, metadata);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(toResponse(job));
+    }
+
+    /**
+     * Poll the progress of an ingestion job.
+     * GET /api/ingest/jobs/{jobId}
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<IngestionJobResponse> getJob(@PathVariable String jobId) {
+        return imageIngestionService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(toResponse(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private IngestionJobResponse toResponse(IngestionJob job) {
+        return IngestionJobResponse.builder()
+                .jobId(job.getJobId())
+                .status(job.getStatus().name())
+                .totalItems(job.getTotalItems())
+                .summarized(job.getSummarized().get())
+                .stored(job.getStored().get())
+                .failed(job.getFailed().get())
+                .throughputPerSecond(job.throughputPerSecond())
+                .elapsedMs(job.elapsedMs())
+                .documentIds(job.documentIdList())
+                .errors(job.errorList().stream()
+                        .map(e -> IngestionJobResponse.ItemError.builder()
+                                .item(e.item())
+                                .stage(e.stage())
+                                .message(e.message())
+                                .build())
+                        .toList())
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.azopenai.controller;
+
+import com.example.azopenai.model.ReindexJobResponse;
+import com.example.azopenai.service.ReindexJob;
+import com.example.azopenai.service.ReindexService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for re-embedding the stored collections with a new
+ * embedding model in the background.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/reindex")
+@RequiredArgsConstructor
+public class ReindexController {
+
+    private final ReindexService reindexService;
+
+    /**
+     * Start re-embedding, or resume it from its checkpoint. Returns immediately.
+     * POST /api/reindex
+     */
+    @PostMapping
+    public ResponseEntity<ReindexJobResponse> start() {
+        log.info("Reindex request received");
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(toResponse(reindexService.start()));
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ReindexJobResponse.builder()
+                    .status("ERROR: " + e.getMessage())
+                    .build());
+        }
+    }
+
+    /**
+     * Progress of the current or last job.
+     * GET /api/reindex
+     */
+    @GetMapping
+    public ResponseEntity<ReindexJobResponse> status() {
+        return reindexService.current()
+                .map(job -> ResponseEntity.ok(toResponse(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Pause after the current page; POST resumes.
+     * DELETE /api/reindex
+     */
+    @DeleteMapping
+    public ResponseEntity<ReindexJobResponse> pause() {
+        log.info("Reindex pause request received");
+        return reindexService.pause()
+                .map(job -> ResponseEntity.status(HttpStatus.ACCEPTED).body(toResponse(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private ReindexJobResponse toResponse(ReindexJob job) {
+        return ReindexJobResponse.builder()
+                .status(job.getStatus().name())
+                .fingerprint(job.getFingerprint())
+                .collections(job.getCollections().stream()
+                        .map(c -> ReindexJobResponse.CollectionProgress.builder()
+                                .name(c.getName())
+                                .source(c.getSource())
+                                .shadow(c.getShadow())
+                                .phase(c.getPhase().name())
+                                .processed(c.getProcessed().get())
+                                .skipped(c.getSkipped().get())
+                                .build())
+                        .toList())
+                .throughputPerSecond(job.throughputPerSecond())
+                .elapsedMs(job.elapsedMs())
+                .error(job.getError())
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.azopenai.controller;
+
+import com.example.azopenai.model.SnapshotJobResponse;
+import com.example.azopenai.service.SnapshotJob;
+import com.example.azopenai.service.SnapshotService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * REST controller for binary collection snapshots: export streams a
+ * collection's vectors and payloads, import restores them without calling
+ * any model.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/snapshots")
+@RequiredArgsConstructor
+public class SnapshotController {
+
+    private final SnapshotService snapshotService;
+
+    /**
+     * Stream a collection as a snapshot file. Runs on the request thread, so it
+     * is not bound by the async request timeout.
+     * GET /api/snapshots/{collection}
+     */
+    @GetMapping("/{collection}")
+    public void export(@PathVariable String collection, HttpServletResponse response) throws IOException {
+        log.info("Snapshot export request received: {}", collection);
+        if (!snapshotService.exists(collection)) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "Collection " + collection + " not found");
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + collection + ".qvsnap\"");
+        snapshotService.export(collection, response.getOutputStream());
+    }
+
+    /**
+     * Import a snapshot file (raw request body) into a collection, creating it
+     * if missing. Returns immediately with the job ID.
+     * POST /api/snapshots/{collection}
+     */
+    @PostMapping(value = "/{collection}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<SnapshotJobResponse> importSnapshot(@PathVariable String collection,
+            HttpServletRequest request) throws IOException {
+        log.info("Snapshot import request received: {}", collection);
+        try {
+            var job = snapshotService.submitImport(collection, request.getInputStream());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(toResponse(job));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(SnapshotJobResponse.builder()
+                    .collection(collection)
+                    .status("ERROR: " + e.getMessage())
+                    .build());
+        }
+    }
+
+    /**
+     * Poll the progress of an import job.
+     * GET /api/snapshots/jobs/{jobId}
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<SnapshotJobResponse> getJob(@PathVariable String jobId) {
+        return snapshotService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(toResponse(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private SnapshotJobResponse toResponse(SnapshotJob job) {
+        return SnapshotJobResponse.builder()
+                .jobId(job.getJobId())
+                .collection(job.getCollection())
+                .status(job.getStatus().name())
+                .totalPoints(job.getTotalPoints())
+                .imported(job.getImported().get())
+                .throughputPerSecond(job.throughputPerSecond())
+                .elapsedMs(job.elapsedMs())
+                .error(job.getError())
+                .build();
+    }
+}
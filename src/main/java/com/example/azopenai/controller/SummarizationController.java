@@ -1,8 +1,11 @@
 package com.example.azopenai.controller;
 
+import com.example.azopenai.config.PipelineMetrics;
 import com.example.azopenai.model.SummarizationRequest;
 import com.example.azopenai.model.SummarizationResponse;
+import com.example.azopenai.service.AsyncCalls;
 import com.example.azopenai.service.ImageSummarizationService;
+import com.example.azopenai.service.SummaryCache;
 import com.example.azopenai.service.TextSummarizationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,6 +15,8 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * REST controller for text and image summarization.
@@ -24,29 +29,38 @@ public class SummarizationController {
 
     private final TextSummarizationService textSummarizationService;
     private final ImageSummarizationService imageSummarizationService;
+    private final AsyncCalls asyncCalls;
+    private final PipelineMetrics pipelineMetrics;
+    private final SummaryCache summaryCache;
 
     /**
      * Summarize text.
      * POST /api/summarize/text
      */
     @PostMapping("/text")
-    public ResponseEntity<SummarizationResponse> summarizeText(
+    public CompletableFuture<ResponseEntity<SummarizationResponse>> summarizeText(
             @RequestBody SummarizationRequest request) {
         log.info("Text summarization request received");
         long start = System.currentTimeMillis();
 
-        String summary;
-        if (request.getCustomInstruction() != null && !request.getCustomInstruction().isBlank()) {
-            summary = textSummarizationService.summarize(request.getText(), request.getCustomInstruction());
-        } else {
-            summary = textSummarizationService.summarize(request.getText());
-        }
+        return asyncCalls.withTimeout("summarize-text",
+                textSummarizationService.summarizeAsync(request.getText(), request.getCustomInstruction(),
+                        !Boolean.FALSE.equals(request.getCache())))
+                .thenApply(summary -> ResponseEntity.ok(SummarizationResponse.builder()
+                        .summary(summary.text())
+                        .type("TEXT")
+                        .cacheSimilarity(summary.cacheSimilarity())
+                        .processingTimeMs(System.currentTimeMillis() - start)
+                        .build()));
+    }
 
-        return ResponseEntity.ok(SummarizationResponse.builder()
-                .summary(summary)
-                .type("TEXT")
-                .processingTimeMs(System.currentTimeMillis() - start)
-                .build());
+    /**
+     * Drop every cached text summary.
+     * DELETE /api/summarize/cache
+     */
+    @DeleteMapping("/cache")
+    public ResponseEntity<Map<String, Integer>> clearCache() {
+        return ResponseEntity.ok(Map.of("cleared", summaryCache.clear()));
     }
 
     /**
@@ -54,30 +68,26 @@ public class SummarizationController {
      * POST /api/summarize/image
      */
     @PostMapping("/image")
-    public ResponseEntity<SummarizationResponse> summarizeImage(
+    public CompletableFuture<ResponseEntity<SummarizationResponse>> summarizeImage(
             @RequestBody SummarizationRequest request) {
         log.info("Image summarization request received");
         long start = System.currentTimeMillis();
 
-        String summary;
+        CompletableFuture<String> summary;
         if (request.getImageUrl() != null && !request.getImageUrl().isBlank()) {
-            summary = imageSummarizationService.summarizeImageFromUrl(request.getImageUrl());
+            summary = imageSummarizationService.summarizeImageFromUrlAsync(request.getImageUrl());
         } else if (request.getImageBase64() != null && !request.getImageBase64().isBlank()) {
-            byte[] imageBytes = Base64.getDecoder().decode(request.getImageBase64());
+            byte[] imageBytes = decodeImage(request.getImageBase64());
             String mimeType = request.getImageMimeType() != null ? request.getImageMimeType() : "image/jpeg";
-            summary = imageSummarizationService.summarizeImage(imageBytes, mimeType);
+            summary = imageSummarizationService.summarizeImageAsync(imageBytes, mimeType);
         } else {
-            return ResponseEntity.badRequest().body(SummarizationResponse.builder()
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(SummarizationResponse.builder()
                     .summary("Error: Provide either imageUrl or imageBase64")
                     .type("ERROR")
-                    .build());
+                    .build()));
         }
 
-        return ResponseEntity.ok(SummarizationResponse.builder()
-                .summary(summary)
-                .type("IMAGE")
-                .processingTimeMs(System.currentTimeMillis() - start)
-                .build());
+        return imageResponse(summary, start);
     }
 
     /**
@@ -85,18 +95,32 @@ public class SummarizationController {
      * POST /api/summarize/image/upload
      */
     @PostMapping("/image/upload")
-    public ResponseEntity<SummarizationResponse> summarizeImageUpload(
+    public CompletableFuture<ResponseEntity<SummarizationResponse>> summarizeImageUpload(
             @RequestParam("file") MultipartFile file) throws IOException {
         log.info("Image upload summarization request received: {}", file.getOriginalFilename());
         long start = System.currentTimeMillis();
 
+        // Read the upload on the request thread; the multipart part is not valid after it returns
+        byte[] imageBytes = file.getBytes();
         String mimeType = file.getContentType() != null ? file.getContentType() : "image/jpeg";
-        String summary = imageSummarizationService.summarizeImage(file.getBytes(), mimeType);
 
-        return ResponseEntity.ok(SummarizationResponse.builder()
-                .summary(summary)
-                .type("IMAGE")
-                .processingTimeMs(System.currentTimeMillis() - start)
-                .build());
+        return imageResponse(imageSummarizationService.summarizeImageAsync(imageBytes, mimeType), start);
+    }
+
+    private CompletableFuture<ResponseEntity<SummarizationResponse>> imageResponse(
+            CompletableFuture<String> summary, long start) {
+        return asyncCalls.withTimeout("summarize-image", summary)
+                .thenApply(text -> ResponseEntity.ok(SummarizationResponse.builder()
+                        .summary(text)
+                        .type("IMAGE")
+                        .processingTimeMs(System.currentTimeMillis() - start)
+                        .build()));
+    }
+
+    private byte[] decodeImage(String imageBase64) {
+        byte[] imageBytes = pipelineMetrics.time(PipelineMetrics.Stage.IMAGE_DECODE,
+                () -> Base64.getDecoder().decode(imageBase64));
+        pipelineMetrics.bytes(PipelineMetrics.Stage.IMAGE_DECODE, imageBytes.length);
+        return imageBytes;
     }
 }
@@ -0,0 +1,35 @@
+package com.example.azopenai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request DTO for multi-query batch search.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSearchRequest {
+
+    /** Query variants, searched together. */
+    private List<String> queries;
+
+    /** Number of top results per query (and of the fused list). */
+    @Builder.Default
+    private int topK = 5;
+
+    /** Payload fields to return, as in {@link SearchRequest#getFields()}; omitted means all. */
+    private List<String> fields;
+
+    /** Whether to also merge the per-query results by reciprocal rank fusion. */
+    @Builder.Default
+    private boolean fuse = false;
+
+    /** Only search this tenant's documents; omitted searches every tenant. */
+    private String tenant;
+}
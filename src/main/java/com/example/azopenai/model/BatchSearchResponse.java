@@ -0,0 +1,39 @@
+package com.example.azopenai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for multi-query batch search.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSearchResponse {
+
+    /** Results per query, in request order. */
+    private List<QueryResults> queries;
+
+    /** Reciprocal-rank-fused results when requested; {@code score} is the fused score. */
+    private List<SearchResponse.SearchResult> fused;
+
+    /** Processing time in milliseconds. */
+    private long processingTimeMs;
+
+    /** Why the request was rejected, for a 400 response. */
+    private String error;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class QueryResults {
+        private String query;
+        private List<SearchResponse.SearchResult> results;
+    }
+}
@@ -22,4 +22,10 @@ public class ColbertRequest {
 
     /** Text to encode into multi-vector representation. */
     private String text;
+
+    /**
+     * Tenant the documents belong to; routes them to the tenant's shard and is
+     * stored as the {@code tenant} metadata field.
+     */
+    private String tenant;
 }
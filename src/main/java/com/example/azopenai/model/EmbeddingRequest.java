@@ -32,6 +32,19 @@ public class EmbeddingRequest {
     @Builder.Default
     private boolean store = false;
 
+    /**
+     * With {@code store}: split the text into overlapping chunks stored under
+     * one parent ID; search then returns the parent with its matching chunks.
+     */
+    @Builder.Default
+    private boolean chunked = false;
+
     /** Optional metadata to store alongside the embedding. */
     private Map<String, Object> metadata;
+
+    /**
+     * Tenant the documents belong to; routes them to the tenant's shard and is
+     * stored as the {@code tenant} metadata field.
+     */
+    private String tenant;
 }
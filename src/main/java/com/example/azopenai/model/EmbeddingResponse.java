@@ -26,6 +26,9 @@ public class EmbeddingResponse {
     /** Document ID if stored in Qdrant. */
     private String documentId;
 
+    /** Number of chunks stored, for chunked ingestion; {@code documentId} is then the parent ID. */
+    private Integer chunkCount;
+
     /** Processing time in milliseconds. */
     private long processingTimeMs;
 }
@@ -0,0 +1,58 @@
+package com.example.azopenai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO describing the progress of a bulk image ingestion job.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionJobResponse {
+
+    /** Job identifier used for polling. */
+    private String jobId;
+
+    /** QUEUED, RUNNING, COMPLETED, COMPLETED_WITH_ERRORS or FAILED. */
+    private String status;
+
+    /** Number of images accepted for the job. */
+    private int totalItems;
+
+    /** Number of images summarized so far. */
+    private int summarized;
+
+    /** Number of images embedded and stored in Qdrant so far. */
+    private int stored;
+
+    /** Number of images that failed at any stage. */
+    private int failed;
+
+    /** Stored images per second. */
+    private double throughputPerSecond;
+
+    /** Elapsed processing time in milliseconds. */
+    private long elapsedMs;
+
+    /** IDs of the stored documents. */
+    private List<String> documentIds;
+
+    /** Per-item errors. */
+    private List<ItemError> errors;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemError {
+        private String item;
+        private String stage;
+        private String message;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.azopenai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO describing the progress of re-embedding the collections.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReindexJobResponse {
+
+    /** RUNNING, PAUSED, COMPLETED or FAILED. */
+    private String status;
+
+    /** Fingerprint of the target embedding model. */
+    private String fingerprint;
+
+    /** Progress per collection. */
+    private List<CollectionProgress> collections;
+
+    /** Points re-embedded per second by the current run. */
+    private double throughputPerSecond;
+
+    /** Elapsed processing time of the current run in milliseconds. */
+    private long elapsedMs;
+
+    /** Failure, if any. */
+    private String error;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CollectionProgress {
+
+        /** Alias the services use. */
+        private String name;
+
+        /** Collection currently served. */
+        private String source;
+
+        /** Collection being filled with the target model's vectors. */
+        private String shadow;
+
+        /** COPYING, CATCHING_UP, SWITCHED or CURRENT. */
+        private String phase;
+
+        /** Points re-embedded so far. */
+        private long processed;
+
+        /** Points without stored text, left out. */
+        private long skipped;
+    }
+}
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 /**
  * Request DTO for similarity search.
  */
@@ -20,4 +22,16 @@ public class SearchRequest {
     /** Number of top results to return. */
     @Builder.Default
     private int topK = 5;
+
+    /**
+     * Payload fields to return: {@code content} and/or metadata keys. Omitted
+     * means all; an empty list returns IDs, scores and chunk offsets only.
+     */
+    private List<String> fields;
+
+    /** {@code nextCursor} of the previous page, to continue the same query. */
+    private String cursor;
+
+    /** Only search this tenant's documents; omitted searches every tenant. */
+    private String tenant;
 }
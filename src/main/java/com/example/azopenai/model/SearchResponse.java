@@ -1,5 +1,6 @@
 package com.example.azopenai.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -23,17 +24,41 @@ public class SearchResponse {
     /** Total number of results. */
     private int totalResults;
 
+    /** Cursor of the next page, or null after the last page. */
+    private String nextCursor;
+
     /** Processing time in milliseconds. */
     private long processingTimeMs;
 
+    /** Why the request was rejected, for a 400 response. */
+    private String error;
+
+    /** Fields left out by a projection are omitted rather than serialized empty. */
     @Data
     @Builder
     @NoArgsConstructor
     @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
     public static class SearchResult {
         private String documentId;
         private String content;
         private Map<String, Object> metadata;
         private Double score;
+
+        /** For chunked documents, the matching chunks, best first; {@code content} is the best one. */
+        private List<MatchedChunk> chunks;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MatchedChunk {
+        private int index;
+
+        /** Character offsets of the chunk in the parent text, end exclusive. */
+        private int start;
+        private int end;
+        private Double score;
     }
 }
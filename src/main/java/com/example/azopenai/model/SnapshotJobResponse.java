@@ -0,0 +1,40 @@
+package com.example.azopenai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO describing the progress of a snapshot import job.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SnapshotJobResponse {
+
+    /** Job identifier used for polling. */
+    private String jobId;
+
+    /** Target collection. */
+    private String collection;
+
+    /** QUEUED, RUNNING, COMPLETED or FAILED. */
+    private String status;
+
+    /** Points in the snapshot file. */
+    private long totalPoints;
+
+    /** Points upserted so far. */
+    private long imported;
+
+    /** Imported points per second. */
+    private double throughputPerSecond;
+
+    /** Elapsed processing time in milliseconds. */
+    private long elapsedMs;
+
+    /** First failure, if any. */
+    private String error;
+}
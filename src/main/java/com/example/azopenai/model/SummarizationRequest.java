@@ -28,4 +28,7 @@ public class SummarizationRequest {
 
     /** Optional custom summarization instruction. */
     private String customInstruction;
+
+    /** {@code false} to bypass the summary cache for this text; default true. */
+    private Boolean cache;
 }
@@ -1,5 +1,6 @@
 package com.example.azopenai.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -22,4 +23,11 @@ public class SummarizationResponse {
 
     /** Processing time in milliseconds. */
     private long processingTimeMs;
+
+    /**
+     * Set when the summary was served from the summary cache: similarity of
+     * the cached text to this one (1.0 for a normalized exact match).
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double cacheSimilarity;
 }
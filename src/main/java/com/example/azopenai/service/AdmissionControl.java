@@ -0,0 +1,246 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.config.AdmissionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+/**
+ * Bounded admission of requests to the model-backed endpoints, per request
+ * class ({@link AdmissionProperties}).
+ *
+ * <p>
+ * A request runs at once when its class and the global limit have room and
+ * nobody of its class is waiting; otherwise it joins the class's FIFO queue.
+ * It is rejected on arrival when the queue is full or when the expected wait
+ * (queue position times the smoothed time a request holds its slot, divided
+ * by the class concurrency) exceeds the class's latency budget, and later if
+ * it is still waiting when the budget runs out. A freed slot goes to the
+ * waiting request of the highest-priority class that has room, so cheap
+ * classes are not starved by slow ones.
+ * </p>
+ *
+ * <p>
+ * Meters, tagged with {@code class}: gauges {@code admission.inflight} and
+ * {@code admission.queued}, timer {@code admission.queue.wait} (admitted
+ * requests) and counter {@code admission.rejected} with a {@code reason} of
+ * {@code queue-full}, {@code budget} or {@code timeout}.
+ * </p>
+ */
+@Component
+public class AdmissionControl {
+
+    private static final double SERVICE_TIME_SMOOTHING = 0.1;
+
+    private final AdmissionProperties props;
+    private final MeterRegistry registry;
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final ReentrantLock lock = new ReentrantLock();
+    /** In configuration order, for matching. */
+    private final List<RequestClass> classes = new ArrayList<>();
+    private final List<RequestClass> byPriority;
+
+    private int inFlight;
+
+    public AdmissionControl(AdmissionProperties props, MeterRegistry registry) {
+        this.props = props;
+        this.registry = registry;
+        props.getClasses().forEach((name, cfg) -> classes.add(new RequestClass(name, cfg)));
+        this.byPriority = classes.stream().sorted(Comparator.comparingInt(c -> c.cfg.getPriority())).toList();
+    }
+
+    public boolean isEnabled() {
+        return props.isEnabled() && !classes.isEmpty();
+    }
+
+    /** The class of a request path, or null when the path is not admission-controlled. */
+    public RequestClass classify(String path) {
+        for (RequestClass requestClass : classes) {
+            for (String pattern : requestClass.cfg.getPaths()) {
+                if (matcher.match(pattern, path)) {
+                    return requestClass;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Wait for a slot of the class. The caller must close the permit when the
+     * request completes.
+     *
+     * @throws AdmissionRejectedException if the queue is full or the latency
+     *                                    budget would be exceeded
+     */
+    public Permit acquire(RequestClass requestClass) {
+        long start = System.nanoTime();
+        long budget = requestClass.cfg.getMaxQueueWait().toNanos();
+        lock.lock();
+        try {
+            if (requestClass.queue.isEmpty() && hasRoom(requestClass)) {
+                admit(requestClass);
+                requestClass.queueWait.record(0, TimeUnit.NANOSECONDS);
+                return new Permit(requestClass);
+            }
+            long expected = expectedWaitNanos(requestClass);
+            if (requestClass.queue.size() >= requestClass.cfg.getMaxQueue()) {
+                throw reject(requestClass, "queue-full", expected);
+            }
+            if (expected > budget) {
+                throw reject(requestClass, "budget", expected);
+            }
+
+            var waiter = new Waiter(lock.newCondition());
+            requestClass.queue.addLast(waiter);
+            long remaining = budget;
+            try {
+                while (!waiter.admitted) {
+                    if (remaining <= 0) {
+                        requestClass.queue.remove(waiter);
+                        throw reject(requestClass, "timeout", expected);
+                    }
+                    remaining = waiter.signal.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (waiter.admitted) {
+                    release(requestClass, 0);
+                } else {
+                    requestClass.queue.remove(waiter);
+                }
+                throw new AdmissionRejectedException("Interrupted waiting for admission", Duration.ofSeconds(1));
+            }
+            requestClass.queueWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return new Permit(requestClass);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean hasRoom(RequestClass requestClass) {
+        return requestClass.inFlight < requestClass.cfg.getMaxConcurrency()
+                && (props.getMaxInFlight() <= 0 || inFlight < props.getMaxInFlight());
+    }
+
+    private void admit(RequestClass requestClass) {
+        requestClass.inFlight++;
+        inFlight++;
+    }
+
+    private long expectedWaitNanos(RequestClass requestClass) {
+        return (long) ((requestClass.queue.size() + 1) * requestClass.smoothedServiceNanos
+                / requestClass.cfg.getMaxConcurrency());
+    }
+
+    private AdmissionRejectedException reject(RequestClass requestClass, String reason, long expectedWaitNanos) {
+        Counter.builder("admission.rejected")
+                .description("Requests rejected by admission control")
+                .tag("class", requestClass.name)
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+        long retrySeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(expectedWaitNanos + 999_999_999L));
+        return new AdmissionRejectedException("Too many " + requestClass.name + " requests (" + reason + ")",
+                Duration.ofSeconds(retrySeconds));
+    }
+
+    private void release(RequestClass requestClass, long heldNanos) {
+        lock.lock();
+        try {
+            requestClass.inFlight--;
+            inFlight--;
+            if (heldNanos > 0) {
+                requestClass.smoothedServiceNanos = requestClass.smoothedServiceNanos == 0
+                        ? heldNanos
+                        : (1 - SERVICE_TIME_SMOOTHING) * requestClass.smoothedServiceNanos
+                                + SERVICE_TIME_SMOOTHING * heldNanos;
+            }
+            // Highest priority first; a class at its own limit does not block the next one
+            for (RequestClass candidate : byPriority) {
+                while (!candidate.queue.isEmpty() && hasRoom(candidate)) {
+                    Waiter waiter = candidate.queue.pollFirst();
+                    admit(candidate);
+                    waiter.admitted = true;
+                    waiter.signal.signal();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int read(IntSupplier value) {
+        lock.lock();
+        try {
+            return value.getAsInt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** One request class: its limits, queue and meters. Guarded by the shared lock. */
+    public final class RequestClass {
+        @Getter
+        private final String name;
+        private final AdmissionProperties.RequestClass cfg;
+        private final Deque<Waiter> queue = new ArrayDeque<>();
+        private final Timer queueWait;
+        private int inFlight;
+        private double smoothedServiceNanos;
+
+        private RequestClass(String name, AdmissionProperties.RequestClass cfg) {
+            this.name = name;
+            this.cfg = cfg;
+            Gauge.builder("admission.inflight", this, c -> read(() -> c.inFlight))
+                    .description("Admitted requests in progress").tag("class", name).register(registry);
+            Gauge.builder("admission.queued", this, c -> read(() -> c.queue.size()))
+                    .description("Requests waiting for admission").tag("class", name).register(registry);
+            this.queueWait = Timer.builder("admission.queue.wait")
+                    .description("Time admitted requests waited for a slot").tag("class", name)
+                    .register(registry);
+        }
+    }
+
+    private static final class Waiter {
+        final Condition signal;
+        boolean admitted;
+
+        Waiter(Condition signal) {
+            this.signal = signal;
+        }
+    }
+
+    /** A held slot; closing it more than once has no effect. */
+    public final class Permit implements AutoCloseable {
+        private final RequestClass requestClass;
+        private final long admittedAt = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(RequestClass requestClass) {
+            this.requestClass = requestClass;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release(requestClass, System.nanoTime() - admittedAt);
+            }
+        }
+    }
+}
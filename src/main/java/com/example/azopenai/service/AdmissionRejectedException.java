@@ -0,0 +1,21 @@
+package com.example.azopenai.service;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Raised when a request is not admitted: its class's queue is full or it
+ * would wait longer than the class's latency budget.
+ */
+@Getter
+public class AdmissionRejectedException extends RuntimeException {
+
+    /** Suggested delay before retrying. */
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.client.ConcurrencyLimitExceededException;
+import com.example.azopenai.config.AsyncProperties;
+import com.example.azopenai.config.ExecutorFactory;
+import com.example.azopenai.config.PipelineMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking remote calls (model providers, Qdrant) off the servlet request
+ * thread and exposes them as {@link CompletableFuture}s.
+ *
+ * <p>
+ * Unlike {@link CompletableFuture#supplyAsync}, completing the returned future
+ * early — by cancellation or by {@link #withTimeout} — interrupts the worker
+ * running the call, which aborts the in-flight HTTP/gRPC request. The call
+ * keeps the request's endpoint tag and trace context
+ * ({@link PipelineMetrics#propagate}). When every worker thread is busy the
+ * future fails with {@link ConcurrencyLimitExceededException} (503).
+ * </p>
+ */
+@Component
+public class AsyncCalls {
+
+    private final Executor executor;
+    private final AsyncProperties props;
+
+    public AsyncCalls(ExecutorFactory executorFactory, AsyncProperties props) {
+        this.executor = executorFactory.executor("remote-call");
+        this.props = props;
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> call) {
+        var task = new FutureTask<>(PipelineMetrics.propagate(call)::get);
+        var future = new CompletableFuture<T>();
+        future.whenComplete((result, error) -> {
+            if (!task.isDone()) {
+                task.cancel(true);
+            }
+        });
+
+        try {
+            executor.execute(() -> {
+                task.run();
+                try {
+                    future.complete(task.get());
+                } catch (ExecutionException e) {
+                    future.completeExceptionally(e.getCause());
+                } catch (Exception e) {
+                    // Cancelled because the future already completed (timeout or cancel)
+                    future.cancel(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new ConcurrencyLimitExceededException(e.getMessage()));
+        }
+        return future;
+    }
+
+    /**
+     * Fail the future with a {@link java.util.concurrent.TimeoutException} (and
+     * cancel the underlying call) if it does not complete within the
+     * endpoint's configured timeout.
+     */
+    public <T> CompletableFuture<T> withTimeout(String endpoint, CompletableFuture<T> future) {
+        return future.orTimeout(props.timeoutFor(endpoint).toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
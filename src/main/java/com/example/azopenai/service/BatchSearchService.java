@@ -0,0 +1,113 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.config.SearchProperties;
+import com.example.azopenai.service.DocumentSearch.SearchHit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Searches several query variants at once: every query is embedded in one
+ * batched embedding call and searched in one Qdrant batch request, instead of
+ * one embedding and one search round trip per query.
+ *
+ * <p>
+ * Hits are collapsed to parent documents like single searches
+ * ({@link DocumentSearch}). The per-query rankings can also be merged by
+ * reciprocal rank fusion.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchSearchService {
+
+    private final EmbeddingModel embeddingModel;
+    private final DocumentSearch documentSearch;
+    private final QdrantCollections collections;
+    private final AsyncCalls asyncCalls;
+    private final SearchProperties props;
+
+    /**
+     * Search every query for its {@code topK} best results, and with
+     * {@code fuse} also merge the rankings into one list.
+     *
+     * @param fields payload fields to return, or null for all
+     * @param tenant only this tenant's documents, or null for all
+     * @throws IllegalArgumentException if there are no queries or more than
+     *                                  {@code app.search.max-batch-queries}
+     */
+    public BatchResult search(List<String> queries, int topK, List<String> fields, boolean fuse, String tenant) {
+        validate(queries);
+        log.debug("Batch search: {} queries, topK: {}, fuse: {}", queries.size(), topK, fuse);
+        collections.requireReady();
+
+        List<List<SearchHit>> rankings = documentSearch.searchBatch(tenant, embeddingModel.embed(queries), topK,
+                fields);
+        return new BatchResult(rankings, fuse ? fuse(rankings, topK, props.getRrfK()) : null);
+    }
+
+    /**
+     * Asynchronous {@link #search}; invalid queries are rejected before the
+     * call is scheduled.
+     *
+     * @throws IllegalArgumentException as {@link #search}
+     */
+    public CompletableFuture<BatchResult> searchAsync(List<String> queries, int topK, List<String> fields,
+            boolean fuse, String tenant) {
+        validate(queries);
+        return asyncCalls.supply(() -> search(queries, topK, fields, fuse, tenant));
+    }
+
+    private void validate(List<String> queries) {
+        if (queries == null || queries.isEmpty() || queries.stream().anyMatch(q -> q == null || q.isBlank())) {
+            throw new IllegalArgumentException("Provide one or more non-blank queries");
+        }
+        if (queries.size() > props.getMaxBatchQueries()) {
+            throw new IllegalArgumentException(
+                    "At most " + props.getMaxBatchQueries() + " queries per batch, got " + queries.size());
+        }
+    }
+
+    /**
+     * Reciprocal rank fusion: each result scores the sum of {@code 1 / (k + rank)}
+     * over the rankings it appears in (rank from 1). A fused result keeps the
+     * content and chunks of its best-ranked occurrence.
+     */
+    public static List<SearchHit> fuse(List<List<SearchHit>> rankings, int topK, int k) {
+        Map<String, Double> scores = new HashMap<>();
+        Map<String, SearchHit> best = new LinkedHashMap<>();
+        Map<String, Integer> bestRank = new HashMap<>();
+        for (List<SearchHit> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                SearchHit hit = ranking.get(rank);
+                scores.merge(hit.documentId(), 1.0 / (k + rank + 1), Double::sum);
+                if (rank < bestRank.getOrDefault(hit.documentId(), Integer.MAX_VALUE)) {
+                    bestRank.put(hit.documentId(), rank);
+                    best.put(hit.documentId(), hit);
+                }
+            }
+        }
+        return best.values().stream()
+                .sorted(Comparator.comparingDouble((SearchHit hit) -> scores.get(hit.documentId())).reversed())
+                .limit(topK)
+                .map(hit -> new SearchHit(hit.documentId(), hit.content(), hit.metadata(),
+                        scores.get(hit.documentId()), hit.chunks()))
+                .toList();
+    }
+
+    /**
+     * Result holder: one ranking per query, in request order, and the fused
+     * ranking when requested.
+     */
+    public record BatchResult(List<List<SearchHit>> rankings, List<SearchHit> fused) {
+    }
+}
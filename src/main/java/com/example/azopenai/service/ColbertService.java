@@ -1,19 +1,33 @@
 package com.example.azopenai.service;
 
-import io.qdrant.client.QdrantClient;
-import io.qdrant.client.QdrantGrpcClient;
+import com.example.azopenai.client.TokenEmbeddingClient;
+import com.example.azopenai.client.TokenEmbeddingClient.ModelTokens;
+import com.example.azopenai.client.TokenEmbeddingsUnsupportedException;
+import com.example.azopenai.config.ColbertProperties;
+import com.example.azopenai.config.ColbertProperties.Encoder;
+import com.example.azopenai.config.CollectionSchemaProperties;
+import com.example.azopenai.config.ExecutorFactory;
+import com.example.azopenai.config.PipelineMetrics;
+import com.example.azopenai.config.PipelineMetrics.Stage;
+import com.example.azopenai.config.WriteBatchingProperties;
+import com.example.azopenai.tokenizer.TokenBuffer;
+import com.example.azopenai.tokenizer.Tokenizer;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.qdrant.client.grpc.Collections;
+import io.qdrant.client.grpc.JsonWithInt;
 import io.qdrant.client.grpc.Points;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.embedding.EmbeddingModel;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
-import jakarta.annotation.PostConstruct;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static io.qdrant.client.PointIdFactory.id;
 import static io.qdrant.client.ValueFactory.value;
@@ -33,13 +47,23 @@ import static io.qdrant.client.ValueFactory.value;
  *
  * <p>
  * This implementation:
- * 1. Tokenizes text into individual tokens
- * 2. Generates per-token embeddings via Azure OpenAI Embedding model
+ * 1. Tokenizes text with the configured {@link Tokenizer} (whitespace, WordPiece or BPE),
+ *    or with the llama.cpp runner when that tokenizer has no vocabulary or
+ *    not the served model's
+ * 2. Generates token embeddings: all tokens of a text in one call from a
+ *    llama.cpp runner ({@link TokenEmbeddingClient}, contextual), or one
+ *    embedding call per token when the runner cannot (see {@link Encoder})
  * 3. Stores multi-vectors in Qdrant collection with MaxSim comparator
  * 4. Implements MaxSim scoring for query-document relevance
  * </p>
  *
  * <p>
+ * Concurrent single-document stores are gathered by a {@link WriteBatcher}:
+ * their tokens are embedded together (or their contextual requests sent
+ * concurrently) and the points upserted in one call.
+ * </p>
+ *
+ * <p>
  * Activated when {@code app.colbert.enabled=true}
  * </p>
  */
@@ -48,133 +72,326 @@ import static io.qdrant.client.ValueFactory.value;
 @ConditionalOnProperty(name = "app.colbert.enabled", havingValue = "true")
 public class ColbertService {
 
+    /** Tokenized both locally and by the runner to check that they share a vocabulary. */
+    static final String VOCABULARY_PROBE = "Late-interaction retrieval: 42 naïve queries, re-ranked!";
+
     private final EmbeddingModel embeddingModel;
-    private final QdrantClient qdrantClient;
+    private final ShardRouter router;
+    private final QdrantCollections collections;
+    private final WriteGate writeGate;
     private final String collectionName;
+    private final Executor encodeExecutor;
+    private final AsyncCalls asyncCalls;
+    private final PipelineMetrics pipelineMetrics;
+    private final Tokenizer tokenizer;
+    private final Encoder encoder;
+    private final TokenEmbeddingClient tokenEmbeddings;
+    private final int maxEmbeddingInputs;
+    /** Null when write batching is disabled. */
+    private final WriteBatcher<StoreRequest, String> writes;
+    /** Cleared in {@code auto} mode once the runner turns out not to support token embeddings. */
+    private volatile boolean contextual;
+    /** Whether the local tokenizer's ids are the served model's; null until checked. */
+    private volatile Boolean localIdsServed;
+    private final ReentrantLock vocabularyCheck = new ReentrantLock();
 
     public ColbertService(
             EmbeddingModel embeddingModel,
-            @Value("${spring.ai.vectorstore.qdrant.host:localhost}") String qdrantHost,
-            @Value("${spring.ai.vectorstore.qdrant.port:6334}") int qdrantPort,
-            @Value("${app.colbert.collection-name:colbert_vectors}") String collectionName) {
+            ExecutorFactory executorFactory,
+            AsyncCalls asyncCalls,
+            PipelineMetrics pipelineMetrics,
+            ShardRouter router,
+            QdrantCollections collections,
+            Tokenizer tokenizer,
+            ColbertProperties props,
+            ObjectProvider<TokenEmbeddingClient> tokenEmbeddings,
+            WriteBatchingProperties writeBatching,
+            CollectionSchemaProperties schemas,
+            WriteGate writeGate,
+            MeterRegistry registry) {
         this.embeddingModel = embeddingModel;
-        this.collectionName = collectionName;
-        this.qdrantClient = new QdrantClient(
-                QdrantGrpcClient.newBuilder(qdrantHost, qdrantPort, false).build());
+        this.collectionName = props.getCollectionName();
+        this.encodeExecutor = executorFactory.boundedExecutor("colbert-encode", props.getEncodeConcurrency());
+        this.asyncCalls = asyncCalls;
+        this.pipelineMetrics = pipelineMetrics;
+        this.router = router;
+        this.collections = collections;
+        this.writeGate = writeGate;
+        this.tokenizer = tokenizer;
+        this.encoder = props.getEncoder();
+        this.tokenEmbeddings = tokenEmbeddings.getIfAvailable();
+        if (encoder == Encoder.CONTEXTUAL && this.tokenEmbeddings == null) {
+            throw new IllegalArgumentException(
+                    "app.colbert.encoder=contextual needs an OpenAI-compatible embedding backend "
+                            + "or app.colbert.token-embeddings.url");
+        }
+        this.contextual = this.tokenEmbeddings != null;
+        this.maxEmbeddingInputs = writeBatching.getMaxEmbeddingInputs();
+        this.writes = writeBatching.isEnabled()
+                ? new WriteBatcher<>("colbert-store", this::storeBatch, writeBatching, executorFactory, registry)
+                : null;
+        for (ShardRouter.Shard shard : router.shards()) {
+            collections.register(shard.client(), shard.collection(collectionName),
+                    dimension -> Collections.VectorParams.newBuilder()
+                            .setSize(dimension)
+                            .setDistance(Collections.Distance.Cosine)
+                            .setMultivectorConfig(Collections.MultiVectorConfig.newBuilder()
+                                    .setComparator(Collections.MultiVectorComparator.MaxSim)
+                                    .build())
+                            .build(),
+                    schemas.getColbert());
+        }
     }
 
     /**
-     * Initialize the Qdrant collection for ColBERT multi-vectors if it doesn't
-     * exist.
+     * Tokenize text and generate per-token embeddings (multi-vector
+     * representation).
      */
-    @PostConstruct
-    public void initCollection() {
-        try {
-            var collections = qdrantClient.listCollectionsAsync().get();
-            boolean exists = collections.stream()
-                    .anyMatch(c -> c.equals(collectionName));
-
-            if (!exists) {
-                log.info("Creating ColBERT collection: {}", collectionName);
-                float[] testEmbed = embeddingModel.embed("test");
-                int dimension = testEmbed.length;
-
-                qdrantClient.createCollectionAsync(
-                        collectionName,
-                        Collections.VectorParams.newBuilder()
-                                .setSize(dimension)
-                                .setDistance(Collections.Distance.Cosine)
-                                .setMultivectorConfig(Collections.MultiVectorConfig.newBuilder()
-                                        .setComparator(Collections.MultiVectorComparator.MaxSim)
-                                        .build())
-                                .build())
-                        .get();
-                log.info("ColBERT collection created with dimension: {}", dimension);
+    public List<float[]> encodeTokens(String text) {
+        return encode(text).embeddings();
+    }
+
+    private Encoding encode(String text) {
+        log.debug("Encoding tokens for text: '{}'", text.substring(0, Math.min(50, text.length())));
+        if (contextual) {
+            try {
+                return encodeContextual(text);
+            } catch (TokenEmbeddingsUnsupportedException e) {
+                if (encoder == Encoder.CONTEXTUAL) {
+                    throw e;
+                }
+                if (contextual) {
+                    contextual = false;
+                    log.warn("Contextual token embeddings unavailable, falling back to per-token calls: {}",
+                            e.getMessage());
+                }
             }
-        } catch (InterruptedException | ExecutionException e) {
-            log.error("Failed to initialize ColBERT collection", e);
-            Thread.currentThread().interrupt();
         }
+        return encodePerToken(text);
+    }
+
+    /** All token vectors in one request, each embedded in the context of the whole text. */
+    private Encoding encodeContextual(String text) {
+        List<String> tokens;
+        int[] ids;
+        if (tokenizer.hasVocabulary() && localIdsServed()) {
+            var buffer = new TokenBuffer();
+            tokens = tokenize(text, buffer);
+            ids = buffer.ids();
+        } else {
+            // The runner's own tokens, so vectors line up with them
+            ModelTokens modelTokens = pipelineMetrics.time(Stage.TOKENIZE, () -> tokenEmbeddings.tokenize(text));
+            pipelineMetrics.tokens(Stage.TOKENIZE, modelTokens.ids().length);
+            tokens = modelTokens.pieces();
+            ids = modelTokens.ids();
+        }
+        if (ids.length == 0) {
+            return new Encoding(List.of(), List.of());
+        }
+
+        List<float[]> vectors = pipelineMetrics.time(Stage.TOKEN_EMBED, () -> tokenEmbeddings.embed(ids));
+        pipelineMetrics.vectors(Stage.TOKEN_EMBED, vectors.size());
+        log.debug("Encoded {} tokens in context", tokens.size());
+        return new Encoding(tokens, vectors);
     }
 
     /**
-     * Tokenize text and generate per-token embeddings (multi-vector
-     * representation).
+     * Whether ids from the local tokenizer are the served model's, checked once
+     * by tokenizing {@link #VOCABULARY_PROBE} both ways. Ids from another
+     * vocabulary would embed the wrong tokens, so on a mismatch the runner
+     * tokenizes every text instead.
      */
-    public List<float[]> encodeTokens(String text) {
-        log.debug("Encoding tokens for text: '{}'", text.substring(0, Math.min(50, text.length())));
+    private boolean localIdsServed() {
+        Boolean served = localIdsServed;
+        if (served != null) {
+            return served;
+        }
+        vocabularyCheck.lock();
+        try {
+            if (localIdsServed == null) {
+                var buffer = new TokenBuffer();
+                tokenizer.encode(VOCABULARY_PROBE, buffer);
+                boolean match = Arrays.equals(buffer.ids(), tokenEmbeddings.tokenize(VOCABULARY_PROBE).ids());
+                if (!match) {
+                    log.warn("The {} tokenizer's vocabulary is not the served model's; "
+                            + "ColBERT tokenizes with the embedding runner instead", tokenizer.name());
+                }
+                localIdsServed = match;
+            }
+            return localIdsServed;
+        } finally {
+            vocabularyCheck.unlock();
+        }
+    }
 
-        List<String> tokens = tokenize(text);
+    private Encoding encodePerToken(String text) {
+        List<String> tokens = tokenize(text, new TokenBuffer());
         log.debug("Tokenized into {} tokens", tokens.size());
 
-        List<float[]> tokenEmbeddings = new ArrayList<>();
-        for (String token : tokens) {
-            float[] embedding = embeddingModel.embed(token);
-            tokenEmbeddings.add(embedding);
+        List<float[]> tokenEmbeddings = pipelineMetrics.time(Stage.TOKEN_EMBED, () -> {
+            List<float[]> embeddings = new ArrayList<>();
+            for (String token : tokens) {
+                float[] embedding = embeddingModel.embed(token);
+                embeddings.add(embedding);
+            }
+            return embeddings;
+        });
+        pipelineMetrics.vectors(Stage.TOKEN_EMBED, tokenEmbeddings.size());
+
+        return new Encoding(tokens, tokenEmbeddings);
+    }
+
+    /**
+     * Token vectors of stored texts, for re-embedding. With the serving model
+     * they are encoded as {@link #storeDocument} does; with another model token
+     * by token in batched calls, which is how this service encodes after
+     * {@link #usePerTokenEncoding()}.
+     */
+    public List<List<float[]>> reencode(List<String> texts, EmbeddingModel model, int batchSize) {
+        if (model == embeddingModel) {
+            return texts.stream().map(this::encodeTokens).toList();
+        }
+        return embedTokens(texts, model, batchSize);
+    }
+
+    /** Every token of every text embedded in isolation, in calls of at most {@code batchSize} tokens. */
+    private List<List<float[]>> embedTokens(List<String> texts, EmbeddingModel model, int batchSize) {
+        var buffer = new TokenBuffer();
+        List<List<String>> tokens = texts.stream().map(text -> tokenize(text, buffer)).toList();
+        List<String> all = tokens.stream().flatMap(List::stream).toList();
+        List<float[]> vectors = pipelineMetrics.time(Stage.TOKEN_EMBED, () -> {
+            List<float[]> embedded = new ArrayList<>(all.size());
+            for (int from = 0; from < all.size(); from += batchSize) {
+                embedded.addAll(model.embed(all.subList(from, Math.min(all.size(), from + batchSize))));
+            }
+            return embedded;
+        });
+        pipelineMetrics.vectors(Stage.TOKEN_EMBED, vectors.size());
+
+        List<List<float[]>> result = new ArrayList<>(texts.size());
+        int offset = 0;
+        for (List<String> textTokens : tokens) {
+            result.add(vectors.subList(offset, offset + textTokens.size()));
+            offset += textTokens.size();
         }
+        return result;
+    }
 
-        return tokenEmbeddings;
+    /**
+     * Embed each token with the serving model from now on. Called when the
+     * serving model is replaced, since the llama.cpp runner used for
+     * contextual vectors still serves the previous one.
+     */
+    public void usePerTokenEncoding() {
+        if (contextual) {
+            contextual = false;
+            log.info("ColBERT now embeds tokens one by one with the new serving model");
+        }
     }
 
     /**
-     * Store a document's multi-vector representation in Qdrant.
+     * Store a document's multi-vector representation in Qdrant. Encoding runs
+     * inside the {@link WriteGate}, so a held-off write uses the model it is
+     * stored for.
      */
     public String storeDocument(String text, Map<String, Object> metadata) {
         log.debug("Storing ColBERT document: '{}'", text.substring(0, Math.min(50, text.length())));
+        collections.requireReady();
 
-        List<float[]> tokenEmbeddings = encodeTokens(text);
-        String docId = UUID.randomUUID().toString();
+        return writeGate.write(() -> {
+            List<float[]> tokenEmbeddings = encodeTokens(text);
+            String docId = UUID.randomUUID().toString();
+            upsert(List.of(point(docId, text, tokenEmbeddings, metadata)), tokenEmbeddings.size());
+            log.debug("Stored ColBERT document with id: {}, tokens: {}", docId, tokenEmbeddings.size());
+            return docId;
+        });
+    }
 
-        try {
-            // Build DenseVector for each token embedding
-            List<Points.DenseVector> denseVectors = tokenEmbeddings.stream()
-                    .map(emb -> {
-                        List<Float> floatList = new ArrayList<>();
-                        for (float f : emb)
-                            floatList.add(f);
-                        return Points.DenseVector.newBuilder()
-                                .addAllData(floatList)
-                                .build();
-                    })
-                    .toList();
+    /**
+     * Store several documents with one upsert. Contextual encodings are
+     * requested concurrently; per-token encodings share batched embedding
+     * calls.
+     */
+    private List<String> storeBatch(List<StoreRequest> requests) {
+        collections.requireReady();
+        return writeGate.write(() -> encodeAndStore(requests));
+    }
 
-            // Create MultiDenseVector from all token DenseVectors
-            Points.MultiDenseVector multiDenseVector = Points.MultiDenseVector.newBuilder()
-                    .addAllVectors(denseVectors)
-                    .build();
-
-            // Wrap in Vector with setMultiDense
-            Points.Vector vector = Points.Vector.newBuilder()
-                    .setMultiDense(multiDenseVector)
-                    .build();
-
-            // Build payload
-            Map<String, io.qdrant.client.grpc.JsonWithInt.Value> payload = new HashMap<>();
-            payload.put("text", value(text));
-            payload.put("token_count", value(tokenEmbeddings.size()));
-            if (metadata != null) {
-                metadata.forEach((k, v) -> payload.put(k, value(v.toString())));
+    private List<String> encodeAndStore(List<StoreRequest> requests) {
+        List<String> texts = requests.stream().map(StoreRequest::text).toList();
+        List<List<float[]>> encodings;
+        if (contextual) {
+            var futures = texts.stream()
+                    .map(text -> CompletableFuture.supplyAsync(
+                            PipelineMetrics.propagate(() -> encodeTokens(text)), encodeExecutor))
+                    .toList();
+            try {
+                encodings = futures.stream().map(CompletableFuture::join).toList();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
             }
+        } else {
+            encodings = embedTokens(texts, embeddingModel, maxEmbeddingInputs);
+        }
 
-            // Create point with multi-vector
-            Points.PointStruct point = Points.PointStruct.newBuilder()
-                    .setId(id(UUID.fromString(docId)))
-                    .setVectors(Points.Vectors.newBuilder()
-                            .setVector(vector)
-                            .build())
-                    .putAllPayload(payload)
-                    .build();
+        List<String> ids = new ArrayList<>(requests.size());
+        List<Points.PointStruct> points = new ArrayList<>(requests.size());
+        int vectors = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            String docId = UUID.randomUUID().toString();
+            ids.add(docId);
+            points.add(point(docId, texts.get(i), encodings.get(i), requests.get(i).metadata()));
+            vectors += encodings.get(i).size();
+        }
+        upsert(points, vectors);
+        log.debug("Stored {} ColBERT documents in one batch, {} tokens", points.size(), vectors);
+        return ids;
+    }
 
-            qdrantClient.upsertAsync(collectionName, List.of(point)).get();
-            log.debug("Stored ColBERT document with id: {}, tokens: {}", docId, tokenEmbeddings.size());
+    private static Points.PointStruct point(String docId, String text, List<float[]> tokenEmbeddings,
+            Map<String, Object> metadata) {
+        Points.Vector vector = LateInteraction.toMultiVector(tokenEmbeddings);
 
-        } catch (InterruptedException | ExecutionException e) {
-            log.error("Failed to store ColBERT document", e);
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Failed to store ColBERT document", e);
+        // Build payload
+        Map<String, io.qdrant.client.grpc.JsonWithInt.Value> payload = new HashMap<>();
+        payload.put("text", value(text));
+        payload.put("token_count", value(tokenEmbeddings.size()));
+        if (metadata != null) {
+            metadata.forEach((k, v) -> payload.put(k, value(v.toString())));
         }
+        payload.put(WriteGate.UPDATED_AT, value(WriteGate.now()));
+
+        // Create point with multi-vector
+        return Points.PointStruct.newBuilder()
+                .setId(id(UUID.fromString(docId)))
+                .setVectors(Points.Vectors.newBuilder()
+                        .setVector(vector)
+                        .build())
+                .putAllPayload(payload)
+                .build();
+    }
 
-        return docId;
+    /** One upsert per shard, routed by the points' tenant. */
+    private void upsert(List<Points.PointStruct> points, int vectors) {
+        pipelineMetrics.time(Stage.QDRANT_UPSERT, () -> {
+            try {
+                for (var entry : router.byWriteShard(points, ColbertService::tenant).entrySet()) {
+                    ShardRouter.Shard shard = entry.getKey();
+                    shard.client().upsertAsync(shard.collection(collectionName), entry.getValue()).get();
+                }
+                return null;
+            } catch (InterruptedException | ExecutionException e) {
+                log.error("Failed to store ColBERT document", e);
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Failed to store ColBERT document", e);
+            }
+        });
+        pipelineMetrics.vectors(Stage.QDRANT_UPSERT, vectors);
+    }
+
+    private static String tenant(Points.PointStruct point) {
+        JsonWithInt.Value tenant = point.getPayloadMap().get(ShardRouter.TENANT);
+        return tenant != null ? ShardRouter.tenant(tenant.getStringValue()) : null;
     }
 
     /**
@@ -185,64 +402,49 @@ public class ColbertService {
     public ColbertScoreResult score(String query, String document) {
         log.debug("Computing ColBERT MaxSim score");
 
-        List<float[]> queryEmbeddings = encodeTokens(query);
-        List<float[]> docEmbeddings = encodeTokens(document);
-
-        double totalScore = 0.0;
-        List<TokenScore> tokenScores = new ArrayList<>();
+        // Encode the document concurrently with the query
+        var docEncoding = CompletableFuture.supplyAsync(
+                PipelineMetrics.propagate(() -> encode(document)), encodeExecutor);
+        Encoding queryEncoding = encode(query);
+        Encoding documentEncoding = docEncoding.join();
 
-        List<String> queryTokens = tokenize(query);
-        List<String> docTokens = tokenize(document);
+        return pipelineMetrics.time(Stage.MAXSIM, () -> LateInteraction.maxSim(
+                queryEncoding.tokens(), queryEncoding.embeddings(),
+                documentEncoding.tokens(), documentEncoding.embeddings()));
+    }
 
-        for (int i = 0; i < queryEmbeddings.size(); i++) {
-            float[] qEmb = queryEmbeddings.get(i);
-            double maxSim = Double.NEGATIVE_INFINITY;
-            int bestDocIdx = -1;
+    // ── Async variants: run off the request thread, cancellable ──
 
-            for (int j = 0; j < docEmbeddings.size(); j++) {
-                double sim = cosineSimilarity(qEmb, docEmbeddings.get(j));
-                if (sim > maxSim) {
-                    maxSim = sim;
-                    bestDocIdx = j;
-                }
-            }
+    public CompletableFuture<List<float[]>> encodeTokensAsync(String text) {
+        return asyncCalls.supply(() -> encodeTokens(text));
+    }
 
-            totalScore += maxSim;
-            tokenScores.add(new TokenScore(
-                    queryTokens.get(i),
-                    bestDocIdx >= 0 ? docTokens.get(bestDocIdx) : "",
-                    maxSim));
+    /** Batched with concurrent stores when {@code app.write-batching.enabled}. */
+    public CompletableFuture<String> storeDocumentAsync(String text, Map<String, Object> metadata) {
+        if (writes != null) {
+            return writes.submit(new StoreRequest(text, metadata));
         }
-
-        return new ColbertScoreResult(
-                totalScore,
-                queryEmbeddings.size(),
-                docEmbeddings.size(),
-                tokenScores);
+        return asyncCalls.supply(() -> storeDocument(text, metadata));
     }
 
-    /** Simple tokenization: split on whitespace. */
-    private List<String> tokenize(String text) {
-        return Arrays.stream(text.split("\\s+"))
-                .filter(t -> !t.isBlank())
-                .map(String::toLowerCase)
-                .collect(Collectors.toList());
+    public CompletableFuture<ColbertScoreResult> scoreAsync(String query, String document) {
+        return asyncCalls.supply(() -> score(query, document));
     }
 
-    /** Cosine similarity between two vectors. */
-    private double cosineSimilarity(float[] a, float[] b) {
-        double dotProduct = 0.0;
-        double normA = 0.0;
-        double normB = 0.0;
+    /** Token texts as they appear in {@code text}, e.g. {@code "embed"}, {@code "ding"}. */
+    private List<String> tokenize(String text, TokenBuffer buffer) {
+        List<String> tokens = pipelineMetrics.time(Stage.TOKENIZE, () -> {
+            tokenizer.encode(text, buffer);
+            return tokenizer.texts(text, buffer);
+        });
+        pipelineMetrics.tokens(Stage.TOKENIZE, tokens.size());
+        return tokens;
+    }
 
-        for (int i = 0; i < a.length; i++) {
-            dotProduct += a[i] * b[i];
-            normA += a[i] * a[i];
-            normB += b[i] * b[i];
-        }
+    private record Encoding(List<String> tokens, List<float[]> embeddings) {
+    }
 
-        double denominator = Math.sqrt(normA) * Math.sqrt(normB);
-        return denominator == 0 ? 0 : dotProduct / denominator;
+    private record StoreRequest(String text, Map<String, Object> metadata) {
     }
 
     /** Score result with token-level details. */
@@ -0,0 +1,224 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.config.CollectionSchemaProperties.Hnsw;
+import com.example.azopenai.config.CollectionSchemaProperties.PayloadIndex;
+import com.example.azopenai.config.CollectionSchemaProperties.Quantization;
+import com.example.azopenai.config.CollectionSchemaProperties.Schema;
+import io.qdrant.client.grpc.Collections;
+import io.qdrant.client.grpc.Points;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Conversion of a configured collection {@link Schema} to Qdrant requests,
+ * and comparison with an existing collection. A null schema or setting means
+ * Qdrant's default.
+ */
+final class CollectionSchemas {
+
+    private CollectionSchemas() {
+    }
+
+    /** Create request for a collection with these vectors and schema. */
+    static Collections.CreateCollection create(String name, Collections.VectorParams vectors, Schema schema) {
+        var params = vectors.toBuilder();
+        var request = Collections.CreateCollection.newBuilder().setCollectionName(name);
+        if (schema != null) {
+            if (schema.getOnDisk() != null) {
+                params.setOnDisk(schema.getOnDisk());
+            }
+            if (schema.getOnDiskPayload() != null) {
+                request.setOnDiskPayload(schema.getOnDiskPayload());
+            }
+            Collections.HnswConfigDiff hnsw = hnsw(schema.getHnsw());
+            if (hnsw != null) {
+                request.setHnswConfig(hnsw);
+            }
+            Collections.QuantizationConfig quantization = quantization(schema.getQuantization());
+            if (quantization != null) {
+                request.setQuantizationConfig(quantization);
+            }
+        }
+        return request.setVectorsConfig(Collections.VectorsConfig.newBuilder().setParams(params)).build();
+    }
+
+    /** Update request applying the schema's HNSW, quantization and on-disk settings. */
+    static Collections.UpdateCollection update(String name, Schema schema) {
+        var request = Collections.UpdateCollection.newBuilder().setCollectionName(name);
+        Collections.HnswConfigDiff hnsw = hnsw(schema.getHnsw());
+        if (hnsw != null) {
+            request.setHnswConfig(hnsw);
+        }
+        Collections.QuantizationConfig quantization = quantization(schema.getQuantization());
+        request.setQuantizationConfig(quantization != null
+                ? toDiff(quantization)
+                : Collections.QuantizationConfigDiff.newBuilder()
+                        .setDisabled(Collections.Disabled.getDefaultInstance()).build());
+        if (schema.getOnDisk() != null) {
+            request.setVectorsConfig(Collections.VectorsConfigDiff.newBuilder()
+                    .setParams(Collections.VectorParamsDiff.newBuilder().setOnDisk(schema.getOnDisk())));
+        }
+        if (schema.getOnDiskPayload() != null) {
+            request.setParams(Collections.CollectionParamsDiff.newBuilder()
+                    .setOnDiskPayload(schema.getOnDiskPayload()));
+        }
+        return request.build();
+    }
+
+    /** Search parameters for the schema, or null when Qdrant's defaults apply. */
+    static Points.SearchParams searchParams(Schema schema) {
+        if (schema == null) {
+            return null;
+        }
+        var params = Points.SearchParams.newBuilder();
+        boolean set = false;
+        if (schema.getSearchEf() != null) {
+            params.setHnswEf(schema.getSearchEf());
+            set = true;
+        }
+        Quantization quantization = schema.getQuantization();
+        if (quantization.getType() != Quantization.Type.NONE) {
+            params.setQuantization(Points.QuantizationSearchParams.newBuilder()
+                    .setRescore(quantization.isRescore())
+                    .setOversampling(quantization.getOversampling()));
+            set = true;
+        }
+        return set ? params.build() : null;
+    }
+
+    static Collections.PayloadSchemaType payloadType(PayloadIndex index) {
+        return switch (index.getType()) {
+            case KEYWORD -> Collections.PayloadSchemaType.Keyword;
+            case INTEGER -> Collections.PayloadSchemaType.Integer;
+            case FLOAT -> Collections.PayloadSchemaType.Float;
+            case BOOL -> Collections.PayloadSchemaType.Bool;
+            case DATETIME -> Collections.PayloadSchemaType.Datetime;
+            case UUID -> Collections.PayloadSchemaType.Uuid;
+            case TEXT -> Collections.PayloadSchemaType.Text;
+        };
+    }
+
+    /** Index parameters of a payload index, or null for the type's defaults. */
+    static Collections.PayloadIndexParams payloadParams(PayloadIndex index) {
+        if (index.getType() != PayloadIndex.Type.KEYWORD || !index.isTenant()) {
+            return null;
+        }
+        return Collections.PayloadIndexParams.newBuilder()
+                .setKeywordIndexParams(Collections.KeywordIndexParams.newBuilder().setIsTenant(true))
+                .build();
+    }
+
+    /**
+     * Differences between the schema and an existing collection, one readable
+     * line each; empty when they match. Payload indexes that do not exist yet
+     * are not listed, they are created instead.
+     */
+    static List<String> drift(Collections.CollectionInfo info, Schema schema) {
+        List<String> drift = new ArrayList<>();
+        if (schema == null) {
+            return drift;
+        }
+        Collections.CollectionConfig config = info.getConfig();
+        Collections.HnswConfigDiff hnsw = config.getHnswConfig();
+        Hnsw wanted = schema.getHnsw();
+        compare(drift, "hnsw.m", hnsw.hasM() ? hnsw.getM() : null, wanted.getM());
+        compare(drift, "hnsw.ef-construct", hnsw.hasEfConstruct() ? hnsw.getEfConstruct() : null,
+                wanted.getEfConstruct());
+        compare(drift, "hnsw.payload-m", hnsw.hasPayloadM() ? hnsw.getPayloadM() : null, wanted.getPayloadM());
+        compare(drift, "hnsw.on-disk", hnsw.hasOnDisk() && hnsw.getOnDisk(), wanted.getOnDisk());
+
+        Collections.VectorsConfig vectors = config.getParams().getVectorsConfig();
+        if (vectors.hasParams()) {
+            compare(drift, "on-disk", vectors.getParams().hasOnDisk() && vectors.getParams().getOnDisk(),
+                    schema.getOnDisk());
+        }
+        compare(drift, "on-disk-payload", config.getParams().getOnDiskPayload(), schema.getOnDiskPayload());
+
+        Quantization quantization = schema.getQuantization();
+        String actualType = !config.hasQuantizationConfig() ? "none"
+                : config.getQuantizationConfig().getQuantizationCase().name().toLowerCase(Locale.ROOT);
+        String wantedType = quantization.getType().name().toLowerCase(Locale.ROOT);
+        if (!actualType.equals(wantedType)) {
+            drift.add("quantization is " + actualType + ", configured " + wantedType);
+        } else if (quantization.getType() == Quantization.Type.SCALAR) {
+            var scalar = config.getQuantizationConfig().getScalar();
+            compare(drift, "quantization.quantile", scalar.hasQuantile() ? scalar.getQuantile() : null,
+                    quantization.getQuantile());
+            compare(drift, "quantization.always-ram", scalar.hasAlwaysRam() && scalar.getAlwaysRam(),
+                    quantization.isAlwaysRam());
+        } else if (quantization.getType() == Quantization.Type.BINARY) {
+            var binary = config.getQuantizationConfig().getBinary();
+            compare(drift, "quantization.always-ram", binary.hasAlwaysRam() && binary.getAlwaysRam(),
+                    quantization.isAlwaysRam());
+        }
+
+        schema.getPayloadIndexes().forEach((field, index) -> {
+            Collections.PayloadSchemaInfo existing = info.getPayloadSchemaMap().get(field);
+            if (existing != null && existing.getDataType() != payloadType(index)) {
+                drift.add("payload index " + field + " is " + existing.getDataType() + ", configured "
+                        + payloadType(index) + " (drop it to have it recreated)");
+            }
+        });
+        return drift;
+    }
+
+    private static void compare(List<String> drift, String setting, Object actual, Object wanted) {
+        if (wanted == null) {
+            return;
+        }
+        if (actual instanceof Number a && wanted instanceof Number w
+                ? a.doubleValue() != w.doubleValue()
+                : !Objects.equals(actual, wanted)) {
+            drift.add(setting + " is " + (actual != null ? actual : "default") + ", configured " + wanted);
+        }
+    }
+
+    private static Collections.HnswConfigDiff hnsw(Hnsw hnsw) {
+        var diff = Collections.HnswConfigDiff.newBuilder();
+        if (hnsw.getM() != null) {
+            diff.setM(hnsw.getM());
+        }
+        if (hnsw.getEfConstruct() != null) {
+            diff.setEfConstruct(hnsw.getEfConstruct());
+        }
+        if (hnsw.getPayloadM() != null) {
+            diff.setPayloadM(hnsw.getPayloadM());
+        }
+        if (hnsw.getOnDisk() != null) {
+            diff.setOnDisk(hnsw.getOnDisk());
+        }
+        Collections.HnswConfigDiff built = diff.build();
+        return built.equals(Collections.HnswConfigDiff.getDefaultInstance()) ? null : built;
+    }
+
+    private static Collections.QuantizationConfig quantization(Quantization quantization) {
+        return switch (quantization.getType()) {
+            case NONE -> null;
+            case SCALAR -> {
+                var scalar = Collections.ScalarQuantization.newBuilder()
+                        .setType(Collections.QuantizationType.Int8)
+                        .setAlwaysRam(quantization.isAlwaysRam());
+                if (quantization.getQuantile() != null) {
+                    scalar.setQuantile(quantization.getQuantile());
+                }
+                yield Collections.QuantizationConfig.newBuilder().setScalar(scalar).build();
+            }
+            case BINARY -> Collections.QuantizationConfig.newBuilder()
+                    .setBinary(Collections.BinaryQuantization.newBuilder().setAlwaysRam(quantization.isAlwaysRam()))
+                    .build();
+        };
+    }
+
+    private static Collections.QuantizationConfigDiff toDiff(Collections.QuantizationConfig config) {
+        var diff = Collections.QuantizationConfigDiff.newBuilder();
+        if (config.hasScalar()) {
+            diff.setScalar(config.getScalar());
+        } else if (config.hasBinary()) {
+            diff.setBinary(config.getBinary());
+        }
+        return diff.build();
+    }
+}
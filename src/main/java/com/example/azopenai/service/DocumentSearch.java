@@ -0,0 +1,451 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.config.ChunkingProperties;
+import com.example.azopenai.config.CollectionSchemaProperties;
+import com.example.azopenai.config.PipelineMetrics;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.qdrant.client.grpc.Common;
+import io.qdrant.client.grpc.JsonWithInt;
+import io.qdrant.client.grpc.Points;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import static io.qdrant.client.ConditionFactory.matchKeyword;
+import static io.qdrant.client.ConditionFactory.matchKeywords;
+
+/**
+ * Vector search over the documents collection, reading points in the vector
+ * store's payload layout straight from Qdrant.
+ *
+ * <p>
+ * Chunk hits are collapsed to their parent: the best chunk supplies the
+ * content and score, and every chunk hit of that parent is listed with its
+ * offsets. A field projection becomes a Qdrant payload include list, so
+ * fields the caller did not ask for are never fetched. Pages continue from a
+ * {@link Cursor} rather than a larger {@code topK}.
+ * </p>
+ *
+ * <p>
+ * A search reads every shard the {@link ShardRouter} names for its tenant, all
+ * in parallel, and merges the per-shard rankings with a heap; a tenant search
+ * only matches points of that tenant.
+ * </p>
+ */
+@Component
+public class DocumentSearch {
+
+    /** Projection name of the document text. */
+    public static final String CONTENT = "content";
+
+    /** Payload keys every search reads, so chunk hits can be collapsed. */
+    private static final List<String> CHUNK_KEYS = List.of(EmbeddingService.PARENT_ID, EmbeddingService.CHUNK_INDEX,
+            EmbeddingService.CHUNK_START, EmbeddingService.CHUNK_END);
+
+    private final ShardRouter router;
+    private final PipelineMetrics pipelineMetrics;
+    private final ChunkingProperties chunking;
+    private final String collectionName;
+    private final String contentField;
+    /** hnsw_ef and quantization rescoring of the documents schema; null for Qdrant's defaults. */
+    private final Points.SearchParams searchParams;
+
+    public DocumentSearch(ShardRouter router,
+            PipelineMetrics pipelineMetrics,
+            ChunkingProperties chunking,
+            CollectionSchemaProperties schemas,
+            @Value("${spring.ai.vectorstore.qdrant.collection-name:documents}") String collectionName,
+            @Value("${spring.ai.vectorstore.qdrant.content-field-name:doc_content}") String contentField) {
+        this.router = router;
+        this.pipelineMetrics = pipelineMetrics;
+        this.chunking = chunking;
+        this.collectionName = collectionName;
+        this.contentField = contentField;
+        this.searchParams = CollectionSchemas.searchParams(schemas.getDocuments());
+    }
+
+    /**
+     * The position of a search: the first page when {@code cursor} is null or
+     * blank, else where the page that returned it ended.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed or belongs
+     *                                  to another query, tenant or shard layout
+     */
+    public Cursor cursor(String cursor, String query, String tenant) {
+        int shards = router.readShards(tenant).size();
+        return cursor == null || cursor.isBlank()
+                ? Cursor.start(query, tenant, shards)
+                : Cursor.decode(cursor, query, tenant, shards);
+    }
+
+    /**
+     * One page of at most {@code topK} results.
+     *
+     * @param tenant only this tenant's documents, or null for all
+     * @param fields payload fields to return ({@value #CONTENT} or metadata
+     *               keys), or null for all
+     * @param cursor where the previous page ended, from {@link #cursor}
+     */
+    public Page search(String tenant, float[] vector, int topK, List<String> fields, Cursor cursor) {
+        List<ShardRouter.Shard> shards = router.readShards(tenant);
+        Common.Filter filter = filter(tenant, cursor.parents());
+        List<Points.SearchPoints> requests = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            var request = request(shards.get(i), vector, topK, fields).setOffset(cursor.offsets().get(i));
+            if (filter != null) {
+                request.setFilter(filter);
+            }
+            requests.add(request.build());
+        }
+        List<List<Points.ScoredPoint>> results = pipelineMetrics.time(PipelineMetrics.Stage.QDRANT_SEARCH, () -> {
+            // Every shard is queried before any reply is awaited
+            List<ListenableFuture<List<Points.ScoredPoint>>> replies = new ArrayList<>(shards.size());
+            for (int i = 0; i < shards.size(); i++) {
+                replies.add(shards.get(i).client().searchAsync(requests.get(i)));
+            }
+            return replies.stream().map(DocumentSearch::await).toList();
+        });
+
+        List<List<SearchHit>> rankings = new ArrayList<>(shards.size());
+        boolean[] more = new boolean[shards.size()];
+        for (int i = 0; i < shards.size(); i++) {
+            Collapsed collapsed = collapse(results.get(i), topK, fields == null);
+            rankings.add(collapsed.hits());
+            more[i] = results.get(i).size() == requests.get(i).getLimit() || collapsed.overflow();
+        }
+        Merged merged = merge(rankings, topK);
+
+        List<Integer> offsets = new ArrayList<>(cursor.offsets());
+        Set<String> parents = new LinkedHashSet<>(cursor.parents());
+        boolean anyMore = false;
+        for (int i = 0; i < shards.size(); i++) {
+            List<SearchHit> ranking = rankings.get(i);
+            int taken = merged.taken()[i];
+            for (SearchHit hit : ranking.subList(0, taken)) {
+                if (hit.chunks().isEmpty()) {
+                    offsets.set(i, offsets.get(i) + 1);
+                } else {
+                    parents.add(hit.documentId());
+                }
+            }
+            anyMore |= more[i] || taken < ranking.size();
+        }
+        if (merged.hits().isEmpty() || !anyMore) {
+            return new Page(merged.hits(), null);
+        }
+        return new Page(merged.hits(),
+                new Cursor(cursor.key(), List.copyOf(offsets), List.copyOf(parents)).encode());
+    }
+
+    /**
+     * The best {@code topK} results of each vector, in one Qdrant batch request
+     * per shard.
+     *
+     * @param tenant only this tenant's documents, or null for all
+     */
+    public List<List<SearchHit>> searchBatch(String tenant, List<float[]> vectors, int topK, List<String> fields) {
+        List<ShardRouter.Shard> shards = router.readShards(tenant);
+        Common.Filter filter = filter(tenant, List.of());
+        List<List<Points.BatchResult>> results = pipelineMetrics.time(PipelineMetrics.Stage.QDRANT_SEARCH, () -> {
+            List<ListenableFuture<List<Points.BatchResult>>> replies = new ArrayList<>(shards.size());
+            for (ShardRouter.Shard shard : shards) {
+                List<Points.SearchPoints> searches = vectors.stream()
+                        .map(vector -> {
+                            var request = request(shard, vector, topK, fields);
+                            return filter != null ? request.setFilter(filter).build() : request.build();
+                        })
+                        .toList();
+                replies.add(shard.client().searchBatchAsync(shard.collection(collectionName), searches, null));
+            }
+            return replies.stream().map(DocumentSearch::await).toList();
+        });
+
+        List<List<SearchHit>> hits = new ArrayList<>(vectors.size());
+        for (int q = 0; q < vectors.size(); q++) {
+            List<List<SearchHit>> rankings = new ArrayList<>(shards.size());
+            for (List<Points.BatchResult> shardResults : results) {
+                rankings.add(collapse(shardResults.get(q).getResultList(), topK, fields == null).hits());
+            }
+            hits.add(merge(rankings, topK).hits());
+        }
+        return hits;
+    }
+
+    /**
+     * Merge rankings sorted best first into the best {@code topK}, with a heap
+     * holding the next candidate of each ranking. Since every ranking is
+     * consumed from the front, {@code taken[i]} hits of ranking {@code i} were
+     * used.
+     *
+     * <p>
+     * A document found in several rankings (a tenant read from its current
+     * and previous shard mid-rebalance) is kept once, with its best score; its
+     * other copies are consumed without taking a slot, also when they head a
+     * ranking once the page is full, so the next page does not start with them.
+     * </p>
+     */
+    static Merged merge(List<List<SearchHit>> rankings, int topK) {
+        int[] taken = new int[rankings.size()];
+        if (rankings.size() == 1) {
+            taken[0] = Math.min(topK, rankings.getFirst().size());
+            return new Merged(rankings.getFirst().subList(0, taken[0]), taken);
+        }
+        PriorityQueue<Integer> heads = new PriorityQueue<>(Comparator
+                .comparingDouble((Integer i) -> rankings.get(i).get(taken[i]).score()).reversed()
+                .thenComparingInt(i -> i));
+        for (int i = 0; i < rankings.size(); i++) {
+            if (!rankings.get(i).isEmpty()) {
+                heads.add(i);
+            }
+        }
+        List<SearchHit> hits = new ArrayList<>(topK);
+        Set<String> seen = new HashSet<>();
+        while (!heads.isEmpty()) {
+            int i = heads.peek();
+            SearchHit hit = rankings.get(i).get(taken[i]);
+            boolean duplicate = seen.contains(hit.documentId());
+            if (!duplicate && hits.size() == topK) {
+                break;
+            }
+            heads.poll();
+            taken[i]++;
+            if (!duplicate) {
+                seen.add(hit.documentId());
+                hits.add(hit);
+            }
+            if (taken[i] < rankings.get(i).size()) {
+                heads.add(i);
+            }
+        }
+        return new Merged(hits, taken);
+    }
+
+    private static Common.Filter filter(String tenant, List<String> excludedParents) {
+        if (tenant == null && excludedParents.isEmpty()) {
+            return null;
+        }
+        var filter = Common.Filter.newBuilder();
+        if (tenant != null) {
+            filter.addMust(matchKeyword(ShardRouter.TENANT, tenant));
+        }
+        if (!excludedParents.isEmpty()) {
+            filter.addMustNot(matchKeywords(EmbeddingService.PARENT_ID, excludedParents));
+        }
+        return filter.build();
+    }
+
+    private Points.SearchPoints.Builder request(ShardRouter.Shard shard, float[] vector, int topK,
+            List<String> fields) {
+        var request = Points.SearchPoints.newBuilder()
+                .setCollectionName(shard.collection(collectionName))
+                .setLimit(topK * Math.max(1, chunking.getSearchOversampling()))
+                .setWithPayload(payloadSelector(fields));
+        if (searchParams != null) {
+            request.setParams(searchParams);
+        }
+        for (float value : vector) {
+            request.addVector(value);
+        }
+        return request;
+    }
+
+    private Points.WithPayloadSelector payloadSelector(List<String> fields) {
+        if (fields == null) {
+            return Points.WithPayloadSelector.newBuilder().setEnable(true).build();
+        }
+        Set<String> include = new LinkedHashSet<>(CHUNK_KEYS);
+        for (String field : fields) {
+            include.add(field.equals(CONTENT) ? contentField : field);
+        }
+        return Points.WithPayloadSelector.newBuilder()
+                .setInclude(Points.PayloadIncludeSelector.newBuilder().addAllFields(include))
+                .build();
+    }
+
+    /**
+     * Group points, best first, into at most {@code topK} results; after the
+     * first point that does not fit, only chunks of chosen parents are added.
+     */
+    private Collapsed collapse(List<Points.ScoredPoint> points, int topK, boolean withDistance) {
+        Map<String, SearchHit> hits = new LinkedHashMap<>();
+        boolean overflow = false;
+        for (Points.ScoredPoint point : points) {
+            Map<String, JsonWithInt.Value> payload = point.getPayloadMap();
+            JsonWithInt.Value parentId = payload.get(EmbeddingService.PARENT_ID);
+            String key = parentId != null ? parentId.getStringValue() : id(point.getId());
+            SearchHit hit = hits.get(key);
+            if (hit == null) {
+                if (hits.size() == topK) {
+                    overflow = true;
+                    continue;
+                }
+                hit = toHit(key, point, parentId != null, withDistance);
+                hits.put(key, hit);
+            }
+            if (parentId != null) {
+                hit.chunks().add(new ChunkHit(intValue(payload.get(EmbeddingService.CHUNK_INDEX)),
+                        intValue(payload.get(EmbeddingService.CHUNK_START)),
+                        intValue(payload.get(EmbeddingService.CHUNK_END)), (double) point.getScore()));
+            }
+        }
+        return new Collapsed(List.copyOf(hits.values()), overflow);
+    }
+
+    private SearchHit toHit(String documentId, Points.ScoredPoint point, boolean chunk, boolean withDistance) {
+        Map<String, Object> metadata = new HashMap<>();
+        String content = null;
+        for (var field : point.getPayloadMap().entrySet()) {
+            if (field.getKey().equals(contentField)) {
+                content = field.getValue().getStringValue();
+            } else if (!chunk || !CHUNK_KEYS.contains(field.getKey())) {
+                Object value = toJava(field.getValue());
+                if (value != null) {
+                    metadata.put(field.getKey(), value);
+                }
+            }
+        }
+        if (withDistance) {
+            metadata.put(DocumentMetadata.DISTANCE.value(), 1 - point.getScore());
+        }
+        return new SearchHit(documentId, content, metadata, (double) point.getScore(), new ArrayList<>());
+    }
+
+    private static int intValue(JsonWithInt.Value value) {
+        return (int) (value.hasIntegerValue() ? value.getIntegerValue() : value.getDoubleValue());
+    }
+
+    private static String id(Common.PointId id) {
+        return id.hasUuid() ? id.getUuid() : Long.toString(id.getNum());
+    }
+
+    private static Object toJava(JsonWithInt.Value value) {
+        return switch (value.getKindCase()) {
+            case BOOL_VALUE -> value.getBoolValue();
+            case INTEGER_VALUE -> value.getIntegerValue();
+            case DOUBLE_VALUE -> value.getDoubleValue();
+            case STRING_VALUE -> value.getStringValue();
+            case LIST_VALUE -> {
+                List<Object> list = new ArrayList<>();
+                value.getListValue().getValuesList().forEach(item -> list.add(toJava(item)));
+                yield list;
+            }
+            case STRUCT_VALUE -> {
+                Map<String, Object> map = new HashMap<>();
+                value.getStructValue().getFieldsMap().forEach((key, item) -> map.put(key, toJava(item)));
+                yield map;
+            }
+            case NULL_VALUE, KIND_NOT_SET -> null;
+        };
+    }
+
+    private static <T> T await(ListenableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted: search", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to search: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private record Collapsed(List<SearchHit> hits, boolean overflow) {
+    }
+
+    record Merged(List<SearchHit> hits, int[] taken) {
+    }
+
+    /**
+     * One search result: a document, or a parent with the chunk hits that
+     * matched, best first.
+     */
+    public record SearchHit(String documentId, String content, Map<String, Object> metadata, Double score,
+            List<ChunkHit> chunks) {
+    }
+
+    /**
+     * A matching chunk and its character offsets in the parent text.
+     */
+    public record ChunkHit(int index, int start, int end, Double score) {
+    }
+
+    /**
+     * One page of results and the cursor of the next page, null after the
+     * last.
+     */
+    public record Page(List<SearchHit> hits, String nextCursor) {
+    }
+
+    /**
+     * Where a page ended. Results never move between pages, so a page skips
+     * the plain documents already returned by an offset per shard and
+     * excludes the chunked parents already returned by a {@code must_not}
+     * filter on {@code parent_id}. The cursor therefore grows by one ID per
+     * chunked parent returned. It is bound to the query text and tenant, and
+     * to the number of shards searched.
+     */
+    public record Cursor(int key, List<Integer> offsets, List<String> parents) {
+
+        static Cursor start(String query, String tenant, int shards) {
+            return new Cursor(key(query, tenant), Collections.nCopies(shards, 0), List.of());
+        }
+
+        /**
+         * Decode a cursor returned with an earlier page of the same search.
+         *
+         * @throws IllegalArgumentException if it is malformed or belongs to
+         *                                  another search
+         */
+        static Cursor decode(String cursor, String query, String tenant, int shards) {
+            String[] parts;
+            try {
+                parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", -1);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            try {
+                if (Integer.parseInt(parts[0]) != key(query, tenant)) {
+                    throw new IllegalArgumentException("Cursor belongs to a different query");
+                }
+                List<Integer> offsets = Arrays.stream(parts[1].split("\\.")).map(Integer::valueOf).toList();
+                if (offsets.size() != shards) {
+                    throw new IllegalArgumentException("Cursor belongs to a different shard layout");
+                }
+                return new Cursor(key(query, tenant), offsets,
+                        parts[2].isEmpty() ? List.of() : List.of(parts[2].split(",")));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+        }
+
+        private static int key(String query, String tenant) {
+            return tenant == null ? query.hashCode() : (tenant + "\u0000" + query).hashCode();
+        }
+
+        String encode() {
+            String raw = key + ":" + offsets.stream().map(String::valueOf).collect(Collectors.joining("."))
+                    + ":" + String.join(",", parents);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -1,29 +1,102 @@
 package com.example.azopenai.service;
 
-import lombok.RequiredArgsConstructor;
+import com.example.azopenai.config.ChunkingProperties;
+import com.example.azopenai.config.ExecutorFactory;
+import com.example.azopenai.config.PipelineMetrics;
+import com.example.azopenai.config.WriteBatchingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.embedding.EmbeddingModel;
-import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * Embedding service using Azure OpenAI Embedding model + Qdrant vector store.
  * Supports direct text embedding and image-to-text-to-embedding pipeline.
+ *
+ * <p>
+ * Long texts can be stored as chunks ({@link #embedAndStoreChunked}) that
+ * carry their parent's ID and character offsets; search ({@link DocumentSearch})
+ * collapses chunk hits back to one result per parent.
+ * </p>
+ *
+ * <p>
+ * Concurrent single-text writes ({@link #embedAndStoreAsync}) are gathered
+ * by a {@link WriteBatcher} and embedded and upserted together.
+ * </p>
+ *
+ * <p>
+ * Documents are written to the shard of the {@link ShardRouter#TENANT} in
+ * their metadata; searches take the tenant to search, or null for all.
+ * </p>
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class EmbeddingService {
 
+    /** Payload keys of a stored chunk. */
+    public static final String PARENT_ID = "parent_id";
+    public static final String CHUNK_INDEX = "chunk_index";
+    public static final String CHUNK_COUNT = "chunk_count";
+    public static final String CHUNK_START = "chunk_start";
+    public static final String CHUNK_END = "chunk_end";
+
     private final EmbeddingModel embeddingModel;
-    private final VectorStore vectorStore;
+    private final ShardRouter router;
+    private final QdrantCollections collections;
     private final ImageSummarizationService imageSummarizationService;
+    private final AsyncCalls asyncCalls;
+    private final PipelineMetrics pipelineMetrics;
+    private final TextChunker chunker;
+    private final ChunkingProperties chunking;
+    private final DocumentSearch documentSearch;
+    private final Executor chunkExecutor;
+    private final WriteGate writeGate;
+    private final String collectionName;
+    /** Null when write batching is disabled. */
+    private final WriteBatcher<Document, String> textWrites;
+
+    public EmbeddingService(EmbeddingModel embeddingModel,
+            ShardRouter router,
+            QdrantCollections collections,
+            ImageSummarizationService imageSummarizationService,
+            AsyncCalls asyncCalls,
+            PipelineMetrics pipelineMetrics,
+            TextChunker chunker,
+            ChunkingProperties chunking,
+            DocumentSearch documentSearch,
+            WriteBatchingProperties writeBatching,
+            ExecutorFactory executorFactory,
+            MeterRegistry registry,
+            WriteGate writeGate,
+            @Value("${spring.ai.vectorstore.qdrant.collection-name:documents}") String collectionName) {
+        this.embeddingModel = embeddingModel;
+        this.router = router;
+        this.collections = collections;
+        this.imageSummarizationService = imageSummarizationService;
+        this.asyncCalls = asyncCalls;
+        this.pipelineMetrics = pipelineMetrics;
+        this.chunker = chunker;
+        this.chunking = chunking;
+        this.documentSearch = documentSearch;
+        this.chunkExecutor = executorFactory.boundedExecutor("chunk-embed", chunking.getConcurrency());
+        this.writeGate = writeGate;
+        this.collectionName = collectionName;
+        this.textWrites = writeBatching.isEnabled()
+                ? new WriteBatcher<>("embed-store", this::store, writeBatching, executorFactory, registry)
+                : null;
+    }
 
     /**
      * Generate embedding for text.
@@ -40,11 +113,59 @@ public class EmbeddingService {
     public String embedAndStore(String text, Map<String, Object> metadata) {
         log.debug("Embedding and storing text in Qdrant");
         var document = new Document(text, metadata);
-        vectorStore.add(List.of(document));
+        upsert(List.of(document));
         log.debug("Stored document with id: {}", document.getId());
         return document.getId();
     }
 
+    /**
+     * Split text into token-budgeted, overlapping chunks and store each as its
+     * own point under a new parent ID. Batches of chunks are embedded and
+     * upserted in parallel; if any batch fails, the chunks already stored are
+     * deleted again so no partial parent remains.
+     */
+    public ChunkedResult embedAndStoreChunked(String text, Map<String, Object> metadata) {
+        collections.requireReady();
+        List<TextChunker.Chunk> chunks = pipelineMetrics.time(PipelineMetrics.Stage.TOKENIZE,
+                () -> chunker.split(text));
+        String parentId = UUID.randomUUID().toString();
+        List<Document> documents = chunks.stream()
+                .map(chunk -> chunkDocument(parentId, chunk, chunks.size(), metadata))
+                .toList();
+        log.debug("Storing text of length {} as {} chunks of parent {}", text.length(), chunks.size(), parentId);
+
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int from = 0; from < documents.size(); from += chunking.getBatchSize()) {
+            List<Document> batch = documents.subList(from, Math.min(documents.size(), from + chunking.getBatchSize()));
+            batches.add(CompletableFuture.runAsync(PipelineMetrics.propagate(() -> upsert(batch)), chunkExecutor));
+        }
+        try {
+            CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            try {
+                ShardRouter.Shard shard = router.writeShard(ShardRouter.tenantOf(metadata));
+                List<String> ids = documents.stream().map(Document::getId).toList();
+                writeGate.write(() -> shard.vectorStore().delete(ids));
+                writeGate.deleted(shard.collection(collectionName), ids);
+            } catch (RuntimeException cleanup) {
+                log.warn("Could not remove the chunks of failed parent {}", parentId, cleanup);
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        return new ChunkedResult(parentId, chunks.size());
+    }
+
+    private static Document chunkDocument(String parentId, TextChunker.Chunk chunk, int count,
+            Map<String, Object> metadata) {
+        var chunkMetadata = new HashMap<>(metadata);
+        chunkMetadata.put(PARENT_ID, parentId);
+        chunkMetadata.put(CHUNK_INDEX, chunk.index());
+        chunkMetadata.put(CHUNK_COUNT, count);
+        chunkMetadata.put(CHUNK_START, chunk.start());
+        chunkMetadata.put(CHUNK_END, chunk.end());
+        return new Document(chunk.text(), chunkMetadata);
+    }
+
     /**
      * Summarize image first, then embed the summary and store in Qdrant.
      * This is the image-to-text-to-embedding pipeline.
@@ -57,17 +178,9 @@ public class EmbeddingService {
         String imageSummary = imageSummarizationService.summarizeImage(imageBytes, mimeType);
         log.debug("Image summarized. Summary length: {}", imageSummary.length());
 
-        // Step 2: Add source info to metadata
-        var enrichedMetadata = new java.util.HashMap<>(metadata);
-        enrichedMetadata.put("source_type", "image");
-        enrichedMetadata.put("image_mime_type", mimeType);
-        enrichedMetadata.put("image_size_bytes", imageBytes.length);
-        enrichedMetadata.put("image_base64_preview", Base64.getEncoder()
-                .encodeToString(imageBytes).substring(0, Math.min(100, imageBytes.length)));
-
-        // Step 3: Embed the summary and store
-        var document = new Document(imageSummary, enrichedMetadata);
-        vectorStore.add(List.of(document));
+        // Step 2: Embed the summary (with source info) and store
+        var document = imageDocument(imageSummary, imageBytes, mimeType, metadata);
+        upsert(List.of(document));
         log.debug("Image embedding stored with id: {}", document.getId());
 
         return new ImageEmbeddingResult(document.getId(), imageSummary);
@@ -87,21 +200,111 @@ public class EmbeddingService {
         enrichedMetadata.put("image_url", imageUrl);
 
         var document = new Document(imageSummary, enrichedMetadata);
-        vectorStore.add(List.of(document));
+        upsert(List.of(document));
 
         return new ImageEmbeddingResult(document.getId(), imageSummary);
     }
 
     /**
-     * Perform similarity search in Qdrant.
+     * Build the document stored for an image summary, enriching the metadata with
+     * source info about the original image.
+     */
+    public Document imageDocument(String imageSummary, byte[] imageBytes, String mimeType,
+            Map<String, Object> metadata) {
+        var enrichedMetadata = new java.util.HashMap<>(metadata);
+        enrichedMetadata.put("source_type", "image");
+        enrichedMetadata.put("image_mime_type", mimeType);
+        enrichedMetadata.put("image_size_bytes", imageBytes.length);
+        enrichedMetadata.put("image_base64_preview", Base64.getEncoder()
+                .encodeToString(imageBytes).substring(0, Math.min(100, imageBytes.length)));
+        return new Document(imageSummary, enrichedMetadata);
+    }
+
+    /**
+     * Embed and store a batch of documents with a single batched embedding call
+     * and a single Qdrant upsert.
      */
-    public List<Document> similaritySearch(String query, int topK) {
+    public void storeDocuments(List<Document> documents) {
+        log.debug("Embedding and storing batch of {} documents", documents.size());
+        upsert(documents);
+    }
+
+    private List<String> store(List<Document> documents) {
+        storeDocuments(documents);
+        return documents.stream().map(Document::getId).toList();
+    }
+
+    /**
+     * Perform similarity search in Qdrant: one page of at most {@code topK}
+     * results, chunk hits collapsed to their parent (see {@link DocumentSearch}).
+     *
+     * @param fields payload fields to return, or null for all
+     * @param cursor the previous page's {@code nextCursor}, or null for the
+     *               first page
+     * @param tenant only this tenant's documents, or null for all
+     * @throws IllegalArgumentException if the cursor is malformed or belongs
+     *                                  to another search
+     */
+    public DocumentSearch.Page similaritySearch(String query, int topK, List<String> fields, String cursor,
+            String tenant) {
         log.debug("Performing similarity search for query: '{}', topK: {}", query, topK);
-        return vectorStore.similaritySearch(
-                SearchRequest.builder()
-                        .query(query)
-                        .topK(topK)
-                        .build());
+        DocumentSearch.Cursor position = documentSearch.cursor(cursor, query, tenant);
+        collections.requireReady();
+        return documentSearch.search(tenant, embeddingModel.embed(query), topK, fields, position);
+    }
+
+    /**
+     * Embed and upsert documents, one call per shard, stamped with
+     * {@link WriteGate#UPDATED_AT}. The vector store embeds them itself, so the
+     * {@code qdrant-upsert} stage includes a nested {@code batch-embed}.
+     */
+    private void upsert(List<Document> documents) {
+        collections.requireReady();
+        writeGate.write(() -> {
+            double now = WriteGate.now();
+            documents.forEach(document -> document.getMetadata().put(WriteGate.UPDATED_AT, now));
+            pipelineMetrics.time(PipelineMetrics.Stage.QDRANT_UPSERT, () -> {
+                router.byWriteShard(documents, document -> ShardRouter.tenantOf(document.getMetadata()))
+                        .forEach((shard, shardDocuments) -> shard.vectorStore().add(shardDocuments));
+                return null;
+            });
+        });
+        pipelineMetrics.vectors(PipelineMetrics.Stage.QDRANT_UPSERT, documents.size());
+    }
+
+    // ── Async variants: run off the request thread, cancellable ──
+
+    public CompletableFuture<float[]> embedTextAsync(String text) {
+        return asyncCalls.supply(() -> embedText(text));
+    }
+
+    /** Batched with concurrent writes when {@code app.write-batching.enabled}. */
+    public CompletableFuture<String> embedAndStoreAsync(String text, Map<String, Object> metadata) {
+        if (textWrites != null) {
+            return textWrites.submit(new Document(text, metadata));
+        }
+        return asyncCalls.supply(() -> embedAndStore(text, metadata));
+    }
+
+    public CompletableFuture<ChunkedResult> embedAndStoreChunkedAsync(String text, Map<String, Object> metadata) {
+        return asyncCalls.supply(() -> embedAndStoreChunked(text, metadata));
+    }
+
+    public CompletableFuture<ImageEmbeddingResult> embedImageAndStoreAsync(byte[] imageBytes, String mimeType,
+            Map<String, Object> metadata) {
+        return asyncCalls.supply(() -> embedImageAndStore(imageBytes, mimeType, metadata));
+    }
+
+    public CompletableFuture<ImageEmbeddingResult> embedImageFromUrlAndStoreAsync(String imageUrl,
+            Map<String, Object> metadata) {
+        return asyncCalls.supply(() -> embedImageFromUrlAndStore(imageUrl, metadata));
+    }
+
+    public CompletableFuture<DocumentSearch.Page> similaritySearchAsync(String query, int topK, List<String> fields,
+            String cursor, String tenant) {
+        // Reject a bad cursor before the call is scheduled
+        documentSearch.cursor(cursor, query, tenant);
+        return asyncCalls.supply(() -> similaritySearch(query, topK, fields, cursor, tenant));
     }
 
     /**
@@ -109,4 +312,10 @@ public class EmbeddingService {
      */
     public record ImageEmbeddingResult(String documentId, String imageSummary) {
     }
+
+    /**
+     * Result holder for chunked ingestion.
+     */
+    public record ChunkedResult(String parentId, int chunkCount) {
+    }
 }
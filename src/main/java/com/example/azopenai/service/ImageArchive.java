@@ -0,0 +1,154 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.config.IngestionProperties;
+import com.example.azopenai.service.ImageIngestionService.ImageSource;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * A zip archive of images spooled to a temporary file, so an ingestion job
+ * reads one entry at a time as its vision call starts instead of holding the
+ * whole archive in memory. Deleted when closed.
+ *
+ * <p>
+ * The entry count and the declared uncompressed sizes are checked against the
+ * {@code app.ingestion} limits when the archive is opened. Declared sizes can
+ * lie, so the same limits are enforced on the bytes actually read; an entry
+ * over them fails as an item error.
+ * </p>
+ */
+@Slf4j
+public final class ImageArchive implements Closeable {
+
+    private final Path file;
+    private final ZipFile zip;
+    private final int maxEntryBytes;
+    private final long maxArchiveBytes;
+    private final AtomicLong read = new AtomicLong();
+    private final List<ImageSource> images = new ArrayList<>();
+
+    private ImageArchive(Path file, ZipFile zip, IngestionProperties props) {
+        this.file = file;
+        this.zip = zip;
+        this.maxEntryBytes = (int) Math.min(props.getMaxEntrySize().toBytes(), Integer.MAX_VALUE - 8);
+        this.maxArchiveBytes = props.getMaxArchiveSize().toBytes();
+        if (zip.size() > props.getMaxArchiveEntries()) {
+            throw new UploadTooLargeException("Zip archive has " + zip.size() + " entries, more than the "
+                    + props.getMaxArchiveEntries() + " allowed");
+        }
+        long declared = 0;
+        for (ZipEntry entry : Collections.list(zip.entries())) {
+            String mimeType = ImageIngestionService.guessImageMimeType(entry.getName());
+            if (entry.isDirectory() || mimeType == null) {
+                continue;
+            }
+            if (entry.getSize() > maxEntryBytes) {
+                throw new UploadTooLargeException(entry.getName() + " is larger than the "
+                        + props.getMaxEntrySize() + " allowed per image");
+            }
+            declared += Math.max(0, entry.getSize());
+            if (declared > maxArchiveBytes) {
+                throw new UploadTooLargeException("Images in the zip archive are larger than the "
+                        + props.getMaxArchiveSize() + " allowed in total");
+            }
+            images.add(new Entry(entry, mimeType));
+        }
+    }
+
+    /**
+     * Spool a zip archive to a temporary file and index its images.
+     *
+     * @throws IllegalArgumentException if it is not a zip archive
+     * @throws UploadTooLargeException  if it exceeds the configured limits
+     */
+    static ImageArchive open(InputStream in, IngestionProperties props) throws IOException {
+        Path file = Files.createTempFile("ingest-", ".zip");
+        ZipFile zip = null;
+        try {
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            zip = new ZipFile(file.toFile());
+            return new ImageArchive(file, zip, props);
+        } catch (ZipException e) {
+            delete(file, null);
+            throw new IllegalArgumentException("Not a valid zip archive: " + e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            delete(file, zip);
+            throw e;
+        }
+    }
+
+    /** Images in the archive, in entry order; each reads its bytes on demand. */
+    public List<ImageSource> images() {
+        return List.copyOf(images);
+    }
+
+    @Override
+    public void close() {
+        delete(file, zip);
+    }
+
+    private byte[] read(ZipEntry entry) throws IOException {
+        byte[] bytes;
+        try (InputStream in = zip.getInputStream(entry)) {
+            bytes = in.readNBytes(maxEntryBytes + 1);
+        }
+        if (bytes.length > maxEntryBytes) {
+            throw new IOException(entry.getName() + " is larger than the " + maxEntryBytes + " bytes allowed per image");
+        }
+        if (read.addAndGet(bytes.length) > maxArchiveBytes) {
+            throw new IOException("Images in the zip archive are larger than the " + maxArchiveBytes
+                    + " bytes allowed in total");
+        }
+        return bytes;
+    }
+
+    private static void delete(Path file, ZipFile zip) {
+        try {
+            if (zip != null) {
+                zip.close();
+            }
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled archive {}", file, e);
+        }
+    }
+
+    private final class Entry implements ImageSource {
+
+        private final ZipEntry entry;
+        private final String mimeType;
+
+        Entry(ZipEntry entry, String mimeType) {
+            this.entry = entry;
+            this.mimeType = mimeType;
+        }
+
+        @Override
+        public String name() {
+            return entry.getName();
+        }
+
+        @Override
+        public String mimeType() {
+            return mimeType;
+        }
+
+        @Override
+        public byte[] bytes() throws IOException {
+            return read(entry);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.config.ExecutorFactory;
+import com.example.azopenai.config.IngestionProperties;
+import com.example.azopenai.config.PipelineMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous bulk image ingestion.
+ *
+ * <p>
+ * Each job runs the image→summary→embedding pipeline as two overlapping
+ * stages: vision calls run on a bounded pool shared by all jobs, and a
+ * per-job writer drains finished summaries into batches that are embedded
+ * and upserted together. While batch N is being embedded and stored, the
+ * vision calls for the following images are already in flight.
+ * </p>
+ */
+@Slf4j
+@Service
+public class ImageIngestionService {
+
+    private static final long POLL_INTERVAL_MS = 200;
+
+    private final ImageSummarizationService imageSummarizationService;
+    private final EmbeddingService embeddingService;
+    private final IngestionProperties props;
+    private final Executor visionExecutor;
+    private final Executor writerExecutor;
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+
+    public ImageIngestionService(ImageSummarizationService imageSummarizationService,
+            EmbeddingService embeddingService,
+            IngestionProperties props,
+            ExecutorFactory executorFactory) {
+        this.imageSummarizationService = imageSummarizationService;
+        this.embeddingService = embeddingService;
+        this.props = props;
+        this.visionExecutor = executorFactory.boundedExecutor("ingest-vision", props.getConcurrency());
+        this.writerExecutor = executorFactory.boundedExecutor("ingest-writer", props.getMaxConcurrentJobs());
+    }
+
+    /**
+     * Submit a set of images for ingestion and return the job immediately.
+     */
+    public IngestionJob submit(List<? extends ImageSource> images, Map<String, Object> metadata) {
+        return submit(images, List.of(), metadata);
+    }
+
+    /**
+     * Submit images, some of them read from {@code archives}, and return the
+     * job immediately. The job closes the archives when it finishes.
+     */
+    public IngestionJob submit(List<? extends ImageSource> images, List<ImageArchive> archives,
+            Map<String, Object> metadata) {
+        evictExpiredJobs();
+
+        var job = new IngestionJob(UUID.randomUUID().toString(), images.size());
+        try {
+            writerExecutor.execute(PipelineMetrics.propagate(() -> {
+                try {
+                    run(job, images, metadata != null ? metadata : Map.of());
+                } finally {
+                    archives.forEach(ImageArchive::close);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            archives.forEach(ImageArchive::close);
+            throw e;
+        }
+        jobs.put(job.getJobId(), job);
+        log.info("Submitted ingestion job {} with {} images", job.getJobId(), images.size());
+        return job;
+    }
+
+    public Optional<IngestionJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Spool a zip archive to disk and list its images, skipping directories
+     * and non-image files. Entries are read when their vision call starts.
+     *
+     * @throws IllegalArgumentException if it is not a zip archive
+     * @throws UploadTooLargeException  if it has more entries or larger images
+     *                                  than {@code app.ingestion} allows
+     */
+    public ImageArchive openArchive(InputStream zip) throws IOException {
+        return ImageArchive.open(zip, props);
+    }
+
+    /** Resolve an image MIME type from a file name, or null if it is not an image. */
+    public static String guessImageMimeType(String fileName) {
+        String mimeType = URLConnection.guessContentTypeFromName(fileName.toLowerCase(Locale.ROOT));
+        if (mimeType == null && fileName.toLowerCase(Locale.ROOT).endsWith(".webp")) {
+            mimeType = "image/webp";
+        }
+        return mimeType != null && mimeType.startsWith("image/") ? mimeType : null;
+    }
+
+    private void run(IngestionJob job, List<? extends ImageSource> images, Map<String, Object> metadata) {
+        job.markRunning();
+        BlockingQueue<Document> summarized = new LinkedBlockingQueue<>();
+
+        var summaries = images.stream()
+                .map(image -> CompletableFuture.runAsync(PipelineMetrics.propagate(() -> {
+                    byte[] bytes;
+                    try {
+                        bytes = image.bytes();
+                    } catch (IOException e) {
+                        log.warn("Job {}: failed to read {}: {}", job.getJobId(), image.name(), e.getMessage());
+                        job.recordError(image.name(), "read", e);
+                        return;
+                    }
+                    try {
+                        String summary = imageSummarizationService.summarizeImage(bytes, image.mimeType());
+                        var itemMetadata = new HashMap<String, Object>(metadata);
+                        itemMetadata.put("file_name", image.name());
+                        itemMetadata.put("ingestion_job_id", job.getJobId());
+                        summarized.add(embeddingService.imageDocument(
+                                summary, bytes, image.mimeType(), itemMetadata));
+                        job.getSummarized().incrementAndGet();
+                    } catch (RuntimeException e) {
+                        log.warn("Job {}: failed to summarize {}", job.getJobId(), image.name(), e);
+                        job.recordError(image.name(), "summarize", e);
+                    }
+                }), visionExecutor))
+                .toArray(CompletableFuture[]::new);
+        var allSummarized = CompletableFuture.allOf(summaries);
+
+        try {
+            List<Document> batch = new ArrayList<>(props.getBatchSize());
+            while (!(allSummarized.isDone() && summarized.isEmpty())) {
+                Document first = summarized.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                summarized.drainTo(batch, props.getBatchSize() - 1);
+                storeBatch(job, batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            log.warn("Ingestion job {} interrupted", job.getJobId());
+            Thread.currentThread().interrupt();
+        } finally {
+            job.markFinished();
+            log.info("Ingestion job {} finished: status={}, stored={}, failed={}, {} ms",
+                    job.getJobId(), job.getStatus(), job.getStored().get(), job.getFailed().get(),
+                    job.elapsedMs());
+        }
+    }
+
+    private void storeBatch(IngestionJob job, List<Document> batch) {
+        try {
+            embeddingService.storeDocuments(batch);
+            job.recordStored(batch.stream().map(Document::getId).toList());
+        } catch (RuntimeException e) {
+            log.warn("Job {}: failed to store batch of {} documents", job.getJobId(), batch.size(), e);
+            batch.forEach(doc -> job.recordError(
+                    String.valueOf(doc.getMetadata().get("file_name")), "store", e));
+        }
+    }
+
+    private void evictExpiredJobs() {
+        Instant cutoff = Instant.now().minus(props.getJobRetention());
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    /** A single image to ingest; its bytes are read when its vision call starts. */
+    public interface ImageSource {
+
+        String name();
+
+        String mimeType();
+
+        byte[] bytes() throws IOException;
+    }
+
+    /** A single image to ingest, already in memory. */
+    public record ImageItem(String name, byte[] bytes, String mimeType) implements ImageSource {
+    }
+}
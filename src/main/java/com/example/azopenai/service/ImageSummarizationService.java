@@ -12,6 +12,7 @@ import org.springframework.util.MimeType;
 
 import java.net.URI;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Image summarization using Azure OpenAI GPT-4o with vision capabilities.
@@ -24,6 +25,7 @@ import java.util.List;
 public class ImageSummarizationService {
 
     private final ChatModel chatModel;
+    private final AsyncCalls asyncCalls;
 
     private static final String SYSTEM_PROMPT = """
             You are an expert image analyst. Provide a detailed, structured summary of the image.
@@ -81,4 +83,12 @@ public class ImageSummarizationService {
         log.debug("Generated image summary of length: {}", summary.length());
         return summary;
     }
+
+    public CompletableFuture<String> summarizeImageAsync(byte[] imageBytes, String mimeType) {
+        return asyncCalls.supply(() -> summarizeImage(imageBytes, mimeType));
+    }
+
+    public CompletableFuture<String> summarizeImageFromUrlAsync(String imageUrl) {
+        return asyncCalls.supply(() -> summarizeImageFromUrl(imageUrl));
+    }
 }
@@ -0,0 +1,97 @@
+package com.example.azopenai.service;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mutable progress state of a bulk image ingestion job. Counters are updated
+ * concurrently by the worker threads and read by pollers.
+ */
+@Getter
+public class IngestionJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, COMPLETED_WITH_ERRORS, FAILED
+    }
+
+    private final String jobId;
+    private final int totalItems;
+    private final Instant createdAt = Instant.now();
+    private final AtomicInteger summarized = new AtomicInteger();
+    private final AtomicInteger stored = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final Queue<String> documentIds = new ConcurrentLinkedQueue<>();
+    private final Queue<ItemError> errors = new ConcurrentLinkedQueue<>();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    public IngestionJob(String jobId, int totalItems) {
+        this.jobId = jobId;
+        this.totalItems = totalItems;
+    }
+
+    void markRunning() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    void markFinished() {
+        finishedAt = Instant.now();
+        if (failed.get() == 0) {
+            status = Status.COMPLETED;
+        } else if (stored.get() > 0) {
+            status = Status.COMPLETED_WITH_ERRORS;
+        } else {
+            status = Status.FAILED;
+        }
+    }
+
+    void recordStored(List<String> ids) {
+        documentIds.addAll(ids);
+        stored.addAndGet(ids.size());
+    }
+
+    void recordError(String itemName, String stage, Throwable error) {
+        failed.incrementAndGet();
+        errors.add(new ItemError(itemName, stage, String.valueOf(error.getMessage())));
+    }
+
+    public boolean isFinished() {
+        return finishedAt != null;
+    }
+
+    /** Elapsed processing time, up to now for running jobs. */
+    public long elapsedMs() {
+        if (startedAt == null) {
+            return 0;
+        }
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        return end.toEpochMilli() - startedAt.toEpochMilli();
+    }
+
+    /** Stored images per second over the elapsed processing time. */
+    public double throughputPerSecond() {
+        long elapsed = elapsedMs();
+        return elapsed == 0 ? 0 : stored.get() * 1000.0 / elapsed;
+    }
+
+    public List<ItemError> errorList() {
+        return new ArrayList<>(errors);
+    }
+
+    public List<String> documentIdList() {
+        return new ArrayList<>(documentIds);
+    }
+
+    /** Failure of a single item at a given pipeline stage (read, summarize or store). */
+    public record ItemError(String item, String stage, String message) {
+    }
+}
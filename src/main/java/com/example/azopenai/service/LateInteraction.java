@@ -0,0 +1,97 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.service.ColbertService.ColbertScoreResult;
+import com.example.azopenai.service.ColbertService.TokenScore;
+import io.qdrant.client.grpc.Points;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stateless CPU-side steps of ColBERT late interaction: MaxSim scoring and
+ * conversion of token vectors to Qdrant's multi-vector format.
+ * Kept separate from {@link ColbertService} so they can be benchmarked without
+ * a model or Qdrant (see {@code src/jmh/java}).
+ */
+public final class LateInteraction {
+
+    private LateInteraction() {
+    }
+
+    /**
+     * MaxSim: for each query token, the max cosine similarity with any document
+     * token, summed over the query tokens.
+     */
+    public static ColbertScoreResult maxSim(List<String> queryTokens, List<float[]> queryEmbeddings,
+            List<String> docTokens, List<float[]> docEmbeddings) {
+        double totalScore = 0.0;
+        List<TokenScore> tokenScores = new ArrayList<>();
+
+        for (int i = 0; i < queryEmbeddings.size(); i++) {
+            float[] qEmb = queryEmbeddings.get(i);
+            double maxSim = Double.NEGATIVE_INFINITY;
+            int bestDocIdx = -1;
+
+            for (int j = 0; j < docEmbeddings.size(); j++) {
+                double sim = cosineSimilarity(qEmb, docEmbeddings.get(j));
+                if (sim > maxSim) {
+                    maxSim = sim;
+                    bestDocIdx = j;
+                }
+            }
+
+            totalScore += maxSim;
+            tokenScores.add(new TokenScore(
+                    queryTokens.get(i),
+                    bestDocIdx >= 0 ? docTokens.get(bestDocIdx) : "",
+                    maxSim));
+        }
+
+        return new ColbertScoreResult(
+                totalScore,
+                queryEmbeddings.size(),
+                docEmbeddings.size(),
+                tokenScores);
+    }
+
+    /** Cosine similarity between two vectors. */
+    public static double cosineSimilarity(float[] a, float[] b) {
+        double dotProduct = 0.0;
+        double normA = 0.0;
+        double normB = 0.0;
+
+        for (int i = 0; i < a.length; i++) {
+            dotProduct += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+
+        double denominator = Math.sqrt(normA) * Math.sqrt(normB);
+        return denominator == 0 ? 0 : dotProduct / denominator;
+    }
+
+    /** Wrap per-token embeddings as a Qdrant multi-dense vector. */
+    public static Points.Vector toMultiVector(List<float[]> tokenEmbeddings) {
+        // Build DenseVector for each token embedding
+        List<Points.DenseVector> denseVectors = tokenEmbeddings.stream()
+                .map(emb -> {
+                    List<Float> floatList = new ArrayList<>();
+                    for (float f : emb)
+                        floatList.add(f);
+                    return Points.DenseVector.newBuilder()
+                            .addAllData(floatList)
+                            .build();
+                })
+                .toList();
+
+        // Create MultiDenseVector from all token DenseVectors
+        Points.MultiDenseVector multiDenseVector = Points.MultiDenseVector.newBuilder()
+                .addAllVectors(denseVectors)
+                .build();
+
+        // Wrap in Vector with setMultiDense
+        return Points.Vector.newBuilder()
+                .setMultiDense(multiDenseVector)
+                .build();
+    }
+}
@@ -0,0 +1,354 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.config.AiProperties;
+import com.example.azopenai.config.CollectionSchemaProperties;
+import com.example.azopenai.config.CollectionSchemaProperties.Schema;
+import com.example.azopenai.config.EmbeddingFingerprint;
+import com.example.azopenai.config.ExecutorFactory;
+import io.qdrant.client.QdrantClient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.qdrant.client.grpc.Collections;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the Qdrant collections in the background once the application has
+ * started, so startup makes no call to Qdrant or the embedding provider and
+ * does not fail when either is briefly unreachable.
+ *
+ * <p>
+ * Services register their collection with {@link #register}; the vector
+ * size comes from {@link EmbeddingModel#dimensions()}, which is answered
+ * from configuration or the known-model table when possible. Setup is
+ * retried with backoff until it succeeds. Until then this health indicator
+ * ({@code collections}, part of the readiness group) reports
+ * OUT_OF_SERVICE and {@link #requireReady()} rejects store operations.
+ * </p>
+ *
+ * <p>
+ * A new collection is created as {@code <name>_<fingerprint>} (see
+ * {@link EmbeddingFingerprint}) with an alias {@code <name>} that the services
+ * use, so re-embedding can build a replacement and switch the alias. An alias
+ * pointing at a collection of another model is reported as {@code stale}.
+ * </p>
+ *
+ * <p>
+ * Collections are created with the HNSW, quantization and on-disk settings of
+ * their {@link CollectionSchemaProperties schema}, and its payload indexes are
+ * created wherever they are missing. An existing collection whose settings
+ * differ is reported as {@code drift} (and counted by the gauge
+ * {@code qdrant.collection.drift}); with {@code app.qdrant.reconcile} the
+ * settings are applied to it instead.
+ * </p>
+ */
+@Slf4j
+@Component("collections")
+public class QdrantCollections implements HealthIndicator {
+
+    private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final QdrantClient qdrantClient;
+    private final EmbeddingModel embeddingModel;
+    private final ExecutorFactory executorFactory;
+    private final String fingerprint;
+    private final CollectionSchemaProperties schemaProperties;
+    private final MeterRegistry registry;
+    private final Map<String, Registration> collections = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+    private volatile String lastError;
+    private volatile List<String> stale = List.of();
+    /** Differences from the configured schema, by collection (alias) name. */
+    private final Map<String, List<String>> drift = new ConcurrentHashMap<>();
+
+    public QdrantCollections(
+            QdrantClient qdrantClient,
+            EmbeddingModel embeddingModel,
+            ExecutorFactory executorFactory,
+            AiProperties aiProperties,
+            CollectionSchemaProperties schemaProperties,
+            MeterRegistry registry) {
+        this.qdrantClient = qdrantClient;
+        this.embeddingModel = embeddingModel;
+        this.executorFactory = executorFactory;
+        this.fingerprint = EmbeddingFingerprint.of(aiProperties.getEmbedding());
+        this.schemaProperties = schemaProperties;
+        this.registry = registry;
+    }
+
+    /**
+     * Create the collection with these vector parameters (given the embedding
+     * dimension) if it does not exist yet.
+     */
+    public void register(String name, IntFunction<Collections.VectorParams> vectors) {
+        register(qdrantClient, name, vectors);
+    }
+
+    /** {@link #register(String, IntFunction)} on another Qdrant endpoint (a shard's). */
+    public void register(QdrantClient client, String name, IntFunction<Collections.VectorParams> vectors) {
+        register(client, name, vectors, null);
+    }
+
+    /**
+     * {@link #register(QdrantClient, String, IntFunction)} with index, quantization
+     * and storage settings; a null schema keeps Qdrant's defaults.
+     */
+    public void register(QdrantClient client, String name, IntFunction<Collections.VectorParams> vectors,
+            Schema schema) {
+        collections.put(name, new Registration(client, vectors, schema));
+    }
+
+    /**
+     * Create {@code physical} on the primary endpoint with these vectors and
+     * the schema registered for {@code name}, e.g. a re-embedding shadow, so it
+     * keeps the same index and storage settings.
+     */
+    public void create(String name, String physical, Collections.VectorParams vectors) {
+        Registration registration = collections.get(name);
+        try {
+            create(qdrantClient, physical, vectors, registration != null ? registration.schema() : null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted creating collection " + physical, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to create collection " + physical + ": " + e.getCause().getMessage(),
+                    e.getCause());
+        }
+    }
+
+    /**
+     * Names (aliases) of the registered collections on the primary endpoint,
+     * which re-embedding and snapshots work on.
+     */
+    public Set<String> names() {
+        return collections.entrySet().stream()
+                .filter(entry -> entry.getValue().client() == qdrantClient)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /** Names of the registered collections on other endpoints (shards'), which re-embedding cannot cover. */
+    public Set<String> namesOnOtherEndpoints() {
+        return collections.entrySet().stream()
+                .filter(entry -> entry.getValue().client() != qdrantClient)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /** The collection an alias points at, or {@code name} itself when it is not an alias. */
+    public String resolve(String name) {
+        try {
+            return aliases().getOrDefault(name, name);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted resolving alias " + name, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to list aliases: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /** Alias name to collection name. */
+    public Map<String, String> aliases() throws InterruptedException, ExecutionException {
+        return aliases(qdrantClient);
+    }
+
+    private static Map<String, String> aliases(QdrantClient client) throws InterruptedException, ExecutionException {
+        Map<String, String> aliases = new HashMap<>();
+        for (var alias : client.listAliasesAsync().get()) {
+            aliases.put(alias.getAliasName(), alias.getCollectionName());
+        }
+        return aliases;
+    }
+
+    /** Called once re-embedded collections are being served. */
+    void clearStale() {
+        stale = List.of();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Fail fast with a 503 while collections are still being created. */
+    public void requireReady() {
+        if (!ready) {
+            throw new StoreNotReadyException("Vector store collections are still initializing");
+        }
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void initializeInBackground() {
+        executorFactory.boundedExecutor("qdrant-init", 1).execute(this::initialize);
+    }
+
+    private void initialize() {
+        Duration backoff = INITIAL_BACKOFF;
+        while (true) {
+            try {
+                createMissing();
+                ready = true;
+                lastError = null;
+                log.info("Qdrant collections ready: {}", collections.keySet());
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                lastError = e.getMessage();
+                log.warn("Qdrant collection setup failed, retrying in {}: {}", backoff, e.getMessage());
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                // Shutting down
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoff = backoff.multipliedBy(2).compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff.multipliedBy(2);
+        }
+    }
+
+    private void createMissing() throws InterruptedException, ExecutionException {
+        Map<QdrantClient, Map<String, String>> aliasesByClient = new HashMap<>();
+        List<String> mismatched = new ArrayList<>();
+        Integer dimension = null;
+        for (var entry : collections.entrySet()) {
+            String name = entry.getKey();
+            QdrantClient client = entry.getValue().client();
+            Schema schema = entry.getValue().schema();
+            Map<String, String> aliases = aliasesByClient.get(client);
+            if (aliases == null) {
+                aliases = aliases(client);
+                aliasesByClient.put(client, aliases);
+            }
+            String physical = EmbeddingFingerprint.collectionName(name, fingerprint);
+            String current = aliases.get(name);
+            if (current != null) {
+                if (!current.equals(physical)) {
+                    log.warn("Collection {} holds vectors of another embedding model ({}, expected {}); "
+                            + "re-embed it with POST /api/reindex", name, current, physical);
+                    mismatched.add(name);
+                }
+                checkSchema(client, name, current, schema);
+                continue;
+            }
+            if (client.collectionExistsAsync(name).get()) {
+                // Created before aliases were used; POST /api/reindex moves it
+                checkSchema(client, name, name, schema);
+                continue;
+            }
+            if (dimension == null) {
+                dimension = embeddingModel.dimensions();
+            }
+            if (!client.collectionExistsAsync(physical).get()) {
+                log.info("Creating Qdrant collection {} with dimension {}", physical, dimension);
+                create(client, physical, entry.getValue().vectors().apply(dimension), schema);
+                recordDrift(name, List.of());
+            } else {
+                checkSchema(client, name, physical, schema);
+            }
+            client.createAliasAsync(name, physical).get();
+        }
+        stale = List.copyOf(mismatched);
+    }
+
+    private void create(QdrantClient client, String physical, Collections.VectorParams vectors, Schema schema)
+            throws InterruptedException, ExecutionException {
+        client.createCollectionAsync(CollectionSchemas.create(physical, vectors, schema)).get();
+        if (schema != null) {
+            createPayloadIndexes(client, physical, schema, Map.of());
+        }
+    }
+
+    /**
+     * Create the schema's missing payload indexes on an existing collection and
+     * compare its settings; differences are applied with {@code reconcile},
+     * otherwise reported.
+     */
+    private void checkSchema(QdrantClient client, String name, String physical, Schema schema)
+            throws InterruptedException, ExecutionException {
+        if (schema == null) {
+            return;
+        }
+        Collections.CollectionInfo info = client.getCollectionInfoAsync(physical).get();
+        createPayloadIndexes(client, physical, schema, info.getPayloadSchemaMap());
+        List<String> differences = CollectionSchemas.drift(info, schema);
+        if (!differences.isEmpty() && schemaProperties.isReconcile()) {
+            log.info("Updating collection {} to the configured schema: {}", physical, differences);
+            client.updateCollectionAsync(CollectionSchemas.update(physical, schema)).get();
+            differences = CollectionSchemas.drift(client.getCollectionInfoAsync(physical).get(), schema);
+        }
+        if (!differences.isEmpty()) {
+            log.warn("Collection {} differs from its configured schema: {}{}", physical, differences,
+                    schemaProperties.isReconcile() ? "" : "; set app.qdrant.reconcile=true to apply it");
+        }
+        recordDrift(name, differences);
+    }
+
+    private void recordDrift(String name, List<String> differences) {
+        drift.put(name, List.copyOf(differences));
+        Gauge.builder("qdrant.collection.drift", drift, byName -> byName.getOrDefault(name, List.of()).size())
+                .description("Settings of a collection that differ from its configured schema")
+                .tag("collection", name)
+                .register(registry);
+    }
+
+    private static void createPayloadIndexes(QdrantClient client, String physical, Schema schema,
+            Map<String, Collections.PayloadSchemaInfo> existing) throws InterruptedException, ExecutionException {
+        for (var index : schema.getPayloadIndexes().entrySet()) {
+            if (existing.containsKey(index.getKey())) {
+                continue;
+            }
+            log.info("Creating payload index {} ({}) on {}", index.getKey(), index.getValue().getType(), physical);
+            client.createPayloadIndexAsync(physical, index.getKey(), CollectionSchemas.payloadType(index.getValue()),
+                    CollectionSchemas.payloadParams(index.getValue()), true, null, null).get();
+        }
+    }
+
+    @Override
+    public Health health() {
+        if (ready) {
+            var health = Health.up().withDetail("collections", collections.keySet());
+            if (!stale.isEmpty()) {
+                health.withDetail("stale", stale);
+            }
+            Map<String, List<String>> drifted = new TreeMap<>();
+            drift.forEach((name, differences) -> {
+                if (!differences.isEmpty()) {
+                    drifted.put(name, differences);
+                }
+            });
+            if (!drifted.isEmpty()) {
+                health.withDetail("drift", drifted);
+            }
+            return health.build();
+        }
+        var health = Health.outOfService().withDetail("collections", collections.keySet());
+        if (lastError != null) {
+            health.withDetail("error", lastError);
+        }
+        return health.build();
+    }
+
+    private record Registration(QdrantClient client, IntFunction<Collections.VectorParams> vectors, Schema schema) {
+    }
+}
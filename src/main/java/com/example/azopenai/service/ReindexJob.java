@@ -0,0 +1,145 @@
+package com.example.azopenai.service;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of re-embedding every managed collection into shadow collections.
+ * Updated by the single job thread and read by pollers.
+ */
+@Getter
+public class ReindexJob {
+
+    public enum Status {
+        RUNNING, PAUSED, COMPLETED, FAILED
+    }
+
+    /** Where one collection stands; the order is the order of the work. */
+    public enum Phase {
+        /** Copying the source page by page into the shadow. */
+        COPYING,
+        /** Copied; picking up points written since. */
+        CATCHING_UP,
+        /** The alias points at the re-embedded collection. */
+        SWITCHED,
+        /** Already holds vectors of the target model. */
+        CURRENT
+    }
+
+    private final String fingerprint;
+    private final List<CollectionProgress> collections;
+    private final Instant createdAt = Instant.now();
+
+    private volatile Status status = Status.RUNNING;
+    private volatile boolean pauseRequested;
+    private volatile String error;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    /** Points already processed by earlier runs, restored from the checkpoint. */
+    private volatile long resumedFrom;
+
+    public ReindexJob(String fingerprint, List<CollectionProgress> collections) {
+        this.fingerprint = fingerprint;
+        this.collections = collections;
+    }
+
+    /** One collection: its alias, the collection it serves from and the one being filled. */
+    @Getter
+    public static class CollectionProgress {
+        private final String name;
+        private final String source;
+        private final String shadow;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private volatile Phase phase;
+        /** Next scroll offset of the copy, null before the first page and after the last. */
+        private volatile String offset;
+        private volatile boolean multiVector;
+        /**
+         * Source points with an {@code updated_at} from this time (epoch millis)
+         * on may be missing from, or stale in, the shadow; 0 when unknown, which
+         * means every point is compared.
+         */
+        private volatile long changedSince;
+
+        public CollectionProgress(String name, String source, String shadow, Phase phase) {
+            this.name = name;
+            this.source = source;
+            this.shadow = shadow;
+            this.phase = phase;
+        }
+
+        void setPhase(Phase phase) {
+            this.phase = phase;
+        }
+
+        void setOffset(String offset) {
+            this.offset = offset;
+        }
+
+        void setMultiVector(boolean multiVector) {
+            this.multiVector = multiVector;
+        }
+
+        void setChangedSince(long changedSince) {
+            this.changedSince = changedSince;
+        }
+
+        /** Collection created before aliases were used, so the alias needs its name. */
+        boolean isLegacy() {
+            return source.equals(name);
+        }
+    }
+
+    void markRunning() {
+        startedAt = Instant.now();
+        resumedFrom = processed();
+        status = Status.RUNNING;
+    }
+
+    void requestPause() {
+        pauseRequested = true;
+    }
+
+    void markPaused() {
+        finishedAt = Instant.now();
+        status = Status.PAUSED;
+    }
+
+    void markCompleted() {
+        finishedAt = Instant.now();
+        status = Status.COMPLETED;
+    }
+
+    void fail(Throwable cause) {
+        error = String.valueOf(cause.getMessage());
+        finishedAt = Instant.now();
+        status = Status.FAILED;
+    }
+
+    public boolean isRunning() {
+        return status == Status.RUNNING;
+    }
+
+    public long processed() {
+        return collections.stream().mapToLong(c -> c.getProcessed().get()).sum();
+    }
+
+    /** Elapsed processing time, up to now for running jobs. */
+    public long elapsedMs() {
+        if (startedAt == null) {
+            return 0;
+        }
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        return end.toEpochMilli() - startedAt.toEpochMilli();
+    }
+
+    /** Points re-embedded per second by this run. */
+    public double throughputPerSecond() {
+        long elapsed = elapsedMs();
+        return elapsed == 0 ? 0 : (processed() - resumedFrom) * 1000.0 / elapsed;
+    }
+}
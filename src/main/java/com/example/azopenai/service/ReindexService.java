@@ -0,0 +1,696 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.client.SwitchableEmbeddingModel;
+import com.example.azopenai.config.AiProperties;
+import com.example.azopenai.config.EmbeddingFingerprint;
+import com.example.azopenai.config.ExecutorFactory;
+import com.example.azopenai.config.PipelineMetrics;
+import com.example.azopenai.config.PipelineMetrics.Stage;
+import com.example.azopenai.config.ReindexProperties;
+import com.example.azopenai.service.ReindexJob.CollectionProgress;
+import com.example.azopenai.service.ReindexJob.Phase;
+import com.example.azopenai.tokenizer.Tokenizer;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.grpc.Collections;
+import io.qdrant.client.grpc.Common;
+import io.qdrant.client.grpc.JsonWithInt;
+import io.qdrant.client.grpc.Points;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+import static io.qdrant.client.ConditionFactory.range;
+import static io.qdrant.client.ValueFactory.value;
+
+/**
+ * Re-embeds every managed collection with the target embedding model in the
+ * background, without interrupting search.
+ *
+ * <p>
+ * Each collection is read page by page from the collection its alias serves
+ * (texts come from the payloads: Spring AI's content field for documents,
+ * {@code text} for ColBERT), embedded in large batches under a tokens-per-second
+ * ceiling and written, with the same ids and payloads, to a shadow collection
+ * named after the target model's {@link EmbeddingFingerprint}. A checkpoint
+ * file is rewritten after every page, so a paused, failed or restarted job
+ * resumes where it stopped.
+ * </p>
+ *
+ * <p>
+ * Once everything is copied, points written or deleted in the meantime are
+ * reconciled: every writer stamps points with {@link WriteGate#UPDATED_AT}, so
+ * each catch-up pass re-embeds the points written since the previous one that
+ * the shadow lacks or holds an older version of. Then the {@link WriteGate} is
+ * closed, a last pass copies what was written since, one alias update points
+ * every alias at its shadow, the serving {@link EmbeddingModel} is switched to
+ * the target model and writes resume, so no write lands in a collection after
+ * its final pass.
+ * </p>
+ */
+@Slf4j
+@Service
+public class ReindexService {
+
+    private static final String COLBERT_TEXT = "text";
+    private static final String CHECKPOINT_FILE = "reindex.checkpoint";
+    /** Passes over points written during the copy before giving up on quiescence. */
+    private static final int MAX_CATCH_UP_PASSES = 3;
+    /** Margin on {@code updated_at} comparisons for wall-clock adjustments. */
+    private static final long CLOCK_SLACK_MS = 1_000;
+    /** Version of a point the shadow does not have; never equal to a stored one. */
+    private static final JsonWithInt.Value MISSING = JsonWithInt.Value.getDefaultInstance();
+
+    private final QdrantClient qdrantClient;
+    private final QdrantCollections collections;
+    private final SwitchableEmbeddingModel servingModel;
+    private final EmbeddingModel targetModel;
+    private final String targetFingerprint;
+    private final ObjectProvider<ColbertService> colbertService;
+    private final Tokenizer tokenizer;
+    private final ReindexProperties props;
+    private final PipelineMetrics pipelineMetrics;
+    private final WriteGate writeGate;
+    private final Executor executor;
+    private final String contentField;
+    private final Path checkpoint;
+
+    /** Serializes {@link #start()}; not {@code synchronized}, planning blocks on Qdrant. */
+    private final ReentrantLock startLock = new ReentrantLock();
+    private volatile ReindexJob job;
+    /** Earliest time the next batch may be sent under the token rate ceiling. */
+    private long nextBatchNanos;
+
+    public ReindexService(
+            QdrantClient qdrantClient,
+            QdrantCollections collections,
+            SwitchableEmbeddingModel servingModel,
+            @Qualifier("reindexEmbeddingModel") ObjectProvider<EmbeddingModel> reindexEmbeddingModel,
+            AiProperties aiProperties,
+            ReindexProperties props,
+            ObjectProvider<ColbertService> colbertService,
+            Tokenizer tokenizer,
+            PipelineMetrics pipelineMetrics,
+            ExecutorFactory executorFactory,
+            WriteGate writeGate,
+            @Value("${spring.ai.vectorstore.qdrant.content-field-name:doc_content}") String contentField) {
+        this.qdrantClient = qdrantClient;
+        this.collections = collections;
+        this.servingModel = servingModel;
+        this.targetModel = reindexEmbeddingModel.getIfAvailable(() -> servingModel);
+        this.targetFingerprint = EmbeddingFingerprint.of(
+                props.getEmbedding() != null ? props.getEmbedding() : aiProperties.getEmbedding());
+        this.colbertService = colbertService;
+        this.tokenizer = tokenizer;
+        this.props = props;
+        this.pipelineMetrics = pipelineMetrics;
+        this.writeGate = writeGate;
+        this.executor = executorFactory.boundedExecutor("reindex", 1);
+        this.contentField = contentField;
+        this.checkpoint = Path.of(props.getCheckpointDirectory(), CHECKPOINT_FILE);
+    }
+
+    /**
+     * Start re-embedding, resuming from the checkpoint when it was written for
+     * the same target model.
+     *
+     * @throws IllegalStateException if a job is already running, or if
+     *         collections live on other Qdrant endpoints: they would not be
+     *         re-embedded, yet would be searched with the new model after the
+     *         switch
+     */
+    public ReindexJob start() {
+        startLock.lock();
+        try {
+            if (job != null && job.isRunning()) {
+                throw new IllegalStateException("A reindex job is already running");
+            }
+            collections.requireReady();
+            Set<String> elsewhere = collections.namesOnOtherEndpoints();
+            if (!elsewhere.isEmpty()) {
+                throw new IllegalStateException("Re-embedding covers the primary Qdrant only; "
+                        + "collections on other endpoints: " + elsewhere.stream().sorted().toList());
+            }
+            ReindexJob next = plan();
+            job = next;
+            next.markRunning();
+            log.info("Reindex to {} started: {}", targetFingerprint, next.getCollections().stream()
+                    .map(c -> c.getName() + " " + c.getSource() + " -> " + c.getShadow() + " (" + c.getPhase() + ")")
+                    .toList());
+            try {
+                executor.execute(PipelineMetrics.propagate(() -> run(next)));
+            } catch (RejectedExecutionException e) {
+                next.fail(e);
+                throw e;
+            }
+            return next;
+        } finally {
+            startLock.unlock();
+        }
+    }
+
+    public Optional<ReindexJob> current() {
+        return Optional.ofNullable(job);
+    }
+
+    /** Stop after the current page; the checkpoint is kept for {@link #start()}. */
+    public Optional<ReindexJob> pause() {
+        ReindexJob current = job;
+        if (current != null && current.isRunning()) {
+            current.requestPause();
+        }
+        return Optional.ofNullable(current);
+    }
+
+    private ReindexJob plan() {
+        Properties saved = readCheckpoint();
+        boolean resume = targetFingerprint.equals(saved.getProperty("fingerprint"));
+        if (!saved.isEmpty() && !resume) {
+            log.warn("Ignoring reindex checkpoint for model {}; its shadow collections are left in place",
+                    saved.getProperty("fingerprint"));
+        }
+        Map<String, String> aliases = await(() -> collections.aliases(), "list aliases");
+        List<CollectionProgress> progress = new ArrayList<>();
+        for (String name : collections.names().stream().sorted().toList()) {
+            String source = aliases.getOrDefault(name, name);
+            String shadow = EmbeddingFingerprint.collectionName(name, targetFingerprint);
+            if (source.equals(shadow)) {
+                progress.add(new CollectionProgress(name, source, shadow, Phase.CURRENT));
+                continue;
+            }
+            var collection = new CollectionProgress(name, source, shadow, Phase.COPYING);
+            collection.setChangedSince(writeGate.changesSince());
+            if (resume && source.equals(saved.getProperty(name + ".source"))
+                    && shadow.equals(saved.getProperty(name + ".shadow"))) {
+                collection.setPhase(Phase.valueOf(saved.getProperty(name + ".phase")));
+                collection.setOffset(saved.getProperty(name + ".offset"));
+                collection.getProcessed().set(Long.parseLong(saved.getProperty(name + ".processed", "0")));
+                collection.getSkipped().set(Long.parseLong(saved.getProperty(name + ".skipped", "0")));
+                collection.setChangedSince(Long.parseLong(saved.getProperty(name + ".changed-since", "0")));
+            }
+            progress.add(collection);
+        }
+        return new ReindexJob(targetFingerprint, List.copyOf(progress));
+    }
+
+    private void run(ReindexJob job) {
+        writeGate.startTracking();
+        try {
+            for (CollectionProgress collection : job.getCollections()) {
+                if (collection.getPhase() == Phase.COPYING && !copy(job, collection)) {
+                    pause(job);
+                    return;
+                }
+            }
+            for (CollectionProgress collection : job.getCollections()) {
+                if (collection.getPhase() == Phase.CATCHING_UP && !catchUp(job, collection)) {
+                    pause(job);
+                    return;
+                }
+            }
+            switchAliases(job);
+            job.markCompleted();
+            Files.deleteIfExists(checkpoint);
+            log.info("Reindex to {} completed: {} points in {} ms", targetFingerprint, job.processed(),
+                    job.elapsedMs());
+        } catch (IOException e) {
+            job.fail(new UncheckedIOException(e));
+            log.warn("Reindex to {} failed; POST /api/reindex resumes it", targetFingerprint, e);
+        } catch (RuntimeException e) {
+            job.fail(e);
+            log.warn("Reindex to {} failed; POST /api/reindex resumes it", targetFingerprint, e);
+        } finally {
+            writeGate.stopTracking();
+        }
+    }
+
+    private void pause(ReindexJob job) {
+        job.markPaused();
+        log.info("Reindex to {} paused after {} points", targetFingerprint, job.processed());
+    }
+
+    // ── Copy ──
+
+    /** Copy the source into the shadow from the checkpointed offset; false when paused. */
+    private boolean copy(ReindexJob job, CollectionProgress collection) throws IOException {
+        prepareShadow(collection);
+        Common.PointId offset = pointId(collection.getOffset());
+        do {
+            if (job.isPauseRequested()) {
+                return false;
+            }
+            Points.ScrollResponse page = await(scroll(collection.getSource(), offset, props.getScrollPageSize(),
+                    true), "scroll " + collection.getSource());
+            reembed(collection, page.getResultList());
+            offset = page.hasNextPageOffset() ? page.getNextPageOffset() : null;
+            collection.setOffset(offset == null ? null : key(offset));
+            if (offset == null) {
+                collection.setPhase(Phase.CATCHING_UP);
+            }
+            saveCheckpoint(job);
+        } while (offset != null);
+        log.info("Copied {} into {}: {} points, {} without text", collection.getSource(), collection.getShadow(),
+                collection.getProcessed().get(), collection.getSkipped().get());
+        return true;
+    }
+
+    /**
+     * Re-embed points written to the source since the copy passed them and drop
+     * points deleted from it, until a pass finds nothing new; false when paused.
+     */
+    private boolean catchUp(ReindexJob job, CollectionProgress collection) throws IOException {
+        prepareShadow(collection);
+        for (int pass = 1; pass <= MAX_CATCH_UP_PASSES; pass++) {
+            long passStart = writeGate.changesSince();
+            long changed = reembedChanged(collection, job::isPauseRequested);
+            if (changed < 0) {
+                return false;
+            }
+            collection.setChangedSince(passStart);
+            saveCheckpoint(job);
+            log.info("Reindex catch-up pass {} on {}: {} new or changed points", pass, collection.getName(),
+                    changed);
+            if (changed == 0) {
+                break;
+            }
+        }
+        long removed = prune(collection);
+        if (removed > 0) {
+            log.info("Reindex removed {} points deleted from {} during the copy", removed, collection.getSource());
+        }
+        saveCheckpoint(job);
+        return true;
+    }
+
+    /**
+     * Re-embed the source points written since the collection's
+     * {@code changedSince} that the shadow lacks or holds another version of
+     * (by {@code updated_at}); the count, or -1 when {@code paused}.
+     */
+    private long reembedChanged(CollectionProgress collection, BooleanSupplier paused) {
+        Common.Filter filter = collection.getChangedSince() <= 0 ? null : Common.Filter.newBuilder()
+                .addMust(range(WriteGate.UPDATED_AT, Common.Range.newBuilder()
+                        .setGte(collection.getChangedSince() - CLOCK_SLACK_MS)
+                        .build()))
+                .build();
+        long changed = 0;
+        Common.PointId offset = null;
+        do {
+            if (paused.getAsBoolean()) {
+                return -1;
+            }
+            Points.ScrollResponse page = await(scroll(collection.getSource(), offset, props.getScrollPageSize(),
+                    true, filter), "scroll " + collection.getSource());
+            Map<String, JsonWithInt.Value> copied = versions(collection.getShadow(), page.getResultList());
+            List<Points.RetrievedPoint> stale = page.getResultList().stream()
+                    .filter(point -> !Objects.equals(point.getPayloadMap().get(WriteGate.UPDATED_AT),
+                            copied.getOrDefault(key(point.getId()), MISSING)))
+                    .toList();
+            if (!stale.isEmpty()) {
+                reembed(collection, stale);
+                changed += stale.size();
+            }
+            offset = page.hasNextPageOffset() ? page.getNextPageOffset() : null;
+        } while (offset != null);
+        return changed;
+    }
+
+    /**
+     * Last pass with writes held off: copy what was written since the previous
+     * pass and remove the points deleted during the job.
+     */
+    private void finalPass(CollectionProgress collection) {
+        long changed = reembedChanged(collection, () -> false);
+        List<Common.PointId> deleted = writeGate.deletedFrom(collection.getName()).stream()
+                .map(ReindexService::pointId)
+                .toList();
+        if (!deleted.isEmpty()) {
+            await(qdrantClient.deleteAsync(collection.getShadow(), deleted), "delete from "
+                    + collection.getShadow());
+        }
+        log.info("Reindex final pass on {}: {} new or changed points, {} deleted", collection.getName(), changed,
+                deleted.size());
+    }
+
+    /** Delete shadow points whose source point no longer exists. */
+    private long prune(CollectionProgress collection) {
+        long removed = 0;
+        Common.PointId offset = null;
+        do {
+            Points.ScrollResponse page = await(scroll(collection.getShadow(), offset, props.getScrollPageSize(),
+                    false), "scroll " + collection.getShadow());
+            Set<String> present = ids(collection.getSource(), page.getResultList());
+            List<Common.PointId> deleted = page.getResultList().stream()
+                    .map(Points.RetrievedPoint::getId)
+                    .filter(id -> !present.contains(key(id)))
+                    .toList();
+            if (!deleted.isEmpty()) {
+                await(qdrantClient.deleteAsync(collection.getShadow(), deleted), "delete from "
+                        + collection.getShadow());
+                removed += deleted.size();
+            }
+            offset = page.hasNextPageOffset() ? page.getNextPageOffset() : null;
+        } while (offset != null);
+        return removed;
+    }
+
+    /**
+     * {@code updated_at} of each of {@code points} found in {@code collection}, by
+     * id; null for points without one.
+     */
+    private Map<String, JsonWithInt.Value> versions(String collection, List<Points.RetrievedPoint> points) {
+        if (points.isEmpty()) {
+            return Map.of();
+        }
+        List<Common.PointId> ids = points.stream().map(Points.RetrievedPoint::getId).toList();
+        var payload = Points.WithPayloadSelector.newBuilder()
+                .setInclude(Points.PayloadIncludeSelector.newBuilder().addFields(WriteGate.UPDATED_AT))
+                .build();
+        var vectors = Points.WithVectorsSelector.newBuilder().setEnable(false).build();
+        Map<String, JsonWithInt.Value> versions = new HashMap<>();
+        for (Points.RetrievedPoint point : await(qdrantClient.retrieveAsync(collection, ids, payload, vectors,
+                null), "read " + collection)) {
+            versions.put(key(point.getId()), point.getPayloadMap().get(WriteGate.UPDATED_AT));
+        }
+        return versions;
+    }
+
+    /** Ids of {@code points} that also exist in {@code collection}. */
+    private Set<String> ids(String collection, List<Points.RetrievedPoint> points) {
+        if (points.isEmpty()) {
+            return Set.of();
+        }
+        List<Common.PointId> ids = points.stream().map(Points.RetrievedPoint::getId).toList();
+        Set<String> present = new HashSet<>();
+        for (Points.RetrievedPoint point : await(qdrantClient.retrieveAsync(collection, ids, false, false, null),
+                "read " + collection)) {
+            present.add(key(point.getId()));
+        }
+        return present;
+    }
+
+    private void reembed(CollectionProgress collection, List<Points.RetrievedPoint> points) {
+        String textField = collection.isMultiVector() ? COLBERT_TEXT : contentField;
+        List<Points.RetrievedPoint> withText = new ArrayList<>(points.size());
+        List<String> texts = new ArrayList<>(points.size());
+        for (Points.RetrievedPoint point : points) {
+            JsonWithInt.Value text = point.getPayloadMap().get(textField);
+            if (text == null || text.getStringValue().isBlank()) {
+                collection.getSkipped().incrementAndGet();
+                continue;
+            }
+            withText.add(point);
+            texts.add(text.getStringValue());
+        }
+        if (withText.isEmpty()) {
+            return;
+        }
+
+        List<Points.PointStruct> rewritten = new ArrayList<>(withText.size());
+        if (collection.isMultiVector()) {
+            ColbertService colbert = colbertService.getIfAvailable();
+            if (colbert == null) {
+                throw new IllegalStateException("Collection " + collection.getName()
+                        + " has multi-vectors but ColBERT is disabled");
+            }
+            pace(texts);
+            List<List<float[]>> vectors = colbert.reencode(texts, targetModel, props.getBatchSize());
+            for (int i = 0; i < withText.size(); i++) {
+                if (vectors.get(i).isEmpty()) {
+                    collection.getSkipped().incrementAndGet();
+                    continue;
+                }
+                Map<String, JsonWithInt.Value> payload = new HashMap<>(withText.get(i).getPayloadMap());
+                payload.put("token_count", value(vectors.get(i).size()));
+                rewritten.add(point(withText.get(i).getId(), LateInteraction.toMultiVector(vectors.get(i)),
+                        payload));
+            }
+        } else {
+            for (int from = 0; from < texts.size(); from += props.getBatchSize()) {
+                List<String> batch = texts.subList(from, Math.min(texts.size(), from + props.getBatchSize()));
+                pace(batch);
+                List<float[]> vectors = targetModel.embed(batch);
+                for (int i = 0; i < batch.size(); i++) {
+                    Points.RetrievedPoint source = withText.get(from + i);
+                    rewritten.add(point(source.getId(), dense(vectors.get(i)), source.getPayloadMap()));
+                }
+            }
+        }
+        if (rewritten.isEmpty()) {
+            return;
+        }
+
+        pipelineMetrics.time(Stage.QDRANT_UPSERT, () -> await(qdrantClient.upsertAsync(
+                Points.UpsertPoints.newBuilder()
+                        .setCollectionName(collection.getShadow())
+                        .addAllPoints(rewritten)
+                        .setWait(true)
+                        .build()), "upsert into " + collection.getShadow()));
+        pipelineMetrics.vectors(Stage.QDRANT_UPSERT, rewritten.size());
+        collection.getProcessed().addAndGet(rewritten.size());
+    }
+
+    /** Wait until the rate ceiling allows sending these texts. Only the job thread calls this. */
+    private void pace(List<String> texts) {
+        if (props.getMaxTokensPerSecond() <= 0) {
+            return;
+        }
+        long tokens = texts.stream().mapToLong(tokenizer::count).sum();
+        long now = System.nanoTime();
+        long start = Math.max(now, nextBatchNanos);
+        nextBatchNanos = start + tokens * 1_000_000_000L / props.getMaxTokensPerSecond();
+        if (start > now) {
+            try {
+                Thread.sleep(Duration.ofNanos(start - now));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while pacing re-embedding", e);
+            }
+        }
+    }
+
+    /**
+     * Create the shadow like the source, sized for the target model and with the
+     * configured schema, unless it exists.
+     */
+    private void prepareShadow(CollectionProgress collection) {
+        Collections.VectorsConfig config = await(qdrantClient.getCollectionInfoAsync(collection.getSource()),
+                "read collection " + collection.getSource()).getConfig().getParams().getVectorsConfig();
+        if (!config.hasParams()) {
+            throw new IllegalArgumentException(
+                    "Collection " + collection.getSource() + " uses named vectors, which reindexing does not support");
+        }
+        collection.setMultiVector(config.getParams().hasMultivectorConfig());
+        if (await(qdrantClient.collectionExistsAsync(collection.getShadow()), "check " + collection.getShadow())) {
+            return;
+        }
+        var params = config.getParams().toBuilder().setSize(targetModel.dimensions()).build();
+        collections.create(collection.getName(), collection.getShadow(), params);
+        log.info("Created shadow collection {} ({} dimensions) for {}", collection.getShadow(), params.getSize(),
+                collection.getName());
+    }
+
+    // ── Switch ──
+
+    /**
+     * With writes held off, copy the last changes, point every alias at its
+     * shadow in one update and serve with the target model.
+     */
+    private void switchAliases(ReindexJob job) {
+        List<CollectionProgress> switching = job.getCollections().stream()
+                .filter(c -> c.getPhase() == Phase.CATCHING_UP)
+                .toList();
+        if (switching.isEmpty()) {
+            return;
+        }
+        try {
+            writeGate.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted pausing writes", e);
+        }
+        try {
+            switching.forEach(this::finalPass);
+            switchAliases(switching);
+        } finally {
+            writeGate.open();
+        }
+        for (CollectionProgress collection : switching) {
+            collection.setPhase(Phase.SWITCHED);
+            if (props.isDropPrevious() && !collection.isLegacy()) {
+                await(qdrantClient.deleteCollectionAsync(collection.getSource()), "delete " + collection.getSource());
+                log.info("Deleted previous collection {}", collection.getSource());
+            }
+        }
+        log.info("Aliases switched: {}", switching.stream()
+                .map(c -> c.getName() + " -> " + c.getShadow()).toList());
+    }
+
+    private void switchAliases(List<CollectionProgress> switching) {
+        List<Collections.AliasOperations> operations = new ArrayList<>();
+        for (CollectionProgress collection : switching) {
+            if (collection.isLegacy()) {
+                // An alias cannot take the name of an existing collection
+                log.warn("Deleting collection {} so its alias can be created; requests to it fail until then",
+                        collection.getName());
+                await(qdrantClient.deleteCollectionAsync(collection.getName()), "delete " + collection.getName());
+            } else {
+                operations.add(Collections.AliasOperations.newBuilder()
+                        .setDeleteAlias(Collections.DeleteAlias.newBuilder().setAliasName(collection.getName()))
+                        .build());
+            }
+            operations.add(Collections.AliasOperations.newBuilder()
+                    .setCreateAlias(Collections.CreateAlias.newBuilder()
+                            .setAliasName(collection.getName())
+                            .setCollectionName(collection.getShadow()))
+                    .build());
+        }
+        await(qdrantClient.updateAliasesAsync(operations), "switch aliases");
+        if (targetModel != servingModel) {
+            servingModel.switchTo(targetModel);
+            colbertService.ifAvailable(ColbertService::usePerTokenEncoding);
+            log.warn("Now serving with embedding model {}; set app.ai.embedding to app.reindex.embedding "
+                    + "before the next restart", targetFingerprint);
+        }
+        collections.clearStale();
+    }
+
+    // ── Qdrant helpers ──
+
+    private ListenableFuture<Points.ScrollResponse> scroll(String collection, Common.PointId offset, int limit,
+            boolean withPayload) {
+        return scroll(collection, offset, limit, withPayload, null);
+    }
+
+    private ListenableFuture<Points.ScrollResponse> scroll(String collection, Common.PointId offset, int limit,
+            boolean withPayload, Common.Filter filter) {
+        var request = Points.ScrollPoints.newBuilder()
+                .setCollectionName(collection)
+                .setLimit(limit)
+                .setWithVectors(Points.WithVectorsSelector.newBuilder().setEnable(false))
+                .setWithPayload(Points.WithPayloadSelector.newBuilder().setEnable(withPayload));
+        if (offset != null) {
+            request.setOffset(offset);
+        }
+        if (filter != null) {
+            request.setFilter(filter);
+        }
+        return qdrantClient.scrollAsync(request.build());
+    }
+
+    private static Points.PointStruct point(Common.PointId id, Points.Vector vector,
+            Map<String, JsonWithInt.Value> payload) {
+        return Points.PointStruct.newBuilder()
+                .setId(id)
+                .setVectors(Points.Vectors.newBuilder().setVector(vector))
+                .putAllPayload(payload)
+                .build();
+    }
+
+    private static Points.Vector dense(float[] values) {
+        var dense = Points.DenseVector.newBuilder();
+        for (float value : values) {
+            dense.addData(value);
+        }
+        return Points.Vector.newBuilder().setDense(dense).build();
+    }
+
+    private static String key(Common.PointId id) {
+        return id.hasUuid() ? id.getUuid() : Long.toString(id.getNum());
+    }
+
+    private static Common.PointId pointId(String key) {
+        if (key == null) {
+            return null;
+        }
+        return key.indexOf('-') >= 0
+                ? Common.PointId.newBuilder().setUuid(UUID.fromString(key).toString()).build()
+                : Common.PointId.newBuilder().setNum(Long.parseLong(key)).build();
+    }
+
+    // ── Checkpoint ──
+
+    private Properties readCheckpoint() {
+        var saved = new Properties();
+        if (Files.exists(checkpoint)) {
+            try (Reader reader = Files.newBufferedReader(checkpoint)) {
+                saved.load(reader);
+            } catch (IOException e) {
+                log.warn("Could not read reindex checkpoint {}, starting over", checkpoint, e);
+                saved.clear();
+            }
+        }
+        return saved;
+    }
+
+    /** Replace the checkpoint file atomically, so a crash leaves the previous one. */
+    private void saveCheckpoint(ReindexJob job) throws IOException {
+        var state = new Properties();
+        state.setProperty("fingerprint", job.getFingerprint());
+        for (CollectionProgress collection : job.getCollections()) {
+            String name = collection.getName();
+            state.setProperty(name + ".source", collection.getSource());
+            state.setProperty(name + ".shadow", collection.getShadow());
+            state.setProperty(name + ".phase", collection.getPhase().name());
+            state.setProperty(name + ".processed", Long.toString(collection.getProcessed().get()));
+            state.setProperty(name + ".skipped", Long.toString(collection.getSkipped().get()));
+            state.setProperty(name + ".changed-since", Long.toString(collection.getChangedSince()));
+            if (collection.getOffset() != null) {
+                state.setProperty(name + ".offset", collection.getOffset());
+            }
+        }
+        Files.createDirectories(checkpoint.getParent());
+        Path temp = checkpoint.resolveSibling(CHECKPOINT_FILE + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp)) {
+            state.store(writer, "Reindex progress");
+        }
+        Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static <T> T await(ListenableFuture<T> future, String operation) {
+        return await(future::get, operation);
+    }
+
+    private static <T> T await(Call<T> call, String operation) {
+        try {
+            return call.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted: " + operation, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to " + operation + ": " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call<T> {
+        T get() throws InterruptedException, ExecutionException;
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.config.CollectionSchemaProperties;
+import com.example.azopenai.config.QdrantConfig;
+import com.example.azopenai.config.ShardingProperties;
+import com.example.azopenai.config.TransportProperties;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.grpc.Collections;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.qdrant.QdrantVectorStore;
+import org.springframework.ai.vectorstore.qdrant.autoconfigure.QdrantVectorStoreProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Routes documents to collection shards by tenant ({@link ShardingProperties}).
+ *
+ * <p>
+ * A tenant is written to one shard: its pinned shard, or else the shard that
+ * wins weighted rendezvous hashing, so adding a shard or changing a weight
+ * only moves the tenants that now hash to it. While
+ * {@code app.sharding.previous} describes the assignment before such a change,
+ * a moved tenant is searched on its old and its new shard, so its documents
+ * stay findable until they have been moved. Searches that name no tenant fan
+ * out to every shard. The tenant is stored in the {@value #TENANT} payload
+ * field and every tenant search filters on it, since hashed tenants share
+ * shards.
+ * </p>
+ *
+ * <p>
+ * With sharding disabled there is one shard, {@code default}, holding the
+ * configured collections under their own names.
+ * </p>
+ */
+@Slf4j
+@Component
+public class ShardRouter {
+
+    /** Payload and metadata key of the tenant. */
+    public static final String TENANT = "tenant";
+
+    private final List<Shard> shards = new ArrayList<>();
+    private final Map<String, Shard> byName = new LinkedHashMap<>();
+    private final Map<String, QdrantClient> endpointClients = new LinkedHashMap<>();
+    private final ShardingProperties props;
+    private final Shard defaultShard;
+
+    public ShardRouter(ShardingProperties props,
+            QdrantClient qdrantClient,
+            VectorStore vectorStore,
+            EmbeddingModel embeddingModel,
+            BatchingStrategy batchingStrategy,
+            ObjectProvider<ObservationRegistry> observationRegistry,
+            QdrantVectorStoreProperties storeProperties,
+            QdrantCollections collections,
+            TransportProperties transport,
+            MeterRegistry meterRegistry,
+            CollectionSchemaProperties schemas,
+            @Value("${app.qdrant.initialize-schema:true}") boolean initializeSchema) {
+        this.props = props;
+        String documents = storeProperties.getCollectionName();
+        if (!props.isEnabled()) {
+            add(new Shard("default", qdrantClient, vectorStore, false));
+        } else {
+            if (props.getShards().isEmpty()) {
+                throw new IllegalArgumentException("app.sharding.enabled needs at least one app.sharding.shards entry");
+            }
+            props.getShards().forEach((name, cfg) -> {
+                QdrantClient client = client(cfg.getEndpoint(), qdrantClient, transport, meterRegistry);
+                VectorStore store = QdrantVectorStore.builder(client, embeddingModel)
+                        .collectionName(documents + "_" + name)
+                        .contentFieldName(storeProperties.getContentFieldName())
+                        .initializeSchema(false)
+                        .batchingStrategy(batchingStrategy)
+                        .observationRegistry(observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP))
+                        .build();
+                add(new Shard(name, client, store, true));
+            });
+            validate();
+        }
+        this.defaultShard = props.getDefaultShard() == null || props.getDefaultShard().isBlank()
+                ? shards.getFirst()
+                : shard(props.getDefaultShard(), "app.sharding.default-shard");
+        if (props.isEnabled()) {
+            log.info("Sharding documents over {} (default {}); pinned tenants: {}", byName.keySet(),
+                    defaultShard.name(), props.getTenants());
+        }
+        if (initializeSchema) {
+            // Same schema the Spring AI vector store creates
+            for (Shard shard : shards) {
+                collections.register(shard.client(), shard.collection(documents),
+                        dimension -> Collections.VectorParams.newBuilder()
+                                .setSize(dimension)
+                                .setDistance(Collections.Distance.Cosine)
+                                .build(),
+                        schemas.getDocuments());
+            }
+        }
+    }
+
+    private void add(Shard shard) {
+        shards.add(shard);
+        byName.put(shard.name(), shard);
+    }
+
+    private QdrantClient client(String endpoint, QdrantClient primary, TransportProperties transport,
+            MeterRegistry meterRegistry) {
+        if (endpoint == null || endpoint.isBlank()) {
+            return primary;
+        }
+        ShardingProperties.Endpoint cfg = props.getEndpoints().get(endpoint);
+        if (cfg == null) {
+            throw new IllegalArgumentException("Unknown app.sharding endpoint: " + endpoint);
+        }
+        return endpointClients.computeIfAbsent(endpoint, name -> QdrantConfig.client(name, cfg.getHost(),
+                cfg.getPort(), cfg.isUseTls(), cfg.getApiKey(), transport.getQdrant(), meterRegistry));
+    }
+
+    private void validate() {
+        if (shards.stream().noneMatch(shard -> props.getShards().get(shard.name()).getWeight() > 0)) {
+            throw new IllegalArgumentException("At least one app.sharding shard needs a positive weight");
+        }
+        props.getTenants().forEach((tenant, shard) -> shard(shard, "app.sharding.tenants." + tenant));
+        props.getPrevious().getTenants().forEach((tenant, shard) ->
+                shard(shard, "app.sharding.previous.tenants." + tenant));
+        props.getPrevious().getWeights().keySet().forEach(shard -> shard(shard, "app.sharding.previous.weights"));
+    }
+
+    private Shard shard(String name, String setting) {
+        Shard shard = byName.get(name);
+        if (shard == null) {
+            throw new IllegalArgumentException(setting + " names unknown shard " + name);
+        }
+        return shard;
+    }
+
+    /** Every shard, in configuration order. */
+    public List<Shard> shards() {
+        return List.copyOf(shards);
+    }
+
+    /** The shard new documents of a tenant (or of no tenant, when null) are written to. */
+    public Shard writeShard(String tenant) {
+        if (tenant == null || !props.isEnabled()) {
+            return defaultShard;
+        }
+        String pinned = props.getTenants().get(tenant);
+        if (pinned != null) {
+            return byName.get(pinned);
+        }
+        return byName.get(rendezvous(tenant, name -> props.getShards().get(name).getWeight(), byName.keySet()));
+    }
+
+    /**
+     * The shards a search of the tenant must read: its write shard and, during
+     * a rebalancing, its previous shard; every shard when no tenant is given.
+     */
+    public List<Shard> readShards(String tenant) {
+        if (!props.isEnabled()) {
+            return List.of(defaultShard);
+        }
+        if (tenant == null) {
+            return shards();
+        }
+        Shard current = writeShard(tenant);
+        Shard previous = previousShard(tenant);
+        return previous == null || previous == current ? List.of(current) : List.of(current, previous);
+    }
+
+    private Shard previousShard(String tenant) {
+        ShardingProperties.Previous previous = props.getPrevious();
+        if (previous.getTenants().isEmpty() && previous.getWeights().isEmpty()) {
+            return null;
+        }
+        String pinned = previous.getTenants().get(tenant);
+        if (pinned != null) {
+            return byName.get(pinned);
+        }
+        // Without previous weights only the pins changed, so the weights are the current ones
+        String hashed = previous.getWeights().isEmpty()
+                ? rendezvous(tenant, name -> props.getShards().get(name).getWeight(), byName.keySet())
+                : rendezvous(tenant, previous.getWeights()::get, previous.getWeights().keySet());
+        return hashed != null ? byName.get(hashed) : null;
+    }
+
+    /**
+     * Weighted rendezvous hashing: the shard with the highest
+     * {@code -weight / ln(hash(tenant, shard))}, hash uniform in (0, 1).
+     */
+    static String rendezvous(String tenant, Function<String, Double> weight, Iterable<String> names) {
+        String best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (String name : names) {
+            double w = weight.apply(name);
+            if (w <= 0) {
+                continue;
+            }
+            long hash = Hashing.murmur3_128().hashString(tenant + "\u0000" + name, StandardCharsets.UTF_8).asLong();
+            double unit = ((hash >>> 11) + 0.5) / (1L << 53);
+            double score = -w / Math.log(unit);
+            if (score > bestScore) {
+                bestScore = score;
+                best = name;
+            }
+        }
+        return best;
+    }
+
+    /** The tenant of a request, null when it names none. */
+    public static String tenant(String tenant) {
+        return tenant == null || tenant.isBlank() ? null : tenant;
+    }
+
+    /** The tenant of a document's metadata or payload, or null. */
+    public static String tenantOf(Map<String, ?> metadata) {
+        Object tenant = metadata != null ? metadata.get(TENANT) : null;
+        return tenant != null ? tenant(tenant.toString()) : null;
+    }
+
+    /**
+     * Metadata with the tenant set, or the metadata as given when the tenant
+     * is null or blank.
+     */
+    public static Map<String, Object> withTenant(Map<String, Object> metadata, String tenant) {
+        if (tenant == null || tenant.isBlank()) {
+            return metadata;
+        }
+        Map<String, Object> tagged = metadata != null ? new LinkedHashMap<>(metadata) : new LinkedHashMap<>();
+        tagged.put(TENANT, tenant);
+        return tagged;
+    }
+
+    /** Items grouped by the shard their tenant is written to, in first-seen order. */
+    public <T> Map<Shard, List<T>> byWriteShard(List<T> items, Function<T, String> tenant) {
+        Map<Shard, List<T>> groups = new LinkedHashMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(writeShard(tenant.apply(item)), shard -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+
+    @PreDestroy
+    void close() {
+        endpointClients.values().forEach(QdrantClient::close);
+    }
+
+    /**
+     * One shard: its Qdrant endpoint and the vector store writing its
+     * documents collection.
+     */
+    public record Shard(String name, QdrantClient client, VectorStore vectorStore, boolean suffixed) {
+
+        /** This shard's copy of a configured collection. */
+        public String collection(String base) {
+            return suffixed ? base + "_" + name : base;
+        }
+    }
+}
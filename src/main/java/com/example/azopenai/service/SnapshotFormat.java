@@ -0,0 +1,340 @@
+package com.example.azopenai.service;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.qdrant.client.grpc.Collections;
+import io.qdrant.client.grpc.Common;
+import io.qdrant.client.grpc.JsonWithInt;
+import io.qdrant.client.grpc.Points;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Binary snapshot file of one Qdrant collection with an unnamed dense or
+ * multi-vector, little-endian throughout.
+ *
+ * <pre>
+ * file   := magic "QVSNAP01" | int paramsLength | VectorParams (protobuf) | chunk* | int 0
+ * chunk  := int length | int count
+ *           | byte[count] idKind (0 number, 1 UUID) | long[2 * count] id
+ *           | int[count] rows (multi-vector only) | float[rows * size] vectors
+ *           | int[count] payloadLength | Struct (protobuf)*
+ * </pre>
+ *
+ * Each chunk is one scroll page, stored column by column so vectors are read
+ * and written as contiguous float runs. The length prefix lets an importer
+ * find every chunk with a few small reads and map them independently.
+ */
+final class SnapshotFormat {
+
+    static final byte[] MAGIC = "QVSNAP01".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte NUMBER_ID = 0;
+    private static final byte UUID_ID = 1;
+    private static final int COPY_BUFFER = 1 << 16;
+
+    private SnapshotFormat() {
+    }
+
+    /** Vector layout from the file header. */
+    record Header(Collections.VectorParams params, long dataOffset) {
+        int size() {
+            return (int) params.getSize();
+        }
+
+        boolean multiVector() {
+            return params.hasMultivectorConfig();
+        }
+    }
+
+    /** Position and point count of one chunk in the file. */
+    record Chunk(long offset, int length, int count) {
+    }
+
+    // ── Writing ──
+
+    /** Streams chunks through one small reusable buffer. Not thread-safe. */
+    static final class Writer {
+
+        private final WritableByteChannel out;
+        private final Header header;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(COPY_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        private long bytesWritten;
+
+        Writer(WritableByteChannel out, Collections.VectorParams params) throws IOException {
+            this.out = out;
+            this.header = new Header(params, 0);
+            byte[] encoded = params.toByteArray();
+            buffer.put(MAGIC).putInt(encoded.length);
+            put(encoded);
+        }
+
+        long bytesWritten() {
+            return bytesWritten;
+        }
+
+        /** Append one chunk; returns the number of vector rows written. */
+        long write(List<Points.RetrievedPoint> points) throws IOException {
+            int count = points.size();
+            int size = header.size();
+            int[] rows = new int[count];
+            byte[][] payloads = new byte[count][];
+            long totalRows = 0;
+            long payloadBytes = 0;
+            for (int i = 0; i < count; i++) {
+                Points.RetrievedPoint point = points.get(i);
+                rows[i] = rows(point, size);
+                totalRows += rows[i];
+                payloads[i] = JsonWithInt.Struct.newBuilder().putAllFields(point.getPayloadMap()).build()
+                        .toByteArray();
+                payloadBytes += payloads[i].length;
+            }
+
+            long length = 4L + count + 16L * count + (header.multiVector() ? 4L * count : 0)
+                    + 4L * totalRows * size + 4L * count + payloadBytes;
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Snapshot chunk of " + count + " points exceeds 2 GB");
+            }
+
+            ensure(8);
+            buffer.putInt((int) length).putInt(count);
+            for (Points.RetrievedPoint point : points) {
+                ensure(1);
+                buffer.put(point.getId().hasUuid() ? UUID_ID : NUMBER_ID);
+            }
+            for (Points.RetrievedPoint point : points) {
+                ensure(16);
+                Common.PointId id = point.getId();
+                if (id.hasUuid()) {
+                    UUID uuid = UUID.fromString(id.getUuid());
+                    buffer.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+                } else {
+                    buffer.putLong(id.getNum()).putLong(0);
+                }
+            }
+            if (header.multiVector()) {
+                for (int r : rows) {
+                    ensure(4);
+                    buffer.putInt(r);
+                }
+            }
+            for (Points.RetrievedPoint point : points) {
+                writeVector(point.getVectors().getVector());
+            }
+            for (byte[] payload : payloads) {
+                ensure(4);
+                buffer.putInt(payload.length);
+            }
+            for (byte[] payload : payloads) {
+                put(payload);
+            }
+            return totalRows;
+        }
+
+        /** Write the end marker and flush. */
+        void finish() throws IOException {
+            ensure(4);
+            buffer.putInt(0);
+            flush();
+        }
+
+        private void writeVector(Points.VectorOutput vector) throws IOException {
+            if (vector.hasMultiDense()) {
+                for (Points.DenseVector row : vector.getMultiDense().getVectorsList()) {
+                    for (int d = 0; d < row.getDataCount(); d++) {
+                        ensure(4);
+                        buffer.putFloat(row.getData(d));
+                    }
+                }
+            } else if (vector.hasDense()) {
+                for (int d = 0; d < vector.getDense().getDataCount(); d++) {
+                    ensure(4);
+                    buffer.putFloat(vector.getDense().getData(d));
+                }
+            } else {
+                for (int d = 0; d < vector.getDataCount(); d++) {
+                    ensure(4);
+                    buffer.putFloat(vector.getData(d));
+                }
+            }
+        }
+
+        private void put(byte[] bytes) throws IOException {
+            for (int from = 0; from < bytes.length; ) {
+                ensure(1);
+                int n = Math.min(buffer.remaining(), bytes.length - from);
+                buffer.put(bytes, from, n);
+                from += n;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                bytesWritten += out.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /** Number of vector rows of a point, checking each has {@code size} dimensions. */
+    private static int rows(Points.RetrievedPoint point, int size) {
+        if (!point.getVectors().hasVector()) {
+            throw new IllegalArgumentException("Point " + point.getId() + " has no unnamed vector");
+        }
+        Points.VectorOutput vector = point.getVectors().getVector();
+        int rows;
+        int values;
+        if (vector.hasMultiDense()) {
+            rows = vector.getMultiDense().getVectorsCount();
+            values = vector.getMultiDense().getVectorsList().stream().mapToInt(Points.DenseVector::getDataCount).sum();
+        } else if (vector.hasDense()) {
+            rows = 1;
+            values = vector.getDense().getDataCount();
+        } else {
+            rows = vector.hasVectorsCount() ? vector.getVectorsCount() : 1;
+            values = vector.getDataCount();
+        }
+        if (values != rows * size) {
+            throw new IllegalArgumentException("Point " + point.getId() + " has " + values
+                    + " vector values, expected " + rows + " x " + size);
+        }
+        return rows;
+    }
+
+    // ── Reading ──
+
+    static Header readHeader(FileChannel channel) throws IOException {
+        ByteBuffer head = read(channel, 0, MAGIC.length + 4);
+        byte[] magic = new byte[MAGIC.length];
+        head.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IllegalArgumentException("Not a vector snapshot file");
+        }
+        int paramsLength = head.getInt();
+        ByteBuffer params = read(channel, MAGIC.length + 4, paramsLength);
+        try {
+            return new Header(Collections.VectorParams.parseFrom(params), MAGIC.length + 4L + paramsLength);
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalArgumentException("Corrupt snapshot header", e);
+        }
+    }
+
+    /** Locate every chunk with one 8-byte read each. */
+    static List<Chunk> scan(FileChannel channel, Header header) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        long size = channel.size();
+        long position = header.dataOffset();
+        while (true) {
+            if (position + 4 > size) {
+                throw new IllegalArgumentException("Truncated snapshot file: no end marker");
+            }
+            int length = read(channel, position, 4).getInt();
+            if (length == 0) {
+                return chunks;
+            }
+            if (length < 4 || position + 4 + length > size) {
+                throw new IllegalArgumentException("Truncated snapshot file at byte " + position);
+            }
+            int count = read(channel, position + 4, 4).getInt();
+            chunks.add(new Chunk(position + 4, length, count));
+            position += 4L + length;
+        }
+    }
+
+    /** Decode a mapped chunk into points. */
+    static List<Points.PointStruct> decode(ByteBuffer chunk, Header header) {
+        ByteBuffer in = chunk.order(ByteOrder.LITTLE_ENDIAN);
+        int count = in.getInt();
+        int size = header.size();
+
+        byte[] kinds = new byte[count];
+        in.get(kinds);
+        Common.PointId[] ids = new Common.PointId[count];
+        for (int i = 0; i < count; i++) {
+            long high = in.getLong();
+            long low = in.getLong();
+            ids[i] = kinds[i] == UUID_ID
+                    ? Common.PointId.newBuilder().setUuid(new UUID(high, low).toString()).build()
+                    : Common.PointId.newBuilder().setNum(high).build();
+        }
+        int[] rows = new int[count];
+        if (header.multiVector()) {
+            in.asIntBuffer().get(rows);
+            in.position(in.position() + 4 * count);
+        } else {
+            Arrays.fill(rows, 1);
+        }
+
+        FloatBuffer floats = in.asFloatBuffer();
+        Points.Vector[] vectors = new Points.Vector[count];
+        float[] row = new float[size];
+        for (int i = 0; i < count; i++) {
+            if (header.multiVector()) {
+                var multi = Points.MultiDenseVector.newBuilder();
+                for (int r = 0; r < rows[i]; r++) {
+                    floats.get(row);
+                    multi.addVectors(dense(row));
+                }
+                vectors[i] = Points.Vector.newBuilder().setMultiDense(multi).build();
+            } else {
+                floats.get(row);
+                vectors[i] = Points.Vector.newBuilder().setDense(dense(row)).build();
+            }
+        }
+        in.position(in.position() + 4 * floats.position());
+
+        int[] payloadLengths = new int[count];
+        in.asIntBuffer().get(payloadLengths);
+        in.position(in.position() + 4 * count);
+
+        List<Points.PointStruct> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ByteBuffer payload = in.slice(in.position(), payloadLengths[i]);
+            in.position(in.position() + payloadLengths[i]);
+            try {
+                points.add(Points.PointStruct.newBuilder()
+                        .setId(ids[i])
+                        .setVectors(Points.Vectors.newBuilder().setVector(vectors[i]))
+                        .putAllPayload(JsonWithInt.Struct.parseFrom(payload).getFieldsMap())
+                        .build());
+            } catch (InvalidProtocolBufferException e) {
+                throw new IllegalArgumentException("Corrupt payload of point " + ids[i], e);
+            }
+        }
+        return points;
+    }
+
+    private static Points.DenseVector dense(float[] values) {
+        var dense = Points.DenseVector.newBuilder();
+        for (float value : values) {
+            dense.addData(value);
+        }
+        return dense.build();
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IllegalArgumentException("Truncated snapshot file");
+            }
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.azopenai.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Progress of a snapshot import into one collection. Counters are updated by
+ * the upsert workers and read by pollers.
+ */
+@Getter
+public class SnapshotJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String jobId;
+    private final String collection;
+    private final long totalPoints;
+    private final Instant createdAt = Instant.now();
+    private final AtomicLong imported = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final AtomicReference<String> error = new AtomicReference<>();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    public SnapshotJob(String jobId, String collection, long totalPoints) {
+        this.jobId = jobId;
+        this.collection = collection;
+        this.totalPoints = totalPoints;
+    }
+
+    void markRunning() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    /** Record the first failure; later ones are usually consequences of it. */
+    void fail(Throwable cause) {
+        error.compareAndSet(null, String.valueOf(cause.getMessage()));
+    }
+
+    public String getError() {
+        return error.get();
+    }
+
+    void markFinished() {
+        finishedAt = Instant.now();
+        status = error.get() == null ? Status.COMPLETED : Status.FAILED;
+    }
+
+    public boolean isFinished() {
+        return finishedAt != null;
+    }
+
+    public boolean isFailing() {
+        return error.get() != null;
+    }
+
+    /** Elapsed processing time, up to now for running jobs. */
+    public long elapsedMs() {
+        if (startedAt == null) {
+            return 0;
+        }
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        return end.toEpochMilli() - startedAt.toEpochMilli();
+    }
+
+    /** Imported points per second over the elapsed processing time. */
+    public double throughputPerSecond() {
+        long elapsed = elapsedMs();
+        return elapsed == 0 ? 0 : imported.get() * 1000.0 / elapsed;
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.config.ExecutorFactory;
+import com.example.azopenai.config.PipelineMetrics;
+import com.example.azopenai.config.PipelineMetrics.Stage;
+import com.example.azopenai.config.SnapshotProperties;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.grpc.Collections;
+import io.qdrant.client.grpc.Common;
+import io.qdrant.client.grpc.Points;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+import static io.qdrant.client.ValueFactory.value;
+
+/**
+ * Moves collections between Qdrant instances as {@link SnapshotFormat} files,
+ * vectors and payloads included, so nothing is re-embedded or re-summarized.
+ *
+ * <p>
+ * Export scrolls the collection page by page, fetching the next page while the
+ * current one is written, and sizes pages from the bytes per point seen so far
+ * so that multi-vector pages stay under the gRPC message limit. Import spools
+ * the upload to disk, memory-maps each chunk and upserts the chunks in
+ * parallel batches on a bounded executor, as a job that can be polled.
+ * </p>
+ */
+@Slf4j
+@Service
+public class SnapshotService {
+
+    /** Rows assumed per multi-vector point before the first page is seen. */
+    private static final int ASSUMED_ROWS = 128;
+
+    private final QdrantClient qdrantClient;
+    private final QdrantCollections collections;
+    private final SnapshotProperties props;
+    private final PipelineMetrics pipelineMetrics;
+    private final Executor jobExecutor;
+    private final Executor upsertExecutor;
+    private final WriteGate writeGate;
+    private final Map<String, SnapshotJob> jobs = new ConcurrentHashMap<>();
+
+    public SnapshotService(QdrantClient qdrantClient,
+            QdrantCollections collections,
+            SnapshotProperties props,
+            PipelineMetrics pipelineMetrics,
+            ExecutorFactory executorFactory,
+            WriteGate writeGate) {
+        this.qdrantClient = qdrantClient;
+        this.collections = collections;
+        this.props = props;
+        this.pipelineMetrics = pipelineMetrics;
+        this.jobExecutor = executorFactory.boundedExecutor("snapshot-import", props.getMaxConcurrentImports());
+        this.upsertExecutor = executorFactory.boundedExecutor("snapshot-upsert", props.getImportConcurrency());
+        this.writeGate = writeGate;
+    }
+
+    /** Whether the collection, or the collection an alias of that name points at, exists. */
+    public boolean exists(String collection) {
+        return await(qdrantClient.collectionExistsAsync(collections.resolve(collection)),
+                "check collection " + collection);
+    }
+
+    // ── Export ──
+
+    /**
+     * Write the whole collection to {@code out}; returns the number of points.
+     * A failure part-way leaves the file without its end marker, so it cannot
+     * be imported by mistake.
+     */
+    public long export(String collection, OutputStream out) throws IOException {
+        Collections.VectorParams params = vectorParams(collection);
+        var writer = new SnapshotFormat.Writer(Channels.newChannel(out), params);
+        long pageBytes = props.getExportPageSize().toBytes();
+        long assumedPointBytes = 4L * params.getSize() * (params.hasMultivectorConfig() ? ASSUMED_ROWS : 1);
+        int limit = pageLimit(pageBytes / assumedPointBytes);
+
+        long start = System.nanoTime();
+        long points = 0;
+        long rows = 0;
+        var next = scroll(collection, null, limit);
+        while (next != null) {
+            Points.ScrollResponse page = await(next, "scroll " + collection);
+            int count = page.getResultCount();
+            if (count > 0) {
+                limit = pageLimit(pageBytes / Math.max(1, page.getSerializedSize() / count));
+            }
+            // Fetch the next page while this one is written
+            next = page.hasNextPageOffset() ? scroll(collection, page.getNextPageOffset(), limit) : null;
+            if (count > 0) {
+                rows += writer.write(page.getResultList());
+                points += count;
+            }
+        }
+        writer.finish();
+        log.info("Exported {} points ({} vectors, {} MB) from {} in {} ms", points, rows,
+                writer.bytesWritten() >> 20, collection, (System.nanoTime() - start) / 1_000_000);
+        return points;
+    }
+
+    private ListenableFuture<Points.ScrollResponse> scroll(String collection, Common.PointId offset, int limit) {
+        var request = Points.ScrollPoints.newBuilder()
+                .setCollectionName(collection)
+                .setLimit(limit)
+                .setWithVectors(Points.WithVectorsSelector.newBuilder().setEnable(true))
+                .setWithPayload(Points.WithPayloadSelector.newBuilder().setEnable(true));
+        if (offset != null) {
+            request.setOffset(offset);
+        }
+        return qdrantClient.scrollAsync(request.build());
+    }
+
+    private int pageLimit(long points) {
+        return (int) Math.clamp(points, 1, props.getMaxExportPoints());
+    }
+
+    // ── Import ──
+
+    /**
+     * Spool a snapshot to disk, check it against the target collection
+     * (created from the snapshot's vector parameters if missing) and start
+     * importing it in the background.
+     *
+     * @throws IllegalArgumentException if the file is not a complete snapshot or
+     *                                  the collection has a different vector layout
+     */
+    public SnapshotJob submitImport(String collection, InputStream snapshot) throws IOException {
+        evictExpiredJobs();
+        Path file = props.getSpoolDirectory() == null || props.getSpoolDirectory().isBlank()
+                ? Files.createTempFile("snapshot-", ".qvsnap")
+                : Files.createTempFile(Path.of(props.getSpoolDirectory()), "snapshot-", ".qvsnap");
+        FileChannel channel = null;
+        try {
+            Files.copy(snapshot, file, StandardCopyOption.REPLACE_EXISTING);
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            SnapshotFormat.Header header = SnapshotFormat.readHeader(channel);
+            List<SnapshotFormat.Chunk> chunks = SnapshotFormat.scan(channel, header);
+            prepareCollection(collection, header.params());
+
+            long total = chunks.stream().mapToLong(SnapshotFormat.Chunk::count).sum();
+            var job = new SnapshotJob(UUID.randomUUID().toString(), collection, total);
+            FileChannel source = channel;
+            jobExecutor.execute(PipelineMetrics.propagate(() -> runImport(job, file, source, header, chunks)));
+            jobs.put(job.getJobId(), job);
+            log.info("Submitted snapshot import job {}: {} points in {} chunks into {}",
+                    job.getJobId(), total, chunks.size(), collection);
+            return job;
+        } catch (IOException | RuntimeException e) {
+            close(file, channel);
+            throw e;
+        }
+    }
+
+    public Optional<SnapshotJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void runImport(SnapshotJob job, Path file, FileChannel channel, SnapshotFormat.Header header,
+            List<SnapshotFormat.Chunk> chunks) {
+        job.markRunning();
+        try {
+            var tasks = chunks.stream()
+                    .map(chunk -> CompletableFuture.runAsync(PipelineMetrics.propagate(
+                            () -> importChunk(job, channel, header, chunk)), upsertExecutor))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(tasks).join();
+        } catch (RuntimeException e) {
+            job.fail(e);
+        } finally {
+            close(file, channel);
+            job.markFinished();
+            log.info("Snapshot import job {} finished: status={}, imported={}/{}, {} ms",
+                    job.getJobId(), job.getStatus(), job.getImported().get(), job.getTotalPoints(), job.elapsedMs());
+        }
+    }
+
+    private void importChunk(SnapshotJob job, FileChannel channel, SnapshotFormat.Header header,
+            SnapshotFormat.Chunk chunk) {
+        if (job.isFailing()) {
+            return;
+        }
+        try {
+            var mapped = channel.map(FileChannel.MapMode.READ_ONLY, chunk.offset(), chunk.length());
+            List<Points.PointStruct> points = SnapshotFormat.decode(mapped, header);
+            for (int from = 0; from < points.size() && !job.isFailing(); from += props.getUpsertBatchSize()) {
+                List<Points.PointStruct> batch = points.subList(from,
+                        Math.min(points.size(), from + props.getUpsertBatchSize()));
+                // Stamped like any other write, so a running re-embedding picks them up
+                writeGate.write(() -> {
+                    var updatedAt = value(WriteGate.now());
+                    var request = Points.UpsertPoints.newBuilder()
+                            .setCollectionName(job.getCollection())
+                            .setWait(true);
+                    batch.forEach(point -> request.addPoints(
+                            point.toBuilder().putPayload(WriteGate.UPDATED_AT, updatedAt)));
+                    pipelineMetrics.time(Stage.QDRANT_UPSERT, () -> await(qdrantClient.upsertAsync(request.build()),
+                            "upsert into " + job.getCollection()));
+                });
+                pipelineMetrics.vectors(Stage.QDRANT_UPSERT, batch.size());
+                job.getImported().addAndGet(batch.size());
+            }
+        } catch (IOException e) {
+            job.fail(new UncheckedIOException(e));
+        } catch (RuntimeException e) {
+            log.warn("Snapshot import job {}: chunk at byte {} failed", job.getJobId(), chunk.offset(), e);
+            job.fail(e);
+        }
+    }
+
+    private void prepareCollection(String collection, Collections.VectorParams params) {
+        if (!exists(collection)) {
+            collections.create(collection, collection, params);
+            log.info("Created collection {} ({} dimensions{}) for snapshot import", collection, params.getSize(),
+                    params.hasMultivectorConfig() ? ", multi-vector" : "");
+            return;
+        }
+        Collections.VectorParams existing = vectorParams(collection);
+        if (existing.getSize() != params.getSize()
+                || existing.hasMultivectorConfig() != params.hasMultivectorConfig()) {
+            throw new IllegalArgumentException("Collection " + collection + " has " + describe(existing)
+                    + " vectors, snapshot has " + describe(params));
+        }
+    }
+
+    private Collections.VectorParams vectorParams(String collection) {
+        Collections.VectorsConfig config = await(qdrantClient.getCollectionInfoAsync(collections.resolve(collection)),
+                "read collection " + collection).getConfig().getParams().getVectorsConfig();
+        if (!config.hasParams()) {
+            throw new IllegalArgumentException(
+                    "Collection " + collection + " uses named vectors, which snapshots do not support");
+        }
+        return config.getParams();
+    }
+
+    private static String describe(Collections.VectorParams params) {
+        return params.getSize() + "-dimension " + (params.hasMultivectorConfig() ? "multi-" : "dense ");
+    }
+
+    private static <T> T await(ListenableFuture<T> future, String operation) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted: " + operation, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to " + operation + ": " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static void close(Path file, FileChannel channel) {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not remove spooled snapshot {}", file, e);
+        }
+    }
+
+    private void evictExpiredJobs() {
+        Instant cutoff = Instant.now().minus(props.getJobRetention());
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.azopenai.service;
+
+/**
+ * Raised when the vector store cannot take a request yet or any more: its
+ * collections are still being initialized, writes are paused for a model
+ * switch, or the writers are shutting down. Mapped to 503.
+ */
+public class StoreNotReadyException extends RuntimeException {
+
+    public StoreNotReadyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.config.SummaryCacheProperties;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory semantic cache of text summaries ({@link SummaryCacheProperties}).
+ *
+ * <p>
+ * A text is first normalized: URL tracking parameters are dropped and runs of
+ * whitespace collapsed. A normalized text seen before is an exact hit and
+ * costs no model call. Otherwise the text is embedded and compared with every
+ * cached text of the same instruction; the most similar one is a hit when its
+ * cosine similarity reaches {@code similarity-threshold} and the two texts'
+ * lengths are within {@code min-length-ratio} of each other. Near-duplicates
+ * that fail the length check are counted as {@code rejected}. Entries expire
+ * after {@code ttl}, and beyond {@code max-entries} the oldest are evicted; a
+ * linear scan of a few thousand vectors costs far less than the chat call it
+ * saves.
+ * </p>
+ *
+ * <p>
+ * Meters: counter {@code summary.cache.lookups} with a {@code result} of
+ * {@code exact-hit}, {@code hit}, {@code shadow-hit}, {@code rejected},
+ * {@code miss} or {@code error}; distribution summary
+ * {@code summary.cache.similarity} of the best similarity found, in percent
+ * and bucketed around the threshold; gauge {@code summary.cache.entries}.
+ * </p>
+ */
+@Slf4j
+@Component
+public class SummaryCache {
+
+    private static final Pattern URL = Pattern.compile("https?://[^\\s\"'<>]+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final SummaryCacheProperties props;
+    private final EmbeddingModel embeddingModel;
+    private final MeterRegistry registry;
+    private final DistributionSummary similarities;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /** By exact key, oldest first. */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    public SummaryCache(SummaryCacheProperties props, EmbeddingModel embeddingModel, MeterRegistry registry) {
+        this.props = props;
+        this.embeddingModel = embeddingModel;
+        this.registry = registry;
+        // Recorded as a percentage: histogram buckets are not fine enough below 1
+        this.similarities = DistributionSummary.builder("summary.cache.similarity")
+                .description("Similarity of the closest cached text to a summarized text")
+                .baseUnit("percent")
+                .scale(100)
+                .serviceLevelObjectives(80, 85, 90, 93, 95, 96, 97, 98, 99, 99.5)
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(registry);
+        Gauge.builder("summary.cache.entries", this, SummaryCache::size)
+                .description("Cached summaries")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return props.isEnabled();
+    }
+
+    /**
+     * Find a cached summary of the text (or of a near-duplicate) made with the
+     * same instruction. In shadow mode a hit is recorded but not returned.
+     * Embedding failures are logged and treated as a miss.
+     */
+    public Lookup lookup(String text, String instruction) {
+        String normalized = normalize(text);
+        String instructionKey = instruction != null ? instruction : "";
+        String key = Hashing.sha256()
+                .hashString(instructionKey + "\u0000" + normalized, StandardCharsets.UTF_8)
+                .toString();
+
+        Entry exact = read(() -> entries.get(key));
+        if (exact != null && !exact.expired(System.nanoTime())) {
+            similarities.record(1.0);
+            if (props.isShadow()) {
+                // Keep the entry's vector when the fresh summary replaces it
+                return result(new Lookup(key, instructionKey, normalized, exact.vector(), null, 1.0), "shadow-hit");
+            }
+            return result(new Lookup(key, instructionKey, normalized, null, exact, 1.0), "exact-hit");
+        }
+        if (normalized.length() > props.getMaxTextLength()) {
+            return result(new Lookup(key, instructionKey, normalized, null, null, 0), "miss");
+        }
+
+        float[] vector;
+        try {
+            vector = unit(embeddingModel.embed(normalized));
+        } catch (RuntimeException e) {
+            log.warn("Summary cache lookup skipped, embedding failed: {}", e.getMessage());
+            return result(new Lookup(key, instructionKey, normalized, null, null, 0), "error");
+        }
+
+        Entry best = null;
+        double bestSimilarity = -1;
+        long now = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            for (Entry entry : entries.values()) {
+                if (entry.vector() == null || entry.vector().length != vector.length || entry.expired(now)
+                        || !entry.instruction().equals(instructionKey)) {
+                    continue;
+                }
+                double similarity = dot(vector, entry.vector());
+                if (similarity > bestSimilarity) {
+                    bestSimilarity = similarity;
+                    best = entry;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (best == null) {
+            return result(new Lookup(key, instructionKey, normalized, vector, null, 0), "miss");
+        }
+        similarities.record(Math.max(0, bestSimilarity));
+        if (bestSimilarity < props.getSimilarityThreshold()) {
+            return result(new Lookup(key, instructionKey, normalized, vector, null, bestSimilarity), "miss");
+        }
+        double lengthRatio = (double) Math.min(best.length(), normalized.length())
+                / Math.max(best.length(), normalized.length());
+        if (lengthRatio < props.getMinLengthRatio()) {
+            return result(new Lookup(key, instructionKey, normalized, vector, null, bestSimilarity), "rejected");
+        }
+        if (props.isShadow()) {
+            return result(new Lookup(key, instructionKey, normalized, vector, null, bestSimilarity), "shadow-hit");
+        }
+        return result(new Lookup(key, instructionKey, normalized, vector, best, bestSimilarity), "hit");
+    }
+
+    /** Cache the summary of a text that {@link #lookup} missed. */
+    public void put(Lookup lookup, String summary) {
+        long now = System.nanoTime();
+        var entry = new Entry(lookup.instruction(), summary, lookup.vector(), lookup.normalized().length(),
+                now + props.getTtl().toNanos());
+        lock.writeLock().lock();
+        try {
+            entries.remove(lookup.key());
+            entries.put(lookup.key(), entry);
+            Iterator<Entry> oldest = entries.values().iterator();
+            while (oldest.hasNext()) {
+                Entry next = oldest.next();
+                if (entries.size() <= props.getMaxEntries() && !next.expired(now)) {
+                    break;
+                }
+                oldest.remove();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Drop every entry, e.g. after a wrong hit has been reported. */
+    public int clear() {
+        lock.writeLock().lock();
+        try {
+            int size = entries.size();
+            entries.clear();
+            log.info("Summary cache cleared ({} entries)", size);
+            return size;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        return read(entries::size);
+    }
+
+    private Lookup result(Lookup lookup, String result) {
+        Counter.builder("summary.cache.lookups")
+                .description("Summary cache lookups by result")
+                .tag("result", result)
+                .register(registry)
+                .increment();
+        log.debug("Summary cache {} (similarity {})", result, lookup.similarity());
+        return lookup;
+    }
+
+    private <T> T read(Supplier<T> value) {
+        lock.readLock().lock();
+        try {
+            return value.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Text as compared: tracking parameters removed from URLs, whitespace collapsed. */
+    String normalize(String text) {
+        Matcher urls = URL.matcher(text);
+        StringBuilder out = new StringBuilder(text.length());
+        while (urls.find()) {
+            urls.appendReplacement(out, Matcher.quoteReplacement(stripTracking(urls.group())));
+        }
+        urls.appendTail(out);
+        return WHITESPACE.matcher(out).replaceAll(" ").strip();
+    }
+
+    private String stripTracking(String url) {
+        int query = url.indexOf('?');
+        if (query < 0) {
+            return url;
+        }
+        int fragment = url.indexOf('#', query);
+        String params = fragment < 0 ? url.substring(query + 1) : url.substring(query + 1, fragment);
+        StringBuilder kept = new StringBuilder();
+        for (String param : params.split("&")) {
+            int eq = param.indexOf('=');
+            if (!param.isEmpty() && !ignored(eq < 0 ? param : param.substring(0, eq))) {
+                kept.append(kept.isEmpty() ? "?" : "&").append(param);
+            }
+        }
+        return url.substring(0, query) + kept + (fragment < 0 ? "" : url.substring(fragment));
+    }
+
+    private boolean ignored(String name) {
+        for (String pattern : props.getIgnoredQueryParameters()) {
+            if (pattern.endsWith("*") ? name.startsWith(pattern.substring(0, pattern.length() - 1))
+                    : name.equals(pattern)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static float[] unit(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float scale = norm == 0 ? 0 : (float) (1 / Math.sqrt(norm));
+        float[] unit = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            unit[i] = vector[i] * scale;
+        }
+        return unit;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private record Entry(String instruction, String summary, float[] vector, int length, long expiresAt) {
+
+        boolean expired(long now) {
+            return now - expiresAt > 0;
+        }
+    }
+
+    /**
+     * Outcome of a lookup: the cached summary on a hit (null otherwise) and the
+     * best similarity found, plus what {@link #put} needs to cache the summary
+     * on a miss.
+     */
+    public static final class Lookup {
+        private final String key;
+        private final String instruction;
+        private final String normalized;
+        private final float[] vector;
+        private final Entry hit;
+        private final double similarity;
+
+        private Lookup(String key, String instruction, String normalized, float[] vector, Entry hit,
+                double similarity) {
+            this.key = key;
+            this.instruction = instruction;
+            this.normalized = normalized;
+            this.vector = vector;
+            this.hit = hit;
+            this.similarity = similarity;
+        }
+
+        public boolean isHit() {
+            return hit != null;
+        }
+
+        /** The cached summary, or null on a miss. */
+        public String summary() {
+            return hit != null ? hit.summary() : null;
+        }
+
+        public double similarity() {
+            return similarity;
+        }
+
+        String key() {
+            return key;
+        }
+
+        String instruction() {
+            return instruction;
+        }
+
+        String normalized() {
+            return normalized;
+        }
+
+        float[] vector() {
+            return vector;
+        }
+    }
+}
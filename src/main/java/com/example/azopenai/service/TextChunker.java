@@ -0,0 +1,76 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.config.ChunkingProperties;
+import com.example.azopenai.tokenizer.TokenBuffer;
+import com.example.azopenai.tokenizer.Tokenizer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits text into overlapping chunks of at most
+ * {@link ChunkingProperties#getMaxTokens()} tokens.
+ *
+ * <p>
+ * The text is tokenized once and windows are cut on token boundaries. In the
+ * second half of a window the chunk ends after the last token that closes a
+ * sentence or is followed by a line break, when there is one, so chunks rarely
+ * stop mid-sentence. Chunks keep their character offsets in the source text.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class TextChunker {
+
+    private final Tokenizer tokenizer;
+    private final ChunkingProperties props;
+
+    /** One chunk: {@code text} is {@code source.substring(start, end)}. */
+    public record Chunk(int index, int start, int end, String text) {
+    }
+
+    public List<Chunk> split(String text) {
+        var tokens = new TokenBuffer(Math.max(64, text.length() / 4));
+        tokenizer.encode(text, tokens);
+        int max = Math.max(1, props.getMaxTokens());
+        if (tokens.size() <= max) {
+            return List.of(new Chunk(0, 0, text.length(), text));
+        }
+        int overlap = Math.clamp(props.getOverlapTokens(), 0, max / 2);
+
+        List<Chunk> chunks = new ArrayList<>();
+        int first = 0;
+        while (true) {
+            int last = Math.min(first + max, tokens.size());
+            if (last < tokens.size()) {
+                last = sentenceEnd(text, tokens, first + max / 2, last);
+            }
+            int start = first == 0 ? 0 : tokens.start(first);
+            int end = last == tokens.size() ? text.length() : tokens.end(last - 1);
+            chunks.add(new Chunk(chunks.size(), start, end, text.substring(start, end)));
+            if (last == tokens.size()) {
+                return chunks;
+            }
+            first = Math.max(first + 1, last - overlap);
+        }
+    }
+
+    /** Exclusive end of the last sentence-ending token in {@code (min, max]}, or {@code max}. */
+    private static int sentenceEnd(String text, TokenBuffer tokens, int min, int max) {
+        for (int i = max; i > min; i--) {
+            int end = tokens.end(i - 1);
+            char last = text.charAt(end - 1);
+            if (last == '.' || last == '!' || last == '?') {
+                return i;
+            }
+            for (int c = end; c < tokens.start(i); c++) {
+                if (text.charAt(c) == '\n') {
+                    return i;
+                }
+            }
+        }
+        return max;
+    }
+}
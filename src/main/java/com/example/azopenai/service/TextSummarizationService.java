@@ -9,6 +9,7 @@ import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Text summarization using Azure OpenAI Chat model (GPT-4o).
@@ -19,6 +20,8 @@ import java.util.List;
 public class TextSummarizationService {
 
     private final ChatModel chatModel;
+    private final AsyncCalls asyncCalls;
+    private final SummaryCache summaryCache;
 
     private static final String SYSTEM_PROMPT = """
             You are an expert summarizer. Provide a clear, concise, and comprehensive summary
@@ -56,4 +59,37 @@ public class TextSummarizationService {
         var response = chatModel.call(prompt);
         return response.getResult().getOutput().getText();
     }
+
+    /**
+     * Summarize off the request thread, optionally with a custom instruction
+     * (null or blank for the default prompt). When the {@link SummaryCache} is
+     * enabled and {@code useCache} is set, a near-duplicate text's cached
+     * summary is returned instead of calling the model.
+     */
+    public CompletableFuture<Summary> summarizeAsync(String text, String customInstruction, boolean useCache) {
+        String instruction = customInstruction != null && !customInstruction.isBlank() ? customInstruction : null;
+        return asyncCalls.supply(() -> {
+            if (!useCache || !summaryCache.isEnabled()) {
+                return new Summary(generate(text, instruction), null);
+            }
+            SummaryCache.Lookup lookup = summaryCache.lookup(text, instruction);
+            if (lookup.isHit()) {
+                return new Summary(lookup.summary(), lookup.similarity());
+            }
+            String summary = generate(text, instruction);
+            summaryCache.put(lookup, summary);
+            return new Summary(summary, null);
+        });
+    }
+
+    private String generate(String text, String instruction) {
+        return instruction != null ? summarize(text, instruction) : summarize(text);
+    }
+
+    /**
+     * Result holder: the summary and, when it came from the cache, the
+     * similarity of the cached text to the requested one.
+     */
+    public record Summary(String text, Double cacheSimilarity) {
+    }
 }
@@ -0,0 +1,12 @@
+package com.example.azopenai.service;
+
+/**
+ * Raised when an upload exceeds a configured size or entry limit; mapped to
+ * HTTP 413.
+ */
+public class UploadTooLargeException extends RuntimeException {
+
+    public UploadTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.client.ConcurrencyLimitExceededException;
+import com.example.azopenai.client.ProviderThrottledException;
+import com.example.azopenai.config.ExecutorFactory;
+import com.example.azopenai.config.WriteBatchingProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Gathers concurrent single-document writes into batches, so that many
+ * independent callers share one embedding call and one upsert.
+ *
+ * <p>
+ * A collector thread opens a batch with the first queued write and closes it
+ * when it holds {@code max-batch-size} writes or {@code window} has passed.
+ * Closed batches are written on a bounded executor while the next one fills.
+ * Each caller's future completes with its own result. A failed batch is
+ * written again in halves, so a bad document (e.g. over the model's input
+ * limit) fails only its own write; failures that would hit every document
+ * (store not ready, throttling, concurrency limit, {@link Error}) fail the
+ * whole batch at once. A caller that stops waiting does not take its document
+ * out of the batch.
+ * </p>
+ *
+ * <p>
+ * When the executors shut down, every write not yet completed fails, whether
+ * queued, in an unsent batch or in a batch the write executor dropped, and
+ * later writes are rejected.
+ * </p>
+ *
+ * <p>
+ * Meter: {@code write.batch.size} (distribution summary, tagged with
+ * {@code writer}).
+ * </p>
+ */
+@Slf4j
+final class WriteBatcher<T, R> {
+
+    private final String name;
+    private final Function<List<T>, List<R>> writer;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final Executor writeExecutor;
+    private final BlockingQueue<Pending<T, R>> queue = new LinkedBlockingQueue<>();
+    /** Futures of every write submitted and not yet completed. */
+    private final Set<CompletableFuture<R>> outstanding = ConcurrentHashMap.newKeySet();
+    private final DistributionSummary batchSizes;
+    private volatile boolean closed;
+
+    /**
+     * @param writer writes a batch and returns one result per item, in order
+     */
+    WriteBatcher(String name, Function<List<T>, List<R>> writer, WriteBatchingProperties props,
+            ExecutorFactory executorFactory, MeterRegistry registry) {
+        this.name = name;
+        this.writer = writer;
+        this.maxBatchSize = Math.max(1, props.getMaxBatchSize());
+        this.windowNanos = props.getWindow().toNanos();
+        this.writeExecutor = executorFactory.boundedExecutor(name + "-write", props.getConcurrency());
+        this.batchSizes = DistributionSummary.builder("write.batch.size")
+                .description("Documents per micro-batched write")
+                .tag("writer", name)
+                .register(registry);
+        executorFactory.boundedExecutor(name + "-collect", 1).execute(this::collect);
+    }
+
+    /**
+     * Queue one write; the future completes when its batch has been written,
+     * or fails at once after shutdown.
+     */
+    CompletableFuture<R> submit(T item) {
+        if (closed) {
+            return CompletableFuture.failedFuture(shutdown());
+        }
+        var result = new CompletableFuture<R>();
+        outstanding.add(result);
+        result.whenComplete((value, error) -> outstanding.remove(result));
+        queue.add(new Pending<>(item, result));
+        if (closed) {
+            // Raced with shutdown: the collector may have already failed what it found
+            failOutstanding();
+        }
+        return result;
+    }
+
+    private void collect() {
+        try {
+            while (true) {
+                List<Pending<T, R>> batch = new ArrayList<>();
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() == maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending<T, R> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                writeExecutor.execute(() -> write(batch));
+            }
+        } catch (InterruptedException e) {
+            // Shutting down
+            Thread.currentThread().interrupt();
+        } catch (RejectedExecutionException e) {
+            log.debug("{} write executor is shut down", name);
+        } finally {
+            closed = true;
+            queue.clear();
+            failOutstanding();
+        }
+    }
+
+    private void write(List<Pending<T, R>> batch) {
+        batchSizes.record(batch.size());
+        writeOrSplit(batch);
+    }
+
+    private void writeOrSplit(List<Pending<T, R>> batch) {
+        List<R> results;
+        try {
+            results = writer.apply(batch.stream().map(Pending::item).toList());
+        } catch (Throwable e) {
+            if (batch.size() > 1 && !failsEveryDocument(e)) {
+                log.debug("Batched {} write of {} documents failed, retrying in halves: {}",
+                        name, batch.size(), e.toString());
+                int half = batch.size() / 2;
+                writeOrSplit(batch.subList(0, half));
+                writeOrSplit(batch.subList(half, batch.size()));
+                return;
+            }
+            log.warn("Batched {} write of {} documents failed: {}", name, batch.size(), e.toString());
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(results.get(i));
+        }
+    }
+
+    /** Failures that smaller batches would run into as well. */
+    private static boolean failsEveryDocument(Throwable e) {
+        return e instanceof Error
+                || e instanceof StoreNotReadyException
+                || e instanceof ProviderThrottledException
+                || e instanceof ConcurrencyLimitExceededException;
+    }
+
+    private void failOutstanding() {
+        var shutdown = shutdown();
+        List.copyOf(outstanding).forEach(result -> result.completeExceptionally(shutdown));
+    }
+
+    private StoreNotReadyException shutdown() {
+        return new StoreNotReadyException("The " + name + " writer is shutting down");
+    }
+
+    private record Pending<T, R>(T item, CompletableFuture<R> result) {
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.config.ReindexProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Lets re-embedding hold off writes to the managed collections while it
+ * copies the last changes and switches the aliases, so no write lands in a
+ * collection after its final pass.
+ *
+ * <p>
+ * Every store operation (embedding included, so a held-off write is embedded
+ * with the model it is stored for) runs through {@link #write}. While the gate
+ * is closed, writes wait up to {@code app.reindex.max-write-pause} and then
+ * fail with {@link StoreNotReadyException} (503). The gate is per process:
+ * other instances writing to the same Qdrant are not held off.
+ * </p>
+ *
+ * <p>
+ * Writers stamp points with {@link #UPDATED_AT} inside the gate, and the gate
+ * knows when each write in flight started, so {@link #changesSince()} is a
+ * time from which a scan of {@code updated_at} misses no write. While a job is
+ * running, point deletions are also recorded per collection, so the final pass
+ * can remove them from the shadow without a full scan.
+ * </p>
+ */
+@Slf4j
+@Component
+public class WriteGate {
+
+    /**
+     * {@code updated_at} payload field: epoch millis of the write, stamped by
+     * every writer. Stored as a double (exact for millis), since the vector
+     * store writes a {@code Long} in metadata as a string.
+     */
+    public static final String UPDATED_AT = "updated_at";
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Duration maxPause;
+    private final Map<String, Set<String>> deleted = new ConcurrentHashMap<>();
+    /** Start time (epoch millis) of each write in flight, by a per-write key. */
+    private final Map<Object, Long> inFlight = new ConcurrentHashMap<>();
+    private volatile boolean tracking;
+
+    public WriteGate(ReindexProperties props) {
+        this.maxPause = props.getMaxWritePause();
+    }
+
+    /** Run a store operation, waiting while the gate is closed. */
+    public <T> T write(Supplier<T> write) {
+        try {
+            if (!lock.readLock().tryLock(maxPause.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new StoreNotReadyException("Writes are paused while collections are switched to a new model");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StoreNotReadyException("Interrupted waiting for paused writes to resume");
+        }
+        Object key = new Object();
+        inFlight.put(key, System.currentTimeMillis());
+        try {
+            return write.get();
+        } finally {
+            inFlight.remove(key);
+            lock.readLock().unlock();
+        }
+    }
+
+    public void write(Runnable write) {
+        write(() -> {
+            write.run();
+            return null;
+        });
+    }
+
+    /** Value to stamp a write with: now, in {@link #UPDATED_AT}'s representation. */
+    public static double now() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Earliest {@code updated_at} a write not yet visible in Qdrant can carry:
+     * now, or the start of the oldest write in flight.
+     */
+    long changesSince() {
+        long since = System.currentTimeMillis();
+        for (long started : inFlight.values()) {
+            since = Math.min(since, started);
+        }
+        return since;
+    }
+
+    /** Record points deleted from a collection (by alias name) while a job tracks them. */
+    public void deleted(String collection, List<String> ids) {
+        if (tracking) {
+            deleted.computeIfAbsent(collection, name -> ConcurrentHashMap.newKeySet()).addAll(ids);
+        }
+    }
+
+    void startTracking() {
+        tracking = true;
+    }
+
+    /** Stop tracking and forget the recorded deletions. */
+    void stopTracking() {
+        tracking = false;
+        deleted.clear();
+    }
+
+    /** Deletions recorded for a collection since tracking started. */
+    Set<String> deletedFrom(String collection) {
+        return new HashSet<>(deleted.getOrDefault(collection, Set.of()));
+    }
+
+    /**
+     * Close the gate once the writes in flight have finished.
+     *
+     * @throws IllegalStateException if they do not finish within the maximum pause
+     */
+    void close() throws InterruptedException {
+        if (!lock.writeLock().tryLock(maxPause.toNanos(), TimeUnit.NANOSECONDS)) {
+            throw new IllegalStateException("Writes in flight did not finish within " + maxPause);
+        }
+        log.info("Writes paused");
+    }
+
+    void open() {
+        lock.writeLock().unlock();
+        log.info("Writes resumed");
+    }
+}
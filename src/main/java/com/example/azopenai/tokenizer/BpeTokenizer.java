@@ -0,0 +1,209 @@
+package com.example.azopenai.tokenizer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Byte-level BPE tokenizer compatible with OpenAI's tiktoken encodings (e.g.
+ * {@code cl100k_base}), loaded from a {@code .tiktoken} file: one
+ * {@code <base64 token bytes> <rank>} per line, the rank being the token id.
+ *
+ * <p>
+ * Text is pre-split with the encoding's regex (compiled once); each piece is
+ * UTF-8 encoded into a per-call scratch buffer and, unless it is a token by
+ * itself, merged pairwise by lowest rank. Token spans are mapped back to
+ * character offsets, so a token ending inside a multi-byte character covers
+ * that whole character. Special tokens are not recognised.
+ * </p>
+ */
+public final class BpeTokenizer implements Tokenizer {
+
+    /** Pre-tokenization pattern of {@code cl100k_base}. */
+    public static final String CL100K_PATTERN = "(?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+"
+            + "|\\p{N}{1,3}| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+";
+
+    private static final int NO_RANK = Integer.MAX_VALUE;
+
+    private final ByteSliceTable ranks;
+    private final Pattern pattern;
+
+    public BpeTokenizer(ByteSliceTable ranks, String pattern) {
+        this.ranks = ranks;
+        this.pattern = Pattern.compile(pattern, Pattern.UNICODE_CHARACTER_CLASS);
+    }
+
+    /** Load a {@code .tiktoken} rank file. */
+    public static BpeTokenizer load(InputStream tiktoken, String pattern) throws IOException {
+        var ranks = new ByteSliceTable(1 << 17);
+        var decoder = Base64.getDecoder();
+        try (var reader = new BufferedReader(new InputStreamReader(tiktoken, StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int space = line.indexOf(' ');
+                if (space <= 0) {
+                    continue;
+                }
+                byte[] token = decoder.decode(line.substring(0, space));
+                ranks.put(token, Integer.parseInt(line.substring(space + 1).strip()));
+            }
+        }
+        if (ranks.size() == 0) {
+            throw new IllegalArgumentException("BPE rank file is empty");
+        }
+        return new BpeTokenizer(ranks, pattern);
+    }
+
+    @Override
+    public String name() {
+        return "bpe";
+    }
+
+    @Override
+    public void encode(CharSequence text, TokenBuffer out) {
+        out.clear();
+        scan(text, out);
+    }
+
+    @Override
+    public int count(CharSequence text) {
+        return scan(text, null);
+    }
+
+    private int scan(CharSequence text, TokenBuffer out) {
+        var scratch = new Scratch();
+        int count = 0;
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            count += piece(text, matcher.start(), matcher.end(), scratch, out);
+        }
+        return count;
+    }
+
+    private int piece(CharSequence text, int from, int to, Scratch s, TokenBuffer out) {
+        int length = s.encode(text, from, to);
+        int whole = ranks.get(s.bytes, 0, length);
+        if (whole >= 0) {
+            if (out != null) {
+                out.add(whole, s.charStart[0], s.charEnd[length - 1]);
+            }
+            return 1;
+        }
+
+        // Boundaries of the current parts; rank[k] is the rank of merging parts k and k+1
+        int[] bounds = s.bounds(length + 1);
+        int[] rank = s.ranks(length + 1);
+        int count = length + 1;
+        for (int k = 0; k <= length; k++) {
+            bounds[k] = k;
+        }
+        for (int k = 0; k < count - 1; k++) {
+            rank[k] = k + 2 < count ? rank(s.bytes, bounds[k], bounds[k + 2]) : NO_RANK;
+        }
+        while (count > 2) {
+            int best = -1;
+            int bestRank = NO_RANK;
+            for (int k = 0; k < count - 2; k++) {
+                if (rank[k] < bestRank) {
+                    bestRank = rank[k];
+                    best = k;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            System.arraycopy(bounds, best + 2, bounds, best + 1, count - best - 2);
+            System.arraycopy(rank, best + 2, rank, best + 1, count - best - 3);
+            count--;
+            rank[best] = best + 2 < count ? rank(s.bytes, bounds[best], bounds[best + 2]) : NO_RANK;
+            if (best > 0) {
+                rank[best - 1] = rank(s.bytes, bounds[best - 1], bounds[best + 1]);
+            }
+        }
+
+        if (out != null) {
+            for (int k = 0; k < count - 1; k++) {
+                out.add(ranks.get(s.bytes, bounds[k], bounds[k + 1]),
+                        s.charStart[bounds[k]], s.charEnd[bounds[k + 1] - 1]);
+            }
+        }
+        return count - 1;
+    }
+
+    private int rank(byte[] bytes, int from, int to) {
+        int rank = ranks.get(bytes, from, to);
+        return rank >= 0 ? rank : NO_RANK;
+    }
+
+    /** Per-call buffers: UTF-8 bytes of the current piece and the character span of each byte. */
+    private static final class Scratch {
+        byte[] bytes = new byte[64];
+        int[] charStart = new int[64];
+        int[] charEnd = new int[64];
+        int[] bounds = new int[65];
+        int[] ranks = new int[65];
+
+        int encode(CharSequence text, int from, int to) {
+            int length = 0;
+            for (int i = from; i < to; ) {
+                int cp = Character.codePointAt(text, i);
+                int chars = Character.charCount(cp);
+                int n = cp < 0x80 ? 1 : cp < 0x800 ? 2 : cp < 0x10000 ? 3 : 4;
+                if (length + n > bytes.length) {
+                    grow(Math.max(bytes.length * 2, length + n));
+                }
+                switch (n) {
+                    case 1 -> bytes[length] = (byte) cp;
+                    case 2 -> {
+                        bytes[length] = (byte) (0xC0 | (cp >> 6));
+                        bytes[length + 1] = (byte) (0x80 | (cp & 0x3F));
+                    }
+                    case 3 -> {
+                        bytes[length] = (byte) (0xE0 | (cp >> 12));
+                        bytes[length + 1] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                        bytes[length + 2] = (byte) (0x80 | (cp & 0x3F));
+                    }
+                    default -> {
+                        bytes[length] = (byte) (0xF0 | (cp >> 18));
+                        bytes[length + 1] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                        bytes[length + 2] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                        bytes[length + 3] = (byte) (0x80 | (cp & 0x3F));
+                    }
+                }
+                for (int b = 0; b < n; b++) {
+                    charStart[length + b] = i;
+                    charEnd[length + b] = i + chars;
+                }
+                length += n;
+                i += chars;
+            }
+            return length;
+        }
+
+        int[] bounds(int size) {
+            if (bounds.length < size) {
+                bounds = new int[size];
+            }
+            return bounds;
+        }
+
+        int[] ranks(int size) {
+            if (ranks.length < size) {
+                ranks = new int[size];
+            }
+            return ranks;
+        }
+
+        private void grow(int capacity) {
+            bytes = Arrays.copyOf(bytes, capacity);
+            charStart = Arrays.copyOf(charStart, capacity);
+            charEnd = Arrays.copyOf(charEnd, capacity);
+        }
+    }
+}
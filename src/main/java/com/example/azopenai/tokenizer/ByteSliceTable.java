@@ -0,0 +1,108 @@
+package com.example.azopenai.tokenizer;
+
+import java.util.Arrays;
+
+/**
+ * Map from byte sequences to {@code int}, queried with a slice of a larger
+ * array so lookups allocate nothing. Keys are packed into one byte pool.
+ */
+public final class ByteSliceTable {
+
+    private byte[] pool;
+    private int poolSize;
+    private int[] offsets;
+    private int[] lengths;
+    private int[] values;
+    private int size;
+    /** Entry index + 1 per slot, 0 when empty. */
+    private int[] slots;
+
+    public ByteSliceTable(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        pool = new byte[capacity * 4];
+        offsets = new int[capacity];
+        lengths = new int[capacity];
+        values = new int[capacity];
+        slots = new int[Integer.highestOneBit(capacity * 2 - 1) * 2];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Add or replace the value for {@code key}. */
+    public void put(byte[] key, int value) {
+        int existing = find(key, 0, key.length);
+        if (existing >= 0) {
+            values[existing] = value;
+            return;
+        }
+        if (size == offsets.length) {
+            int capacity = size * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        if (poolSize + key.length > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + key.length));
+        }
+        System.arraycopy(key, 0, pool, poolSize, key.length);
+        offsets[size] = poolSize;
+        lengths[size] = key.length;
+        values[size] = value;
+        poolSize += key.length;
+        size++;
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        } else {
+            insert(size - 1);
+        }
+    }
+
+    /** Value for {@code bytes[from, to)}, or -1. */
+    public int get(byte[] bytes, int from, int to) {
+        int entry = find(bytes, from, to);
+        return entry >= 0 ? values[entry] : -1;
+    }
+
+    private int find(byte[] bytes, int from, int to) {
+        int mask = slots.length - 1;
+        for (int slot = hash(bytes, from, to) & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot] - 1;
+            if (entry < 0) {
+                return -1;
+            }
+            if (lengths[entry] == to - from
+                    && Arrays.equals(pool, offsets[entry], offsets[entry] + lengths[entry], bytes, from, to)) {
+                return entry;
+            }
+        }
+    }
+
+    private void insert(int entry) {
+        int mask = slots.length - 1;
+        int slot = hash(pool, offsets[entry], offsets[entry] + lengths[entry]) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = entry + 1;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        for (int entry = 0; entry < size; entry++) {
+            insert(entry);
+        }
+    }
+
+    /** FNV-1a, finalized so the low bits used for slots are well mixed. */
+    private static int hash(byte[] bytes, int from, int to) {
+        int h = 0x811C9DC5;
+        for (int i = from; i < to; i++) {
+            h = (h ^ (bytes[i] & 0xFF)) * 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        return h ^ (h >>> 13);
+    }
+}
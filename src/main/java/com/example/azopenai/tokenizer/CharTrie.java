@@ -0,0 +1,113 @@
+package com.example.azopenai.tokenizer;
+
+import java.util.Arrays;
+
+/**
+ * Character trie over a vocabulary, stored as an open-addressing table from
+ * {@code (node, char)} to child node, so lookups allocate nothing.
+ */
+final class CharTrie {
+
+    private static final long EMPTY = 0;
+
+    private long[] keys = new long[1 << 12];
+    private int[] children = new int[keys.length];
+    private int edges;
+    private int[] tokenIds = new int[1 << 10];
+    private int nodes;
+
+    CharTrie() {
+        newNode();
+    }
+
+    int root() {
+        return 0;
+    }
+
+    int newNode() {
+        if (nodes == tokenIds.length) {
+            tokenIds = Arrays.copyOf(tokenIds, nodes * 2);
+        }
+        tokenIds[nodes] = -1;
+        return nodes++;
+    }
+
+    /** Insert {@code token.substring(from)} below {@code node} with the given id. */
+    void insert(int node, String token, int from, int id) {
+        for (int i = from; i < token.length(); i++) {
+            char c = token.charAt(i);
+            int next = child(node, c);
+            if (next < 0) {
+                next = newNode();
+                put(node, c, next);
+            }
+            node = next;
+        }
+        if (tokenIds[node] < 0) {
+            tokenIds[node] = id;
+        }
+    }
+
+    /** Child of {@code node} for {@code c}, or -1. */
+    int child(int node, char c) {
+        long key = key(node, c);
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) {
+                return children[slot];
+            }
+            if (k == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    /** Token id ending at {@code node}, or -1. */
+    int tokenId(int node) {
+        return tokenIds[node];
+    }
+
+    private void put(int node, char c, int child) {
+        if ((edges + 1) * 2 > keys.length) {
+            grow();
+        }
+        long key = key(node, c);
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        children[slot] = child;
+        edges++;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldChildren = children;
+        keys = new long[oldKeys.length * 2];
+        children = new int[keys.length];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                children[slot] = oldChildren[i];
+            }
+        }
+    }
+
+    /** Never {@link #EMPTY}: the +1 keeps node 0 / char 0 distinct from an empty slot. */
+    private static long key(int node, char c) {
+        return (((long) node << 16) | c) + 1;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
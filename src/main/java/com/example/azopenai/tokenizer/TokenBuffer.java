@@ -0,0 +1,85 @@
+package com.example.azopenai.tokenizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reusable output of a {@link Tokenizer}: token ids plus the character span
+ * of each token in the source text, in parallel {@code int} arrays that only
+ * grow. Not thread-safe; use one buffer per thread or per call.
+ */
+public final class TokenBuffer {
+
+    private int[] ids;
+    private int[] starts;
+    private int[] ends;
+    private int size;
+
+    public TokenBuffer() {
+        this(64);
+    }
+
+    public TokenBuffer(int capacity) {
+        ids = new int[Math.max(capacity, 8)];
+        starts = new int[ids.length];
+        ends = new int[ids.length];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Append a token covering {@code [start, end)} of the source text. */
+    public void add(int id, int start, int end) {
+        if (size == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        ids[size] = id;
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    /** Drop tokens added after the buffer had {@code newSize} tokens. */
+    void truncate(int newSize) {
+        size = newSize;
+    }
+
+    /** Vocabulary id of token {@code i}, or -1 for tokenizers without a vocabulary. */
+    public int id(int i) {
+        return ids[i];
+    }
+
+    public int start(int i) {
+        return starts[i];
+    }
+
+    public int end(int i) {
+        return ends[i];
+    }
+
+    /** The source text covered by token {@code i}. */
+    public String text(int i, CharSequence source) {
+        return source.subSequence(starts[i], ends[i]).toString();
+    }
+
+    public List<String> texts(CharSequence source) {
+        List<String> texts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            texts.add(text(i, source));
+        }
+        return texts;
+    }
+
+    public int[] ids() {
+        return Arrays.copyOf(ids, size);
+    }
+}
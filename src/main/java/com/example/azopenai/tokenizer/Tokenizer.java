@@ -0,0 +1,36 @@
+package com.example.azopenai.tokenizer;
+
+import java.util.List;
+
+/**
+ * Splits text into tokens, e.g. the subword units an embedding or chat model
+ * sees.
+ *
+ * <p>
+ * Implementations are thread-safe and write into a caller-supplied
+ * {@link TokenBuffer}, so a caller that reuses its buffer tokenizes without
+ * allocating per token. {@link #count} gives the token count alone, for
+ * chunking and prompt budgeting.
+ * </p>
+ */
+public interface Tokenizer {
+
+    /** Short name for logs, e.g. {@code wordpiece}. */
+    String name();
+
+    /** Replace the contents of {@code out} with the tokens of {@code text}. */
+    void encode(CharSequence text, TokenBuffer out);
+
+    /** Number of tokens in {@code text}, without recording them. */
+    int count(CharSequence text);
+
+    /** Token texts as the model is given them; by default their spans in {@code source}. */
+    default List<String> texts(CharSequence source, TokenBuffer tokens) {
+        return tokens.texts(source);
+    }
+
+    /** Whether token ids are vocabulary ids (false when every id is -1). */
+    default boolean hasVocabulary() {
+        return true;
+    }
+}
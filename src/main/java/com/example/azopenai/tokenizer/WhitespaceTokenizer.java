@@ -0,0 +1,72 @@
+package com.example.azopenai.tokenizer;
+
+import java.util.List;
+
+/**
+ * Splits on whitespace with a single character scan (no regex). Tokens have
+ * no vocabulary id (-1). The default when no vocabulary file is configured.
+ * With {@code lowercase}, token texts are lower-cased in the default locale,
+ * as ColBERT tokens always were before tokenizers were configurable, so
+ * stored token vectors keep matching.
+ */
+public final class WhitespaceTokenizer implements Tokenizer {
+
+    private final boolean lowercase;
+
+    public WhitespaceTokenizer() {
+        this(false);
+    }
+
+    public WhitespaceTokenizer(boolean lowercase) {
+        this.lowercase = lowercase;
+    }
+
+    @Override
+    public String name() {
+        return "whitespace";
+    }
+
+    @Override
+    public List<String> texts(CharSequence source, TokenBuffer tokens) {
+        List<String> texts = tokens.texts(source);
+        return lowercase ? texts.stream().map(String::toLowerCase).toList() : texts;
+    }
+
+    @Override
+    public boolean hasVocabulary() {
+        return false;
+    }
+
+    @Override
+    public void encode(CharSequence text, TokenBuffer out) {
+        out.clear();
+        scan(text, out);
+    }
+
+    @Override
+    public int count(CharSequence text) {
+        return scan(text, null);
+    }
+
+    private static int scan(CharSequence text, TokenBuffer out) {
+        int count = 0;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && !Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                if (out != null) {
+                    out.add(-1, start, i);
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+}
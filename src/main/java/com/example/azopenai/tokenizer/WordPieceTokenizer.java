@@ -0,0 +1,204 @@
+package com.example.azopenai.tokenizer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BERT WordPiece tokenizer over a {@code vocab.txt} (one token per line, the
+ * line number is the id).
+ *
+ * <p>
+ * Text is split on whitespace and punctuation, with each CJK character a word
+ * of its own; every word is then matched greedily, longest piece first,
+ * against the vocabulary, continuation pieces carrying the {@code ##} prefix.
+ * A word that cannot be covered becomes {@code [UNK]}. With
+ * {@code lowercase} (uncased models) characters are lower-cased and Latin
+ * accents stripped on the fly, so the source text is never copied. Special
+ * tokens such as {@code [CLS]} are not added.
+ * </p>
+ */
+public final class WordPieceTokenizer implements Tokenizer {
+
+    private static final String UNKNOWN = "[UNK]";
+    private static final String CONTINUATION = "##";
+    private static final int MAX_WORD_CHARS = 100;
+
+    /** Lower-cased, accent-stripped form of U+00C0..U+024F (Latin-1 and Latin Extended). */
+    private static final int FOLD_FROM = 0xC0;
+    private static final char[] FOLDED = new char[0x250 - FOLD_FROM];
+
+    static {
+        for (int i = 0; i < FOLDED.length; i++) {
+            String decomposed = Normalizer.normalize(
+                    String.valueOf(Character.toLowerCase((char) (FOLD_FROM + i))), Normalizer.Form.NFD);
+            FOLDED[i] = decomposed.charAt(0);
+        }
+    }
+
+    private final CharTrie trie = new CharTrie();
+    private final int wordRoot;
+    private final int pieceRoot;
+    private final int unknownId;
+    private final boolean lowercase;
+
+    public WordPieceTokenizer(List<String> vocabulary, boolean lowercase) {
+        this.lowercase = lowercase;
+        this.wordRoot = trie.root();
+        this.pieceRoot = trie.newNode();
+        int unknown = -1;
+        for (int id = 0; id < vocabulary.size(); id++) {
+            String token = vocabulary.get(id);
+            if (token.equals(UNKNOWN)) {
+                unknown = id;
+            } else if (token.startsWith(CONTINUATION) && token.length() > CONTINUATION.length()) {
+                trie.insert(pieceRoot, token, CONTINUATION.length(), id);
+            } else if (!token.isEmpty()) {
+                trie.insert(wordRoot, token, 0, id);
+            }
+        }
+        if (unknown < 0) {
+            throw new IllegalArgumentException("WordPiece vocabulary has no " + UNKNOWN + " token");
+        }
+        this.unknownId = unknown;
+    }
+
+    /** Load a {@code vocab.txt}. */
+    public static WordPieceTokenizer load(InputStream vocabulary, boolean lowercase) throws IOException {
+        List<String> tokens = new ArrayList<>(32_000);
+        try (var reader = new BufferedReader(new InputStreamReader(vocabulary, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                tokens.add(line.strip());
+            }
+        }
+        return new WordPieceTokenizer(tokens, lowercase);
+    }
+
+    @Override
+    public String name() {
+        return "wordpiece";
+    }
+
+    @Override
+    public void encode(CharSequence text, TokenBuffer out) {
+        out.clear();
+        scan(text, out);
+    }
+
+    @Override
+    public int count(CharSequence text) {
+        return scan(text, null);
+    }
+
+    private int scan(CharSequence text, TokenBuffer out) {
+        int count = 0;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (isSeparator(c)) {
+                i++;
+            } else if (isPunctuation(c) || isCjk(c)) {
+                count += word(text, i, i + 1, out);
+                i++;
+            } else {
+                int start = i;
+                while (i < length && !isBoundary(text.charAt(i))) {
+                    i++;
+                }
+                count += word(text, start, i, out);
+            }
+        }
+        return count;
+    }
+
+    /** Greedy longest-match-first pieces of {@code text[start, end)}; returns the number of tokens. */
+    private int word(CharSequence text, int start, int end, TokenBuffer out) {
+        if (end - start > MAX_WORD_CHARS) {
+            return unknown(start, end, out);
+        }
+        int mark = out != null ? out.size() : 0;
+        int pieces = 0;
+        int pos = start;
+        while (pos < end) {
+            int node = pos == start ? wordRoot : pieceRoot;
+            int matchEnd = -1;
+            int matchId = -1;
+            for (int j = pos; j < end; j++) {
+                node = trie.child(node, fold(text.charAt(j)));
+                if (node < 0) {
+                    break;
+                }
+                int id = trie.tokenId(node);
+                if (id >= 0) {
+                    matchEnd = j + 1;
+                    matchId = id;
+                }
+            }
+            if (matchEnd < 0) {
+                if (out != null) {
+                    out.truncate(mark);
+                }
+                return unknown(start, end, out);
+            }
+            if (out != null) {
+                out.add(matchId, pos, matchEnd);
+            }
+            pieces++;
+            pos = matchEnd;
+        }
+        return pieces;
+    }
+
+    private int unknown(int start, int end, TokenBuffer out) {
+        if (out != null) {
+            out.add(unknownId, start, end);
+        }
+        return 1;
+    }
+
+    private char fold(char c) {
+        if (!lowercase) {
+            return c;
+        }
+        if (c < 0x80) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        if (c >= FOLD_FROM && c < FOLD_FROM + FOLDED.length) {
+            return FOLDED[c - FOLD_FROM];
+        }
+        return Character.toLowerCase(c);
+    }
+
+    private static boolean isBoundary(char c) {
+        return isSeparator(c) || isPunctuation(c) || isCjk(c);
+    }
+
+    /** Whitespace, and control characters (which BERT drops). */
+    private static boolean isSeparator(char c) {
+        return Character.isWhitespace(c) || Character.isSpaceChar(c) || Character.isISOControl(c)
+                || c == '\uFFFD';
+    }
+
+    private static boolean isPunctuation(char c) {
+        if (c < 0x80) {
+            return (c >= 33 && c <= 47) || (c >= 58 && c <= 64) || (c >= 91 && c <= 96) || (c >= 123 && c <= 126);
+        }
+        return switch (Character.getType(c)) {
+            case Character.CONNECTOR_PUNCTUATION, Character.DASH_PUNCTUATION, Character.START_PUNCTUATION,
+                    Character.END_PUNCTUATION, Character.INITIAL_QUOTE_PUNCTUATION,
+                    Character.FINAL_QUOTE_PUNCTUATION, Character.OTHER_PUNCTUATION -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isCjk(char c) {
+        return (c >= 0x4E00 && c <= 0x9FFF) || (c >= 0x3400 && c <= 0x4DBF) || (c >= 0xF900 && c <= 0xFAFF);
+    }
+}
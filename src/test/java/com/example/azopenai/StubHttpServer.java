@@ -0,0 +1,98 @@
+package com.example.azopenai;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local HTTP server for tests that answers every request through a
+ * {@link Handler} and records when each request arrived.
+ */
+public final class StubHttpServer implements AutoCloseable {
+
+    /** A recorded request; {@code arrivedNanos} is a {@link System#nanoTime()} value. */
+    public record Request(int index, String method, String path, String body, long arrivedNanos) {
+    }
+
+    public record Response(int status, Map<String, String> headers, String body, Duration delay) {
+
+        public static Response json(String body) {
+            return new Response(200, Map.of("Content-Type", "application/json"), body, Duration.ZERO);
+        }
+
+        public static Response status(int status, Map<String, String> headers) {
+            return new Response(status, headers, "{\"error\":{\"message\":\"status " + status + "\"}}", Duration.ZERO);
+        }
+
+        public Response delayed(Duration delay) {
+            return new Response(status, headers, body, delay);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+        Response handle(Request request);
+    }
+
+    private final HttpServer server;
+    private final Handler handler;
+    private final List<Request> requests = new CopyOnWriteArrayList<>();
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public StubHttpServer(Handler handler) {
+        this.handler = handler;
+        try {
+            this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        server.createContext("/", this::serve);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public List<Request> requests() {
+        return List.copyOf(requests);
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            long arrived = System.nanoTime();
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            var request = new Request(counter.getAndIncrement(), exchange.getRequestMethod(),
+                    exchange.getRequestURI().getPath(), body, arrived);
+            requests.add(request);
+            Response response = handler.handle(request);
+            if (!response.delay().isZero()) {
+                Thread.sleep(response.delay());
+            }
+            response.headers().forEach(exchange.getResponseHeaders()::add);
+            byte[] bytes = response.body().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(response.status(), bytes.length == 0 ? -1 : bytes.length);
+            if (bytes.length > 0) {
+                exchange.getResponseBody().write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
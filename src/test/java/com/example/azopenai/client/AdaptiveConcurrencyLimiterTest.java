@@ -0,0 +1,100 @@
+package com.example.azopenai.client;
+
+import com.example.azopenai.client.AdaptiveConcurrencyLimiter.Outcome;
+import com.example.azopenai.config.AiProperties;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AiProperties.Limiter cfg = new AiProperties.Limiter();
+
+    private AdaptiveConcurrencyLimiter limiter() {
+        return new AdaptiveConcurrencyLimiter("test", cfg, Tags.empty(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void burstOfThrottlesShrinksTheLimitOnce() {
+        var limiter = limiter();
+        limiter.acquire();
+        limiter.release(TimeUnit.SECONDS.toNanos(1), Outcome.SUCCESS);
+
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire();
+        }
+        for (int i = 0; i < 3; i++) {
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10), Outcome.THROTTLED);
+        }
+
+        assertThat(limiter.getLimit()).isCloseTo(cfg.getInitialLimit() * cfg.getBackoffRatio(), within(1e-9));
+    }
+
+    @Test
+    void limitNeverDropsBelowMinimum() throws InterruptedException {
+        cfg.setInitialLimit(2);
+        var limiter = limiter();
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+            limiter.release(1, Outcome.FAILED);
+            Thread.sleep(1);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(cfg.getMinLimit());
+    }
+
+    @Test
+    void growsOnlyWhenTheLimitIsTheConstraint() {
+        cfg.setInitialLimit(2);
+        var limiter = limiter();
+
+        limiter.acquire();
+        limiter.release(1_000, Outcome.SUCCESS);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+
+        limiter.acquire();
+        limiter.acquire();
+        limiter.release(1_000, Outcome.SUCCESS);
+        assertThat(limiter.getLimit()).isEqualTo(2.5);
+    }
+
+    @Test
+    void slowCallCountsAsCongestion() {
+        var limiter = limiter();
+        limiter.acquire();
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(10), Outcome.SUCCESS);
+
+        limiter.acquire();
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(100), Outcome.SUCCESS);
+
+        assertThat(limiter.getLimit()).isLessThan(cfg.getInitialLimit());
+    }
+
+    @Test
+    void ignoredOutcomeDoesNotAdapt() {
+        var limiter = limiter();
+        limiter.acquire();
+        limiter.release(TimeUnit.SECONDS.toNanos(10), Outcome.IGNORED);
+
+        assertThat(limiter.getLimit()).isEqualTo(cfg.getInitialLimit());
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void acquireTimesOutAtTheLimit() {
+        cfg.setInitialLimit(1);
+        cfg.setMaxQueueWait(Duration.ofMillis(50));
+        var limiter = limiter();
+        limiter.acquire();
+
+        assertThatThrownBy(limiter::acquire).isInstanceOf(ConcurrencyLimitExceededException.class);
+        assertThat(limiter.getQueued()).isZero();
+    }
+}
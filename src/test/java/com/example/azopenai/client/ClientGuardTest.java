@@ -0,0 +1,117 @@
+package com.example.azopenai.client;
+
+import com.example.azopenai.StubHttpServer;
+import com.example.azopenai.StubHttpServer.Response;
+import com.example.azopenai.config.AiProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.example.azopenai.client.ThrottleAwareErrorHandlerTest.call;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClientGuardTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AiProperties.ModelConfig cfg = new AiProperties.ModelConfig();
+
+    ClientGuardTest() {
+        cfg.setProvider("openai");
+        cfg.getRetry().setInitialBackoff(Duration.ofMillis(20));
+        cfg.getRetry().setMaxBackoff(Duration.ofSeconds(5));
+        // Stub latency is steady; do not let scheduling noise count as congestion
+        cfg.getLimiter().setLatencyTolerance(20);
+    }
+
+    @Test
+    void retriesNoEarlierThanRetryAfter() {
+        try (var stub = new StubHttpServer(request -> switch (request.index()) {
+            case 0 -> Response.status(429, Map.of("retry-after-ms", "400"));
+            case 1 -> Response.status(429, Map.of("Retry-After", "1"));
+            default -> Response.json("{\"ok\":true}");
+        })) {
+            var guard = new ClientGuard("embedding", "stub", cfg, registry);
+
+            assertThat(guard.execute(() -> call(stub))).isEqualTo("{\"ok\":true}");
+
+            var requests = stub.requests();
+            assertThat(requests).hasSize(3);
+            assertThat(requests.get(1).arrivedNanos() - requests.get(0).arrivedNanos())
+                    .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(400));
+            assertThat(requests.get(2).arrivedNanos() - requests.get(1).arrivedNanos())
+                    .isGreaterThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+            assertThat(registry.get("ai.client.throttled").counter().count()).isEqualTo(2);
+            assertThat(registry.get("ai.client.retries").counter().count()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void retryAfterBeyondMaxBackoffFailsFast() {
+        try (var stub = new StubHttpServer(request -> Response.status(429, Map.of("Retry-After", "60")))) {
+            var guard = new ClientGuard("embedding", "stub", cfg, registry);
+
+            assertThatThrownBy(() -> guard.execute(() -> call(stub)))
+                    .isInstanceOf(ProviderThrottledException.class);
+            assertThat(stub.requests()).hasSize(1);
+        }
+    }
+
+    @Test
+    void clientErrorIsNotRetried() {
+        try (var stub = new StubHttpServer(request -> Response.status(400, Map.of()))) {
+            var guard = new ClientGuard("embedding", "stub", cfg, registry);
+
+            assertThatThrownBy(() -> guard.execute(() -> call(stub)))
+                    .isNotInstanceOf(ProviderThrottledException.class);
+            assertThat(stub.requests()).hasSize(1);
+            assertThat(registry.get("ai.client.retries").counter().count()).isZero();
+            assertThat(limit()).isEqualTo(cfg.getLimiter().getInitialLimit());
+        }
+    }
+
+    @Test
+    void limitDecreasesOnThrottlingAndRecovers() throws Exception {
+        var throttling = new AtomicBoolean(true);
+        try (var stub = new StubHttpServer(request -> throttling.get()
+                ? Response.status(429, Map.of("retry-after-ms", "10"))
+                : Response.json("{}").delayed(Duration.ofMillis(5)))) {
+            cfg.getRetry().setMaxRetries(0);
+            var guard = new ClientGuard("embedding", "stub", cfg, registry);
+            double initial = limit();
+
+            assertThatThrownBy(() -> guard.execute(() -> call(stub)))
+                    .isInstanceOf(ProviderThrottledException.class);
+            double throttled = limit();
+            assertThat(throttled).isLessThan(initial);
+
+            throttling.set(false);
+            try (var callers = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> calls = new ArrayList<>();
+                for (int i = 0; i < 16; i++) {
+                    calls.add(callers.submit(() -> {
+                        for (int n = 0; n < 25; n++) {
+                            guard.execute(() -> call(stub));
+                        }
+                    }));
+                }
+                for (Future<?> future : calls) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+            }
+            assertThat(limit()).isGreaterThan(initial);
+        }
+    }
+
+    private double limit() {
+        return registry.get("ai.client.limiter.limit").gauge().value();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.azopenai.client;
+
+import com.example.azopenai.config.AiProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AiProperties.Hedging cfg = new AiProperties.Hedging();
+
+    HedgerTest() {
+        cfg.setEnabled(true);
+        cfg.setPercentile(0.5);
+        cfg.setMinSamples(5);
+        cfg.setMinDelay(Duration.ofMillis(1));
+        cfg.setMaxExtraLoad(1.0);
+    }
+
+    @Test
+    void cancelledOriginalsKeepTheDelayFromCollapsing() {
+        var hedger = new Hedger("chat", cfg, registry);
+        for (int i = 0; i < cfg.getMinSamples(); i++) {
+            hedger.execute(() -> sleep(Duration.ofMillis(20)));
+        }
+        assertThat(delayMs()).isGreaterThanOrEqualTo(20);
+
+        // Originals stall and are cancelled once their hedge returns at once
+        for (int i = 0; i < 80; i++) {
+            var original = new AtomicBoolean(true);
+            assertThat(hedger.execute(() -> original.getAndSet(false) ? sleep(Duration.ofSeconds(5)) : "hedge"))
+                    .isEqualTo("hedge");
+        }
+
+        assertThat(registry.get("ai.client.hedge.wins").counter().count()).isEqualTo(80);
+        assertThat(delayMs()).isGreaterThanOrEqualTo(20);
+    }
+
+    @Test
+    void failedOriginalsAreTimed() {
+        var hedger = new Hedger("chat", cfg, registry);
+        for (int i = 0; i < cfg.getMinSamples(); i++) {
+            try {
+                hedger.execute(() -> {
+                    sleep(Duration.ofMillis(20));
+                    throw new IllegalStateException("failed");
+                });
+            } catch (IllegalStateException expected) {
+                // timed all the same
+            }
+        }
+
+        assertThat(delayMs()).isGreaterThanOrEqualTo(20);
+    }
+
+    private double delayMs() {
+        return registry.get("ai.client.hedge.delay").gauge().value();
+    }
+
+    private static String sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        }
+        return "original";
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.azopenai.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> flight = new SingleFlight<>("embedding", new SimpleMeterRegistry());
+
+    @Test
+    void concurrentCallsShareOneExecution() throws Exception {
+        var calls = new AtomicInteger();
+        var release = new CountDownLatch(1);
+        try (var threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            var leader = threads.submit(() -> flight.execute("key", () -> {
+                calls.incrementAndGet();
+                await(release);
+                return "result";
+            }));
+            waitForCalls(calls, 1);
+            var follower = threads.submit(() -> flight.execute("key", () -> "own"));
+            waitForCollapsedCaller();
+            release.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+            assertThat(calls).hasValue(1);
+            assertThat(flight.collapsedCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void interruptedLeaderDoesNotFailWaitingCallers() throws Exception {
+        var calls = new AtomicInteger();
+        try (var threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            var leader = threads.submit(() -> flight.execute("key", () -> {
+                calls.incrementAndGet();
+                await(new CountDownLatch(1));
+                throw new IllegalStateException("aborted");
+            }));
+            waitForCalls(calls, 1);
+            var follower = threads.submit(() -> flight.execute("key", () -> {
+                calls.incrementAndGet();
+                return "own";
+            }));
+            waitForCollapsedCaller();
+
+            // As AsyncCalls does when the leader's endpoint times out
+            leader.cancel(true);
+
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("own");
+            assertThat(calls).hasValue(2);
+            assertThat(flight.collapsedCount()).isZero();
+        }
+    }
+
+    @Test
+    void interruptedFollowerStopsWaiting() throws Exception {
+        var release = new CountDownLatch(1);
+        var calls = new AtomicInteger();
+        try (var threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            var leader = threads.submit(() -> flight.execute("key", () -> {
+                calls.incrementAndGet();
+                await(release);
+                return "result";
+            }));
+            waitForCalls(calls, 1);
+            var stopped = new CountDownLatch(1);
+            var follower = threads.submit(() -> {
+                try {
+                    return flight.execute("key", () -> "own");
+                } finally {
+                    stopped.countDown();
+                }
+            });
+            waitForCollapsedCaller();
+
+            follower.cancel(true);
+
+            assertThat(stopped.await(5, TimeUnit.SECONDS)).isTrue();
+            release.countDown();
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        }
+    }
+
+    private static void waitForCalls(AtomicInteger calls, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (calls.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(calls).hasValue(expected);
+    }
+
+    /** A second caller has had time to find the leader and start waiting. */
+    private static void waitForCollapsedCaller() throws InterruptedException {
+        Thread.sleep(100);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.azopenai.client;
+
+import com.example.azopenai.StubHttpServer;
+import com.example.azopenai.StubHttpServer.Response;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class ThrottleAwareErrorHandlerTest {
+
+    @Test
+    void throttledResponseCarriesRetryAfterSeconds() {
+        try (var stub = new StubHttpServer(request -> Response.status(429, Map.of("Retry-After", "2")))) {
+            assertThatThrownBy(() -> call(stub))
+                    .isInstanceOfSatisfying(ProviderThrottledException.class,
+                            e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(2)));
+        }
+    }
+
+    @Test
+    void retryAfterMsTakesPrecedence() {
+        try (var stub = new StubHttpServer(request -> Response.status(429,
+                Map.of("Retry-After", "2", "retry-after-ms", "150")))) {
+            assertThatThrownBy(() -> call(stub))
+                    .isInstanceOfSatisfying(ProviderThrottledException.class,
+                            e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofMillis(150)));
+        }
+    }
+
+    @Test
+    void otherClientErrorsArePermanent() {
+        try (var stub = new StubHttpServer(request -> Response.status(400, Map.of("Retry-After", "1")))) {
+            Throwable error = catchThrowable(() -> call(stub));
+
+            assertThat(error).isNotNull().isNotInstanceOf(ProviderThrottledException.class);
+            assertThat(ProviderErrors.classify(error)).isEqualTo(ProviderErrors.Kind.PERMANENT);
+        }
+    }
+
+    static String call(StubHttpServer stub) {
+        return RestClient.builder()
+                .baseUrl(stub.baseUrl())
+                .defaultStatusHandler(new ThrottleAwareErrorHandler())
+                .build()
+                .post().uri("/v1/embeddings")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{}")
+                .retrieve()
+                .body(String.class);
+    }
+}
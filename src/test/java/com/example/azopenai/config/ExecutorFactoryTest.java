@@ -0,0 +1,85 @@
+package com.example.azopenai.config;
+
+import com.example.azopenai.client.ConcurrencyLimitExceededException;
+import com.example.azopenai.service.AsyncCalls;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExecutorFactoryTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorFactory factory = new ExecutorFactory(false, 2);
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        factory.shutdown();
+    }
+
+    @Test
+    void platformExecutorRejectsBeyondMaxThreads() throws InterruptedException {
+        var executor = factory.executor("test");
+        var started = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            executor.execute(() -> {
+                started.countDown();
+                await(release);
+            });
+        }
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> executor.execute(() -> { }))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void boundedExecutorQueuesBeyondMaxThreads() throws InterruptedException {
+        var executor = factory.boundedExecutor("test", 1);
+        var running = new AtomicInteger();
+        var peak = new AtomicInteger();
+        var done = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                await(release);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+        release.countDown();
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(peak).hasValue(1);
+    }
+
+    @Test
+    void asyncCallFailsWithConcurrencyLimitWhenThreadsAreBusy() {
+        var calls = new AsyncCalls(factory, new AsyncProperties());
+        calls.supply(() -> await(release));
+        calls.supply(() -> await(release));
+
+        var rejected = calls.supply(() -> "never");
+
+        assertThatThrownBy(rejected::get)
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(ConcurrencyLimitExceededException.class);
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.StubHttpServer;
+import com.example.azopenai.StubHttpServer.Response;
+import com.example.azopenai.client.ClientGuard;
+import com.example.azopenai.client.TokenEmbeddingClient;
+import com.example.azopenai.client.TokenEmbeddingsUnsupportedException;
+import com.example.azopenai.config.AiProperties;
+import com.example.azopenai.config.AsyncProperties;
+import com.example.azopenai.config.ColbertProperties;
+import com.example.azopenai.config.ColbertProperties.Encoder;
+import com.example.azopenai.config.CollectionSchemaProperties;
+import com.example.azopenai.config.ExecutorFactory;
+import com.example.azopenai.config.PipelineMetrics;
+import com.example.azopenai.config.WriteBatchingProperties;
+import com.example.azopenai.tokenizer.TokenBuffer;
+import com.example.azopenai.tokenizer.Tokenizer;
+import com.example.azopenai.tokenizer.WordPieceTokenizer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.client.RestClient;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ColbertServiceTest {
+
+    private static final List<String> VOCABULARY = List.of(
+            "[UNK]", "late", "-", "interaction", "retrieval", ":", "42", "naive", "queries", ",", "re", "ranked",
+            "!", "scoring", "##s");
+    private static final String TEXT = "Late interaction scorings";
+
+    private final JsonMapper json = JsonMapper.builder().build();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorFactory executors = new ExecutorFactory(false, 16);
+    private final EmbeddingModel embeddingModel = mock(EmbeddingModel.class);
+    private final ColbertProperties props = new ColbertProperties();
+    private final Tokenizer local = new WordPieceTokenizer(VOCABULARY, true);
+
+    ColbertServiceTest() {
+        props.setEnabled(true);
+        when(embeddingModel.embed(anyString())).thenReturn(new float[] {-1, 0});
+    }
+
+    @AfterEach
+    void shutdown() {
+        executors.shutdown();
+    }
+
+    @Test
+    void localIdsAreSentWhenTheServedVocabularyMatches() {
+        try (var stub = llamaCpp(local)) {
+            var colbert = service(stub);
+
+            List<float[]> first = colbert.encodeTokens(TEXT);
+            colbert.encodeTokens(TEXT);
+
+            assertThat(paths(stub)).containsExactly("/tokenize", "/embedding", "/embedding");
+            assertThat(stub.requests().getFirst().body()).contains(ColbertService.VOCABULARY_PROBE);
+            assertThat(first).extracting(vector -> (int) vector[0]).containsExactly(ids(local, TEXT));
+        }
+    }
+
+    @Test
+    void servedTokenizationIsUsedWhenTheVocabularyDiffers() {
+        var served = new WordPieceTokenizer(VOCABULARY.reversed(), true);
+        try (var stub = llamaCpp(served)) {
+            var colbert = service(stub);
+
+            List<float[]> first = colbert.encodeTokens(TEXT);
+            colbert.encodeTokens(TEXT);
+
+            assertThat(paths(stub)).containsExactly("/tokenize", "/tokenize", "/embedding", "/tokenize", "/embedding");
+            assertThat(first).extracting(vector -> (int) vector[0]).containsExactly(ids(served, TEXT));
+        }
+    }
+
+    @Test
+    void autoFallsBackToPerTokenCallsOn404() {
+        try (var stub = new StubHttpServer(request -> Response.status(404, Map.of()))) {
+            var colbert = service(stub);
+
+            List<float[]> first = colbert.encodeTokens(TEXT);
+            colbert.encodeTokens(TEXT);
+
+            assertThat(stub.requests()).hasSize(1);
+            assertThat(first).hasSize(4).allSatisfy(vector -> assertThat(vector).containsExactly(-1, 0));
+            verify(embeddingModel, times(8)).embed(anyString());
+        }
+    }
+
+    @Test
+    void contextualEncoderFailsOn404() {
+        props.setEncoder(Encoder.CONTEXTUAL);
+        try (var stub = new StubHttpServer(request -> Response.status(404, Map.of()))) {
+            var colbert = service(stub);
+
+            assertThatThrownBy(() -> colbert.encodeTokens(TEXT))
+                    .isInstanceOf(TokenEmbeddingsUnsupportedException.class);
+        }
+    }
+
+    private ColbertService service(StubHttpServer stub) {
+        var cfg = new AiProperties.ModelConfig();
+        cfg.setProvider("openai");
+        var client = new TokenEmbeddingClient(stub.baseUrl(), 512, RestClient.builder(),
+                new ClientGuard("token-embedding", "stub", cfg, registry));
+        @SuppressWarnings("unchecked")
+        ObjectProvider<TokenEmbeddingClient> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(client);
+        var writeBatching = new WriteBatchingProperties();
+        writeBatching.setEnabled(false);
+
+        return new ColbertService(embeddingModel, executors, new AsyncCalls(executors, new AsyncProperties()),
+                new PipelineMetrics(ObservationRegistry.NOOP, registry, new AiProperties()),
+                mock(ShardRouter.class), mock(QdrantCollections.class), local, props, provider, writeBatching,
+                new CollectionSchemaProperties(), mock(WriteGate.class), registry);
+    }
+
+    /** llama.cpp {@code /tokenize} with the {@code served} vocabulary, and {@code /embedding} rows {@code [id, 1]}. */
+    private StubHttpServer llamaCpp(Tokenizer served) {
+        return new StubHttpServer(request -> {
+            JsonNode body = json.readTree(request.body());
+            if (request.path().equals("/tokenize")) {
+                String content = body.path("content").asString();
+                var buffer = new TokenBuffer();
+                served.encode(content, buffer);
+                List<String> pieces = served.texts(content, buffer);
+                List<Map<String, Object>> tokens = new ArrayList<>();
+                for (int i = 0; i < buffer.size(); i++) {
+                    tokens.add(Map.of("id", buffer.id(i), "piece", pieces.get(i)));
+                }
+                return Response.json(json.writeValueAsString(Map.of("tokens", tokens)));
+            }
+            List<Map<String, Object>> results = new ArrayList<>();
+            JsonNode prompts = body.path("content");
+            for (int p = 0; p < prompts.size(); p++) {
+                List<float[]> rows = new ArrayList<>();
+                prompts.get(p).forEach(id -> rows.add(new float[] {id.asInt(), 1}));
+                results.add(Map.of("index", p, "embedding", rows));
+            }
+            return Response.json(json.writeValueAsString(results));
+        });
+    }
+
+    private static List<String> paths(StubHttpServer stub) {
+        return stub.requests().stream().map(StubHttpServer.Request::path).toList();
+    }
+
+    private static Integer[] ids(Tokenizer tokenizer, String text) {
+        var buffer = new TokenBuffer();
+        tokenizer.encode(text, buffer);
+        return Arrays.stream(buffer.ids()).boxed().toArray(Integer[]::new);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.service.DocumentSearch.SearchHit;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocumentSearchTest {
+
+    @Test
+    void mergeTakesTheBestOfEachRanking() {
+        var merged = DocumentSearch.merge(List.of(
+                List.of(hit("a", 0.9), hit("c", 0.5)),
+                List.of(hit("b", 0.7), hit("d", 0.3))), 3);
+
+        assertThat(merged.hits()).extracting(SearchHit::documentId).containsExactly("a", "b", "c");
+        assertThat(merged.taken()).containsExactly(2, 1);
+    }
+
+    @Test
+    void documentOnTwoShardsTakesOneSlotWithItsBestScore() {
+        // A tenant read from its current and previous shard mid-rebalance
+        var merged = DocumentSearch.merge(List.of(
+                List.of(hit("a", 0.9), hit("moved", 0.8), hit("c", 0.4)),
+                List.of(hit("moved", 0.85), hit("b", 0.6))), 3);
+
+        assertThat(merged.hits()).extracting(SearchHit::documentId).containsExactly("a", "moved", "b");
+        assertThat(merged.hits().get(1).score()).isEqualTo(0.85);
+        assertThat(merged.taken()).containsExactly(2, 2);
+    }
+
+    @Test
+    void copyHeadingARankingAfterAFullPageIsConsumed() {
+        var merged = DocumentSearch.merge(List.of(
+                List.of(hit("a", 0.9), hit("b", 0.8)),
+                List.of(hit("a", 0.9), hit("c", 0.1))), 1);
+
+        assertThat(merged.hits()).extracting(SearchHit::documentId).containsExactly("a");
+        // The next page starts after both copies
+        assertThat(merged.taken()).containsExactly(1, 1);
+    }
+
+    private static SearchHit hit(String id, double score) {
+        return new SearchHit(id, "text " + id, Map.of(), score, List.of());
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.config.IngestionProperties;
+import com.example.azopenai.service.ImageIngestionService.ImageSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImageArchiveTest {
+
+    private final IngestionProperties props = new IngestionProperties();
+
+    @Test
+    void listsImagesAndReadsThemOnDemand() throws IOException {
+        var entries = new LinkedHashMap<String, byte[]>();
+        entries.put("a.png", new byte[] {1, 2, 3});
+        entries.put("notes.txt", new byte[] {4});
+        entries.put("dir/b.jpg", new byte[] {5, 6});
+
+        try (var archive = ImageArchive.open(zip(entries), props)) {
+            List<ImageSource> images = archive.images();
+
+            assertThat(images).extracting(ImageSource::name).containsExactly("a.png", "dir/b.jpg");
+            assertThat(images).extracting(ImageSource::mimeType).containsExactly("image/png", "image/jpeg");
+            assertThat(images.get(1).bytes()).containsExactly(5, 6);
+        }
+    }
+
+    @Test
+    void rejectsTooManyEntries() {
+        props.setMaxArchiveEntries(2);
+        var entries = Map.of("a.png", new byte[1], "b.png", new byte[1], "c.png", new byte[1]);
+
+        assertThatThrownBy(() -> ImageArchive.open(zip(entries), props))
+                .isInstanceOf(UploadTooLargeException.class);
+    }
+
+    @Test
+    void rejectsOversizedEntry() {
+        props.setMaxEntrySize(DataSize.ofBytes(10));
+
+        assertThatThrownBy(() -> ImageArchive.open(zip(Map.of("a.png", new byte[11])), props))
+                .isInstanceOf(UploadTooLargeException.class);
+    }
+
+    @Test
+    void rejectsOversizedTotal() {
+        props.setMaxArchiveSize(DataSize.ofBytes(15));
+        var entries = Map.of("a.png", new byte[10], "b.png", new byte[10]);
+
+        assertThatThrownBy(() -> ImageArchive.open(zip(entries), props))
+                .isInstanceOf(UploadTooLargeException.class);
+    }
+
+    @Test
+    void rejectsNonZipContent() {
+        assertThatThrownBy(() -> ImageArchive.open(new ByteArrayInputStream(new byte[] {1, 2, 3}), props))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ByteArrayInputStream zip(Map<String, byte[]> entries) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var zip = new ZipOutputStream(out)) {
+            for (var entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
+        }
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+}
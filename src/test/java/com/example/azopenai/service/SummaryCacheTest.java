@@ -0,0 +1,55 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.config.SummaryCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SummaryCacheTest {
+
+    private final SummaryCacheProperties props = new SummaryCacheProperties();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final EmbeddingModel embeddingModel = mock(EmbeddingModel.class);
+
+    SummaryCacheTest() {
+        props.setEnabled(true);
+        when(embeddingModel.embed(anyString())).thenReturn(new float[] {1, 0, 0});
+    }
+
+    @Test
+    void exactHitIsServed() {
+        var cache = new SummaryCache(props, embeddingModel, registry);
+        cache.put(cache.lookup("Some  text", null), "summary");
+
+        var lookup = cache.lookup("Some text", null);
+
+        assertThat(lookup.isHit()).isTrue();
+        assertThat(lookup.summary()).isEqualTo("summary");
+        assertThat(lookups("exact-hit")).isEqualTo(1);
+    }
+
+    @Test
+    void exactHitInShadowModeIsCountedButNotServed() {
+        props.setShadow(true);
+        var cache = new SummaryCache(props, embeddingModel, registry);
+        cache.put(cache.lookup("Some text", null), "summary");
+
+        var lookup = cache.lookup("Some text", null);
+        cache.put(lookup, "fresh summary");
+
+        assertThat(lookup.isHit()).isFalse();
+        assertThat(lookups("shadow-hit")).isEqualTo(1);
+        assertThat(registry.find("summary.cache.lookups").tag("result", "exact-hit").counter()).isNull();
+        // The refreshed entry keeps its vector, so near-duplicates still find it
+        assertThat(cache.lookup("Some other text", null).similarity()).isEqualTo(1.0);
+    }
+
+    private double lookups(String result) {
+        return registry.get("summary.cache.lookups").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.azopenai.service;
+
+import com.example.azopenai.config.ExecutorFactory;
+import com.example.azopenai.config.WriteBatchingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteBatcherTest {
+
+    private final WriteBatchingProperties props = new WriteBatchingProperties();
+    private final ExecutorFactory executors = new ExecutorFactory(false, 16);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    WriteBatcherTest() {
+        props.setWindow(Duration.ofMillis(20));
+        props.setConcurrency(1);
+    }
+
+    @AfterEach
+    void shutdown() {
+        executors.shutdown();
+    }
+
+    private WriteBatcher<String, String> batcher(Function<List<String>, List<String>> writer) {
+        return new WriteBatcher<>("test", writer, props, executors, registry);
+    }
+
+    @Test
+    void concurrentWritesShareABatch() {
+        List<List<String>> batches = new ArrayList<>();
+        var batcher = batcher(items -> {
+            batches.add(items);
+            return items.stream().map(String::toUpperCase).toList();
+        });
+
+        var a = batcher.submit("a");
+        var b = batcher.submit("b");
+
+        assertThat(a.join()).isEqualTo("A");
+        assertThat(b.join()).isEqualTo("B");
+        assertThat(batches).containsExactly(List.of("a", "b"));
+        assertThat(registry.get("write.batch.size").summary().count()).isEqualTo(1);
+    }
+
+    @Test
+    void badDocumentFailsOnlyItsOwnWrite() {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        var batcher = batcher(items -> {
+            batches.add(items);
+            if (items.contains("bad")) {
+                throw new IllegalArgumentException("input too long");
+            }
+            return items.stream().map(String::toUpperCase).toList();
+        });
+
+        var a = batcher.submit("a");
+        var bad = batcher.submit("bad");
+        var c = batcher.submit("c");
+
+        assertThat(a.join()).isEqualTo("A");
+        assertThat(c.join()).isEqualTo("C");
+        assertThat(bad).failsWithin(Duration.ofSeconds(5))
+                .withThrowableThat().havingRootCause().isInstanceOf(IllegalArgumentException.class);
+        assertThat(batches.getFirst()).containsExactly("a", "bad", "c");
+    }
+
+    @Test
+    void storeNotReadyFailsTheBatchWithoutRetries() {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        var batcher = batcher(items -> {
+            batches.add(items);
+            throw new StoreNotReadyException("initializing");
+        });
+
+        var a = batcher.submit("a");
+        var b = batcher.submit("b");
+
+        assertThat(a).failsWithin(Duration.ofSeconds(5));
+        assertThat(b).failsWithin(Duration.ofSeconds(5));
+        assertThat(batches).containsExactly(List.of("a", "b"));
+    }
+
+    @Test
+    void errorInWriterFailsTheBatch() {
+        var batcher = batcher(items -> {
+            throw new AssertionError("broken writer");
+        });
+
+        var result = batcher.submit("a");
+
+        assertThat(result).failsWithin(Duration.ofSeconds(5))
+                .withThrowableThat().havingRootCause().isInstanceOf(AssertionError.class);
+    }
+
+    @Test
+    void shutdownFailsQueuedAndDroppedBatches() throws InterruptedException {
+        props.setMaxBatchSize(1);
+        var writing = new CountDownLatch(1);
+        var batcher = batcher(items -> {
+            writing.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("interrupted");
+        });
+
+        var running = batcher.submit("a");
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        // Waits in the write executor's queue behind the running batch
+        var queued = batcher.submit("b");
+        Thread.sleep(50);
+
+        executors.shutdown();
+
+        assertThat(running).failsWithin(Duration.ofSeconds(5));
+        assertThat(queued).failsWithin(Duration.ofSeconds(5))
+                .withThrowableThat().havingRootCause().isInstanceOf(StoreNotReadyException.class);
+    }
+
+    @Test
+    void submitAfterShutdownFails() {
+        var batcher = batcher(Function.identity());
+        executors.shutdown();
+
+        CompletableFuture<String> result = CompletableFuture.completedFuture(null);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        // The first submits may still reach the queue before the collector stops; they fail as it exits
+        while (System.nanoTime() < deadline) {
+            result = batcher.submit("late");
+            if (result.isCompletedExceptionally()) {
+                break;
+            }
+            assertThat(result).failsWithin(Duration.ofSeconds(5));
+        }
+
+        assertThat(result).isCompletedExceptionally();
+    }
+}